@@ -0,0 +1,52 @@
+package org.zszq.dto;
+
+import lombok.Data;
+
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * 游标分页结果
+ * 不查询总数；客户端用 nextCursor 请求下一页，为 null 表示没有更多数据
+ */
+@Data
+public class CursorPage<T> {
+
+    private List<T> content;
+    private int size;
+    private boolean hasNext;
+    private String nextCursor;
+
+    /**
+     * 由多查询一条的结果构造：查到 size + 1 条说明还有下一页，游标取本页最后一条
+     */
+    public static <T> CursorPage<T> of(List<T> rows, int size, Function<T, String> cursorOf) {
+        if (size <= 0) {
+            throw new IllegalArgumentException("每页大小必须大于0");
+        }
+        CursorPage<T> page = new CursorPage<>();
+        page.setHasNext(rows.size() > size);
+        page.setContent(page.isHasNext() ? List.copyOf(rows.subList(0, size)) : rows);
+        page.setSize(page.getContent().size());
+        page.setNextCursor(page.isHasNext() ? cursorOf.apply(page.getContent().get(size - 1)) : null);
+        return page;
+    }
+
+    public static <T> CursorPage<T> of(List<T> content, String nextCursor) {
+        CursorPage<T> page = new CursorPage<>();
+        page.setContent(content);
+        page.setSize(content.size());
+        page.setHasNext(nextCursor != null);
+        page.setNextCursor(nextCursor);
+        return page;
+    }
+
+    public <R> CursorPage<R> map(Function<T, R> mapper) {
+        CursorPage<R> page = new CursorPage<>();
+        page.setContent(content.stream().map(mapper).toList());
+        page.setSize(size);
+        page.setHasNext(hasNext);
+        page.setNextCursor(nextCursor);
+        return page;
+    }
+}
@@ -0,0 +1,70 @@
+package org.zszq.util;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.time.temporal.ChronoUnit;
+import java.util.Base64;
+
+/**
+ * 游标编解码
+ * 游标是排序键与ID的组合，经 Base64URL 编码后对客户端不透明；时间类排序键按微秒保存，与数据库精度一致，
+ * 相关度得分按 double 的位模式保存，解码后与原值完全相等
+ */
+public final class CursorCodec {
+
+    /**
+     * 按时间降序翻页时第一页使用的上界
+     */
+    public static final LocalDateTime MAX_TIME = LocalDateTime.of(9999, 12, 31, 0, 0);
+
+    private CursorCodec() {
+    }
+
+    /**
+     * 游标位置：上一页最后一条记录的排序键和ID
+     */
+    public record Position(long key, long id) {
+
+        public LocalDateTime time() {
+            return LocalDateTime.ofEpochSecond(Math.floorDiv(key, 1_000_000L),
+                    (int) Math.floorMod(key, 1_000_000L) * 1000, ZoneOffset.UTC);
+        }
+
+        public double score() {
+            return Double.longBitsToDouble(key);
+        }
+    }
+
+    public static String encode(long key, long id) {
+        String raw = key + ":" + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.US_ASCII));
+    }
+
+    public static String encode(LocalDateTime time, long id) {
+        long micros = ChronoUnit.MICROS.between(LocalDateTime.ofEpochSecond(0, 0, ZoneOffset.UTC), time);
+        return encode(micros, id);
+    }
+
+    public static String encodeScore(double score, long id) {
+        return encode(Double.doubleToLongBits(score), id);
+    }
+
+    /**
+     * 解码游标
+     *
+     * @return 游标为空时返回 null，表示从第一页开始
+     */
+    public static Position decode(String cursor) {
+        if (cursor == null || cursor.isBlank()) {
+            return null;
+        }
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.US_ASCII);
+            int separator = raw.indexOf(':');
+            return new Position(Long.parseLong(raw.substring(0, separator)), Long.parseLong(raw.substring(separator + 1)));
+        } catch (IllegalArgumentException | StringIndexOutOfBoundsException e) {
+            throw new RuntimeException("无效的游标");
+        }
+    }
+}
@@ -90,13 +90,80 @@ CREATE TABLE IF NOT EXISTS playlist_music (
     id BIGSERIAL PRIMARY KEY,
     playlist_id BIGINT NOT NULL,
     music_id BIGINT NOT NULL,
-    sort_order INTEGER NOT NULL,
+    sort_order BIGINT NOT NULL,
     added_by_id BIGINT NOT NULL,
     added_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
     FOREIGN KEY (playlist_id) REFERENCES playlists(id) ON DELETE CASCADE,
     FOREIGN KEY (music_id) REFERENCES music(id) ON DELETE CASCADE,
     UNIQUE(playlist_id, music_id)
 );
+-- 排序值为稀疏的 BIGINT（相邻间隔 2^20），已有库在此升级列类型；原有的连续编号在首次插入到两首之间时整体重新编号
+ALTER TABLE playlist_music ALTER COLUMN sort_order TYPE BIGINT;
+
+-- 上传暂存对象表（两阶段上传的outbox）
+CREATE TABLE IF NOT EXISTS staged_objects (
+    id BIGSERIAL PRIMARY KEY,
+    bucket VARCHAR(63) NOT NULL,
+    object_name VARCHAR(500) NOT NULL,
+    shared BOOLEAN NOT NULL DEFAULT FALSE,
+    created_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP
+);
+
+-- 内容寻址存储对象表（按SHA-256去重）
+CREATE TABLE IF NOT EXISTS storage_blobs (
+    id BIGSERIAL PRIMARY KEY,
+    bucket VARCHAR(63) NOT NULL,
+    content_hash VARCHAR(64) NOT NULL,
+    object_name VARCHAR(500) NOT NULL,
+    size BIGINT NOT NULL,
+    content_type VARCHAR(100),
+    ref_count BIGINT NOT NULL DEFAULT 0,
+    created_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    released_at TIMESTAMP,
+    CONSTRAINT uk_storage_blobs_hash UNIQUE (bucket, content_hash)
+);
+-- 引用计数归零的时间，清理任务在宽限期后删除对象；已有库在此补列
+ALTER TABLE storage_blobs ADD COLUMN IF NOT EXISTS released_at TIMESTAMP;
+
+-- 直传上传会话表
+CREATE TABLE IF NOT EXISTS upload_sessions (
+    id VARCHAR(36) PRIMARY KEY,
+    upload_user_id BIGINT NOT NULL,
+    music_object VARCHAR(500) NOT NULL,
+    music_content_type VARCHAR(100) NOT NULL,
+    music_size BIGINT NOT NULL,
+    music_upload_id VARCHAR(255),
+    music_staged_id BIGINT NOT NULL,
+    cover_object VARCHAR(500),
+    cover_content_type VARCHAR(100),
+    cover_size BIGINT,
+    cover_staged_id BIGINT,
+    status VARCHAR(20) NOT NULL DEFAULT 'PENDING',
+    music_id BIGINT,
+    expires_at TIMESTAMP NOT NULL,
+    created_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP
+);
+
+-- 独立听众草图表（HyperLogLog），每个对象每天一行，bucket_date 为 1970-01-01 的行累计全部时间
+CREATE TABLE IF NOT EXISTS listener_sketches (
+    id BIGSERIAL PRIMARY KEY,
+    target_type VARCHAR(20) NOT NULL,
+    target_id BIGINT NOT NULL,
+    bucket_date DATE NOT NULL,
+    sketch BYTEA NOT NULL,
+    updated_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    CONSTRAINT uk_listener_sketches_bucket UNIQUE (target_type, target_id, bucket_date)
+);
+
+-- 用户点赞表，同一用户对同一对象只有一行
+CREATE TABLE IF NOT EXISTS user_likes (
+    id BIGSERIAL PRIMARY KEY,
+    user_id BIGINT NOT NULL,
+    target_type VARCHAR(20) NOT NULL,
+    target_id BIGINT NOT NULL,
+    created_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    CONSTRAINT uk_user_likes_target UNIQUE (user_id, target_type, target_id)
+);
 
 -- 创建索引
 CREATE INDEX IF NOT EXISTS idx_users_username ON users(username);
@@ -122,6 +189,72 @@ CREATE INDEX IF NOT EXISTS idx_playlist_music_playlist_id ON playlist_music(play
 CREATE INDEX IF NOT EXISTS idx_playlist_music_music_id ON playlist_music(music_id);
 CREATE INDEX IF NOT EXISTS idx_playlist_music_sort_order ON playlist_music(playlist_id, sort_order);
 
+-- 游标分页：排序键与ID组成的复合索引，按索引顺序定位下一页
+CREATE INDEX IF NOT EXISTS idx_users_created_at_id ON users(created_at DESC, id DESC);
+CREATE INDEX IF NOT EXISTS idx_music_upload_user_created ON music(upload_user_id, created_at DESC, id DESC);
+CREATE INDEX IF NOT EXISTS idx_music_approved_created ON music(created_at DESC, id DESC) WHERE status = 'APPROVED';
+CREATE INDEX IF NOT EXISTS idx_playlists_creator_created ON playlists(creator_id, created_at DESC, id DESC);
+CREATE INDEX IF NOT EXISTS idx_playlist_music_sort_order_id ON playlist_music(playlist_id, sort_order, id);
+
+CREATE INDEX IF NOT EXISTS idx_staged_objects_created_at ON staged_objects(created_at);
+CREATE INDEX IF NOT EXISTS idx_storage_blobs_object_name ON storage_blobs(bucket, object_name);
+CREATE INDEX IF NOT EXISTS idx_storage_blobs_released_at ON storage_blobs(released_at) WHERE ref_count = 0;
+CREATE INDEX IF NOT EXISTS idx_upload_sessions_expires_at ON upload_sessions(expires_at);
+CREATE INDEX IF NOT EXISTS idx_listener_sketches_bucket_date ON listener_sketches(bucket_date);
+
+-- 全文检索与模糊匹配
+-- search_vector 由触发器维护，标题、名称权重最高；中文等无空格分隔的文本依赖 pg_trgm 三元组索引，
+-- 需要数据库的 LC_CTYPE 为 UTF-8 区域（非 C），否则非ASCII字符不会生成三元组
+CREATE EXTENSION IF NOT EXISTS pg_trgm;
+
+ALTER TABLE music ADD COLUMN IF NOT EXISTS search_vector TSVECTOR;
+ALTER TABLE playlists ADD COLUMN IF NOT EXISTS search_vector TSVECTOR;
+
+CREATE OR REPLACE FUNCTION music_search_vector_update() RETURNS TRIGGER AS $$
+BEGIN
+    NEW.search_vector :=
+        setweight(to_tsvector('simple', COALESCE(NEW.title, '')), 'A') ||
+        setweight(to_tsvector('simple', COALESCE(NEW.artist, '')), 'B') ||
+        setweight(to_tsvector('simple', COALESCE(NEW.album, '')), 'C');
+    RETURN NEW;
+END
+$$ LANGUAGE plpgsql;
+
+CREATE OR REPLACE FUNCTION playlists_search_vector_update() RETURNS TRIGGER AS $$
+BEGIN
+    NEW.search_vector :=
+        setweight(to_tsvector('simple', COALESCE(NEW.name, '')), 'A') ||
+        setweight(to_tsvector('simple', COALESCE(NEW.description, '')), 'B');
+    RETURN NEW;
+END
+$$ LANGUAGE plpgsql;
+
+-- 只在检索字段变化时重新计算，播放量等计数更新不受影响
+DROP TRIGGER IF EXISTS trg_music_search_vector ON music;
+CREATE TRIGGER trg_music_search_vector
+    BEFORE INSERT OR UPDATE OF title, artist, album ON music
+    FOR EACH ROW EXECUTE FUNCTION music_search_vector_update();
+
+DROP TRIGGER IF EXISTS trg_playlists_search_vector ON playlists;
+CREATE TRIGGER trg_playlists_search_vector
+    BEFORE INSERT OR UPDATE OF name, description ON playlists
+    FOR EACH ROW EXECUTE FUNCTION playlists_search_vector_update();
+
+-- 回填已有数据
+UPDATE music SET title = title WHERE search_vector IS NULL;
+UPDATE playlists SET name = name WHERE search_vector IS NULL;
+
+-- 查询条件固定包含审核状态和可见性，使用部分索引只覆盖可被搜索到的行
+CREATE INDEX IF NOT EXISTS idx_music_search_vector ON music USING GIN (search_vector) WHERE status = 'APPROVED';
+CREATE INDEX IF NOT EXISTS idx_music_title_trgm ON music USING GIN (title gin_trgm_ops) WHERE status = 'APPROVED';
+CREATE INDEX IF NOT EXISTS idx_music_artist_trgm ON music USING GIN (artist gin_trgm_ops) WHERE status = 'APPROVED';
+CREATE INDEX IF NOT EXISTS idx_music_album_trgm ON music USING GIN (album gin_trgm_ops) WHERE status = 'APPROVED';
+CREATE INDEX IF NOT EXISTS idx_music_genre_trgm ON music USING GIN (genre gin_trgm_ops) WHERE status = 'APPROVED';
+
+CREATE INDEX IF NOT EXISTS idx_playlists_search_vector ON playlists USING GIN (search_vector) WHERE visibility = 'PUBLIC';
+CREATE INDEX IF NOT EXISTS idx_playlists_name_trgm ON playlists USING GIN (name gin_trgm_ops) WHERE visibility = 'PUBLIC';
+CREATE INDEX IF NOT EXISTS idx_playlists_description_trgm ON playlists USING GIN (description gin_trgm_ops) WHERE visibility = 'PUBLIC';
+
 -- 插入示例数据（可选）
 -- 插入管理员用户
 INSERT INTO users (username, password, email, nickname, role) 
@@ -142,4 +275,8 @@ COMMENT ON TABLE users IS '用户表';
 COMMENT ON TABLE file_metadata IS '文件元数据表';
 COMMENT ON TABLE music IS '音乐表';
 COMMENT ON TABLE playlists IS '播放列表表';
-COMMENT ON TABLE playlist_music IS '播放列表音乐关联表';
\ No newline at end of file
+COMMENT ON TABLE playlist_music IS '播放列表音乐关联表';
+COMMENT ON TABLE staged_objects IS '上传暂存对象表';
+COMMENT ON TABLE storage_blobs IS '内容寻址存储对象表';
+COMMENT ON TABLE listener_sketches IS '独立听众草图表';
+COMMENT ON TABLE user_likes IS '用户点赞表';
\ No newline at end of file
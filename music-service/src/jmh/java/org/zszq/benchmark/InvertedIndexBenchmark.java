@@ -0,0 +1,159 @@
+package org.zszq.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.zszq.util.InvertedIndex;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 关键词搜索：内存倒排索引 vs 原来的 JPQL LIKE 查询
+ * 两边使用同一份合成曲库和同一组查询词。对照组是 MusicRepository.searchByKeyword 生成的 SQL：
+ * 三个字段 LOWER(...) LIKE '%kw%'，按创建时间倒序取一页，另加 Page 需要的 COUNT 查询，在 H2 内存库中执行。
+ * H2 与 PostgreSQL 的绝对耗时不同，但前导通配符都无法走索引、都要全表扫描，量级关系一致
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgs = "-Xmx2g")
+public class InvertedIndexBenchmark {
+
+    private static final float[] FIELD_WEIGHTS = {3f, 2f, 1f};
+    private static final int PAGE_SIZE = 20;
+    private static final int QUERIES = 256;
+
+    private static final String LIKE_SQL = "SELECT id, title, artist, album FROM music WHERE status = 'APPROVED' AND " +
+            "(LOWER(title) LIKE LOWER(CONCAT('%', ?, '%')) OR LOWER(artist) LIKE LOWER(CONCAT('%', ?, '%')) " +
+            "OR LOWER(album) LIKE LOWER(CONCAT('%', ?, '%'))) ORDER BY created_at DESC LIMIT " + PAGE_SIZE;
+    private static final String COUNT_SQL = "SELECT COUNT(*) FROM music WHERE status = 'APPROVED' AND " +
+            "(LOWER(title) LIKE LOWER(CONCAT('%', ?, '%')) OR LOWER(artist) LIKE LOWER(CONCAT('%', ?, '%')) " +
+            "OR LOWER(album) LIKE LOWER(CONCAT('%', ?, '%')))";
+
+    @Param("100000")
+    public int tracks;
+
+    private InvertedIndex index;
+    private Connection connection;
+    private PreparedStatement likeStatement;
+    private PreparedStatement countStatement;
+    private String[] queries;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setUp() throws SQLException {
+        List<SyntheticCatalog.Track> catalog = SyntheticCatalog.generate(tracks, 42);
+
+        index = new InvertedIndex(1.2f, 0.75f);
+        for (SyntheticCatalog.Track track : catalog) {
+            index.put(track.id(), new String[]{track.title(), track.artist(), track.album()}, FIELD_WEIGHTS);
+        }
+
+        connection = DriverManager.getConnection("jdbc:h2:mem:bench_" + tracks + ";DB_CLOSE_DELAY=-1");
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("DROP TABLE IF EXISTS music");
+            statement.execute("CREATE TABLE music (id BIGINT PRIMARY KEY, title VARCHAR(200), artist VARCHAR(100), " +
+                    "album VARCHAR(100), status VARCHAR(20), created_at TIMESTAMP)");
+            statement.execute("CREATE INDEX idx_music_title ON music(title)");
+            statement.execute("CREATE INDEX idx_music_artist ON music(artist)");
+        }
+        connection.setAutoCommit(false);
+        try (PreparedStatement insert = connection.prepareStatement("INSERT INTO music VALUES (?, ?, ?, ?, 'APPROVED', ?)")) {
+            long createdAt = System.currentTimeMillis();
+            for (SyntheticCatalog.Track track : catalog) {
+                insert.setLong(1, track.id());
+                insert.setString(2, track.title());
+                insert.setString(3, track.artist());
+                insert.setString(4, track.album());
+                insert.setTimestamp(5, new Timestamp(createdAt - track.id() * 1000));
+                insert.addBatch();
+                if (track.id() % 1000 == 0) {
+                    insert.executeBatch();
+                }
+            }
+            insert.executeBatch();
+        }
+        connection.commit();
+        likeStatement = connection.prepareStatement(LIKE_SQL);
+        countStatement = connection.prepareStatement(COUNT_SQL);
+
+        // 查询词取自曲库本身：标题片段、歌手名、专辑名，保证两边都有命中
+        Random random = new Random(7);
+        queries = new String[QUERIES];
+        for (int i = 0; i < QUERIES; i++) {
+            SyntheticCatalog.Track track = catalog.get(random.nextInt(catalog.size()));
+            queries[i] = switch (i % 3) {
+                case 0 -> titleWord(track.title());
+                case 1 -> track.artist();
+                default -> track.album();
+            };
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws SQLException {
+        connection.close();
+    }
+
+    @Benchmark
+    public InvertedIndex.SearchHits index() {
+        return index.search(nextQuery(), 0, PAGE_SIZE);
+    }
+
+    @Benchmark
+    public void jpqlLike(Blackhole blackhole) throws SQLException {
+        String query = nextQuery();
+        for (int i = 1; i <= 3; i++) {
+            likeStatement.setString(i, query);
+            countStatement.setString(i, query);
+        }
+        List<Long> ids = new ArrayList<>(PAGE_SIZE);
+        try (ResultSet rows = likeStatement.executeQuery()) {
+            while (rows.next()) {
+                ids.add(rows.getLong(1));
+            }
+        }
+        try (ResultSet count = countStatement.executeQuery()) {
+            count.next();
+            blackhole.consume(count.getLong(1));
+        }
+        blackhole.consume(ids);
+    }
+
+    /**
+     * 英文标题取第一个单词，中文标题取前两个字
+     */
+    private static String titleWord(String title) {
+        String first = title.split(" ")[0];
+        return first.chars().allMatch(c -> c < 128) ? first : first.substring(0, 2);
+    }
+
+    private String nextQuery() {
+        String query = queries[next];
+        next = (next + 1) % QUERIES;
+        return query;
+    }
+}
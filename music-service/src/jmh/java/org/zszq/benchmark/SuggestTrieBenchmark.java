@@ -0,0 +1,123 @@
+package org.zszq.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.zszq.util.PinyinConverter;
+import org.zszq.util.SuggestTrie;
+
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 前缀补全字典树的重建、增量写入和查询耗时
+ * 文档按 MusicSuggestService 的方式写入：标题、歌手、专辑三个字段，权重为播放量加一，播放量按长尾分布生成。
+ * bulkLoad 是定时重建的路径（批量插入后一次计算前K），incrementalLoad 逐条增量写入同一份曲库作对照，
+ * replace 是音乐变更事件触发的单条替换，suggest 查询一到三个字符的中文、拼音首字母和英文前缀
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgs = "-Xmx4g")
+public class SuggestTrieBenchmark {
+
+    private static final int TOP_K = 10;
+    private static final int QUERIES = 1024;
+
+    @Param({"10000", "100000"})
+    public int tracks;
+
+    private List<SyntheticCatalog.Track> catalog;
+    private long[] weights;
+    private SuggestTrie trie;
+    private String[] prefixes;
+    private Random random;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        catalog = SyntheticCatalog.generate(tracks, 42);
+        random = new Random(7);
+        weights = new long[catalog.size()];
+        for (int i = 0; i < weights.length; i++) {
+            weights[i] = 10_000 / (1 + random.nextInt(10_000)) + 1;
+        }
+        trie = bulkLoad();
+
+        prefixes = new String[QUERIES];
+        for (int i = 0; i < QUERIES; i++) {
+            SyntheticCatalog.Track track = catalog.get(random.nextInt(catalog.size()));
+            String text = switch (i % 3) {
+                case 0 -> track.title();
+                case 1 -> track.artist();
+                default -> {
+                    PinyinConverter.Pinyin pinyin = PinyinConverter.convert(track.title());
+                    yield pinyin != null ? pinyin.initials() : track.album();
+                }
+            };
+            prefixes[i] = text.substring(0, Math.min(text.length(), 1 + i % 3));
+        }
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    @Warmup(iterations = 1)
+    @Measurement(iterations = 3)
+    public SuggestTrie bulkLoad() {
+        SuggestTrie fresh = new SuggestTrie(TOP_K);
+        fresh.startBulkLoad();
+        for (int i = 0; i < catalog.size(); i++) {
+            put(fresh, i, weights[i]);
+        }
+        fresh.finishBulkLoad();
+        return fresh;
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    @Warmup(iterations = 1)
+    @Measurement(iterations = 3)
+    public SuggestTrie incrementalLoad() {
+        SuggestTrie fresh = new SuggestTrie(TOP_K);
+        for (int i = 0; i < catalog.size(); i++) {
+            put(fresh, i, weights[i]);
+        }
+        return fresh;
+    }
+
+    /**
+     * 播放量变化后替换单首歌曲，权重有增有减
+     */
+    @Benchmark
+    public void replace() {
+        int i = random.nextInt(catalog.size());
+        weights[i] = Math.max(1, weights[i] + random.nextInt(2001) - 1000);
+        put(trie, i, weights[i]);
+    }
+
+    @Benchmark
+    public List<SuggestTrie.Suggestion> suggest() {
+        String prefix = prefixes[next];
+        next = (next + 1) % QUERIES;
+        return trie.suggest(prefix, TOP_K);
+    }
+
+    private void put(SuggestTrie target, int index, long weight) {
+        SyntheticCatalog.Track track = catalog.get(index);
+        target.put(track.id(), new String[]{track.title(), track.artist(), track.album()}, weight);
+    }
+}
@@ -0,0 +1,160 @@
+package org.zszq.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.zszq.util.SymSpellDictionary;
+import org.zszq.util.TextTokenizer;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 拼写纠错词典在百万曲目规模下的查询耗时
+ * 词典按 MusicSpellService 的方式构建：标题、歌手、专辑逐个分词，过滤掉太短的词和纯数字，
+ * maxDistance=2、prefixLength=7，查询时短词（≤4个字符）只允许一处编辑。
+ * 分别测量命中原词、拼音/英文错一处、错两处、中文错一个字和完全无候选五种输入。
+ * 100 万曲目约 87 万个词语，词典占用约 2.2GB 堆，构建约 35 秒，因此 fork 使用 -Xmx4g
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgs = "-Xmx4g")
+public class SymSpellBenchmark {
+
+    private static final int MAX_DISTANCE = 2;
+    private static final int PREFIX_LENGTH = 7;
+    private static final int QUERIES = 1024;
+
+    @Param("1000000")
+    public int tracks;
+
+    private SymSpellDictionary dictionary;
+    private String[] exact;
+    private String[] oneEdit;
+    private String[] twoEdits;
+    private String[] chinese;
+    private String[] miss;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        dictionary = new SymSpellDictionary(MAX_DISTANCE, PREFIX_LENGTH);
+        Set<String> latinWords = new HashSet<>();
+        Set<String> chineseWords = new HashSet<>();
+        for (SyntheticCatalog.Track track : SyntheticCatalog.generate(tracks, 42)) {
+            List<String> words = new ArrayList<>();
+            for (String field : new String[]{track.title(), track.artist(), track.album()}) {
+                for (String word : TextTokenizer.words(field)) {
+                    if (indexable(word)) {
+                        words.add(word);
+                        (latin(word) ? latinWords : chineseWords).add(word);
+                    }
+                }
+            }
+            dictionary.put(track.id(), words);
+        }
+
+        Random random = new Random(7);
+        List<String> latin = latinWords.stream().filter(word -> word.length() >= 6).sorted().toList();
+        List<String> han = chineseWords.stream().filter(word -> word.length() >= 3).sorted().toList();
+        exact = new String[QUERIES];
+        oneEdit = new String[QUERIES];
+        twoEdits = new String[QUERIES];
+        chinese = new String[QUERIES];
+        miss = new String[QUERIES];
+        for (int i = 0; i < QUERIES; i++) {
+            String word = latin.get(random.nextInt(latin.size()));
+            exact[i] = i % 2 == 0 ? word : han.get(random.nextInt(han.size()));
+            oneEdit[i] = SyntheticCatalog.misspell(word, 1, random);
+            twoEdits[i] = SyntheticCatalog.misspell(word, 2, random);
+            chinese[i] = replaceOneCharacter(han.get(random.nextInt(han.size())), han, random);
+            miss[i] = randomLetters(random, 8);
+        }
+    }
+
+    @Benchmark
+    public SymSpellDictionary.Correction lookupExact() {
+        return lookup(exact);
+    }
+
+    @Benchmark
+    public SymSpellDictionary.Correction lookupOneEdit() {
+        return lookup(oneEdit);
+    }
+
+    @Benchmark
+    public SymSpellDictionary.Correction lookupTwoEdits() {
+        return lookup(twoEdits);
+    }
+
+    @Benchmark
+    public SymSpellDictionary.Correction lookupChinese() {
+        return lookup(chinese);
+    }
+
+    @Benchmark
+    public SymSpellDictionary.Correction lookupMiss() {
+        return lookup(miss);
+    }
+
+    private SymSpellDictionary.Correction lookup(String[] inputs) {
+        String input = inputs[next];
+        next = (next + 1) % QUERIES;
+        return dictionary.lookup(input, allowedDistance(input));
+    }
+
+    /**
+     * 与 MusicSpellService.indexable 一致
+     */
+    private static boolean indexable(String word) {
+        if (latin(word)) {
+            return word.length() >= 3 && !word.chars().allMatch(Character::isDigit);
+        }
+        return word.codePointCount(0, word.length()) >= 2;
+    }
+
+    /**
+     * 与 MusicSpellService.allowedDistance 一致
+     */
+    private static int allowedDistance(String word) {
+        return word.codePointCount(0, word.length()) <= 4 ? Math.min(1, MAX_DISTANCE) : MAX_DISTANCE;
+    }
+
+    private static boolean latin(String word) {
+        return word.chars().allMatch(c -> c < 128);
+    }
+
+    /**
+     * 把一个字换成曲库中出现过的另一个字，模拟同音字、形近字输错
+     */
+    private static String replaceOneCharacter(String word, List<String> pool, Random random) {
+        String donor = pool.get(random.nextInt(pool.size()));
+        StringBuilder builder = new StringBuilder(word);
+        builder.setCharAt(random.nextInt(builder.length()), donor.charAt(random.nextInt(donor.length())));
+        return builder.toString();
+    }
+
+    private static String randomLetters(Random random, int length) {
+        StringBuilder builder = new StringBuilder(length);
+        for (int i = 0; i < length; i++) {
+            builder.append((char) ('a' + random.nextInt(26)));
+        }
+        return builder.toString();
+    }
+}
@@ -0,0 +1,168 @@
+package org.zszq.benchmark;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+
+/**
+ * 基准测试用的合成曲库
+ * 按固定种子生成，同样的参数得到完全相同的曲库。歌手数为曲目数的 1/20，按 Zipf 分布抽取，少数热门歌手占大部分曲目；
+ * 歌手名中文、拼音各半。标题和专辑由常用二字词拼成，约两成标题是英文单词，与线上中文为主、夹杂英文的分布接近
+ */
+public final class SyntheticCatalog {
+
+    private static final String CHARACTERS =
+            "爱你我的心情人天空海风花雨夜月星光梦想时间回忆青春少年快乐幸福孤独寂寞眼泪微笑告白遇见离开等待永远明天" +
+            "昨天今天世界城市故乡远方旅行白色黑色红色蓝色夏天冬天春天秋天阳光彩虹雪花森林河流山水云朵温柔勇敢自由飞翔" +
+            "歌声音乐舞蹈晚清晨黄昏相信希望守护约定秘密思念记得忘最后一次第简单美丽晴朗童话传说英雄女孩男孩朋友兄弟姐妹" +
+            "父母家园路口街角咖啡书信电影剧场钢琴吉他鼓点节奏旋律和弦诗篇故事开始结束继续坚持放手拥抱亲吻手心指尖呼吸";
+
+    private static final String[] SURNAMES = {
+            "周", "林", "陈", "王", "张", "李", "刘", "杨", "黄", "吴", "赵", "孙", "郭", "何", "高", "罗", "郑", "梁", "谢", "宋"
+    };
+
+    private static final String[] SYLLABLES = {
+            "ka", "li", "mo", "ren", "jay", "chen", "lin", "wei", "xiao", "yu", "an", "na", "tao", "jun", "hao", "ming",
+            "shan", "lee", "rose", "mar", "tin", "el", "la", "son", "ri", "ko", "dan", "ny", "sa", "ra", "vin", "cent"
+    };
+
+    private static final String[] ENGLISH_WORDS = {
+            "love", "night", "dream", "forever", "summer", "rain", "heart", "star", "blue", "moon", "light", "fire",
+            "ocean", "sky", "memory", "tonight", "dance", "home", "road", "river", "shadow", "golden", "wild", "city"
+    };
+
+    private SyntheticCatalog() {
+    }
+
+    public record Track(long id, String title, String artist, String album) {
+    }
+
+    public static List<Track> generate(int tracks, long seed) {
+        Random random = new Random(seed);
+        List<String> words = chineseWords(random, 600);
+        String[] artists = new String[Math.max(1, tracks / 20)];
+        for (int i = 0; i < artists.length; i++) {
+            artists[i] = random.nextBoolean() ? chineseName(random) : latinName(random);
+        }
+
+        // Zipf(s=1) 累积分布，热门歌手曲目多
+        double[] cumulative = new double[artists.length];
+        double sum = 0;
+        for (int i = 0; i < artists.length; i++) {
+            sum += 1.0 / (i + 1);
+            cumulative[i] = sum;
+        }
+
+        List<Track> catalog = new ArrayList<>(tracks);
+        for (int i = 0; i < tracks; i++) {
+            int artist = zipf(cumulative, random.nextDouble() * sum);
+            String title = random.nextInt(5) == 0 ? englishTitle(random) : chineseTitle(random, words, 2, 4);
+            String album = chineseTitle(random, words, 1, 2);
+            catalog.add(new Track(i + 1, title, artists[artist], album));
+        }
+        return catalog;
+    }
+
+    /**
+     * 把词语随机改动1或2处（替换、删除、插入、相邻交换），模拟用户输错
+     */
+    public static String misspell(String word, int edits, Random random) {
+        StringBuilder builder = new StringBuilder(word);
+        for (int e = 0; e < edits; e++) {
+            int position = random.nextInt(builder.length());
+            char letter = (char) ('a' + random.nextInt(26));
+            switch (random.nextInt(4)) {
+                case 0 -> builder.setCharAt(position, letter);
+                case 1 -> {
+                    if (builder.length() > 2) {
+                        builder.deleteCharAt(position);
+                    } else {
+                        builder.setCharAt(position, letter);
+                    }
+                }
+                case 2 -> builder.insert(position, letter);
+                default -> {
+                    if (position + 1 < builder.length()) {
+                        char c = builder.charAt(position);
+                        builder.setCharAt(position, builder.charAt(position + 1));
+                        builder.setCharAt(position + 1, c);
+                    } else {
+                        builder.setCharAt(position, letter);
+                    }
+                }
+            }
+        }
+        return builder.toString();
+    }
+
+    private static List<String> chineseWords(Random random, int count) {
+        List<String> words = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            words.add("" + CHARACTERS.charAt(random.nextInt(CHARACTERS.length()))
+                    + CHARACTERS.charAt(random.nextInt(CHARACTERS.length())));
+        }
+        return words;
+    }
+
+    private static String chineseTitle(Random random, List<String> words, int minWords, int maxWords) {
+        int n = minWords + random.nextInt(maxWords - minWords + 1);
+        StringBuilder builder = new StringBuilder();
+        for (int i = 0; i < n; i++) {
+            builder.append(words.get(random.nextInt(words.size())));
+        }
+        return builder.toString();
+    }
+
+    private static String englishTitle(Random random) {
+        int n = 1 + random.nextInt(3);
+        StringBuilder builder = new StringBuilder();
+        for (int i = 0; i < n; i++) {
+            if (i > 0) {
+                builder.append(' ');
+            }
+            String word = ENGLISH_WORDS[random.nextInt(ENGLISH_WORDS.length)];
+            builder.append(i == 0 ? capitalize(word) : word);
+        }
+        return builder.toString();
+    }
+
+    private static String chineseName(Random random) {
+        StringBuilder builder = new StringBuilder(SURNAMES[random.nextInt(SURNAMES.length)]);
+        int n = 1 + random.nextInt(2);
+        for (int i = 0; i < n; i++) {
+            builder.append(CHARACTERS.charAt(random.nextInt(CHARACTERS.length())));
+        }
+        return builder.toString();
+    }
+
+    private static String latinName(Random random) {
+        return capitalize(syllables(random, 2 + random.nextInt(2))) + " " + capitalize(syllables(random, 1 + random.nextInt(2)));
+    }
+
+    private static String syllables(Random random, int n) {
+        StringBuilder builder = new StringBuilder();
+        for (int i = 0; i < n; i++) {
+            builder.append(SYLLABLES[random.nextInt(SYLLABLES.length)]);
+        }
+        return builder.toString();
+    }
+
+    private static String capitalize(String word) {
+        return word.substring(0, 1).toUpperCase(Locale.ROOT) + word.substring(1);
+    }
+
+    private static int zipf(double[] cumulative, double target) {
+        int low = 0;
+        int high = cumulative.length - 1;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (cumulative[mid] < target) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+}
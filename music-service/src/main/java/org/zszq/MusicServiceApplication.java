@@ -2,12 +2,14 @@ package org.zszq;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 /**
  * @author Niu
  * @date 2025-09-18
  */
 @SpringBootApplication
+@EnableScheduling
 public class MusicServiceApplication {
     public static void main(String[] args) {
         SpringApplication.run(MusicServiceApplication.class, args);
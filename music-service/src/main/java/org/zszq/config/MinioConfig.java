@@ -1,10 +1,12 @@
 package org.zszq.config;
 
+import io.minio.MinioAsyncClient;
 import io.minio.MinioClient;
 import lombok.Data;
 import org.springframework.boot.context.properties.ConfigurationProperties;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.zszq.service.MultipartMinioClient;
 
 @Data
 @Configuration
@@ -24,4 +26,12 @@ public class MinioConfig {
                 .credentials(accessKey, secretKey)
                 .build();
     }
+
+    @Bean
+    public MultipartMinioClient multipartMinioClient() {
+        return new MultipartMinioClient(MinioAsyncClient.builder()
+                .endpoint(endpoint, port, secure)
+                .credentials(accessKey, secretKey)
+                .build());
+    }
 }
\ No newline at end of file
@@ -8,14 +8,53 @@ import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import io.swagger.v3.oas.annotations.security.SecurityRequirement;
 import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import org.springframework.data.domain.Page;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
+import org.zszq.dto.AlbumUploadDto;
+import org.zszq.dto.AlbumUploadResultDto;
+import org.zszq.dto.CacheStatsDto;
+import org.zszq.dto.CursorPage;
+import org.zszq.dto.InstantUploadChallengeDto;
 import org.zszq.dto.MusicResponseDto;
+import org.zszq.dto.MusicSearchResponseDto;
 import org.zszq.dto.MusicUploadDto;
+import org.zszq.dto.PlayFilterStatsDto;
+import org.zszq.dto.SeekPositionDto;
+import org.zszq.dto.SuggestionDto;
+import org.zszq.dto.TrendingMusicDto;
+import org.zszq.dto.UniqueListenersDto;
+import org.zszq.dto.UploadSessionCreateDto;
+import org.zszq.dto.UploadSessionResponseDto;
+import org.zszq.entity.ListenerSketch;
+import org.zszq.entity.UserLike;
+import org.zszq.event.PlaySource;
+import org.zszq.service.AudioMetadataService;
+import org.zszq.service.AudioStreamService;
+import org.zszq.service.CoverImageService;
+import org.zszq.service.LikeService;
+import org.zszq.service.ListenerStatsService;
+import org.zszq.service.MusicFacetService;
 import org.zszq.service.MusicService;
+import org.zszq.service.MusicSuggestService;
+import org.zszq.service.MusicTrendingService;
+import org.zszq.service.PlayFilterService;
+import org.zszq.service.SearchCacheService;
+import org.zszq.service.SeekIndexService;
+import org.zszq.service.UploadSessionService;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.List;
 
 /**
  * 音乐管理控制器
@@ -31,200 +70,1004 @@ import org.zszq.service.MusicService;
 public class MusicController {
 
     private final MusicService musicService;
+    private final AudioMetadataService audioMetadataService;
+    private final SeekIndexService seekIndexService;
+    private final AudioStreamService audioStreamService;
+    private final CoverImageService coverImageService;
+    private final UploadSessionService uploadSessionService;
+    private final MusicSuggestService musicSuggestService;
+    private final SearchCacheService searchCacheService;
+    private final MusicFacetService musicFacetService;
+    private final MusicTrendingService musicTrendingService;
+    private final ListenerStatsService listenerStatsService;
+    private final PlayFilterService playFilterService;
+    private final LikeService likeService;
+
+    /**
+     * 上传音乐文件
+     * 支持上传音频文件及其封面图，同时填写音乐的元数据信息
+     * 
+     * @param musicFile 音乐文件，支持MP3、WAV、FLAC等格式
+     * @param coverFile 封面图片文件（可选）
+     * @param title 音乐标题
+     * @param artist 艺术家/歌手名称（可选）
+     * @param album 专辑名称（可选）
+     * @param genre 音乐类型（可选）
+     * @param releaseYear 发行年份（可选）
+     * @param lyrics 歌词（可选）
+     * @param uploadUserId 上传用户ID
+     * @return 上传成功的音乐信息
+     */
+    @Operation(
+        summary = "上传音乐",
+        description = "上传音乐文件及其元数据信息，支持同时上传封面图"
+    )
+    @ApiResponses(value = {
+        @ApiResponse(
+            responseCode = "200",
+            description = "上传成功",
+            content = @Content(
+                mediaType = "application/json",
+                schema = @Schema(implementation = MusicResponseDto.class)
+            )
+        ),
+        @ApiResponse(
+            responseCode = "400",
+            description = "上传失败，文件格式不支持或参数错误",
+            content = @Content(schema = @Schema(type = "string"))
+        )
+    })
+    @PostMapping("/upload")
+    public ResponseEntity<?> uploadMusic(
+            @Parameter(description = "音乐文件", required = true)
+            @RequestParam("musicFile") MultipartFile musicFile,
+            @Parameter(description = "封面图片文件")
+            @RequestParam(value = "coverFile", required = false) MultipartFile coverFile,
+            @Parameter(description = "音乐标题", required = true, example = "蓝色多瑙河")
+            @RequestParam("title") String title,
+            @Parameter(description = "艺术家/歌手名称", example = "周杰伦")
+            @RequestParam(value = "artist", required = false) String artist,
+            @Parameter(description = "专辑名称", example = "叶惠美")
+            @RequestParam(value = "album", required = false) String album,
+            @Parameter(description = "音乐类型", example = "Pop")
+            @RequestParam(value = "genre", required = false) String genre,
+            @Parameter(description = "发行年份", example = "2003")
+            @RequestParam(value = "releaseYear", required = false) Integer releaseYear,
+            @Parameter(description = "歌词")
+            @RequestParam(value = "lyrics", required = false) String lyrics,
+            @Parameter(description = "上传用户ID", required = true, example = "1")
+            @RequestParam("uploadUserId") Long uploadUserId) {
+        
+        MusicUploadDto uploadDto = new MusicUploadDto();
+        uploadDto.setTitle(title);
+        uploadDto.setArtist(artist);
+        uploadDto.setAlbum(album);
+        uploadDto.setGenre(genre);
+        uploadDto.setReleaseYear(releaseYear);
+        uploadDto.setLyrics(lyrics);
+        uploadDto.setUploadUserId(uploadUserId);
+        
+        try {
+            MusicResponseDto result = musicService.uploadMusic(musicFile, coverFile, uploadDto);
+            return ResponseEntity.ok(result);
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body("上传失败: " + e.getMessage());
+        }
+    }
+
+    /**
+     * 批量上传专辑
+     * 一次提交整张专辑的曲目，共用专辑名、艺术家、封面等信息，逐个返回每首曲目的上传结果
+     * 
+     * @param musicFiles 曲目文件列表
+     * @param coverFile 专辑封面（可选）
+     * @param titles 各曲目标题，按文件顺序对应（可选，缺省使用文件名）
+     * @param album 专辑名称
+     * @param artist 艺术家/歌手名称（可选）
+     * @param genre 音乐类型（可选）
+     * @param releaseYear 发行年份（可选）
+     * @param uploadUserId 上传用户ID
+     * @return 每首曲目的上传结果
+     */
+    @Operation(
+        summary = "批量上传专辑",
+        description = "并发上传多首曲目并一次性写入音乐记录，单个文件失败不影响其他曲目"
+    )
+    @ApiResponses(value = {
+        @ApiResponse(
+            responseCode = "200",
+            description = "处理完成，各曲目结果见 tracks",
+            content = @Content(
+                mediaType = "application/json",
+                schema = @Schema(implementation = AlbumUploadResultDto.class)
+            )
+        ),
+        @ApiResponse(
+            responseCode = "400",
+            description = "参数错误或封面上传失败",
+            content = @Content(schema = @Schema(type = "string"))
+        )
+    })
+    @PostMapping(value = "/upload/album", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
+    public ResponseEntity<?> uploadAlbum(
+            @Parameter(description = "曲目文件列表", required = true)
+            @RequestParam("musicFiles") List<MultipartFile> musicFiles,
+            @Parameter(description = "专辑封面")
+            @RequestParam(value = "coverFile", required = false) MultipartFile coverFile,
+            @Parameter(description = "各曲目标题，按文件顺序对应")
+            @RequestParam(value = "titles", required = false) List<String> titles,
+            @Parameter(description = "专辑名称", required = true, example = "叶惠美")
+            @RequestParam("album") String album,
+            @Parameter(description = "艺术家/歌手名称", example = "周杰伦")
+            @RequestParam(value = "artist", required = false) String artist,
+            @Parameter(description = "音乐类型", example = "Pop")
+            @RequestParam(value = "genre", required = false) String genre,
+            @Parameter(description = "发行年份", example = "2003")
+            @RequestParam(value = "releaseYear", required = false) Integer releaseYear,
+            @Parameter(description = "上传用户ID", required = true, example = "1")
+            @RequestParam("uploadUserId") Long uploadUserId) {
+
+        AlbumUploadDto albumDto = new AlbumUploadDto();
+        albumDto.setAlbum(album);
+        albumDto.setArtist(artist);
+        albumDto.setGenre(genre);
+        albumDto.setReleaseYear(releaseYear);
+        albumDto.setUploadUserId(uploadUserId);
+        albumDto.setTitles(titles);
+
+        try {
+            AlbumUploadResultDto result = musicService.uploadAlbum(musicFiles, coverFile, albumDto);
+            return ResponseEntity.ok(result);
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body("上传失败: " + e.getMessage());
+        }
+    }
+
+    /**
+     * 获取秒传校验凭证
+     * 服务端已有相同内容时随机选取文件内的一个字节区间，客户端计算该区间的SHA-256后调用秒传接口
+     * 
+     * @param sha256 音乐文件内容的SHA-256摘要
+     * @return 校验凭证和字节区间，内容不存在时返回404
+     */
+    @Operation(
+        summary = "获取秒传校验凭证",
+        description = "服务端已存在相同文件时返回校验凭证和随机字节区间，客户端需证明持有该区间的内容，否则需完整上传"
+    )
+    @ApiResponses(value = {
+        @ApiResponse(
+            responseCode = "200",
+            description = "获取成功",
+            content = @Content(
+                mediaType = "application/json",
+                schema = @Schema(implementation = InstantUploadChallengeDto.class)
+            )
+        ),
+        @ApiResponse(
+            responseCode = "404",
+            description = "服务端不存在相同内容，需完整上传",
+            content = @Content(schema = @Schema(type = "string"))
+        ),
+        @ApiResponse(
+            responseCode = "400",
+            description = "参数错误",
+            content = @Content(schema = @Schema(type = "string"))
+        )
+    })
+    @PostMapping("/upload/instant/challenge")
+    public ResponseEntity<?> createInstantChallenge(
+            @Parameter(description = "音乐文件SHA-256摘要", required = true)
+            @RequestParam("sha256") String sha256) {
+        try {
+            return musicService.createInstantChallenge(sha256)
+                    .<ResponseEntity<?>>map(ResponseEntity::ok)
+                    .orElseGet(() -> ResponseEntity.status(404).body("文件不存在，请完整上传"));
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body("获取校验凭证失败: " + e.getMessage());
+        }
+    }
+
+    /**
+     * 秒传音乐
+     * 客户端先计算文件的SHA-256并获取校验凭证，服务端已有相同内容且区间摘要校验通过时只需提交元数据即可完成上传
+     * 
+     * @param sha256 音乐文件内容的SHA-256摘要
+     * @param challenge 校验凭证
+     * @param rangeSha256 凭证指定字节区间内容的SHA-256摘要
+     * @param title 音乐标题
+     * @param artist 艺术家/歌手名称（可选）
+     * @param album 专辑名称（可选）
+     * @param genre 音乐类型（可选）
+     * @param releaseYear 发行年份（可选）
+     * @param lyrics 歌词（可选）
+     * @param uploadUserId 上传用户ID
+     * @return 上传成功的音乐信息，内容不存在时返回404
+     */
+    @Operation(
+        summary = "秒传音乐",
+        description = "按文件内容摘要秒传，需先获取校验凭证并提交指定字节区间的摘要；服务端已存在相同文件时只写入元数据，否则需调用上传接口完整上传"
+    )
+    @ApiResponses(value = {
+        @ApiResponse(
+            responseCode = "200",
+            description = "秒传成功",
+            content = @Content(
+                mediaType = "application/json",
+                schema = @Schema(implementation = MusicResponseDto.class)
+            )
+        ),
+        @ApiResponse(
+            responseCode = "404",
+            description = "服务端不存在相同内容，需完整上传",
+            content = @Content(schema = @Schema(type = "string"))
+        ),
+        @ApiResponse(
+            responseCode = "400",
+            description = "参数错误或区间摘要校验失败",
+            content = @Content(schema = @Schema(type = "string"))
+        )
+    })
+    @PostMapping("/upload/instant")
+    public ResponseEntity<?> uploadMusicInstant(
+            @Parameter(description = "音乐文件SHA-256摘要", required = true)
+            @RequestParam("sha256") String sha256,
+            @Parameter(description = "校验凭证，由获取秒传校验凭证接口返回", required = true)
+            @RequestParam("challenge") String challenge,
+            @Parameter(description = "凭证指定字节区间内容的SHA-256摘要", required = true)
+            @RequestParam("rangeSha256") String rangeSha256,
+            @Parameter(description = "音乐标题", required = true, example = "蓝色多瑙河")
+            @RequestParam("title") String title,
+            @Parameter(description = "艺术家/歌手名称", example = "周杰伦")
+            @RequestParam(value = "artist", required = false) String artist,
+            @Parameter(description = "专辑名称", example = "叶惠美")
+            @RequestParam(value = "album", required = false) String album,
+            @Parameter(description = "音乐类型", example = "Pop")
+            @RequestParam(value = "genre", required = false) String genre,
+            @Parameter(description = "发行年份", example = "2003")
+            @RequestParam(value = "releaseYear", required = false) Integer releaseYear,
+            @Parameter(description = "歌词")
+            @RequestParam(value = "lyrics", required = false) String lyrics,
+            @Parameter(description = "上传用户ID", required = true, example = "1")
+            @RequestParam("uploadUserId") Long uploadUserId) {
+
+        MusicUploadDto uploadDto = new MusicUploadDto();
+        uploadDto.setTitle(title);
+        uploadDto.setArtist(artist);
+        uploadDto.setAlbum(album);
+        uploadDto.setGenre(genre);
+        uploadDto.setReleaseYear(releaseYear);
+        uploadDto.setLyrics(lyrics);
+        uploadDto.setUploadUserId(uploadUserId);
+
+        try {
+            return musicService.uploadMusicInstant(sha256, challenge, rangeSha256, uploadDto)
+                    .<ResponseEntity<?>>map(ResponseEntity::ok)
+                    .orElseGet(() -> ResponseEntity.status(404).body("文件不存在，请完整上传"));
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body("上传失败: " + e.getMessage());
+        }
+    }
+
+    /**
+     * 创建直传上传会话
+     * 返回预签名上传地址，客户端直接把文件写入对象存储，完成后调用完成接口
+     * 
+     * @param createDto 文件名、类型、大小等信息
+     * @return 会话ID及上传地址
+     */
+    @Operation(
+        summary = "创建直传上传会话",
+        description = "签发对象存储的预签名PUT地址；超过分片大小的音乐文件返回每个分片的上传地址，可并行上传"
+    )
+    @ApiResponses(value = {
+        @ApiResponse(
+            responseCode = "200",
+            description = "创建成功",
+            content = @Content(
+                mediaType = "application/json",
+                schema = @Schema(implementation = UploadSessionResponseDto.class)
+            )
+        ),
+        @ApiResponse(
+            responseCode = "400",
+            description = "文件格式不支持或超出大小限制",
+            content = @Content(schema = @Schema(type = "string"))
+        )
+    })
+    @PostMapping("/upload-sessions")
+    public ResponseEntity<?> createUploadSession(
+            @Parameter(description = "上传会话信息", required = true)
+            @Valid @RequestBody UploadSessionCreateDto createDto) {
+        try {
+            UploadSessionResponseDto result = uploadSessionService.createSession(createDto);
+            return ResponseEntity.ok(result);
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body("创建上传会话失败: " + e.getMessage());
+        }
+    }
+
+    /**
+     * 完成直传上传
+     * 服务端校验对象存储中文件的大小和ETag后创建音乐记录，重复调用返回同一条记录
+     * 
+     * @param sessionId 上传会话ID
+     * @param musicEtag 单次PUT上传后返回的ETag（可选）
+     * @param uploadDto 音乐元数据
+     * @return 上传成功的音乐信息
+     */
+    @Operation(
+        summary = "完成直传上传",
+        description = "校验文件已按会话约定写入对象存储（大小、ETag、类型），分片上传时由服务端合并分片，然后创建音乐记录"
+    )
+    @ApiResponses(value = {
+        @ApiResponse(
+            responseCode = "200",
+            description = "上传完成",
+            content = @Content(
+                mediaType = "application/json",
+                schema = @Schema(implementation = MusicResponseDto.class)
+            )
+        ),
+        @ApiResponse(
+            responseCode = "400",
+            description = "会话不存在或已过期、文件未上传或校验不通过",
+            content = @Content(schema = @Schema(type = "string"))
+        )
+    })
+    @PostMapping("/upload-sessions/{sessionId}/complete")
+    public ResponseEntity<?> completeUploadSession(
+            @Parameter(description = "上传会话ID", required = true)
+            @PathVariable String sessionId,
+            @Parameter(description = "音乐文件PUT上传后返回的ETag")
+            @RequestParam(value = "musicEtag", required = false) String musicEtag,
+            @Parameter(description = "音乐元数据", required = true)
+            @RequestBody MusicUploadDto uploadDto) {
+        try {
+            MusicResponseDto result = uploadSessionService.completeSession(sessionId, uploadDto, musicEtag);
+            return ResponseEntity.ok(result);
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body("上传失败: " + e.getMessage());
+        }
+    }
+
+    /**
+     * 流式上传音乐文件
+     * 表单字段与普通上传一致，请求体边接收边分片写入对象存储，适合大文件和高并发上传
+     * 
+     * @param request 原始multipart请求
+     * @return 上传成功的音乐信息
+     */
+    @Operation(
+        summary = "流式上传音乐",
+        description = "以流式方式上传音乐文件及封面图，表单字段同上传接口，文件不在服务端落盘"
+    )
+    @ApiResponses(value = {
+        @ApiResponse(
+            responseCode = "200",
+            description = "上传成功",
+            content = @Content(
+                mediaType = "application/json",
+                schema = @Schema(implementation = MusicResponseDto.class)
+            )
+        ),
+        @ApiResponse(
+            responseCode = "400",
+            description = "上传失败，文件格式不支持或参数错误",
+            content = @Content(schema = @Schema(type = "string"))
+        )
+    })
+    @PostMapping(value = "/upload/stream", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
+    public ResponseEntity<?> uploadMusicStream(HttpServletRequest request) {
+        try {
+            MusicResponseDto result = musicService.uploadMusicStream(request);
+            return ResponseEntity.ok(result);
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body("上传失败: " + e.getMessage());
+        }
+    }
+
+    /**
+     * 通过ID获取音乐信息
+     * 获取指定音乐的详细信息，包括元数据和播放统计
+     * 
+     * @param id 音乐ID
+     * @return 音乐详细信息
+     */
+    @Operation(
+        summary = "获取音乐信息",
+        description = "通过音乐ID获取音乐的详细信息和元数据"
+    )
+    @ApiResponses(value = {
+        @ApiResponse(
+            responseCode = "200",
+            description = "获取成功",
+            content = @Content(
+                mediaType = "application/json",
+                schema = @Schema(implementation = MusicResponseDto.class)
+            )
+        ),
+        @ApiResponse(
+            responseCode = "404",
+            description = "音乐不存在",
+            content = @Content
+        )
+    })
+    @GetMapping("/{id}")
+    public ResponseEntity<?> getMusicById(
+            @Parameter(description = "音乐ID", required = true, example = "1")
+            @PathVariable Long id) {
+        try {
+            MusicResponseDto music = musicService.findById(id);
+            return ResponseEntity.ok(music);
+        } catch (Exception e) {
+            return ResponseEntity.notFound().build();
+        }
+    }
+
+    /**
+     * 搜索音乐
+     * 支持根据关键词、艺术家、音乐类型等条件搜索音乐
+     * 
+     * @param keyword 搜索关键词，在标题、艺术家、专辑中搜索
+     * @param artist 艺术家名称筛选
+     * @param genre 音乐类型筛选
+     * @param page 页码，从0开始
+     * @param size 每页大小
+     * @param withFacets 是否同时返回类型、发行年份、艺术家的分面计数
+     * @return 分页的音乐搜索结果；withFacets 为 true 时返回结果和分面计数
+     */
+    @Operation(
+        summary = "搜索音乐",
+        description = "根据关键词、艺术家、音乐类型等条件搜索音乐，支持分页；withFacets=true 时响应为 {results, facets}"
+    )
+    @ApiResponses(value = {
+        @ApiResponse(
+            responseCode = "200",
+            description = "搜索成功",
+            content = @Content(
+                mediaType = "application/json",
+                schema = @Schema(implementation = Page.class)
+            )
+        ),
+        @ApiResponse(
+            responseCode = "400",
+            description = "搜索参数错误",
+            content = @Content(schema = @Schema(type = "string"))
+        )
+    })
+    @GetMapping("/search")
+    public ResponseEntity<?> searchMusic(
+            @Parameter(description = "搜索关键词", example = "蓝色")
+            @RequestParam(required = false) String keyword,
+            @Parameter(description = "艺术家名称", example = "周杰伦")
+            @RequestParam(required = false) String artist,
+            @Parameter(description = "音乐类型", example = "Pop")
+            @RequestParam(required = false) String genre,
+            @Parameter(description = "页码", example = "0")
+            @RequestParam(defaultValue = "0") int page,
+            @Parameter(description = "每页大小", example = "20")
+            @RequestParam(defaultValue = "20") int size,
+            @Parameter(description = "是否返回分面计数", example = "false")
+            @RequestParam(defaultValue = "false") boolean withFacets) {
+        
+        try {
+            Page<MusicResponseDto> result = searchCacheService.searchMusic(keyword, artist, genre, page, size);
+            if (!withFacets) {
+                return ResponseEntity.ok(result);
+            }
+            MusicSearchResponseDto response = new MusicSearchResponseDto();
+            response.setResults(result);
+            response.setFacets(musicFacetService.facets(keyword, artist, genre).orElse(null));
+            return ResponseEntity.ok(response);
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body("搜索失败: " + e.getMessage());
+        }
+    }
+
+    /**
+     * 获取搜索结果缓存统计
+     * 返回音乐搜索和播放列表搜索两个缓存的命中、未命中、实际查询次数等指标
+     * 
+     * @return 各缓存的统计信息
+     */
+    @Operation(
+        summary = "搜索缓存统计",
+        description = "获取音乐搜索、播放列表搜索结果缓存的命中率等指标"
+    )
+    @ApiResponses(value = {
+        @ApiResponse(
+            responseCode = "200",
+            description = "获取成功",
+            content = @Content(
+                mediaType = "application/json",
+                schema = @Schema(implementation = CacheStatsDto.class)
+            )
+        )
+    })
+    @GetMapping("/search/cache-stats")
+    public ResponseEntity<List<CacheStatsDto>> getSearchCacheStats() {
+        return ResponseEntity.ok(searchCacheService.stats());
+    }
+
+    /**
+     * 获取播放去重统计
+     * 返回音乐、播放列表两类播放的放行数、丢弃数和丢弃率
+     * 
+     * @return 各类播放的去重统计
+     */
+    @Operation(
+        summary = "播放去重统计",
+        description = "获取播放去重过滤的放行、丢弃次数和丢弃率，用于观察刷量情况"
+    )
+    @ApiResponses(value = {
+        @ApiResponse(
+            responseCode = "200",
+            description = "获取成功",
+            content = @Content(
+                mediaType = "application/json",
+                schema = @Schema(implementation = PlayFilterStatsDto.class)
+            )
+        )
+    })
+    @GetMapping("/play/filter-stats")
+    public ResponseEntity<List<PlayFilterStatsDto>> getPlayFilterStats() {
+        return ResponseEntity.ok(playFilterService.stats());
+    }
+
+    /**
+     * 游标分页搜索音乐
+     * 只按艺术家、类型筛选时按上传时间倒序定位下一页，不做 OFFSET 扫描和总数查询；
+     * 带关键词时结果按相关度排序，游标由服务端生成，客户端原样传回即可
+     * 
+     * @param keyword 搜索关键词
+     * @param artist 艺术家名称
+     * @param genre 音乐类型
+     * @param cursor 上一页返回的 nextCursor，为空时从第一页开始
+     * @param size 每页大小
+     * @return 音乐列表及下一页游标
+     */
+    @Operation(
+        summary = "游标分页搜索音乐",
+        description = "与搜索音乐条件相同，使用游标翻页，响应中的 nextCursor 为空表示没有更多数据"
+    )
+    @ApiResponses(value = {
+        @ApiResponse(
+            responseCode = "200",
+            description = "搜索成功",
+            content = @Content(
+                mediaType = "application/json",
+                schema = @Schema(implementation = CursorPage.class)
+            )
+        ),
+        @ApiResponse(
+            responseCode = "400",
+            description = "搜索参数错误或游标无效",
+            content = @Content(schema = @Schema(type = "string"))
+        )
+    })
+    @GetMapping("/search/cursor")
+    public ResponseEntity<?> searchMusicByCursor(
+            @Parameter(description = "搜索关键词", example = "蓝色")
+            @RequestParam(required = false) String keyword,
+            @Parameter(description = "艺术家名称", example = "周杰伦")
+            @RequestParam(required = false) String artist,
+            @Parameter(description = "音乐类型", example = "Pop")
+            @RequestParam(required = false) String genre,
+            @Parameter(description = "上一页返回的游标")
+            @RequestParam(required = false) String cursor,
+            @Parameter(description = "每页大小", example = "20")
+            @RequestParam(defaultValue = "20") int size) {
+        try {
+            CursorPage<MusicResponseDto> result = musicService.searchMusicByCursor(keyword, artist, genre, cursor, size);
+            return ResponseEntity.ok(result);
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body("搜索失败: " + e.getMessage());
+        }
+    }
+
+    /**
+     * 搜索框前缀补全
+     * 从内存字典树中返回标题、艺术家、专辑的补全候选，按播放量降序，不访问数据库
+     * 
+     * @param prefix 用户已输入的前缀
+     * @param limit 返回条数上限
+     * @return 补全候选列表，服务刚启动、字典树未就绪时为空
+     */
+    @Operation(
+        summary = "搜索补全",
+        description = "根据输入前缀返回标题、艺术家、专辑的补全候选，按播放量排序；英文也可从单词开头补全"
+    )
+    @ApiResponses(value = {
+        @ApiResponse(
+            responseCode = "200",
+            description = "获取成功",
+            content = @Content(
+                mediaType = "application/json",
+                schema = @Schema(implementation = SuggestionDto.class)
+            )
+        ),
+        @ApiResponse(
+            responseCode = "400",
+            description = "参数错误",
+            content = @Content(schema = @Schema(type = "string"))
+        )
+    })
+    @GetMapping("/suggest")
+    public ResponseEntity<?> suggest(
+            @Parameter(description = "输入前缀", required = true, example = "七里")
+            @RequestParam String prefix,
+            @Parameter(description = "返回条数上限", example = "10")
+            @RequestParam(defaultValue = "10") int limit) {
+        try {
+            List<SuggestionDto> result = musicSuggestService.suggest(prefix, limit);
+            return ResponseEntity.ok(result);
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body("获取补全失败: " + e.getMessage());
+        }
+    }
+
+    /**
+     * 获取音乐热度榜
+     * 按最近播放计算的衰减热度排序，取自定时预计算的快照，不访问数据库
+     * 
+     * @param window 时间窗口：hourly、daily、weekly
+     * @param limit 返回条数上限
+     * @return 热度榜，服务刚启动、快照尚未生成时为空
+     */
+    @Operation(
+        summary = "音乐热度榜",
+        description = "按时间衰减的播放热度排序，window 为热度的半衰期：hourly（1小时）、daily（1天）、weekly（7天）"
+    )
+    @ApiResponses(value = {
+        @ApiResponse(
+            responseCode = "200",
+            description = "获取成功",
+            content = @Content(
+                mediaType = "application/json",
+                schema = @Schema(implementation = TrendingMusicDto.class)
+            )
+        ),
+        @ApiResponse(
+            responseCode = "400",
+            description = "时间窗口不支持",
+            content = @Content(schema = @Schema(type = "string"))
+        )
+    })
+    @GetMapping("/trending")
+    public ResponseEntity<?> getTrending(
+            @Parameter(description = "时间窗口：hourly、daily、weekly", example = "daily")
+            @RequestParam(defaultValue = "daily") String window,
+            @Parameter(description = "返回条数上限", example = "20")
+            @RequestParam(defaultValue = "20") int limit) {
+        try {
+            List<TrendingMusicDto> result = musicTrendingService.getTrending(MusicTrendingService.Window.of(window), limit);
+            return ResponseEntity.ok(result);
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body("获取热度榜失败: " + e.getMessage());
+        }
+    }
+
+    /**
+     * 获取音乐封面
+     * 指定尺寸时返回预生成的JPEG缩略图，缩略图尚未生成时临时返回原图
+     * 
+     * @param id 音乐ID
+     * @param size 期望边长（像素），会对齐到 64/256/640 中不小于它的尺寸；为空时返回原图
+     * @return 图片数据
+     */
+    @Operation(
+        summary = "获取音乐封面",
+        description = "按尺寸返回封面缩略图，列表页建议使用64或256；外部封面地址返回404，客户端直接使用coverUrl"
+    )
+    @ApiResponses(value = {
+        @ApiResponse(
+            responseCode = "200",
+            description = "获取成功",
+            content = @Content(mediaType = "image/jpeg")
+        ),
+        @ApiResponse(
+            responseCode = "304",
+            description = "封面未变化",
+            content = @Content
+        ),
+        @ApiResponse(
+            responseCode = "404",
+            description = "音乐或封面不存在，或封面是外部地址（不在本服务存储中）",
+            content = @Content
+        )
+    })
+    @GetMapping("/{id}/cover")
+    public ResponseEntity<?> getCover(
+            @Parameter(description = "音乐ID", required = true, example = "1")
+            @PathVariable Long id,
+            @Parameter(description = "期望边长（像素）", example = "256")
+            @RequestParam(required = false) Integer size,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        try {
+            String coverUrl = musicService.findById(id).getCoverUrl();
+            if (coverUrl == null) {
+                return ResponseEntity.notFound().build();
+            }
+            CoverImageService.CoverImage image = coverImageService.load(coverUrl, size);
+            if (image == null) {
+                // 外部封面地址由用户填写，不做重定向，避免成为开放重定向；客户端直接使用 coverUrl
+                return ResponseEntity.notFound().build();
+            }
+            CacheControl cacheControl = image.cacheable()
+                    ? CacheControl.maxAge(Duration.ofDays(7)).cachePublic()
+                    : CacheControl.noCache();
+            if (image.etag().equals(ifNoneMatch)) {
+                return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(image.etag()).cacheControl(cacheControl).build();
+            }
+            return ResponseEntity.ok()
+                    .contentType(MediaType.parseMediaType(image.contentType()))
+                    .eTag(image.etag())
+                    .cacheControl(cacheControl)
+                    .body(image.data());
+        } catch (Exception e) {
+            return ResponseEntity.notFound().build();
+        }
+    }
 
     /**
-     * 上传音乐文件
-     * 支持上传音频文件及其封面图，同时填写音乐的元数据信息
+     * 播放音乐
+     * 支持HTTP Range/If-Range，客户端可断点续传或从任意位置开始播放
      * 
-     * @param musicFile 音乐文件，支持MP3、WAV、FLAC等格式
-     * @param coverFile 封面图片文件（可选）
-     * @param title 音乐标题
-     * @param artist 艺术家/歌手名称（可选）
-     * @param album 专辑名称（可选）
-     * @param genre 音乐类型（可选）
-     * @param releaseYear 发行年份（可选）
-     * @param lyrics 歌词（可选）
-     * @param uploadUserId 上传用户ID
-     * @return 上传成功的音乐信息
+     * @param id 音乐ID
+     * @param range Range 请求头
+     * @param ifRange If-Range 请求头
      */
     @Operation(
-        summary = "上传音乐",
-        description = "上传音乐文件及其元数据信息，支持同时上传封面图"
+        summary = "播放音乐",
+        description = "以字节流返回音频文件，支持Range分段请求（含多区间），If-Range与当前文件不一致时返回完整内容"
     )
     @ApiResponses(value = {
         @ApiResponse(
             responseCode = "200",
-            description = "上传成功",
-            content = @Content(
-                mediaType = "application/json",
-                schema = @Schema(implementation = MusicResponseDto.class)
-            )
+            description = "返回完整音频",
+            content = @Content(mediaType = "audio/mpeg")
         ),
         @ApiResponse(
-            responseCode = "400",
-            description = "上传失败，文件格式不支持或参数错误",
-            content = @Content(schema = @Schema(type = "string"))
+            responseCode = "206",
+            description = "返回请求的音频区间",
+            content = @Content(mediaType = "audio/mpeg")
+        ),
+        @ApiResponse(
+            responseCode = "404",
+            description = "音乐不存在",
+            content = @Content
+        ),
+        @ApiResponse(
+            responseCode = "416",
+            description = "请求的区间超出文件范围",
+            content = @Content
+        ),
+        @ApiResponse(
+            responseCode = "503",
+            description = "播放并发已满，请稍后重试",
+            content = @Content
         )
     })
-    @PostMapping("/upload")
-    public ResponseEntity<?> uploadMusic(
-            @Parameter(description = "音乐文件", required = true)
-            @RequestParam("musicFile") MultipartFile musicFile,
-            @Parameter(description = "封面图片文件")
-            @RequestParam(value = "coverFile", required = false) MultipartFile coverFile,
-            @Parameter(description = "音乐标题", required = true, example = "蓝色多瑙河")
-            @RequestParam("title") String title,
-            @Parameter(description = "艺术家/歌手名称", example = "周杰伦")
-            @RequestParam(value = "artist", required = false) String artist,
-            @Parameter(description = "专辑名称", example = "叶惠美")
-            @RequestParam(value = "album", required = false) String album,
-            @Parameter(description = "音乐类型", example = "Pop")
-            @RequestParam(value = "genre", required = false) String genre,
-            @Parameter(description = "发行年份", example = "2003")
-            @RequestParam(value = "releaseYear", required = false) Integer releaseYear,
-            @Parameter(description = "歌词")
-            @RequestParam(value = "lyrics", required = false) String lyrics,
-            @Parameter(description = "上传用户ID", required = true, example = "1")
-            @RequestParam("uploadUserId") Long uploadUserId) {
-        
-        MusicUploadDto uploadDto = new MusicUploadDto();
-        uploadDto.setTitle(title);
-        uploadDto.setArtist(artist);
-        uploadDto.setAlbum(album);
-        uploadDto.setGenre(genre);
-        uploadDto.setReleaseYear(releaseYear);
-        uploadDto.setLyrics(lyrics);
-        uploadDto.setUploadUserId(uploadUserId);
-        
+    @GetMapping("/{id}/stream")
+    public void streamMusic(
+            @Parameter(description = "音乐ID", required = true, example = "1")
+            @PathVariable Long id,
+            @Parameter(description = "请求的字节区间", example = "bytes=0-1048575")
+            @RequestHeader(value = HttpHeaders.RANGE, required = false) String range,
+            @Parameter(description = "Range 生效的前提条件（ETag或Last-Modified）")
+            @RequestHeader(value = HttpHeaders.IF_RANGE, required = false) String ifRange,
+            HttpServletResponse response) throws IOException {
+        AudioStreamService.StreamTarget target;
         try {
-            MusicResponseDto result = musicService.uploadMusic(musicFile, coverFile, uploadDto);
-            return ResponseEntity.ok(result);
+            target = audioStreamService.resolve(id);
         } catch (Exception e) {
-            return ResponseEntity.badRequest().body("上传失败: " + e.getMessage());
+            response.sendError(HttpServletResponse.SC_NOT_FOUND);
+            return;
         }
+        audioStreamService.stream(target, range, ifRange, response);
     }
 
     /**
-     * 通过ID获取音乐信息
-     * 获取指定音乐的详细信息，包括元数据和播放统计
+     * 查询跳转位置
+     * 根据入库时生成的帧索引，返回指定时间点对应的音频文件字节偏移
      * 
      * @param id 音乐ID
-     * @return 音乐详细信息
+     * @param t 跳转时间点，单位秒
+     * @return 帧起始时间与字节偏移
      */
     @Operation(
-        summary = "获取音乐信息",
-        description = "通过音乐ID获取音乐的详细信息和元数据"
+        summary = "查询跳转位置",
+        description = "返回不晚于指定时间点的最近音频帧的字节偏移，客户端可据此发起一次Range请求完成跳转"
     )
     @ApiResponses(value = {
         @ApiResponse(
             responseCode = "200",
-            description = "获取成功",
+            description = "查询成功",
             content = @Content(
                 mediaType = "application/json",
-                schema = @Schema(implementation = MusicResponseDto.class)
+                schema = @Schema(implementation = SeekPositionDto.class)
             )
         ),
         @ApiResponse(
             responseCode = "404",
-            description = "音乐不存在",
+            description = "音乐不存在或跳转索引尚未生成",
             content = @Content
         )
     })
-    @GetMapping("/{id}")
-    public ResponseEntity<?> getMusicById(
+    @GetMapping("/{id}/seek")
+    public ResponseEntity<?> seek(
             @Parameter(description = "音乐ID", required = true, example = "1")
-            @PathVariable Long id) {
+            @PathVariable Long id,
+            @Parameter(description = "跳转时间点（秒）", required = true, example = "95.5")
+            @RequestParam("t") double t) {
         try {
-            MusicResponseDto music = musicService.findById(id);
-            return ResponseEntity.ok(music);
+            return seekIndexService.seek(id, Math.round(t * 1000))
+                    .<ResponseEntity<?>>map(ResponseEntity::ok)
+                    .orElseGet(() -> ResponseEntity.notFound().build());
         } catch (Exception e) {
             return ResponseEntity.notFound().build();
         }
     }
 
     /**
-     * 搜索音乐
-     * 支持根据关键词、艺术家、音乐类型等条件搜索音乐
+     * 记录音乐播放
+     * 用户播放音乐时调用，用于统计播放次数，播放事件同时写入播放日志供排行、推荐等后台任务消费
      * 
-     * @param keyword 搜索关键词，在标题、艺术家、专辑中搜索
-     * @param artist 艺术家名称筛选
-     * @param genre 音乐类型筛选
-     * @param page 页码，从0开始
-     * @param size 每页大小
-     * @return 分页的音乐搜索结果
+     * @param id 音乐ID
+     * @param userId 播放用户ID，未登录时不传
+     * @param source 播放来源
+     * @return 操作结果
      */
     @Operation(
-        summary = "搜索音乐",
-        description = "根据关键词、艺术家、音乐类型等条件搜索音乐，支持分页"
+        summary = "记录播放",
+        description = "记录音乐播放次数，用于统计和推荐；同一用户短时间内重复播放只计一次，播放次数定时批量写回，最多延迟一个刷新周期"
     )
     @ApiResponses(value = {
         @ApiResponse(
             responseCode = "200",
-            description = "搜索成功",
+            description = "记录成功",
+            content = @Content
+        ),
+        @ApiResponse(
+            responseCode = "400",
+            description = "记录失败，音乐不存在",
+            content = @Content(schema = @Schema(type = "string"))
+        )
+    })
+    @PostMapping("/{id}/play")
+    public ResponseEntity<?> recordPlay(
+            @Parameter(description = "音乐ID", required = true, example = "1")
+            @PathVariable Long id,
+            @Parameter(description = "播放用户ID，未登录时不传", example = "1")
+            @RequestParam(value = "userId", required = false) Long userId,
+            @Parameter(description = "播放来源：SEARCH、PLAYLIST、CHART、RECOMMEND、USER_PAGE、SHARE，无法识别时记为 UNKNOWN",
+                       example = "SEARCH")
+            @RequestParam(value = "source", required = false) String source,
+            HttpServletRequest request) {
+        try {
+            // 去重窗口内的重复播放同样返回成功，不提示调用方；
+            // 经过反向代理时 getRemoteAddr 已按 server.forward-headers-strategy 解析为真实客户端地址
+            musicService.incrementPlayCount(id, userId, PlaySource.of(source), request.getRemoteAddr());
+            return ResponseEntity.ok().build();
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body("播放记录失败: " + e.getMessage());
+        }
+    }
+
+    /**
+     * 获取音乐独立听众数
+     * 同一用户重复播放只计一次，基于 HyperLogLog 估计，误差约 2%
+     * 
+     * @param id 音乐ID
+     * @return 今天、最近7天和全部时间的独立听众数
+     */
+    @Operation(
+        summary = "音乐独立听众数",
+        description = "返回今天、最近7天和全部时间的独立听众估计值，只统计登录用户"
+    )
+    @ApiResponses(value = {
+        @ApiResponse(
+            responseCode = "200",
+            description = "获取成功",
             content = @Content(
                 mediaType = "application/json",
-                schema = @Schema(implementation = Page.class)
+                schema = @Schema(implementation = UniqueListenersDto.class)
             )
         ),
         @ApiResponse(
             responseCode = "400",
-            description = "搜索参数错误",
+            description = "获取失败",
             content = @Content(schema = @Schema(type = "string"))
         )
     })
-    @GetMapping("/search")
-    public ResponseEntity<?> searchMusic(
-            @Parameter(description = "搜索关键词", example = "蓝色")
-            @RequestParam(required = false) String keyword,
-            @Parameter(description = "艺术家名称", example = "周杰伦")
-            @RequestParam(required = false) String artist,
-            @Parameter(description = "音乐类型", example = "Pop")
-            @RequestParam(required = false) String genre,
-            @Parameter(description = "页码", example = "0")
-            @RequestParam(defaultValue = "0") int page,
-            @Parameter(description = "每页大小", example = "20")
-            @RequestParam(defaultValue = "20") int size) {
-        
+    @GetMapping("/{id}/listeners")
+    public ResponseEntity<?> getListeners(
+            @Parameter(description = "音乐ID", required = true, example = "1")
+            @PathVariable Long id) {
         try {
-            Page<MusicResponseDto> result = musicService.searchMusic(keyword, artist, genre, page, size);
+            UniqueListenersDto result = listenerStatsService.getUniqueListeners(ListenerSketch.TargetType.MUSIC, id);
             return ResponseEntity.ok(result);
         } catch (Exception e) {
-            return ResponseEntity.badRequest().body("搜索失败: " + e.getMessage());
+            return ResponseEntity.badRequest().body("获取独立听众数失败: " + e.getMessage());
         }
     }
 
     /**
-     * 记录音乐播放
-     * 用户播放音乐时调用，用于统计播放次数
+     * 点赞/取消点赞音乐
+     * 同一用户重复点赞或重复取消不改变点赞数，点赞数定时批量写回，最多滞后一个刷新周期
      * 
      * @param id 音乐ID
+     * @param userId 操作用户ID
+     * @param isLike true表示点赞，false表示取消点赞
      * @return 操作结果
      */
     @Operation(
-        summary = "记录播放",
-        description = "记录音乐播放次数，用于统计和推荐"
+        summary = "点赞/取消点赞音乐",
+        description = "用户对音乐进行点赞或取消点赞操作，重复操作幂等"
     )
     @ApiResponses(value = {
         @ApiResponse(
             responseCode = "200",
-            description = "记录成功",
+            description = "操作成功",
             content = @Content
         ),
         @ApiResponse(
             responseCode = "400",
-            description = "记录失败，音乐不存在",
+            description = "操作失败，音乐不存在",
             content = @Content(schema = @Schema(type = "string"))
         )
     })
-    @PostMapping("/{id}/play")
-    public ResponseEntity<?> recordPlay(
+    @PostMapping("/{id}/like")
+    public ResponseEntity<?> toggleLike(
             @Parameter(description = "音乐ID", required = true, example = "1")
-            @PathVariable Long id) {
+            @PathVariable Long id,
+            @Parameter(description = "操作用户ID", required = true, example = "1")
+            @RequestParam("userId") Long userId,
+            @Parameter(description = "是否点赞", required = true, example = "true")
+            @RequestParam("isLike") boolean isLike) {
         try {
-            musicService.incrementPlayCount(id);
+            musicService.toggleLike(id, userId, isLike);
             return ResponseEntity.ok().build();
         } catch (Exception e) {
-            return ResponseEntity.badRequest().body("播放记录失败: " + e.getMessage());
+            return ResponseEntity.badRequest().body("操作失败: " + e.getMessage());
+        }
+    }
+
+    /**
+     * 批量查询点赞状态
+     * 列表页一次查询当前页所有音乐的点赞状态，结果来自内存中的用户点赞位图
+     * 
+     * @param userId 用户ID
+     * @param ids 待查询的音乐ID，最多200个
+     * @return 其中已点赞的音乐ID
+     */
+    @Operation(
+        summary = "批量查询音乐点赞状态",
+        description = "返回给定音乐ID中该用户已点赞的部分，保持传入顺序，一次最多200个ID"
+    )
+    @ApiResponses(value = {
+        @ApiResponse(
+            responseCode = "200",
+            description = "查询成功",
+            content = @Content(mediaType = "application/json")
+        ),
+        @ApiResponse(
+            responseCode = "400",
+            description = "查询失败，ID数量超过上限",
+            content = @Content(schema = @Schema(type = "string"))
+        )
+    })
+    @GetMapping("/likes")
+    public ResponseEntity<?> getLikedMusic(
+            @Parameter(description = "用户ID", required = true, example = "1")
+            @RequestParam("userId") Long userId,
+            @Parameter(description = "音乐ID列表，逗号分隔", required = true, example = "1,2,3")
+            @RequestParam("ids") List<Long> ids) {
+        try {
+            List<Long> liked = likeService.likedAmong(UserLike.TargetType.MUSIC, userId, ids);
+            return ResponseEntity.ok(liked);
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body("查询点赞状态失败: " + e.getMessage());
         }
     }
 
@@ -273,6 +1116,50 @@ public class MusicController {
         }
     }
 
+    /**
+     * 游标分页获取用户上传的音乐
+     * 按上传时间倒序，使用上一页返回的游标翻页，不查询总数
+     * 
+     * @param userId 用户ID
+     * @param cursor 上一页返回的 nextCursor，为空时从第一页开始
+     * @param size 每页大小
+     * @return 音乐列表及下一页游标
+     */
+    @Operation(
+        summary = "游标分页获取用户音乐",
+        description = "按上传时间倒序游标分页获取指定用户上传的音乐，响应中的 nextCursor 为空表示没有更多数据"
+    )
+    @ApiResponses(value = {
+        @ApiResponse(
+            responseCode = "200",
+            description = "获取成功",
+            content = @Content(
+                mediaType = "application/json",
+                schema = @Schema(implementation = CursorPage.class)
+            )
+        ),
+        @ApiResponse(
+            responseCode = "400",
+            description = "参数错误或游标无效",
+            content = @Content(schema = @Schema(type = "string"))
+        )
+    })
+    @GetMapping("/user/{userId}/cursor")
+    public ResponseEntity<?> getUserMusicByCursor(
+            @Parameter(description = "用户ID", required = true, example = "1")
+            @PathVariable Long userId,
+            @Parameter(description = "上一页返回的游标")
+            @RequestParam(required = false) String cursor,
+            @Parameter(description = "每页大小", example = "20")
+            @RequestParam(defaultValue = "20") int size) {
+        try {
+            CursorPage<MusicResponseDto> result = musicService.findByUploadUser(userId, cursor, size);
+            return ResponseEntity.ok(result);
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body("获取用户音乐失败: " + e.getMessage());
+        }
+    }
+
     /**
      * 审核通过音乐
      * 管理员审核通过用户上传的音乐，通过后可公开播放
@@ -354,4 +1241,79 @@ public class MusicController {
             return ResponseEntity.badRequest().body("审核失败: " + e.getMessage());
         }
     }
+
+    /**
+     * 删除音乐
+     * 上传者可以删除自己上传的音乐，音乐文件和封面不再被引用后由清理任务删除
+     * 
+     * @param id 音乐ID
+     * @param userId 操作用户ID，用于权限验证
+     * @return 操作结果
+     */
+    @Operation(
+        summary = "删除音乐",
+        description = "上传者删除自己上传的音乐，同时从所有播放列表中移除，该操作不可逆转"
+    )
+    @ApiResponses(value = {
+        @ApiResponse(
+            responseCode = "200",
+            description = "删除成功",
+            content = @Content
+        ),
+        @ApiResponse(
+            responseCode = "400",
+            description = "删除失败，权限不足或音乐不存在",
+            content = @Content(schema = @Schema(type = "string"))
+        )
+    })
+    @DeleteMapping("/{id}")
+    public ResponseEntity<?> deleteMusic(
+            @Parameter(description = "音乐ID", required = true, example = "1")
+            @PathVariable Long id,
+            @Parameter(description = "操作用户ID", required = true, example = "1")
+            @RequestParam("userId") Long userId) {
+        try {
+            musicService.deleteMusic(id, userId);
+            return ResponseEntity.ok().build();
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body("删除音乐失败: " + e.getMessage());
+        }
+    }
+
+    /**
+     * 回填音频元数据
+     * 为缺少时长、比特率等信息的历史音乐批量提取元数据，任务在后台执行
+     * 
+     * @param batchSize 每批处理的音乐数量
+     * @return 操作结果
+     */
+    @Operation(
+        summary = "回填音频元数据",
+        description = "管理员触发后台任务，为缺少时长、比特率、采样率的音乐批量提取元数据",
+        security = @SecurityRequirement(name = "bearerAuth")
+    )
+    @ApiResponses(value = {
+        @ApiResponse(
+            responseCode = "202",
+            description = "回填任务已启动",
+            content = @Content
+        ),
+        @ApiResponse(
+            responseCode = "400",
+            description = "已有回填任务在运行",
+            content = @Content(schema = @Schema(type = "string"))
+        )
+    })
+    @PostMapping("/metadata/backfill")
+    public ResponseEntity<?> backfillMetadata(
+            @Parameter(description = "每批处理数量", example = "200")
+            @RequestParam(defaultValue = "200") int batchSize) {
+        if (batchSize <= 0) {
+            return ResponseEntity.badRequest().body("批次大小必须大于0");
+        }
+        if (!audioMetadataService.startBackfill(batchSize)) {
+            return ResponseEntity.badRequest().body("已有回填任务在运行");
+        }
+        return ResponseEntity.accepted().build();
+    }
 }
\ No newline at end of file
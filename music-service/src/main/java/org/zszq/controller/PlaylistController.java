@@ -8,14 +8,27 @@ import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import io.swagger.v3.oas.annotations.security.SecurityRequirement;
 import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.servlet.http.HttpServletRequest;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import org.springframework.data.domain.Page;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import org.zszq.dto.*;
+import org.zszq.entity.ListenerSketch;
+import org.zszq.entity.UserLike;
+import org.zszq.service.CoverImageService;
+import org.zszq.service.LikeService;
+import org.zszq.service.ListenerStatsService;
+import org.zszq.service.PlaylistLeaderboardService;
 import org.zszq.service.PlaylistService;
+import org.zszq.service.SearchCacheService;
 
+import java.time.Duration;
 import java.util.List;
 
 /**
@@ -32,6 +45,11 @@ import java.util.List;
 public class PlaylistController {
 
     private final PlaylistService playlistService;
+    private final CoverImageService coverImageService;
+    private final SearchCacheService searchCacheService;
+    private final ListenerStatsService listenerStatsService;
+    private final LikeService likeService;
+    private final PlaylistLeaderboardService playlistLeaderboardService;
 
     /**
      * 创建播放列表
@@ -112,6 +130,68 @@ public class PlaylistController {
         }
     }
 
+    /**
+     * 获取播放列表封面
+     * 指定尺寸时返回预生成的JPEG缩略图，缩略图尚未生成时临时返回原图
+     * 
+     * @param id 播放列表ID
+     * @param size 期望边长（像素），会对齐到 64/256/640 中不小于它的尺寸；为空时返回原图
+     * @return 图片数据
+     */
+    @Operation(
+        summary = "获取播放列表封面",
+        description = "按尺寸返回封面缩略图，列表页建议使用64或256；外部封面地址返回404，客户端直接使用coverUrl"
+    )
+    @ApiResponses(value = {
+        @ApiResponse(
+            responseCode = "200",
+            description = "获取成功",
+            content = @Content(mediaType = "image/jpeg")
+        ),
+        @ApiResponse(
+            responseCode = "304",
+            description = "封面未变化",
+            content = @Content
+        ),
+        @ApiResponse(
+            responseCode = "404",
+            description = "播放列表或封面不存在，或封面是外部地址（不在本服务存储中）",
+            content = @Content
+        )
+    })
+    @GetMapping("/{id}/cover")
+    public ResponseEntity<?> getCover(
+            @Parameter(description = "播放列表ID", required = true, example = "1")
+            @PathVariable Long id,
+            @Parameter(description = "期望边长（像素）", example = "256")
+            @RequestParam(required = false) Integer size,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        try {
+            String coverUrl = playlistService.getPlaylistById(id).getCoverUrl();
+            if (coverUrl == null) {
+                return ResponseEntity.notFound().build();
+            }
+            CoverImageService.CoverImage image = coverImageService.load(coverUrl, size);
+            if (image == null) {
+                // 外部封面地址由用户填写，不做重定向，避免成为开放重定向；客户端直接使用 coverUrl
+                return ResponseEntity.notFound().build();
+            }
+            CacheControl cacheControl = image.cacheable()
+                    ? CacheControl.maxAge(Duration.ofDays(7)).cachePublic()
+                    : CacheControl.noCache();
+            if (image.etag().equals(ifNoneMatch)) {
+                return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(image.etag()).cacheControl(cacheControl).build();
+            }
+            return ResponseEntity.ok()
+                    .contentType(MediaType.parseMediaType(image.contentType()))
+                    .eTag(image.etag())
+                    .cacheControl(cacheControl)
+                    .body(image.data());
+        } catch (Exception e) {
+            return ResponseEntity.notFound().build();
+        }
+    }
+
     /**
      * 获取播放列表及其音乐
      * 获取指定播放列表的详细信息，包含所有音乐列表，支持分页
@@ -156,6 +236,50 @@ public class PlaylistController {
         }
     }
 
+    /**
+     * 游标分页获取播放列表中的音乐
+     * 按歌单内顺序定位下一页，大歌单翻到后面也不会变慢
+     * 
+     * @param id 播放列表ID
+     * @param cursor 上一页返回的 nextCursor，为空时从第一页开始
+     * @param size 每页大小
+     * @return 音乐列表及下一页游标
+     */
+    @Operation(
+        summary = "游标分页获取播放列表音乐",
+        description = "按歌单内顺序游标分页获取音乐，响应中的 nextCursor 为空表示没有更多数据"
+    )
+    @ApiResponses(value = {
+        @ApiResponse(
+            responseCode = "200",
+            description = "获取成功",
+            content = @Content(
+                mediaType = "application/json",
+                schema = @Schema(implementation = CursorPage.class)
+            )
+        ),
+        @ApiResponse(
+            responseCode = "400",
+            description = "播放列表不存在或游标无效",
+            content = @Content(schema = @Schema(type = "string"))
+        )
+    })
+    @GetMapping("/{id}/musics/cursor")
+    public ResponseEntity<?> getPlaylistMusicsByCursor(
+            @Parameter(description = "播放列表ID", required = true, example = "1")
+            @PathVariable Long id,
+            @Parameter(description = "上一页返回的游标")
+            @RequestParam(required = false) String cursor,
+            @Parameter(description = "每页大小", example = "20")
+            @RequestParam(defaultValue = "20") int size) {
+        try {
+            CursorPage<MusicResponseDto> result = playlistService.getPlaylistMusics(id, cursor, size);
+            return ResponseEntity.ok(result);
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body("获取播放列表失败: " + e.getMessage());
+        }
+    }
+
     /**
      * 获取用户的播放列表
      * 获取指定用户创建的所有播放列表，支持分页
@@ -200,6 +324,50 @@ public class PlaylistController {
         }
     }
 
+    /**
+     * 游标分页获取用户的播放列表
+     * 按创建时间倒序，使用上一页返回的游标翻页，不查询总数
+     * 
+     * @param userId 用户ID
+     * @param cursor 上一页返回的 nextCursor，为空时从第一页开始
+     * @param size 每页大小
+     * @return 播放列表及下一页游标
+     */
+    @Operation(
+        summary = "游标分页获取用户播放列表",
+        description = "按创建时间倒序游标分页获取指定用户的播放列表，响应中的 nextCursor 为空表示没有更多数据"
+    )
+    @ApiResponses(value = {
+        @ApiResponse(
+            responseCode = "200",
+            description = "获取成功",
+            content = @Content(
+                mediaType = "application/json",
+                schema = @Schema(implementation = CursorPage.class)
+            )
+        ),
+        @ApiResponse(
+            responseCode = "400",
+            description = "参数错误或游标无效",
+            content = @Content(schema = @Schema(type = "string"))
+        )
+    })
+    @GetMapping("/user/{userId}/cursor")
+    public ResponseEntity<?> getUserPlaylistsByCursor(
+            @Parameter(description = "用户ID", required = true, example = "1")
+            @PathVariable Long userId,
+            @Parameter(description = "上一页返回的游标")
+            @RequestParam(required = false) String cursor,
+            @Parameter(description = "每页大小", example = "20")
+            @RequestParam(defaultValue = "20") int size) {
+        try {
+            CursorPage<PlaylistResponseDto> result = playlistService.getUserPlaylists(userId, cursor, size);
+            return ResponseEntity.ok(result);
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body("获取用户播放列表失败: " + e.getMessage());
+        }
+    }
+
     /**
      * 搜索播放列表
      * 根据关键词在播放列表名称和描述中搜索，支持分页
@@ -237,7 +405,7 @@ public class PlaylistController {
             @Parameter(description = "每页大小", example = "20")
             @RequestParam(defaultValue = "20") int size) {
         try {
-            Page<PlaylistResponseDto> result = playlistService.searchPlaylists(keyword, page, size);
+            Page<PlaylistResponseDto> result = searchCacheService.searchPlaylists(keyword, page, size);
             return ResponseEntity.ok(result);
         } catch (Exception e) {
             return ResponseEntity.badRequest().body("搜索播放列表失败: " + e.getMessage());
@@ -413,16 +581,61 @@ public class PlaylistController {
         }
     }
 
+    /**
+     * 移动播放列表中的音乐
+     * 把音乐移动到另一首音乐之后或最前面，只更新被移动的一条记录
+     * 
+     * @param id 播放列表ID
+     * @param musicId 要移动的音乐ID
+     * @param afterMusicId 移动到该音乐之后，不提供时移动到最前
+     * @param userId 操作用户ID，用于权限验证
+     * @return 操作结果
+     */
+    @Operation(
+        summary = "移动播放列表中的音乐",
+        description = "把音乐移动到另一首音乐之后，不提供afterMusicId时移动到最前，需要用户有播放列表的编辑权限"
+    )
+    @ApiResponses(value = {
+        @ApiResponse(
+            responseCode = "200",
+            description = "移动成功",
+            content = @Content
+        ),
+        @ApiResponse(
+            responseCode = "400",
+            description = "移动失败，音乐不在播放列表中，或权限不足",
+            content = @Content(schema = @Schema(type = "string"))
+        )
+    })
+    @PutMapping("/{id}/musics/{musicId}/position")
+    public ResponseEntity<?> moveMusicInPlaylist(
+            @Parameter(description = "播放列表ID", required = true, example = "1")
+            @PathVariable Long id,
+            @Parameter(description = "要移动的音乐ID", required = true, example = "1")
+            @PathVariable Long musicId,
+            @Parameter(description = "移动到该音乐之后，不提供时移动到最前", example = "2")
+            @RequestParam(value = "afterMusicId", required = false) Long afterMusicId,
+            @Parameter(description = "操作用户ID", required = true, example = "1")
+            @RequestParam("userId") Long userId) {
+        try {
+            playlistService.moveMusicInPlaylist(id, musicId, afterMusicId, userId);
+            return ResponseEntity.ok().build();
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body("移动音乐失败: " + e.getMessage());
+        }
+    }
+
     /**
      * 记录播放列表播放
-     * 用户播放播放列表时调用，用于统计播放次数
+     * 用户播放播放列表时调用，用于统计播放次数和独立听众
      * 
      * @param id 播放列表ID
+     * @param userId 播放用户ID，未登录时不传
      * @return 操作结果
      */
     @Operation(
         summary = "记录播放列表播放",
-        description = "记录播放列表的播放次数，用于统计和推荐"
+        description = "记录播放列表的播放次数，用于统计和推荐；同一用户短时间内重复播放只计一次"
     )
     @ApiResponses(value = {
         @ApiResponse(
@@ -439,15 +652,58 @@ public class PlaylistController {
     @PostMapping("/{id}/play")
     public ResponseEntity<?> recordPlaylistPlay(
             @Parameter(description = "播放列表ID", required = true, example = "1")
-            @PathVariable Long id) {
+            @PathVariable Long id,
+            @Parameter(description = "播放用户ID，未登录时不传", example = "1")
+            @RequestParam(value = "userId", required = false) Long userId,
+            HttpServletRequest request) {
         try {
-            playlistService.incrementPlayCount(id);
+            // 去重窗口内的重复播放同样返回成功，不提示调用方；
+            // 经过反向代理时 getRemoteAddr 已按 server.forward-headers-strategy 解析为真实客户端地址
+            playlistService.incrementPlayCount(id, userId, request.getRemoteAddr());
             return ResponseEntity.ok().build();
         } catch (Exception e) {
             return ResponseEntity.badRequest().body("记录播放失败: " + e.getMessage());
         }
     }
 
+    /**
+     * 获取播放列表独立听众数
+     * 同一用户重复播放只计一次，基于 HyperLogLog 估计，误差约 2%
+     * 
+     * @param id 播放列表ID
+     * @return 今天、最近7天和全部时间的独立听众数
+     */
+    @Operation(
+        summary = "播放列表独立听众数",
+        description = "返回今天、最近7天和全部时间的独立听众估计值，只统计登录用户"
+    )
+    @ApiResponses(value = {
+        @ApiResponse(
+            responseCode = "200",
+            description = "获取成功",
+            content = @Content(
+                mediaType = "application/json",
+                schema = @Schema(implementation = UniqueListenersDto.class)
+            )
+        ),
+        @ApiResponse(
+            responseCode = "400",
+            description = "获取失败",
+            content = @Content(schema = @Schema(type = "string"))
+        )
+    })
+    @GetMapping("/{id}/listeners")
+    public ResponseEntity<?> getPlaylistListeners(
+            @Parameter(description = "播放列表ID", required = true, example = "1")
+            @PathVariable Long id) {
+        try {
+            UniqueListenersDto result = listenerStatsService.getUniqueListeners(ListenerSketch.TargetType.PLAYLIST, id);
+            return ResponseEntity.ok(result);
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body("获取独立听众数失败: " + e.getMessage());
+        }
+    }
+
     /**
      * 点赞/取消点赞播放列表
      * 用户可以对播放列表进行点赞或取消点赞操作
@@ -489,16 +745,54 @@ public class PlaylistController {
         }
     }
 
+    /**
+     * 批量查询点赞状态
+     * 列表页一次查询当前页所有播放列表的点赞状态，结果来自内存中的用户点赞位图
+     * 
+     * @param userId 用户ID
+     * @param ids 待查询的播放列表ID，最多200个
+     * @return 其中已点赞的播放列表ID
+     */
+    @Operation(
+        summary = "批量查询播放列表点赞状态",
+        description = "返回给定播放列表ID中该用户已点赞的部分，保持传入顺序，一次最多200个ID"
+    )
+    @ApiResponses(value = {
+        @ApiResponse(
+            responseCode = "200",
+            description = "查询成功",
+            content = @Content(mediaType = "application/json")
+        ),
+        @ApiResponse(
+            responseCode = "400",
+            description = "查询失败，ID数量超过上限",
+            content = @Content(schema = @Schema(type = "string"))
+        )
+    })
+    @GetMapping("/likes")
+    public ResponseEntity<?> getLikedPlaylists(
+            @Parameter(description = "用户ID", required = true, example = "1")
+            @RequestParam("userId") Long userId,
+            @Parameter(description = "播放列表ID列表，逗号分隔", required = true, example = "1,2,3")
+            @RequestParam("ids") List<Long> ids) {
+        try {
+            List<Long> liked = likeService.likedAmong(UserLike.TargetType.PLAYLIST, userId, ids);
+            return ResponseEntity.ok(liked);
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body("查询点赞状态失败: " + e.getMessage());
+        }
+    }
+
     /**
      * 获取热门播放列表
-     * 根据播放次数和点赞数排序，获取热门播放列表
+     * 按播放次数排序，取自定时计算的排行榜快照，不访问数据库
      * 
-     * @param limit 返回数量限制
+     * @param limit 返回数量限制，最多100
      * @return 热门播放列表列表
      */
     @Operation(
         summary = "获取热门播放列表",
-        description = "根据播放量和点赞数获取热门播放列表"
+        description = "按播放量获取热门播放列表，结果取自排行榜快照，最多滞后30秒，最多返回100条"
     )
     @ApiResponses(value = {
         @ApiResponse(
@@ -520,7 +814,7 @@ public class PlaylistController {
             @Parameter(description = "返回数量限制", example = "10")
             @RequestParam(defaultValue = "10") int limit) {
         try {
-            List<PlaylistResponseDto> result = playlistService.getTopPlaylists(limit);
+            List<PlaylistResponseDto> result = playlistLeaderboardService.getTopPlaylists(limit);
             return ResponseEntity.ok(result);
         } catch (Exception e) {
             return ResponseEntity.badRequest().body("获取热门播放列表失败: " + e.getMessage());
@@ -529,14 +823,14 @@ public class PlaylistController {
 
     /**
      * 获取最新播放列表
-     * 按创建时间排序，获取最新创建的播放列表
+     * 按创建时间排序，取自排行榜快照，播放列表变更后约1秒内更新
      * 
-     * @param limit 返回数量限制
+     * @param limit 返回数量限制，最多100
      * @return 最新播放列表列表
      */
     @Operation(
         summary = "获取最新播放列表",
-        description = "按创建时间降序获取最新创建的播放列表"
+        description = "按创建时间降序获取最新创建的播放列表，结果取自排行榜快照，最多返回100条"
     )
     @ApiResponses(value = {
         @ApiResponse(
@@ -558,7 +852,7 @@ public class PlaylistController {
             @Parameter(description = "返回数量限制", example = "10")
             @RequestParam(defaultValue = "10") int limit) {
         try {
-            List<PlaylistResponseDto> result = playlistService.getLatestPlaylists(limit);
+            List<PlaylistResponseDto> result = playlistLeaderboardService.getLatestPlaylists(limit);
             return ResponseEntity.ok(result);
         } catch (Exception e) {
             return ResponseEntity.badRequest().body("获取最新播放列表失败: " + e.getMessage());
@@ -6,5 +6,5 @@ import lombok.Data;
 public class AddMusicToPlaylistDto {
 
     private Long musicId;
-    private Integer sortOrder; // 可选，如果不提供则添加到末尾
+    private Long afterMusicId; // 可选，插入到该音乐之后，如果不提供则添加到末尾
 }
\ No newline at end of file
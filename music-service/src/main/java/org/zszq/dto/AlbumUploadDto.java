@@ -0,0 +1,19 @@
+package org.zszq.dto;
+
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+public class AlbumUploadDto {
+
+    private String album;
+    private String artist;
+    private String genre;
+    private Integer releaseYear;
+    private Long uploadUserId;
+    /**
+     * 各曲目标题，按文件顺序对应；缺省时使用文件名
+     */
+    private List<String> titles;
+}
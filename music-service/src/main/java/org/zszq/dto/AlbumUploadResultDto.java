@@ -0,0 +1,26 @@
+package org.zszq.dto;
+
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+public class AlbumUploadResultDto {
+
+    private String album;
+    private int succeeded;
+    private int failed;
+    private List<TrackResult> tracks;
+
+    /**
+     * 单个曲目的上传结果，成功时 music 不为空，失败时 error 为失败原因
+     */
+    @Data
+    public static class TrackResult {
+        private int index;
+        private String fileName;
+        private boolean success;
+        private MusicResponseDto music;
+        private String error;
+    }
+}
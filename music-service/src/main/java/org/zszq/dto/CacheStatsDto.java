@@ -0,0 +1,28 @@
+package org.zszq.dto;
+
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import lombok.Data;
+
+@Data
+public class CacheStatsDto {
+
+    private String name;
+    private Long hitCount;
+    private Long missCount;
+    private Double hitRate;
+    private Long loadCount;         // 实际执行的查询次数，同一个键并发未命中只计一次
+    private Long evictionCount;
+    private Long estimatedSize;     // 当前缓存条目数（估计值）
+
+    public static CacheStatsDto of(String name, CacheStats stats, long estimatedSize) {
+        CacheStatsDto dto = new CacheStatsDto();
+        dto.setName(name);
+        dto.setHitCount(stats.hitCount());
+        dto.setMissCount(stats.missCount());
+        dto.setHitRate(stats.hitRate());
+        dto.setLoadCount(stats.loadCount());
+        dto.setEvictionCount(stats.evictionCount());
+        dto.setEstimatedSize(estimatedSize);
+        return dto;
+    }
+}
@@ -0,0 +1,45 @@
+package org.zszq.dto;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 封面缩略图尺寸及对应的访问地址
+ */
+public final class CoverUrls {
+
+    /**
+     * 预生成的缩略图边长，按从小到大排列
+     */
+    public static final List<Integer> SIZES = List.of(64, 256, 640);
+
+    private CoverUrls() {
+    }
+
+    /**
+     * 生成各尺寸的访问地址
+     *
+     * @param path 封面接口路径
+     * @return 尺寸到地址的映射
+     */
+    public static Map<Integer, String> of(String path) {
+        Map<Integer, String> urls = new LinkedHashMap<>();
+        for (Integer size : SIZES) {
+            urls.put(size, path + "?size=" + size);
+        }
+        return urls;
+    }
+
+    /**
+     * 将请求的尺寸对齐到不小于它的预生成尺寸，超过最大尺寸时取最大尺寸
+     */
+    public static int snap(int size) {
+        for (Integer candidate : SIZES) {
+            if (candidate >= size) {
+                return candidate;
+            }
+        }
+        return SIZES.get(SIZES.size() - 1);
+    }
+}
@@ -0,0 +1,10 @@
+package org.zszq.dto;
+
+import lombok.Data;
+
+@Data
+public class FacetCountDto {
+
+    private String value;
+    private Integer count;
+}
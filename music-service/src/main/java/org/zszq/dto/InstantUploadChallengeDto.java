@@ -0,0 +1,14 @@
+package org.zszq.dto;
+
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+@Data
+public class InstantUploadChallengeDto {
+
+    private String challenge;           // 校验凭证，秒传时原样提交
+    private Long offset;                // 需计算摘要的字节区间起点
+    private Long length;                // 字节区间长度
+    private LocalDateTime expiresAt;    // 凭证过期时间
+}
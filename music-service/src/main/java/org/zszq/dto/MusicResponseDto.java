@@ -4,6 +4,7 @@ import lombok.Data;
 import org.zszq.entity.Music;
 
 import java.time.LocalDateTime;
+import java.util.Map;
 
 @Data
 public class MusicResponseDto {
@@ -13,8 +14,15 @@ public class MusicResponseDto {
     private String artist;
     private String album;
     private Integer durationSeconds;
+    /**
+     * 播放地址，经由本服务转发，不直接暴露对象存储
+     */
     private String fileUrl;
     private String coverUrl;
+    /**
+     * 各尺寸封面缩略图地址，键为边长（像素）
+     */
+    private Map<Integer, String> coverUrls;
     private Music.MusicStatus status;
     private Long uploadUserId;
     private Long playCount;
@@ -30,8 +38,11 @@ public class MusicResponseDto {
         dto.setArtist(music.getArtist());
         dto.setAlbum(music.getAlbum());
         dto.setDurationSeconds(music.getDurationSeconds());
-        dto.setFileUrl(music.getFileUrl());
+        dto.setFileUrl("/api/music/" + music.getId() + "/stream");
         dto.setCoverUrl(music.getCoverUrl());
+        if (music.getCoverUrl() != null) {
+            dto.setCoverUrls(CoverUrls.of("/api/music/" + music.getId() + "/cover"));
+        }
         dto.setStatus(music.getStatus());
         dto.setUploadUserId(music.getUploadUserId());
         dto.setPlayCount(music.getPlayCount());
@@ -0,0 +1,14 @@
+package org.zszq.dto;
+
+import lombok.Data;
+import org.springframework.data.domain.Page;
+
+import java.util.List;
+import java.util.Map;
+
+@Data
+public class MusicSearchResponseDto {
+
+    private Page<MusicResponseDto> results;
+    private Map<String, List<FacetCountDto>> facets;    // genre、releaseYear、artist，统计范围为全部匹配结果；索引未就绪时为 null
+}
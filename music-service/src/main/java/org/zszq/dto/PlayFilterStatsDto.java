@@ -0,0 +1,14 @@
+package org.zszq.dto;
+
+import lombok.Data;
+
+@Data
+public class PlayFilterStatsDto {
+
+    private String name;
+    private Long accepted;
+    private Long rejected;          // 窗口内重复而被丢弃的播放
+    private Long untracked;         // 达到容量上限未能记录、直接放行的播放
+    private Double rejectionRate;
+    private Long tracked;           // 当前窗口内记录的 (用户, 对象) 数
+}
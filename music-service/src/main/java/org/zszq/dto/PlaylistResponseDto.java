@@ -5,6 +5,7 @@ import org.zszq.entity.Playlist;
 
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Map;
 
 @Data
 public class PlaylistResponseDto {
@@ -13,6 +14,10 @@ public class PlaylistResponseDto {
     private String name;
     private String description;
     private String coverUrl;
+    /**
+     * 各尺寸封面缩略图地址，键为边长（像素）
+     */
+    private Map<Integer, String> coverUrls;
     private Long creatorId;
     private Playlist.PlaylistType type;
     private Playlist.PlaylistVisibility visibility;
@@ -29,6 +34,9 @@ public class PlaylistResponseDto {
         dto.setName(playlist.getName());
         dto.setDescription(playlist.getDescription());
         dto.setCoverUrl(playlist.getCoverUrl());
+        if (playlist.getCoverUrl() != null) {
+            dto.setCoverUrls(CoverUrls.of("/api/playlists/" + playlist.getId() + "/cover"));
+        }
         dto.setCreatorId(playlist.getCreatorId());
         dto.setType(playlist.getType());
         dto.setVisibility(playlist.getVisibility());
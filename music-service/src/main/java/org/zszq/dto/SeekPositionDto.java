@@ -0,0 +1,12 @@
+package org.zszq.dto;
+
+import lombok.Data;
+
+@Data
+public class SeekPositionDto {
+
+    private Long musicId;
+    private Long requestedMs;   // 请求跳转的时间点
+    private Long timeMs;        // 实际可跳转到的帧起始时间，不晚于请求时间
+    private Long byteOffset;    // 该帧在音频文件中的字节偏移，可直接用于Range请求
+}
@@ -0,0 +1,11 @@
+package org.zszq.dto;
+
+import lombok.Data;
+
+@Data
+public class SuggestionDto {
+
+    private String text;
+    private String type;    // TITLE、ARTIST、ALBUM
+    private Long weight;    // 引用该词条的已审核音乐播放量之和
+}
@@ -0,0 +1,11 @@
+package org.zszq.dto;
+
+import lombok.Data;
+
+@Data
+public class TrendingMusicDto {
+
+    private Integer rank;
+    private Double score;               // 衰减后的播放热度，约等于最近一个半衰期内的播放次数
+    private MusicResponseDto music;
+}
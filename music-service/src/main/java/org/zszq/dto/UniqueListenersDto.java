@@ -0,0 +1,11 @@
+package org.zszq.dto;
+
+import lombok.Data;
+
+@Data
+public class UniqueListenersDto {
+
+    private Long day;       // 今天（自然日）
+    private Long week;      // 最近7个自然日，含今天
+    private Long allTime;   // 全部时间
+}
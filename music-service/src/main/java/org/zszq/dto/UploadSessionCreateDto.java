@@ -0,0 +1,30 @@
+package org.zszq.dto;
+
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Positive;
+import lombok.Data;
+
+@Data
+public class UploadSessionCreateDto {
+
+    @NotBlank(message = "音乐文件名不能为空")
+    private String fileName;
+
+    @NotBlank(message = "音乐文件类型不能为空")
+    private String contentType;
+
+    @NotNull(message = "音乐文件大小不能为空")
+    @Positive(message = "音乐文件大小必须大于0")
+    private Long fileSize;
+
+    private String coverFileName;
+
+    private String coverContentType;
+
+    @Positive(message = "封面文件大小必须大于0")
+    private Long coverFileSize;
+
+    @NotNull(message = "上传用户ID不能为空")
+    private Long uploadUserId;
+}
@@ -0,0 +1,26 @@
+package org.zszq.dto;
+
+import lombok.Data;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Data
+public class UploadSessionResponseDto {
+
+    private String sessionId;
+    private LocalDateTime expiresAt;
+    private UploadTarget music;
+    private UploadTarget cover;
+
+    /**
+     * 单个文件的上传方式：小文件使用 url 一次PUT上传；
+     * 大文件使用分片上传，按顺序把每个分片（除最后一片外大小均为 partSize）PUT到 partUrls 中对应的地址
+     */
+    @Data
+    public static class UploadTarget {
+        private String url;
+        private Long partSize;
+        private List<String> partUrls;
+    }
+}
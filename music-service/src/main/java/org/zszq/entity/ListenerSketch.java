@@ -0,0 +1,52 @@
+package org.zszq.entity;
+
+import jakarta.persistence.*;
+import lombok.Data;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * 独立听众草图
+ * 每个音乐或播放列表每天一行 HyperLogLog 草图，bucketDate 为 {@link #ALL_TIME} 的行累计全部时间
+ */
+@Data
+@Entity
+@Table(name = "listener_sketches",
+       uniqueConstraints = @UniqueConstraint(name = "uk_listener_sketches_bucket",
+                                             columnNames = {"target_type", "target_id", "bucket_date"}))
+public class ListenerSketch {
+
+    public static final LocalDate ALL_TIME = LocalDate.EPOCH;
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "target_type", nullable = false, length = 20)
+    private TargetType targetType;
+
+    @Column(name = "target_id", nullable = false)
+    private Long targetId;
+
+    @Column(name = "bucket_date", nullable = false)
+    private LocalDate bucketDate;
+
+    @Column(nullable = false)
+    private byte[] sketch;
+
+    @Column(name = "updated_at", nullable = false)
+    private LocalDateTime updatedAt;
+
+    @PrePersist
+    @PreUpdate
+    protected void onUpdate() {
+        updatedAt = LocalDateTime.now();
+    }
+
+    public enum TargetType {
+        MUSIC,      // 音乐
+        PLAYLIST    // 播放列表
+    }
+}
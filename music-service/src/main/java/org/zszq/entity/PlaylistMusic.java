@@ -22,8 +22,11 @@ public class PlaylistMusic {
     @JoinColumn(name = "music_id", nullable = false)
     private Music music;
 
+    /**
+     * 稀疏排序值，相邻曲目之间留有间隔，见 PlaylistOrderService
+     */
     @Column(name = "sort_order", nullable = false)
-    private Integer sortOrder;
+    private Long sortOrder;
 
     @Column(name = "added_by_id", nullable = false)
     private Long addedById;
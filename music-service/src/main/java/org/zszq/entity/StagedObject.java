@@ -0,0 +1,39 @@
+package org.zszq.entity;
+
+import jakarta.persistence.*;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+/**
+ * 待确认的存储对象
+ * 文件写入对象存储前登记，音乐记录提交时在同一事务内删除；
+ * 长时间未被确认的登记说明记录从未提交，由清理任务删除对应对象
+ * 内容寻址对象（shared）可能同时被其他上传引用，只能由清理任务在确认无引用后删除
+ */
+@Data
+@Entity
+@Table(name = "staged_objects")
+public class StagedObject {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(nullable = false, length = 63)
+    private String bucket;
+
+    @Column(name = "object_name", nullable = false, length = 500)
+    private String objectName;
+
+    @Column
+    private Boolean shared = false;
+
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+
+    @PrePersist
+    protected void onCreate() {
+        createdAt = LocalDateTime.now();
+    }
+}
@@ -0,0 +1,53 @@
+package org.zszq.entity;
+
+import jakarta.persistence.*;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+/**
+ * 内容寻址存储对象
+ * 同一存储桶内相同内容（SHA-256）只保存一份，ref_count 记录引用该对象的业务记录数
+ */
+@Data
+@Entity
+@Table(name = "storage_blobs",
+       uniqueConstraints = @UniqueConstraint(name = "uk_storage_blobs_hash", columnNames = {"bucket", "content_hash"}))
+public class StorageBlob {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(nullable = false, length = 63)
+    private String bucket;
+
+    @Column(name = "content_hash", nullable = false, length = 64)
+    private String contentHash;
+
+    @Column(name = "object_name", nullable = false, length = 500)
+    private String objectName;
+
+    @Column(nullable = false)
+    private Long size;
+
+    @Column(name = "content_type", length = 100)
+    private String contentType;
+
+    @Column(name = "ref_count", nullable = false)
+    private Long refCount = 0L;
+
+    /**
+     * 引用计数归零的时间，仍被引用时为空
+     */
+    @Column(name = "released_at")
+    private LocalDateTime releasedAt;
+
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+
+    @PrePersist
+    protected void onCreate() {
+        createdAt = LocalDateTime.now();
+    }
+}
@@ -0,0 +1,76 @@
+package org.zszq.entity;
+
+import jakarta.persistence.*;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+/**
+ * 直传上传会话
+ * 客户端凭预签名地址直接把文件写入对象存储，完成后由服务端校验对象并创建音乐记录；
+ * 对象在会话创建时登记为暂存对象，会话过期未完成时由清理任务删除
+ */
+@Data
+@Entity
+@Table(name = "upload_sessions")
+public class UploadSession {
+
+    @Id
+    @Column(length = 36)
+    private String id;
+
+    @Column(name = "upload_user_id", nullable = false)
+    private Long uploadUserId;
+
+    @Column(name = "music_object", nullable = false, length = 500)
+    private String musicObject;
+
+    @Column(name = "music_content_type", nullable = false, length = 100)
+    private String musicContentType;
+
+    @Column(name = "music_size", nullable = false)
+    private Long musicSize;
+
+    /**
+     * 分片上传ID，单次PUT上传时为空
+     */
+    @Column(name = "music_upload_id")
+    private String musicUploadId;
+
+    @Column(name = "music_staged_id", nullable = false)
+    private Long musicStagedId;
+
+    @Column(name = "cover_object", length = 500)
+    private String coverObject;
+
+    @Column(name = "cover_content_type", length = 100)
+    private String coverContentType;
+
+    @Column(name = "cover_size")
+    private Long coverSize;
+
+    @Column(name = "cover_staged_id")
+    private Long coverStagedId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private UploadSessionStatus status = UploadSessionStatus.PENDING;
+
+    @Column(name = "music_id")
+    private Long musicId;
+
+    @Column(name = "expires_at", nullable = false)
+    private LocalDateTime expiresAt;
+
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+
+    @PrePersist
+    protected void onCreate() {
+        createdAt = LocalDateTime.now();
+    }
+
+    public enum UploadSessionStatus {
+        PENDING, COMPLETED
+    }
+}
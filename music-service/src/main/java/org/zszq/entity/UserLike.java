@@ -0,0 +1,45 @@
+package org.zszq.entity;
+
+import jakarta.persistence.*;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+/**
+ * 用户点赞记录
+ * 同一用户对同一音乐或播放列表只有一行，重复点赞、重复取消都不改变点赞数
+ */
+@Data
+@Entity
+@Table(name = "user_likes",
+       uniqueConstraints = @UniqueConstraint(name = "uk_user_likes_target",
+                                             columnNames = {"user_id", "target_type", "target_id"}))
+public class UserLike {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "user_id", nullable = false)
+    private Long userId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "target_type", nullable = false, length = 20)
+    private TargetType targetType;
+
+    @Column(name = "target_id", nullable = false)
+    private Long targetId;
+
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+
+    @PrePersist
+    protected void onCreate() {
+        createdAt = LocalDateTime.now();
+    }
+
+    public enum TargetType {
+        MUSIC,      // 音乐
+        PLAYLIST    // 播放列表
+    }
+}
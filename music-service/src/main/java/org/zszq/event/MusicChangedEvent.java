@@ -0,0 +1,18 @@
+package org.zszq.event;
+
+/**
+ * 音乐记录变更事件
+ * 由业务服务在数据写入后发布，监听方在事务提交后执行元数据提取、搜索索引更新等后台任务
+ *
+ * @param musicId 音乐ID
+ * @param type    变更类型
+ */
+public record MusicChangedEvent(Long musicId, Type type) {
+
+    public enum Type {
+        UPLOADED,   // 新上传
+        APPROVED,   // 审核通过
+        REJECTED,   // 审核拒绝
+        DELETED     // 删除
+    }
+}
@@ -0,0 +1,41 @@
+package org.zszq.event;
+
+import java.util.Locale;
+
+/**
+ * 播放来源
+ * 播放日志中以序号保存，只能在末尾追加新的取值
+ */
+public enum PlaySource {
+    UNKNOWN,    // 未知
+    SEARCH,     // 搜索结果
+    PLAYLIST,   // 播放列表
+    CHART,      // 排行榜
+    RECOMMEND,  // 推荐
+    USER_PAGE,  // 用户主页
+    SHARE;      // 分享链接
+
+    private static final PlaySource[] VALUES = values();
+
+    public int code() {
+        return ordinal();
+    }
+
+    public static PlaySource fromCode(int code) {
+        return code >= 0 && code < VALUES.length ? VALUES[code] : UNKNOWN;
+    }
+
+    /**
+     * 按名称解析，为空或无法识别时返回 UNKNOWN
+     */
+    public static PlaySource of(String name) {
+        if (name == null || name.isBlank()) {
+            return UNKNOWN;
+        }
+        try {
+            return valueOf(name.strip().toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            return UNKNOWN;
+        }
+    }
+}
@@ -0,0 +1,17 @@
+package org.zszq.event;
+
+/**
+ * 播放列表变更事件
+ * 由播放列表服务在数据写入后发布，监听方在事务提交后更新补全索引等内存结构
+ *
+ * @param playlistId 播放列表ID
+ * @param type       变更类型
+ */
+public record PlaylistChangedEvent(Long playlistId, Type type) {
+
+    public enum Type {
+        CREATED,    // 新建
+        UPDATED,    // 名称、描述、可见性等信息变更
+        DELETED     // 删除
+    }
+}
@@ -0,0 +1,37 @@
+package org.zszq.repository;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+
+/**
+ * 计数列的批量增量更新
+ * ID和增量以两个数组参数展开为临时表后与目标表关联更新，语句长度与条数无关；
+ * 更新前先按ID升序锁定要更新的行，并发的刷新以相同顺序加锁，不会互相死锁。
+ * 表名和列名直接拼入SQL，只能传入常量
+ */
+final class CounterUpdates {
+
+    private CounterUpdates() {
+    }
+
+    /**
+     * 按ID累加计数
+     *
+     * @param clampAtZero 结果小于0时取0，用于可以减少的计数（如点赞数）
+     * @return 更新的行数，不存在的ID不计入
+     */
+    static int add(JdbcTemplate jdbcTemplate, String table, String column, boolean clampAtZero,
+                   Long[] ids, Long[] deltas) {
+        if (ids.length == 0) {
+            return 0;
+        }
+        String value = "t." + column + " + d.delta";
+        String sql = "WITH locked AS MATERIALIZED (SELECT id FROM " + table + " WHERE id = ANY(?) ORDER BY id FOR UPDATE) " +
+                "UPDATE " + table + " t SET " + column + " = " + (clampAtZero ? "GREATEST(" + value + ", 0)" : value) +
+                " FROM unnest(?, ?) AS d(id, delta), locked l WHERE l.id = d.id AND t.id = d.id";
+        return jdbcTemplate.update(sql, ps -> {
+            ps.setArray(1, ps.getConnection().createArrayOf("bigint", ids));
+            ps.setArray(2, ps.getConnection().createArrayOf("bigint", ids));
+            ps.setArray(3, ps.getConnection().createArrayOf("bigint", deltas));
+        });
+    }
+}
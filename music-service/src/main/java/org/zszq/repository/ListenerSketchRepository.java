@@ -0,0 +1,62 @@
+package org.zszq.repository;
+
+import jakarta.persistence.LockModeType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.zszq.entity.ListenerSketch;
+
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface ListenerSketchRepository extends JpaRepository<ListenerSketch, Long> {
+
+    /**
+     * 草图不存在时直接写入
+     *
+     * @return 写入的行数，已存在时为0
+     */
+    @Modifying
+    @Query(value = "INSERT INTO listener_sketches (target_type, target_id, bucket_date, sketch, updated_at) " +
+                   "VALUES (:targetType, :targetId, :bucketDate, :sketch, now()) " +
+                   "ON CONFLICT (target_type, target_id, bucket_date) DO NOTHING",
+           nativeQuery = true)
+    int insertIfAbsent(@Param("targetType") String targetType,
+                       @Param("targetId") Long targetId,
+                       @Param("bucketDate") LocalDate bucketDate,
+                       @Param("sketch") byte[] sketch);
+
+    /**
+     * 读取并锁定草图，多个节点同时合并同一行时串行执行
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT s FROM ListenerSketch s WHERE s.targetType = :targetType AND s.targetId = :targetId " +
+           "AND s.bucketDate = :bucketDate")
+    Optional<ListenerSketch> findForUpdate(@Param("targetType") ListenerSketch.TargetType targetType,
+                                           @Param("targetId") Long targetId,
+                                           @Param("bucketDate") LocalDate bucketDate);
+
+    List<ListenerSketch> findByTargetTypeAndTargetIdAndBucketDateIn(ListenerSketch.TargetType targetType,
+                                                                     Long targetId,
+                                                                     Collection<LocalDate> bucketDates);
+
+    /**
+     * 删除早于指定日期的按天草图，累计草图不受影响
+     */
+    @Modifying
+    @Query("DELETE FROM ListenerSketch s WHERE s.bucketDate > :allTime AND s.bucketDate < :before")
+    int deleteDailyBefore(@Param("allTime") LocalDate allTime, @Param("before") LocalDate before);
+
+    /**
+     * 删除对象的全部草图（包括累计草图），对象被删除时调用
+     */
+    @Modifying
+    @Query("DELETE FROM ListenerSketch s WHERE s.targetType = :targetType AND s.targetId = :targetId")
+    int deleteByTarget(@Param("targetType") ListenerSketch.TargetType targetType, @Param("targetId") Long targetId);
+}
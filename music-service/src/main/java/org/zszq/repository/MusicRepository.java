@@ -3,15 +3,18 @@ package org.zszq.repository;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 import org.zszq.entity.Music;
 
+import java.time.LocalDateTime;
 import java.util.List;
 
 @Repository
-public interface MusicRepository extends JpaRepository<Music, Long> {
+public interface MusicRepository extends JpaRepository<Music, Long>, MusicRepositoryCustom {
 
     Page<Music> findByStatus(Music.MusicStatus status, Pageable pageable);
 
@@ -30,9 +33,102 @@ public interface MusicRepository extends JpaRepository<Music, Long> {
                                @Param("genre") String genre, 
                                Pageable pageable);
 
+    /**
+     * 全文检索与三元组模糊匹配，按相关度排序
+     * 依赖 init.sql 中的 search_vector 触发器和 pg_trgm 索引
+     */
+    @Query(value = "SELECT m.* FROM music m WHERE m.status = 'APPROVED' AND " +
+                   "(m.search_vector @@ plainto_tsquery('simple', :keyword) OR " +
+                   "m.title ILIKE :pattern OR m.artist ILIKE :pattern OR m.album ILIKE :pattern) " +
+                   "ORDER BY ts_rank(m.search_vector, plainto_tsquery('simple', :keyword)) + " +
+                   "word_similarity(:keyword, m.title) + 0.5 * word_similarity(:keyword, COALESCE(m.artist, '')) DESC, " +
+                   "m.id DESC",
+           countQuery = "SELECT COUNT(*) FROM music m WHERE m.status = 'APPROVED' AND " +
+                        "(m.search_vector @@ plainto_tsquery('simple', :keyword) OR " +
+                        "m.title ILIKE :pattern OR m.artist ILIKE :pattern OR m.album ILIKE :pattern)",
+           nativeQuery = true)
+    Page<Music> fullTextSearch(@Param("keyword") String keyword,
+                               @Param("pattern") String pattern,
+                               Pageable pageable);
+
+    @Query(value = "SELECT m.* FROM music m WHERE m.status = 'APPROVED' AND " +
+                   "(CAST(:artistPattern AS TEXT) IS NULL OR m.artist ILIKE CAST(:artistPattern AS TEXT)) AND " +
+                   "(CAST(:genrePattern AS TEXT) IS NULL OR m.genre ILIKE CAST(:genrePattern AS TEXT)) " +
+                   "ORDER BY m.created_at DESC",
+           countQuery = "SELECT COUNT(*) FROM music m WHERE m.status = 'APPROVED' AND " +
+                        "(CAST(:artistPattern AS TEXT) IS NULL OR m.artist ILIKE CAST(:artistPattern AS TEXT)) AND " +
+                        "(CAST(:genrePattern AS TEXT) IS NULL OR m.genre ILIKE CAST(:genrePattern AS TEXT))",
+           nativeQuery = true)
+    Page<Music> trigramFilter(@Param("artistPattern") String artistPattern,
+                              @Param("genrePattern") String genrePattern,
+                              Pageable pageable);
+
+    /**
+     * 按条件筛选的游标翻页，按 (created_at, id) 降序，走 status = 'APPROVED' 的部分索引和三元组索引
+     */
+    @Query(value = "SELECT m.* FROM music m WHERE m.status = 'APPROVED' AND " +
+                   "(CAST(:artistPattern AS TEXT) IS NULL OR m.artist ILIKE CAST(:artistPattern AS TEXT)) AND " +
+                   "(CAST(:genrePattern AS TEXT) IS NULL OR m.genre ILIKE CAST(:genrePattern AS TEXT)) AND " +
+                   "(m.created_at, m.id) < (:createdAt, :id) " +
+                   "ORDER BY m.created_at DESC, m.id DESC",
+           nativeQuery = true)
+    List<Music> trigramFilterBefore(@Param("artistPattern") String artistPattern,
+                                    @Param("genrePattern") String genrePattern,
+                                    @Param("createdAt") LocalDateTime createdAt,
+                                    @Param("id") Long id,
+                                    Pageable pageable);
+
+    @Query("SELECT m FROM Music m WHERE m.status = 'APPROVED' AND " +
+           "(LOWER(m.title) LIKE LOWER(CONCAT('%', :keyword, '%')) OR " +
+           "LOWER(m.artist) LIKE LOWER(CONCAT('%', :keyword, '%')) OR " +
+           "LOWER(m.album) LIKE LOWER(CONCAT('%', :keyword, '%'))) AND " +
+           "(m.createdAt < :createdAt OR (m.createdAt = :createdAt AND m.id < :id)) " +
+           "ORDER BY m.createdAt DESC, m.id DESC")
+    List<Music> searchByKeywordBefore(@Param("keyword") String keyword,
+                                      @Param("createdAt") LocalDateTime createdAt,
+                                      @Param("id") Long id,
+                                      Pageable pageable);
+
+    @Query("SELECT m FROM Music m WHERE m.uploadUserId = :userId AND " +
+           "(m.createdAt < :createdAt OR (m.createdAt = :createdAt AND m.id < :id)) " +
+           "ORDER BY m.createdAt DESC, m.id DESC")
+    List<Music> findByUploadUserIdBefore(@Param("userId") Long userId,
+                                         @Param("createdAt") LocalDateTime createdAt,
+                                         @Param("id") Long id,
+                                         Pageable pageable);
+
+    @Query("SELECT m FROM Music m WHERE m.status = 'APPROVED' AND " +
+           "(:artist IS NULL OR LOWER(m.artist) LIKE LOWER(CONCAT('%', :artist, '%'))) AND " +
+           "(:genre IS NULL OR LOWER(m.genre) LIKE LOWER(CONCAT('%', :genre, '%'))) AND " +
+           "(m.createdAt < :createdAt OR (m.createdAt = :createdAt AND m.id < :id)) " +
+           "ORDER BY m.createdAt DESC, m.id DESC")
+    List<Music> searchByFiltersBefore(@Param("artist") String artist,
+                                      @Param("genre") String genre,
+                                      @Param("createdAt") LocalDateTime createdAt,
+                                      @Param("id") Long id,
+                                      Pageable pageable);
+
     @Query("SELECT m FROM Music m WHERE m.status = 'APPROVED' ORDER BY m.playCount DESC")
     List<Music> findTopByPlayCount(Pageable pageable);
 
     @Query("SELECT m FROM Music m WHERE m.status = 'APPROVED' ORDER BY m.createdAt DESC")
     List<Music> findLatestMusic(Pageable pageable);
+
+    @Query("SELECT m FROM Music m WHERE m.status = 'APPROVED' AND m.id > :afterId ORDER BY m.id ASC")
+    List<Music> findApprovedAfter(@Param("afterId") Long afterId, Pageable pageable);
+
+    @Query("SELECT m FROM Music m WHERE m.id > :afterId ORDER BY m.id ASC")
+    List<Music> findAllAfter(@Param("afterId") Long afterId, Pageable pageable);
+
+    @Query("SELECT m.id FROM Music m WHERE m.durationSeconds IS NULL AND m.id > :afterId ORDER BY m.id ASC")
+    List<Long> findIdsMissingMetadata(@Param("afterId") Long afterId, Pageable pageable);
+
+    @Transactional
+    @Modifying
+    @Query("UPDATE Music m SET m.durationSeconds = :duration, m.bitRate = :bitRate, m.sampleRate = :sampleRate " +
+           "WHERE m.id = :id")
+    int updateAudioMetadata(@Param("id") Long id,
+                            @Param("duration") Integer duration,
+                            @Param("bitRate") Integer bitRate,
+                            @Param("sampleRate") Integer sampleRate);
 }
\ No newline at end of file
@@ -0,0 +1,43 @@
+package org.zszq.repository;
+
+import org.zszq.entity.Music;
+
+import java.util.List;
+
+public interface MusicRepositoryCustom {
+
+    /**
+     * 带相关度得分的音乐ID
+     */
+    record ScoredId(long id, double score) {
+    }
+
+    /**
+     * 用一条多行INSERT语句批量写入音乐记录，ID预先从主键序列分配并写回传入的实体
+     *
+     * @return 按传入顺序排列的新记录ID
+     */
+    List<Long> insertAll(List<Music> musics);
+
+    /**
+     * 全文检索的游标翻页，按 (相关度, id) 降序返回排在上一页最后一条之后的记录，得分与 fullTextSearch 的排序表达式相同
+     *
+     * @param afterScore 上一页最后一条的得分，第一页为 null
+     * @param afterId    上一页最后一条的ID，第一页时忽略
+     */
+    List<ScoredId> fullTextSearchAfter(String keyword, String pattern, Double afterScore, long afterId, int limit);
+
+    /**
+     * 用一条UPDATE语句批量累加播放次数，ids与deltas一一对应；不存在的ID被忽略
+     *
+     * @return 实际更新的行数
+     */
+    int addPlayCounts(Long[] ids, Long[] deltas);
+
+    /**
+     * 用一条UPDATE语句批量累加点赞数，增量可为负，结果不小于0
+     *
+     * @return 实际更新的行数
+     */
+    int addLikeCounts(Long[] ids, Long[] deltas);
+}
@@ -0,0 +1,101 @@
+package org.zszq.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.zszq.entity.Music;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * 音乐记录的批量写入
+ * 主键为IDENTITY时Hibernate无法批量插入，这里先从主键序列一次取出全部ID，再拼接多行VALUES显式写入，
+ * 每条记录的ID由调用方决定，不依赖数据库返回结果的顺序；
+ * 全文检索的游标翻页需要取回每条记录的得分作为游标，同样直接用SQL查询；
+ * 播放次数、点赞数以两个数组参数展开为临时表后与 music 关联更新，语句长度与条数无关
+ */
+@RequiredArgsConstructor
+public class MusicRepositoryImpl implements MusicRepositoryCustom {
+
+    private static final String ALLOCATE_IDS = "SELECT nextval(pg_get_serial_sequence('music', 'id')) " +
+            "FROM generate_series(1, ?)";
+    private static final String INSERT_PREFIX = "INSERT INTO music (id, title, artist, album, genre, release_year, lyrics, " +
+            "file_url, cover_url, file_size, status, upload_user_id, play_count, like_count, created_at, updated_at) VALUES ";
+    private static final String VALUES_ROW = "(?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, 0, 0, ?, ?)";
+
+    private static final String FULL_TEXT_SCORED = "SELECT id, score FROM (SELECT m.id, CAST(" +
+            "ts_rank(m.search_vector, q.query) + word_similarity(?, m.title) + " +
+            "0.5 * word_similarity(?, COALESCE(m.artist, '')) AS DOUBLE PRECISION) AS score " +
+            "FROM music m, plainto_tsquery('simple', ?) AS q(query) WHERE m.status = 'APPROVED' AND " +
+            "(m.search_vector @@ q.query OR m.title ILIKE ? OR m.artist ILIKE ? OR m.album ILIKE ?)) r ";
+    private static final String SCORE_AFTER = "WHERE r.score < ? OR (r.score = ? AND r.id < ?) ";
+    private static final String SCORE_ORDER = "ORDER BY r.score DESC, r.id DESC LIMIT ?";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Override
+    public List<Long> insertAll(List<Music> musics) {
+        if (musics.isEmpty()) {
+            return List.of();
+        }
+        // 序列值在并发取用时不保证连续，排序后按传入顺序分配，同一批记录的ID仍然递增
+        List<Long> ids = jdbcTemplate.queryForList(ALLOCATE_IDS, Long.class, musics.size());
+        if (ids.size() != musics.size()) {
+            throw new IllegalStateException("分配音乐ID失败");
+        }
+        ids = ids.stream().sorted().toList();
+
+        String sql = INSERT_PREFIX + String.join(", ", Collections.nCopies(musics.size(), VALUES_ROW));
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        List<Object> args = new ArrayList<>(musics.size() * 14);
+        for (int i = 0; i < musics.size(); i++) {
+            Music music = musics.get(i);
+            music.setId(ids.get(i));
+            args.add(music.getId());
+            args.add(music.getTitle());
+            args.add(music.getArtist());
+            args.add(music.getAlbum());
+            args.add(music.getGenre());
+            args.add(music.getReleaseYear());
+            args.add(music.getLyrics());
+            args.add(music.getFileUrl());
+            args.add(music.getCoverUrl());
+            args.add(music.getFileSize());
+            args.add(music.getStatus().name());
+            args.add(music.getUploadUserId());
+            args.add(now);
+            args.add(now);
+        }
+        jdbcTemplate.update(sql, args.toArray());
+        return ids;
+    }
+
+    @Override
+    public List<ScoredId> fullTextSearchAfter(String keyword, String pattern, Double afterScore, long afterId, int limit) {
+        List<Object> args = new ArrayList<>(List.of(keyword, keyword, keyword, pattern, pattern, pattern));
+        String sql = FULL_TEXT_SCORED;
+        if (afterScore != null) {
+            // 得分以 double 精确往返，同分的记录按ID继续
+            sql += SCORE_AFTER;
+            args.add(afterScore);
+            args.add(afterScore);
+            args.add(afterId);
+        }
+        args.add(limit);
+        return jdbcTemplate.query(sql + SCORE_ORDER,
+                (rs, rowNum) -> new ScoredId(rs.getLong("id"), rs.getDouble("score")), args.toArray());
+    }
+
+    @Override
+    public int addPlayCounts(Long[] ids, Long[] deltas) {
+        return CounterUpdates.add(jdbcTemplate, "music", "play_count", false, ids, deltas);
+    }
+
+    @Override
+    public int addLikeCounts(Long[] ids, Long[] deltas) {
+        return CounterUpdates.add(jdbcTemplate, "music", "like_count", true, ids, deltas);
+    }
+}
@@ -18,24 +18,47 @@ public interface PlaylistMusicRepository extends JpaRepository<PlaylistMusic, Lo
     @Query("SELECT pm FROM PlaylistMusic pm JOIN FETCH pm.music WHERE pm.playlist.id = :playlistId ORDER BY pm.sortOrder ASC")
     Page<PlaylistMusic> findByPlaylistIdOrderBySortOrder(@Param("playlistId") Long playlistId, Pageable pageable);
 
+    @Query("SELECT pm FROM PlaylistMusic pm JOIN FETCH pm.music WHERE pm.playlist.id = :playlistId AND " +
+           "(pm.sortOrder > :sortOrder OR (pm.sortOrder = :sortOrder AND pm.id > :id)) " +
+           "ORDER BY pm.sortOrder ASC, pm.id ASC")
+    List<PlaylistMusic> findByPlaylistIdAfter(@Param("playlistId") Long playlistId,
+                                              @Param("sortOrder") Long sortOrder,
+                                              @Param("id") Long id,
+                                              Pageable pageable);
+
     @Query("SELECT pm FROM PlaylistMusic pm WHERE pm.playlist.id = :playlistId AND pm.music.id = :musicId")
     Optional<PlaylistMusic> findByPlaylistIdAndMusicId(@Param("playlistId") Long playlistId, 
                                                        @Param("musicId") Long musicId);
 
     @Query("SELECT MAX(pm.sortOrder) FROM PlaylistMusic pm WHERE pm.playlist.id = :playlistId")
-    Optional<Integer> findMaxSortOrderByPlaylistId(@Param("playlistId") Long playlistId);
+    Optional<Long> findMaxSortOrderByPlaylistId(@Param("playlistId") Long playlistId);
 
-    @Query("SELECT COUNT(pm) FROM PlaylistMusic pm WHERE pm.playlist.id = :playlistId")
-    int countByPlaylistId(@Param("playlistId") Long playlistId);
+    /**
+     * 按 (sortOrder, id) 排在指定位置之后的条目的排序值，excludeId 为正在移动的条目
+     */
+    @Query("SELECT pm.sortOrder FROM PlaylistMusic pm WHERE pm.playlist.id = :playlistId AND pm.id <> :excludeId AND " +
+           "(pm.sortOrder > :sortOrder OR (pm.sortOrder = :sortOrder AND pm.id > :id)) " +
+           "ORDER BY pm.sortOrder ASC, pm.id ASC")
+    List<Long> findSortOrdersAfter(@Param("playlistId") Long playlistId,
+                                   @Param("sortOrder") Long sortOrder,
+                                   @Param("id") Long id,
+                                   @Param("excludeId") Long excludeId,
+                                   Pageable pageable);
 
     @Modifying
     @Query("DELETE FROM PlaylistMusic pm WHERE pm.playlist.id = :playlistId AND pm.music.id = :musicId")
     void deleteByPlaylistIdAndMusicId(@Param("playlistId") Long playlistId, @Param("musicId") Long musicId);
 
-    @Modifying
-    @Query("UPDATE PlaylistMusic pm SET pm.sortOrder = pm.sortOrder - 1 " +
-           "WHERE pm.playlist.id = :playlistId AND pm.sortOrder > :sortOrder")
-    void updateSortOrderAfterRemoval(@Param("playlistId") Long playlistId, @Param("sortOrder") Integer sortOrder);
+    /**
+     * 按当前顺序把播放列表的排序值重新编号为 gap, 2*gap, 3*gap ...，已经是目标值的行不更新
+     */
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query(value = "UPDATE playlist_music pm SET sort_order = r.rn * :gap " +
+                   "FROM (SELECT id, ROW_NUMBER() OVER (ORDER BY sort_order, id) AS rn " +
+                   "      FROM playlist_music WHERE playlist_id = :playlistId) r " +
+                   "WHERE pm.id = r.id AND pm.sort_order <> r.rn * :gap",
+           nativeQuery = true)
+    int rebalance(@Param("playlistId") Long playlistId, @Param("gap") long gap);
 
     @Query("SELECT pm FROM PlaylistMusic pm WHERE pm.addedById = :userId ORDER BY pm.addedAt DESC")
     Page<PlaylistMusic> findByAddedByIdOrderByAddedAtDesc(@Param("userId") Long userId, Pageable pageable);
@@ -1,19 +1,22 @@
 package org.zszq.repository;
 
+import jakarta.persistence.LockModeType;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
 import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 import org.zszq.entity.Playlist;
 
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
 
 @Repository
-public interface PlaylistRepository extends JpaRepository<Playlist, Long> {
+public interface PlaylistRepository extends JpaRepository<Playlist, Long>, PlaylistRepositoryCustom {
 
     Page<Playlist> findByCreatorId(Long creatorId, Pageable pageable);
 
@@ -22,12 +25,39 @@ public interface PlaylistRepository extends JpaRepository<Playlist, Long> {
            "LOWER(p.description) LIKE LOWER(CONCAT('%', :keyword, '%')))")
     Page<Playlist> searchPublicPlaylists(@Param("keyword") String keyword, Pageable pageable);
 
+    /**
+     * 公开播放列表全文检索，按相关度和播放量排序
+     */
+    @Query(value = "SELECT p.* FROM playlists p WHERE p.visibility = 'PUBLIC' AND " +
+                   "(p.search_vector @@ plainto_tsquery('simple', :keyword) OR " +
+                   "p.name ILIKE :pattern OR p.description ILIKE :pattern) " +
+                   "ORDER BY ts_rank(p.search_vector, plainto_tsquery('simple', :keyword)) + " +
+                   "word_similarity(:keyword, p.name) DESC, p.play_count DESC, p.id DESC",
+           countQuery = "SELECT COUNT(*) FROM playlists p WHERE p.visibility = 'PUBLIC' AND " +
+                        "(p.search_vector @@ plainto_tsquery('simple', :keyword) OR " +
+                        "p.name ILIKE :pattern OR p.description ILIKE :pattern)",
+           nativeQuery = true)
+    Page<Playlist> fullTextSearchPublic(@Param("keyword") String keyword,
+                                        @Param("pattern") String pattern,
+                                        Pageable pageable);
+
+    @Query("SELECT p FROM Playlist p WHERE p.creatorId = :creatorId AND " +
+           "(p.createdAt < :createdAt OR (p.createdAt = :createdAt AND p.id < :id)) " +
+           "ORDER BY p.createdAt DESC, p.id DESC")
+    List<Playlist> findByCreatorIdBefore(@Param("creatorId") Long creatorId,
+                                         @Param("createdAt") LocalDateTime createdAt,
+                                         @Param("id") Long id,
+                                         Pageable pageable);
+
     @Query("SELECT p FROM Playlist p WHERE p.visibility = 'PUBLIC' ORDER BY p.playCount DESC")
     List<Playlist> findTopPublicPlaylists(Pageable pageable);
 
     @Query("SELECT p FROM Playlist p WHERE p.visibility = 'PUBLIC' ORDER BY p.createdAt DESC")
     List<Playlist> findLatestPublicPlaylists(Pageable pageable);
 
+    @Query("SELECT p FROM Playlist p WHERE p.visibility = 'PUBLIC' AND p.id > :afterId ORDER BY p.id ASC")
+    List<Playlist> findPublicAfter(@Param("afterId") Long afterId, Pageable pageable);
+
     @Query("SELECT p FROM Playlist p WHERE p.creatorId = :userId AND p.type = :type")
     Optional<Playlist> findByCreatorIdAndType(@Param("userId") Long userId, 
                                              @Param("type") Playlist.PlaylistType type);
@@ -36,18 +66,22 @@ public interface PlaylistRepository extends JpaRepository<Playlist, Long> {
     long countByCreatorId(@Param("userId") Long userId);
 
     @Modifying
-    @Query("UPDATE Playlist p SET p.playCount = p.playCount + 1 WHERE p.id = :playlistId")
-    void incrementPlayCount(@Param("playlistId") Long playlistId);
+    @Query("UPDATE Playlist p SET p.musicCount = p.musicCount + :delta WHERE p.id = :playlistId")
+    void addMusicCount(@Param("playlistId") Long playlistId, @Param("delta") int delta);
 
+    /**
+     * 音乐删除前，包含该音乐的播放列表曲目数各减一；曲目关联随音乐级联删除
+     */
     @Modifying
-    @Query("UPDATE Playlist p SET p.likeCount = p.likeCount + 1 WHERE p.id = :playlistId")
-    void incrementLikeCount(@Param("playlistId") Long playlistId);
+    @Query(value = "UPDATE playlists SET music_count = music_count - 1 " +
+                   "WHERE id IN (SELECT playlist_id FROM playlist_music WHERE music_id = :musicId)",
+           nativeQuery = true)
+    int removeMusicFromCounts(@Param("musicId") Long musicId);
 
-    @Modifying
-    @Query("UPDATE Playlist p SET p.likeCount = p.likeCount - 1 WHERE p.id = :playlistId AND p.likeCount > 0")
-    void decrementLikeCount(@Param("playlistId") Long playlistId);
-
-    @Modifying
-    @Query("UPDATE Playlist p SET p.musicCount = :count WHERE p.id = :playlistId")
-    void updateMusicCount(@Param("playlistId") Long playlistId, @Param("count") Integer count);
+    /**
+     * 锁定播放列表行，同一播放列表的曲目增删、移动和重排依次执行
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT p FROM Playlist p WHERE p.id = :id")
+    Optional<Playlist> findByIdForUpdate(@Param("id") Long id);
 }
\ No newline at end of file
@@ -0,0 +1,18 @@
+package org.zszq.repository;
+
+public interface PlaylistRepositoryCustom {
+
+    /**
+     * 用一条UPDATE语句批量累加播放次数，ids与deltas一一对应；不存在的ID被忽略
+     *
+     * @return 实际更新的行数
+     */
+    int addPlayCounts(Long[] ids, Long[] deltas);
+
+    /**
+     * 用一条UPDATE语句批量累加点赞数，增量可为负，结果不小于0
+     *
+     * @return 实际更新的行数
+     */
+    int addLikeCounts(Long[] ids, Long[] deltas);
+}
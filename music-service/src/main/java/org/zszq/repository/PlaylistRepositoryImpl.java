@@ -0,0 +1,24 @@
+package org.zszq.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+/**
+ * 播放列表的批量更新
+ * 播放次数、点赞数以两个数组参数展开为临时表后与 playlists 关联更新，语句长度与条数无关
+ */
+@RequiredArgsConstructor
+public class PlaylistRepositoryImpl implements PlaylistRepositoryCustom {
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Override
+    public int addPlayCounts(Long[] ids, Long[] deltas) {
+        return CounterUpdates.add(jdbcTemplate, "playlists", "play_count", false, ids, deltas);
+    }
+
+    @Override
+    public int addLikeCounts(Long[] ids, Long[] deltas) {
+        return CounterUpdates.add(jdbcTemplate, "playlists", "like_count", true, ids, deltas);
+    }
+}
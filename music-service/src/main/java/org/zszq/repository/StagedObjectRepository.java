@@ -0,0 +1,18 @@
+package org.zszq.repository;
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.zszq.entity.StagedObject;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface StagedObjectRepository extends JpaRepository<StagedObject, Long> {
+
+    @Query("SELECT s FROM StagedObject s WHERE s.createdAt < :before ORDER BY s.id ASC")
+    List<StagedObject> findExpired(@Param("before") LocalDateTime before, Pageable pageable);
+}
@@ -0,0 +1,65 @@
+package org.zszq.repository;
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.zszq.entity.StorageBlob;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface StorageBlobRepository extends JpaRepository<StorageBlob, Long> {
+
+    /**
+     * 按内容摘要查找仍被引用的对象，引用已归零、等待清理的对象视为不存在
+     */
+    @Query("SELECT b FROM StorageBlob b WHERE b.bucket = :bucket AND b.contentHash = :contentHash AND b.refCount > 0")
+    Optional<StorageBlob> findReferenced(@Param("bucket") String bucket, @Param("contentHash") String contentHash);
+
+    boolean existsByBucketAndObjectName(String bucket, String objectName);
+
+    @Modifying
+    @Query(value = "INSERT INTO storage_blobs (bucket, content_hash, object_name, size, content_type, ref_count, created_at) " +
+                   "VALUES (:bucket, :contentHash, :objectName, :size, :contentType, :references, now()) " +
+                   "ON CONFLICT (bucket, content_hash) DO UPDATE SET ref_count = storage_blobs.ref_count + :references, released_at = NULL",
+           nativeQuery = true)
+    void retain(@Param("bucket") String bucket,
+                @Param("contentHash") String contentHash,
+                @Param("objectName") String objectName,
+                @Param("size") Long size,
+                @Param("contentType") String contentType,
+                @Param("references") int references);
+
+    /**
+     * 减少引用计数，归零时记录时间
+     *
+     * @return 更新的行数，对象不是内容寻址对象时为0
+     */
+    @Modifying
+    @Query(value = "UPDATE storage_blobs SET ref_count = GREATEST(ref_count - :references, 0), " +
+                   "released_at = CASE WHEN ref_count - :references <= 0 THEN now() ELSE NULL END " +
+                   "WHERE bucket = :bucket AND object_name = :objectName",
+           nativeQuery = true)
+    int release(@Param("bucket") String bucket,
+                @Param("objectName") String objectName,
+                @Param("references") int references);
+
+    @Query("SELECT b FROM StorageBlob b WHERE b.refCount = 0 AND b.releasedAt < :before ORDER BY b.releasedAt ASC")
+    List<StorageBlob> findReleased(@Param("before") LocalDateTime before, Pageable pageable);
+
+    /**
+     * 删除引用已归零且超过宽限期的记录；期间重新被引用或正在被新的上传转存时不删除
+     *
+     * @return 删除的行数
+     */
+    @Modifying
+    @Query(value = "DELETE FROM storage_blobs b WHERE b.id = :id AND b.ref_count = 0 AND b.released_at < :before " +
+                   "AND NOT EXISTS (SELECT 1 FROM staged_objects s WHERE s.bucket = b.bucket AND s.object_name = b.object_name)",
+           nativeQuery = true)
+    int deleteReleased(@Param("id") Long id, @Param("before") LocalDateTime before);
+}
@@ -0,0 +1,29 @@
+package org.zszq.repository;
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.zszq.entity.UploadSession;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface UploadSessionRepository extends JpaRepository<UploadSession, String> {
+
+    @Query("SELECT s FROM UploadSession s WHERE s.expiresAt < :before ORDER BY s.expiresAt")
+    List<UploadSession> findExpired(@Param("before") LocalDateTime before, Pageable pageable);
+
+    /**
+     * 将会话标记为已完成，只有待完成的会话会被更新，用于防止同一会话重复创建音乐记录
+     *
+     * @return 更新的行数
+     */
+    @Modifying
+    @Query("UPDATE UploadSession s SET s.status = org.zszq.entity.UploadSession.UploadSessionStatus.COMPLETED, " +
+           "s.musicId = :musicId WHERE s.id = :id AND s.status = org.zszq.entity.UploadSession.UploadSessionStatus.PENDING")
+    int markCompleted(@Param("id") String id, @Param("musicId") Long musicId);
+}
@@ -0,0 +1,49 @@
+package org.zszq.repository;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.zszq.entity.UserLike;
+
+import java.util.List;
+
+@Repository
+public interface UserLikeRepository extends JpaRepository<UserLike, Long> {
+
+    /**
+     * 点赞，已点赞时不做任何事
+     *
+     * @return 新增的行数，已点赞时为0
+     */
+    @Modifying
+    @Query(value = "INSERT INTO user_likes (user_id, target_type, target_id, created_at) " +
+                   "VALUES (:userId, :targetType, :targetId, now()) " +
+                   "ON CONFLICT (user_id, target_type, target_id) DO NOTHING",
+           nativeQuery = true)
+    int insertIfAbsent(@Param("userId") Long userId,
+                       @Param("targetType") String targetType,
+                       @Param("targetId") Long targetId);
+
+    /**
+     * 取消点赞
+     *
+     * @return 删除的行数，未点赞时为0
+     */
+    @Modifying
+    @Query("DELETE FROM UserLike l WHERE l.userId = :userId AND l.targetType = :targetType AND l.targetId = :targetId")
+    int deleteLike(@Param("userId") Long userId,
+                   @Param("targetType") UserLike.TargetType targetType,
+                   @Param("targetId") Long targetId);
+
+    /**
+     * 删除对象的全部点赞，对象被删除时调用
+     */
+    @Modifying
+    @Query("DELETE FROM UserLike l WHERE l.targetType = :targetType AND l.targetId = :targetId")
+    int deleteByTarget(@Param("targetType") UserLike.TargetType targetType, @Param("targetId") Long targetId);
+
+    @Query("SELECT l.targetId FROM UserLike l WHERE l.userId = :userId AND l.targetType = :targetType")
+    List<Long> findTargetIds(@Param("userId") Long userId, @Param("targetType") UserLike.TargetType targetType);
+}
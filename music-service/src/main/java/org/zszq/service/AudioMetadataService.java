@@ -0,0 +1,245 @@
+package org.zszq.service;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.jaudiotagger.audio.AudioFileIO;
+import org.jaudiotagger.audio.AudioHeader;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.util.unit.DataSize;
+import org.zszq.entity.Music;
+import org.zszq.event.MusicChangedEvent;
+import org.zszq.repository.MusicRepository;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 音频元数据提取服务
+ * 上传完成后在后台读取对象的文件头区间（而非整个文件），解析时长、比特率、采样率并回填到音乐记录，
+ * 随后生成跳转索引；任务运行在虚拟线程上，实际解析并发数由信号量限制
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class AudioMetadataService {
+
+    private static final int ID3V2_HEADER_LENGTH = 10;
+
+    private final MusicRepository musicRepository;
+    private final FileStorageService fileStorageService;
+    private final SeekIndexService seekIndexService;
+
+    @Value("${music.metadata.concurrency:8}")
+    private int concurrency;
+
+    @Value("${music.metadata.max-pending:10000}")
+    private int maxPending;
+
+    @Value("${music.metadata.header-bytes:256KB}")
+    private DataSize headerBytes;
+
+    @Value("${music.metadata.max-header-bytes:8MB}")
+    private DataSize maxHeaderBytes;
+
+    private ExecutorService executor;
+    private Semaphore permits;
+    private final AtomicInteger pending = new AtomicInteger();
+    private final AtomicBoolean backfillRunning = new AtomicBoolean();
+
+    @PostConstruct
+    public void init() {
+        executor = Executors.newVirtualThreadPerTaskExecutor();
+        permits = new Semaphore(concurrency);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onMusicChanged(MusicChangedEvent event) {
+        if (event.type() == MusicChangedEvent.Type.UPLOADED) {
+            submit(event.musicId());
+        }
+    }
+
+    /**
+     * 提交单个音乐的元数据提取任务，积压过多时丢弃，由回填任务兜底
+     *
+     * @return 是否已提交
+     */
+    public boolean submit(Long musicId) {
+        if (pending.incrementAndGet() > maxPending) {
+            pending.decrementAndGet();
+            log.warn("元数据提取任务积压过多，跳过音乐 {}", musicId);
+            return false;
+        }
+        executor.execute(() -> {
+            try {
+                extractBounded(musicId);
+            } finally {
+                pending.decrementAndGet();
+            }
+        });
+        return true;
+    }
+
+    /**
+     * 启动批量回填，按ID顺序分批处理所有缺少元数据的音乐
+     *
+     * @return 已有回填任务在运行时返回 false
+     */
+    public boolean startBackfill(int batchSize) {
+        if (!backfillRunning.compareAndSet(false, true)) {
+            return false;
+        }
+        Thread.ofVirtual().name("music-metadata-backfill").start(() -> {
+            try {
+                runBackfill(batchSize);
+            } finally {
+                backfillRunning.set(false);
+            }
+        });
+        return true;
+    }
+
+    public boolean isBackfillRunning() {
+        return backfillRunning.get();
+    }
+
+    private void runBackfill(int batchSize) {
+        long afterId = 0;
+        int processed = 0;
+        while (!Thread.currentThread().isInterrupted()) {
+            List<Long> ids = musicRepository.findIdsMissingMetadata(afterId, PageRequest.of(0, batchSize));
+            if (ids.isEmpty()) {
+                break;
+            }
+
+            List<Future<?>> futures = new ArrayList<>(ids.size());
+            for (Long id : ids) {
+                futures.add(executor.submit(() -> extractBounded(id)));
+            }
+            for (Future<?> future : futures) {
+                try {
+                    future.get();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                } catch (ExecutionException e) {
+                    log.warn("回填元数据失败", e.getCause());
+                }
+            }
+
+            processed += ids.size();
+            afterId = ids.get(ids.size() - 1);
+        }
+        log.info("音频元数据回填完成，共处理 {} 条", processed);
+    }
+
+    private void extractBounded(Long musicId) {
+        try {
+            permits.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return;
+        }
+        try {
+            String objectName = extract(musicId);
+            if (objectName != null) {
+                seekIndexService.buildIndex(objectName);
+            }
+        } catch (Exception e) {
+            log.warn("处理音乐 {} 的音频元数据失败: {}", musicId, e.getMessage());
+        } finally {
+            permits.release();
+        }
+    }
+
+    /**
+     * 提取并回填元数据
+     *
+     * @return 音频对象名称，音乐不存在时返回 null
+     */
+    private String extract(Long musicId) throws Exception {
+        Music music = musicRepository.findById(musicId).orElse(null);
+        if (music == null) {
+            return null;
+        }
+        String objectName = fileStorageService.musicObjectName(music.getFileUrl());
+        if (objectName == null) {
+            log.warn("无法解析音乐 {} 的存储路径: {}", musicId, music.getFileUrl());
+            return null;
+        }
+
+        // 先读ID3v2标签头，确保读取区间能覆盖完整标签（内嵌封面可能很大）
+        byte[] tagHeader = fileStorageService.readMusicRange(objectName, 0, ID3V2_HEADER_LENGTH);
+        int tagSize = id3v2Size(tagHeader);
+        long rangeLength = Math.min(tagSize + headerBytes.toBytes(), maxHeaderBytes.toBytes());
+        Long fileSize = music.getFileSize();
+        if (fileSize != null && fileSize > 0) {
+            rangeLength = Math.min(rangeLength, fileSize);
+        }
+        boolean truncated = fileSize == null || rangeLength < fileSize;
+
+        byte[] header = fileStorageService.readMusicRange(objectName, 0, rangeLength);
+        Path temp = Files.createTempFile("music-meta-", extension(objectName));
+        try {
+            Files.write(temp, header);
+            AudioHeader audioHeader = AudioFileIO.read(temp.toFile()).getAudioHeader();
+
+            int bitRate = (int) audioHeader.getBitRateAsNumber();
+            int sampleRate = audioHeader.getSampleRateAsNumber();
+            int duration = audioHeader.getTrackLength();
+            // 截断后的CBR MP3无法从文件头得到准确时长，按真实文件大小和比特率估算
+            if (truncated && fileSize != null && bitRate > 0
+                    && isMp3(objectName) && !audioHeader.isVariableBitRate()) {
+                duration = (int) ((fileSize - tagSize) * 8 / (bitRate * 1000L));
+            }
+
+            musicRepository.updateAudioMetadata(musicId, duration, bitRate, sampleRate);
+            log.debug("音乐 {} 元数据: 时长={}s 比特率={}kbps 采样率={}Hz", musicId, duration, bitRate, sampleRate);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+        return objectName;
+    }
+
+    /**
+     * 解析ID3v2标签总长度（含10字节标签头），没有标签时返回0
+     */
+    private int id3v2Size(byte[] header) {
+        if (header.length < ID3V2_HEADER_LENGTH || header[0] != 'I' || header[1] != 'D' || header[2] != '3') {
+            return 0;
+        }
+        // 标签长度为4字节的syncsafe整数，每字节只使用低7位
+        int size = ((header[6] & 0x7F) << 21) | ((header[7] & 0x7F) << 14)
+                | ((header[8] & 0x7F) << 7) | (header[9] & 0x7F);
+        boolean hasFooter = (header[5] & 0x10) != 0;
+        return size + ID3V2_HEADER_LENGTH + (hasFooter ? ID3V2_HEADER_LENGTH : 0);
+    }
+
+    private boolean isMp3(String objectName) {
+        return objectName.toLowerCase().endsWith(".mp3");
+    }
+
+    private String extension(String objectName) {
+        int index = objectName.lastIndexOf('.');
+        return index > 0 ? objectName.substring(index) : ".mp3";
+    }
+}
@@ -0,0 +1,285 @@
+package org.zszq.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.minio.StatObjectResponse;
+import jakarta.annotation.PostConstruct;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpRange;
+import org.springframework.stereotype.Service;
+import org.springframework.util.unit.DataSize;
+import org.zszq.entity.Music;
+import org.zszq.repository.MusicRepository;
+import org.zszq.util.BufferPool;
+import org.zszq.util.ByteRanges;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 音频播放流服务
+ * 按HTTP Range请求从MinIO读取对应区间并转发给客户端，数据经由有界缓冲池分段复制，不会整体读入内存；
+ * 每首歌开头的若干秒缓存在内存中，热门歌曲的首字节无需访问对象存储
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class AudioStreamService {
+
+    private static final DateTimeFormatter HTTP_DATE = DateTimeFormatter.RFC_1123_DATE_TIME;
+
+    private final MusicRepository musicRepository;
+    private final FileStorageService fileStorageService;
+
+    @Value("${music.stream.buffer-size:64KB}")
+    private DataSize bufferSize;
+
+    @Value("${music.stream.buffer-pool-size:256}")
+    private int bufferPoolSize;
+
+    @Value("${music.stream.buffer-wait-seconds:5}")
+    private long bufferWaitSeconds;
+
+    @Value("${music.stream.head-seconds:10}")
+    private int headSeconds;
+
+    @Value("${music.stream.head-bytes:256KB}")
+    private DataSize defaultHeadBytes;
+
+    @Value("${music.stream.max-head-bytes:1MB}")
+    private DataSize maxHeadBytes;
+
+    @Value("${music.stream.head-cache-size:64MB}")
+    private DataSize headCacheSize;
+
+    @Value("${music.stream.target-cache-ttl:PT10M}")
+    private Duration targetCacheTtl;
+
+    @Value("${music.stream.max-ranges:8}")
+    private int maxRanges;
+
+    private BufferPool bufferPool;
+    private Cache<Long, StreamTarget> targetCache;
+    private Cache<String, byte[]> headCache;
+
+    @PostConstruct
+    public void init() {
+        bufferPool = new BufferPool(Math.toIntExact(bufferSize.toBytes()), bufferPoolSize);
+        targetCache = Caffeine.newBuilder()
+                .maximumSize(10_000)
+                .expireAfterWrite(targetCacheTtl)
+                .build();
+        // 按字节数限制总容量；Caffeine的频率准入策略会拒绝只访问过一次的歌曲，只有热门歌曲的开头会常驻
+        headCache = Caffeine.newBuilder()
+                .maximumWeight(headCacheSize.toBytes())
+                .weigher((String key, byte[] value) -> value.length)
+                .build();
+    }
+
+    /**
+     * 播放目标：音乐对应的对象及其校验信息
+     */
+    public record StreamTarget(String objectName, long size, String contentType, String etag,
+                               Instant lastModified, int headLength) {
+    }
+
+    /**
+     * 解析音乐对应的存储对象
+     */
+    public StreamTarget resolve(Long musicId) {
+        return targetCache.get(musicId, this::loadTarget);
+    }
+
+    /**
+     * 按请求头输出音频数据
+     *
+     * @param rangeHeader   Range 请求头，可为空
+     * @param ifRangeHeader If-Range 请求头，可为空；与当前对象不匹配时忽略 Range 返回完整内容
+     */
+    public void stream(StreamTarget target, String rangeHeader, String ifRangeHeader,
+                       HttpServletResponse response) throws IOException {
+        byte[] buffer;
+        try {
+            buffer = bufferPool.acquire(bufferWaitSeconds, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            response.sendError(HttpServletResponse.SC_SERVICE_UNAVAILABLE);
+            return;
+        }
+        if (buffer == null) {
+            // 播放并发已满，让客户端稍后重试，而不是无限排队占用连接
+            response.setHeader(HttpHeaders.RETRY_AFTER, "1");
+            response.sendError(HttpServletResponse.SC_SERVICE_UNAVAILABLE);
+            return;
+        }
+
+        try {
+            response.setHeader(HttpHeaders.ACCEPT_RANGES, "bytes");
+            response.setHeader(HttpHeaders.ETAG, target.etag());
+            response.setHeader(HttpHeaders.LAST_MODIFIED, HTTP_DATE.format(target.lastModified().atZone(ZoneOffset.UTC)));
+
+            List<HttpRange> requested = List.of();
+            if (rangeHeader != null && (ifRangeHeader == null || ifRangeMatches(target, ifRangeHeader))) {
+                try {
+                    requested = HttpRange.parseRanges(rangeHeader);
+                } catch (IllegalArgumentException e) {
+                    rangeNotSatisfiable(target, response);
+                    return;
+                }
+            }
+            List<ByteRanges.Range> ranges = new ArrayList<>(requested.size());
+            for (HttpRange range : requested) {
+                if (!satisfiable(range, target.size())) {
+                    rangeNotSatisfiable(target, response);
+                    return;
+                }
+                ranges.add(new ByteRanges.Range(range.getRangeStart(target.size()), range.getRangeEnd(target.size())));
+            }
+            // 大量重叠或过多的小区间会把一次请求放大成多次对象存储读取，此时直接返回完整内容
+            if (ranges.size() > 1) {
+                long requestedLength = ByteRanges.totalLength(ranges);
+                ranges = ByteRanges.merge(ranges);
+                if (requestedLength > target.size() || ranges.size() > maxRanges) {
+                    ranges = List.of();
+                }
+            }
+
+            if (ranges.isEmpty()) {
+                response.setStatus(HttpServletResponse.SC_OK);
+                response.setContentType(target.contentType());
+                response.setContentLengthLong(target.size());
+                writeRange(target, 0, target.size() - 1, response.getOutputStream(), buffer);
+            } else if (ranges.size() == 1) {
+                ByteRanges.Range range = ranges.get(0);
+                response.setStatus(HttpServletResponse.SC_PARTIAL_CONTENT);
+                response.setContentType(target.contentType());
+                response.setHeader(HttpHeaders.CONTENT_RANGE, contentRange(range.start(), range.end(), target.size()));
+                response.setContentLengthLong(range.length());
+                writeRange(target, range.start(), range.end(), response.getOutputStream(), buffer);
+            } else {
+                writeMultipart(target, ranges, response, buffer);
+            }
+        } catch (IOException e) {
+            // 客户端中途断开（拖动进度条、切歌）属于正常情况
+            log.debug("播放流传输中断: {}", e.getMessage());
+        } finally {
+            bufferPool.release(buffer);
+        }
+    }
+
+    private StreamTarget loadTarget(Long musicId) {
+        Music music = musicRepository.findById(musicId)
+                .orElseThrow(() -> new RuntimeException("音乐不存在"));
+        String objectName = fileStorageService.musicObjectName(music.getFileUrl());
+        if (objectName == null) {
+            throw new RuntimeException("音乐文件不存在");
+        }
+        StatObjectResponse stat = fileStorageService.statMusicObject(objectName);
+        String etag = stat.etag() != null ? "\"" + stat.etag().replace("\"", "") + "\"" : "\"" + objectName + "\"";
+        return new StreamTarget(objectName, stat.size(), stat.contentType(), etag,
+                stat.lastModified().toInstant(), headLength(music, stat.size()));
+    }
+
+    /**
+     * 按比特率换算开头若干秒对应的字节数，缺少比特率时使用默认值
+     */
+    private int headLength(Music music, long size) {
+        long bytes = music.getBitRate() != null && music.getBitRate() > 0
+                ? music.getBitRate() * 1000L / 8 * headSeconds
+                : defaultHeadBytes.toBytes();
+        return (int) Math.min(Math.min(bytes, maxHeadBytes.toBytes()), size);
+    }
+
+    private void writeRange(StreamTarget target, long start, long end, OutputStream out, byte[] buffer)
+            throws IOException {
+        long position = start;
+        if (position < target.headLength()) {
+            byte[] head = headCache.get(target.objectName(),
+                    key -> fileStorageService.readMusicRange(key, 0, target.headLength()));
+            int length = (int) Math.min(head.length - position, end - position + 1);
+            if (length > 0) {
+                out.write(head, (int) position, length);
+                position += length;
+            }
+        }
+        if (position > end) {
+            return;
+        }
+        try (InputStream in = fileStorageService.openMusicRange(target.objectName(), position, end - position + 1)) {
+            int n;
+            while ((n = in.read(buffer)) > 0) {
+                out.write(buffer, 0, n);
+            }
+        }
+    }
+
+    /**
+     * 多段响应，区间已排序且互不重叠
+     */
+    private void writeMultipart(StreamTarget target, List<ByteRanges.Range> ranges, HttpServletResponse response,
+                                byte[] buffer) throws IOException {
+        String boundary = UUID.randomUUID().toString().replace("-", "");
+        response.setStatus(HttpServletResponse.SC_PARTIAL_CONTENT);
+        response.setContentType("multipart/byteranges; boundary=" + boundary);
+        OutputStream out = response.getOutputStream();
+        for (ByteRanges.Range range : ranges) {
+            long start = range.start();
+            long end = range.end();
+            String partHeader = "\r\n--" + boundary + "\r\n"
+                    + HttpHeaders.CONTENT_TYPE + ": " + target.contentType() + "\r\n"
+                    + HttpHeaders.CONTENT_RANGE + ": " + contentRange(start, end, target.size()) + "\r\n\r\n";
+            out.write(partHeader.getBytes(StandardCharsets.US_ASCII));
+            writeRange(target, start, end, out, buffer);
+        }
+        out.write(("\r\n--" + boundary + "--\r\n").getBytes(StandardCharsets.US_ASCII));
+    }
+
+    /**
+     * If-Range 可以是强ETag或Last-Modified时间，只有完全匹配时才按Range返回
+     */
+    private boolean ifRangeMatches(StreamTarget target, String ifRange) {
+        String value = ifRange.trim();
+        if (value.startsWith("\"") || value.startsWith("W/")) {
+            return value.equals(target.etag());
+        }
+        try {
+            Instant date = ZonedDateTime.parse(value, HTTP_DATE).toInstant();
+            return date.getEpochSecond() == target.lastModified().getEpochSecond();
+        } catch (DateTimeParseException e) {
+            return false;
+        }
+    }
+
+    private boolean satisfiable(HttpRange range, long size) {
+        try {
+            return range.getRangeStart(size) < size;
+        } catch (IllegalArgumentException e) {
+            return false;
+        }
+    }
+
+    private void rangeNotSatisfiable(StreamTarget target, HttpServletResponse response) throws IOException {
+        response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes */" + target.size());
+        response.sendError(HttpServletResponse.SC_REQUESTED_RANGE_NOT_SATISFIABLE);
+    }
+
+    private String contentRange(long start, long end, long size) {
+        return "bytes " + start + "-" + end + "/" + size;
+    }
+}
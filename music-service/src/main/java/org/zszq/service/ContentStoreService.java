@@ -0,0 +1,312 @@
+package org.zszq.service;
+
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.util.unit.DataSize;
+import org.zszq.dto.InstantUploadChallengeDto;
+import org.zszq.entity.StagedObject;
+import org.zszq.entity.StorageBlob;
+import org.zszq.repository.StorageBlobRepository;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Locale;
+import java.util.Optional;
+
+/**
+ * 内容寻址存储
+ * 上传的文件先写入暂存位置并在传输过程中计算SHA-256，之后按摘要转存到 {hash前两位}/{hash}.{扩展名}；
+ * 相同内容已存在时不再复制，只增加引用计数。
+ * 业务记录删除时减少引用计数，归零超过宽限期的对象由定时任务删除；
+ * 秒传要求客户端计算服务端随机选取的字节区间摘要，证明确实持有文件内容，而不只是知道摘要
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class ContentStoreService {
+
+    private static final int SWEEP_BATCH_SIZE = 100;
+    private static final String HMAC_ALGORITHM = "HmacSHA256";
+
+    private final StorageBlobRepository storageBlobRepository;
+    private final FileStorageService fileStorageService;
+    private final ObjectStagingService objectStagingService;
+    private final TransactionTemplate transactionTemplate;
+
+    private final SecureRandom random = new SecureRandom();
+
+    @Value("${music.storage.blob-grace:PT24H}")
+    private Duration blobGrace;
+
+    @Value("${music.upload.instant-challenge-ttl:PT5M}")
+    private Duration challengeTtl;
+
+    @Value("${music.upload.instant-challenge-bytes:64KB}")
+    private DataSize challengeBytes;
+
+    @Value("${music.upload.instant-challenge-secret:}")
+    private String challengeSecret;
+
+    private SecretKeySpec challengeKey;
+
+    @PostConstruct
+    public void init() {
+        byte[] secret;
+        if (challengeSecret == null || challengeSecret.isBlank()) {
+            // 凭证只能由签发的节点校验，多节点部署时需配置相同的密钥
+            log.warn("未配置 music.upload.instant-challenge-secret，使用随机生成的秒传校验密钥");
+            secret = new byte[32];
+            random.nextBytes(secret);
+        } else {
+            secret = challengeSecret.getBytes(StandardCharsets.UTF_8);
+        }
+        challengeKey = new SecretKeySpec(secret, HMAC_ALGORITHM);
+    }
+
+    /**
+     * 按内容摘要查找仍被引用的对象
+     */
+    public Optional<StoredObject> find(String bucket, String sha256) {
+        if (sha256 == null || sha256.isBlank()) {
+            return Optional.empty();
+        }
+        return storageBlobRepository.findReferenced(bucket, sha256.trim().toLowerCase(Locale.ROOT))
+                .map(this::toStoredObject);
+    }
+
+    /**
+     * 将暂存位置上的对象转为内容寻址对象
+     *
+     * @param uploaded   暂存位置上的对象
+     * @param stagingRow 暂存对象的登记
+     * @param staged     本次上传的登记列表，更新为第二阶段需要确认的登记
+     * @return 内容寻址对象
+     */
+    public StoredObject promote(StoredObject uploaded, StagedObject stagingRow, List<StagedObject> staged) {
+        StoredObject content = find(uploaded.bucket(), uploaded.sha256()).orElse(null);
+        if (content == null) {
+            String contentKey = contentKey(uploaded);
+            staged.add(objectStagingService.stageShared(uploaded.bucket(), contentKey));
+            content = fileStorageService.copyObject(uploaded, contentKey);
+        } else {
+            log.debug("文件内容已存在，复用对象 {}/{}", content.bucket(), content.objectName());
+        }
+
+        // 暂存副本不再需要；删除失败时登记保留，由清理任务处理
+        staged.remove(stagingRow);
+        try {
+            objectStagingService.release(stagingRow);
+        } catch (Exception e) {
+            log.warn("删除暂存副本失败: {}/{}", stagingRow.getBucket(), stagingRow.getObjectName(), e);
+        }
+        return content;
+    }
+
+    /**
+     * 业务记录引用对象，需与写入业务记录在同一事务内调用
+     */
+    public void retain(StoredObject object) {
+        retain(object, 1);
+    }
+
+    /**
+     * 多条业务记录同时引用同一对象（如整张专辑共用封面）时一次增加多个引用
+     */
+    public void retain(StoredObject object, int references) {
+        storageBlobRepository.retain(object.bucket(), object.sha256(), object.objectName(),
+                object.size(), object.contentType(), references);
+    }
+
+    /**
+     * 业务记录删除时释放对它引用的对象，需与删除业务记录在同一事务内调用。
+     * 内容寻址对象减少引用计数，归零后由清理任务在宽限期后删除；
+     * 其他对象（直传、去重之前上传的文件）只被这一条记录引用，登记为待清理对象，由孤儿清理任务删除
+     *
+     * @param objectName 对象名称，为空（外部地址）时不做任何事
+     */
+    public void release(String bucket, String objectName) {
+        if (objectName == null) {
+            return;
+        }
+        if (storageBlobRepository.release(bucket, objectName, 1) > 0) {
+            return;
+        }
+        objectStagingService.stage(bucket, objectName);
+        for (String derivative : derivativeNames(bucket, objectName)) {
+            objectStagingService.stage(bucket, derivative);
+        }
+    }
+
+    /**
+     * 定时删除引用计数归零超过宽限期的对象
+     * 先在事务内有条件地删除记录（期间重新被引用或正在被新上传转存时跳过），同时把对象登记为共享暂存对象，
+     * 由孤儿清理任务在确认没有新的记录引用同名对象后删除，存储不可用时也不会丢失待删除的对象。
+     * 派生对象（跳转索引、缩略图）在记录删除后直接删除，失败只记录日志：它们可由原对象重新生成
+     */
+    @Scheduled(fixedDelayString = "${music.storage.blob-sweep-interval:PT1H}")
+    public void sweepReleased() {
+        LocalDateTime before = LocalDateTime.now().minus(blobGrace);
+        int removed = 0;
+        while (true) {
+            List<StorageBlob> released = storageBlobRepository.findReleased(before, PageRequest.of(0, SWEEP_BATCH_SIZE));
+            List<StorageBlob> deleted = new ArrayList<>();
+            for (StorageBlob blob : released) {
+                try {
+                    Boolean removedRow = transactionTemplate.execute(status -> {
+                        if (storageBlobRepository.deleteReleased(blob.getId(), before) == 0) {
+                            return false;
+                        }
+                        objectStagingService.stageShared(blob.getBucket(), blob.getObjectName());
+                        return true;
+                    });
+                    if (Boolean.TRUE.equals(removedRow)) {
+                        deleted.add(blob);
+                    }
+                } catch (Exception e) {
+                    log.warn("清理未引用对象失败: {}/{}", blob.getBucket(), blob.getObjectName(), e);
+                }
+            }
+            for (StorageBlob blob : deleted) {
+                for (String derivative : derivativeNames(blob.getBucket(), blob.getObjectName())) {
+                    try {
+                        fileStorageService.deleteObject(blob.getBucket(), derivative);
+                    } catch (Exception e) {
+                        log.warn("删除派生对象失败: {}/{}", blob.getBucket(), derivative, e);
+                    }
+                }
+            }
+            removed += deleted.size();
+            // 本批有未能删除的（重新被引用或失败）时结束，避免反复读到同一批
+            if (released.size() < SWEEP_BATCH_SIZE || deleted.size() < released.size()) {
+                break;
+            }
+        }
+
+        if (removed > 0) {
+            log.info("已清理 {} 个引用计数归零的对象", removed);
+        }
+    }
+
+    /**
+     * 为秒传签发校验凭证：随机选取对象内的一个字节区间，客户端需提交该区间内容的SHA-256。
+     * 凭证用HMAC签名，包含对象、区间和过期时间，服务端不保存状态
+     */
+    public InstantUploadChallengeDto challenge(StoredObject object) {
+        long length = Math.min(challengeBytes.toBytes(), object.size());
+        long offset = object.size() > length ? random.nextLong(object.size() - length + 1) : 0;
+        long expiresAt = System.currentTimeMillis() + challengeTtl.toMillis();
+
+        String payload = String.join("|", object.bucket(), object.sha256(),
+                Long.toString(offset), Long.toString(length), Long.toString(expiresAt));
+        Base64.Encoder encoder = Base64.getUrlEncoder().withoutPadding();
+        InstantUploadChallengeDto dto = new InstantUploadChallengeDto();
+        dto.setChallenge(encoder.encodeToString(payload.getBytes(StandardCharsets.UTF_8))
+                + "." + encoder.encodeToString(sign(payload)));
+        dto.setOffset(offset);
+        dto.setLength(length);
+        dto.setExpiresAt(LocalDateTime.ofInstant(Instant.ofEpochMilli(expiresAt), ZoneId.systemDefault()));
+        return dto;
+    }
+
+    /**
+     * 校验秒传凭证和客户端提交的区间摘要，不通过时抛出异常
+     *
+     * @param object      按摘要找到的已存储对象
+     * @param challenge   {@link #challenge} 签发的凭证
+     * @param rangeSha256 客户端计算的区间内容SHA-256
+     */
+    public void verifyChallenge(StoredObject object, String challenge, String rangeSha256) {
+        String[] parts = challenge == null ? new String[0] : challenge.split("\\.", -1);
+        if (parts.length != 2 || rangeSha256 == null) {
+            throw new RuntimeException("秒传校验凭证无效");
+        }
+        String payload;
+        byte[] signature;
+        try {
+            payload = new String(Base64.getUrlDecoder().decode(parts[0]), StandardCharsets.UTF_8);
+            signature = Base64.getUrlDecoder().decode(parts[1]);
+        } catch (IllegalArgumentException e) {
+            throw new RuntimeException("秒传校验凭证无效");
+        }
+        String[] fields = payload.split("\\|", -1);
+        if (!MessageDigest.isEqual(sign(payload), signature) || fields.length != 5
+                || !fields[0].equals(object.bucket()) || !fields[1].equals(object.sha256())) {
+            throw new RuntimeException("秒传校验凭证无效");
+        }
+        if (Long.parseLong(fields[4]) < System.currentTimeMillis()) {
+            throw new RuntimeException("秒传校验凭证已过期");
+        }
+
+        long offset = Long.parseLong(fields[2]);
+        long length = Long.parseLong(fields[3]);
+        byte[] range = length > 0
+                ? fileStorageService.readRange(object.bucket(), object.objectName(), offset, length)
+                : new byte[0];
+        String expected = HexFormat.of().formatHex(sha256(range));
+        if (!expected.equalsIgnoreCase(rangeSha256.trim())) {
+            throw new RuntimeException("文件内容校验失败，请完整上传");
+        }
+    }
+
+    private byte[] sign(String payload) {
+        try {
+            Mac mac = Mac.getInstance(HMAC_ALGORITHM);
+            mac.init(challengeKey);
+            return mac.doFinal(payload.getBytes(StandardCharsets.UTF_8));
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static byte[] sha256(byte[] data) {
+        try {
+            return MessageDigest.getInstance("SHA-256").digest(data);
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * 由对象生成的派生对象：音乐文件的跳转索引、封面的缩略图
+     */
+    private List<String> derivativeNames(String bucket, String objectName) {
+        if (bucket.equals(fileStorageService.getMusicBucket())) {
+            return List.of(SeekIndexService.indexName(objectName));
+        }
+        if (bucket.equals(fileStorageService.getImagesBucket())) {
+            return CoverImageService.derivativeNames(objectName);
+        }
+        return List.of();
+    }
+
+    private StoredObject toStoredObject(StorageBlob blob) {
+        return fileStorageService.existingObject(blob.getBucket(), blob.getObjectName(), blob.getSize(),
+                blob.getContentType(), blob.getContentHash());
+    }
+
+    private String contentKey(StoredObject object) {
+        String hash = object.sha256();
+        String name = object.objectName();
+        int index = name.lastIndexOf('.');
+        String extension = index > name.lastIndexOf('/') ? name.substring(index).toLowerCase(Locale.ROOT) : "";
+        return hash.substring(0, 2) + "/" + hash + extension;
+    }
+}
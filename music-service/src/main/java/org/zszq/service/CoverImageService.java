@@ -0,0 +1,199 @@
+package org.zszq.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.util.unit.DataSize;
+import org.zszq.dto.CoverUrls;
+import org.zszq.event.MusicChangedEvent;
+import org.zszq.repository.MusicRepository;
+import org.zszq.util.ImageResizer;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.net.URLConnection;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 封面缩略图服务
+ * 封面上传后在后台生成固定尺寸的JPEG缩略图并存入图片存储桶，列表页按尺寸取图；
+ * 缩放是CPU密集型任务，在固定大小的线程池中执行，积压超过上限时丢弃，取图时会重新提交
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class CoverImageService {
+
+    private static final String DERIVATIVE_CONTENT_TYPE = "image/jpeg";
+
+    private final MusicRepository musicRepository;
+    private final FileStorageService fileStorageService;
+
+    @Value("${music.cover.concurrency:2}")
+    private int concurrency;
+
+    @Value("${music.cover.max-pending:1000}")
+    private int maxPending;
+
+    @Value("${music.cover.quality:0.82}")
+    private float quality;
+
+    @Value("${music.cover.max-pixels:40000000}")
+    private long maxPixels;
+
+    @Value("${music.cover.cache-size:32MB}")
+    private DataSize cacheSize;
+
+    private ThreadPoolExecutor executor;
+    private final Set<String> inFlight = ConcurrentHashMap.newKeySet();
+    private Cache<String, byte[]> derivativeCache;
+
+    @PostConstruct
+    public void init() {
+        // 不使用磁盘缓存，图片都在内存中处理
+        ImageIO.setUseCache(false);
+        AtomicInteger threadIndex = new AtomicInteger();
+        executor = new ThreadPoolExecutor(concurrency, concurrency, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(maxPending),
+                r -> {
+                    Thread thread = new Thread(r, "cover-image-" + threadIndex.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+        derivativeCache = Caffeine.newBuilder()
+                .maximumWeight(cacheSize.toBytes())
+                .weigher((String key, byte[] value) -> value.length)
+                .build();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * 封面图片数据
+     *
+     * @param cacheable 是否为最终结果；缩略图尚未生成而临时返回原图时为 false
+     */
+    public record CoverImage(byte[] data, String contentType, String etag, boolean cacheable) {
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onMusicChanged(MusicChangedEvent event) {
+        if (event.type() == MusicChangedEvent.Type.UPLOADED) {
+            musicRepository.findById(event.musicId()).ifPresent(music -> submit(music.getCoverUrl()));
+        }
+    }
+
+    /**
+     * 提交缩略图生成任务，不属于图片存储桶的地址直接忽略
+     */
+    public void submit(String coverUrl) {
+        String objectName = fileStorageService.imageObjectName(coverUrl);
+        if (objectName == null || !inFlight.add(objectName)) {
+            return;
+        }
+        try {
+            executor.execute(() -> {
+                try {
+                    generate(objectName);
+                } catch (Exception e) {
+                    log.warn("生成封面缩略图失败: {}: {}", objectName, e.getMessage());
+                } finally {
+                    inFlight.remove(objectName);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            inFlight.remove(objectName);
+            log.warn("缩略图任务积压过多，跳过 {}", objectName);
+        }
+    }
+
+    /**
+     * 读取封面
+     *
+     * @param coverUrl 封面原图地址
+     * @param size     期望边长，为空时返回原图
+     * @return 封面数据，地址不属于图片存储桶时返回 null
+     */
+    public CoverImage load(String coverUrl, Integer size) {
+        String objectName = fileStorageService.imageObjectName(coverUrl);
+        if (objectName == null) {
+            return null;
+        }
+
+        if (size != null) {
+            int snapped = CoverUrls.snap(size);
+            String derivativeName = derivativeName(objectName, snapped);
+            byte[] data = derivativeCache.get(derivativeName, fileStorageService::readImageObject);
+            if (data != null) {
+                return new CoverImage(data, DERIVATIVE_CONTENT_TYPE, "\"" + derivativeName + "\"", true);
+            }
+            // 缩略图还没有生成（历史数据或任务被丢弃），先返回原图并补提交
+            submit(coverUrl);
+        }
+
+        byte[] original = fileStorageService.readImageObject(objectName);
+        if (original == null) {
+            throw new RuntimeException("封面不存在");
+        }
+        String contentType = URLConnection.guessContentTypeFromName(objectName);
+        return new CoverImage(original, contentType != null ? contentType : "application/octet-stream",
+                "\"" + objectName + "\"", size == null);
+    }
+
+    private void generate(String objectName) throws Exception {
+        // 最小尺寸最后写入，它存在说明所有尺寸都已生成
+        if (fileStorageService.imageObjectExists(derivativeName(objectName, CoverUrls.SIZES.get(0)))) {
+            return;
+        }
+        byte[] original = fileStorageService.readImageObject(objectName);
+        if (original == null) {
+            return;
+        }
+
+        int largest = CoverUrls.SIZES.get(CoverUrls.SIZES.size() - 1);
+        BufferedImage source = ImageResizer.read(original, largest, maxPixels);
+        // 从大到小生成，每一级基于上一级结果缩放，减少重复计算
+        BufferedImage current = source;
+        for (int i = CoverUrls.SIZES.size() - 1; i >= 0; i--) {
+            int size = CoverUrls.SIZES.get(i);
+            current = ImageResizer.squareThumbnail(current, size);
+            byte[] jpeg = ImageResizer.toJpeg(current, quality);
+            String name = derivativeName(objectName, size);
+            fileStorageService.putImageObject(name, jpeg, DERIVATIVE_CONTENT_TYPE);
+            derivativeCache.invalidate(name);
+        }
+        log.debug("已生成封面缩略图: {}，原图 {} 字节", objectName, original.length);
+    }
+
+    /**
+     * 缩略图对象名称：原对象名去掉扩展名后加上尺寸，相同内容的封面共用缩略图
+     */
+    static String derivativeName(String objectName, int size) {
+        int index = objectName.lastIndexOf('.');
+        String base = index > objectName.lastIndexOf('/') ? objectName.substring(0, index) : objectName;
+        return base + "_" + size + ".jpg";
+    }
+
+    /**
+     * 封面的全部缩略图对象名称
+     */
+    static List<String> derivativeNames(String objectName) {
+        return CoverUrls.SIZES.stream().map(size -> derivativeName(objectName, size)).toList();
+    }
+}
@@ -1,24 +1,43 @@
 package org.zszq.service;
 
 import io.minio.*;
+import io.minio.errors.ErrorResponseException;
+import io.minio.http.Method;
+import lombok.Getter;
 import lombok.RequiredArgsConstructor;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import org.springframework.web.multipart.MultipartFile;
 
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.HexFormat;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
 @Service
 @RequiredArgsConstructor
 public class FileStorageService {
 
     private final MinioClient minioClient;
+    private final StreamingObjectUploader streamingObjectUploader;
 
+    @Getter
     @Value("${minio.bucket.music:music-bucket}")
     private String musicBucket;
 
+    @Getter
     @Value("${minio.bucket.images:images-bucket}")
     private String imagesBucket;
 
-    public String uploadMusicFile(MultipartFile file, String fileName) {
+    private final Set<String> knownBuckets = ConcurrentHashMap.newKeySet();
+
+    public StoredObject uploadMusicFile(MultipartFile file, String fileName) {
         try {
             // 检查文件类型
             String contentType = file.getContentType();
@@ -29,22 +48,24 @@ public class FileStorageService {
             // 确保存储桶存在
             ensureBucketExists(musicBucket);
 
-            // 上传文件
+            // 上传文件，同时计算内容摘要
+            MessageDigest digest = sha256();
             minioClient.putObject(PutObjectArgs.builder()
                     .bucket(musicBucket)
                     .object(fileName)
-                    .stream(file.getInputStream(), file.getSize(), -1)
+                    .stream(new DigestInputStream(file.getInputStream(), digest), file.getSize(), -1)
                     .contentType(contentType)
                     .build());
 
-            return generateFileUrl(musicBucket, fileName);
+            return new StoredObject(musicBucket, fileName, generateFileUrl(musicBucket, fileName),
+                    file.getSize(), contentType, HexFormat.of().formatHex(digest.digest()));
 
         } catch (Exception e) {
             throw new RuntimeException("音乐文件上传失败: " + e.getMessage(), e);
         }
     }
 
-    public String uploadCoverImage(MultipartFile file, String fileName) {
+    public StoredObject uploadCoverImage(MultipartFile file, String fileName) {
         try {
             // 检查文件类型
             String contentType = file.getContentType();
@@ -55,26 +76,286 @@ public class FileStorageService {
             // 确保存储桶存在
             ensureBucketExists(imagesBucket);
 
-            // 上传文件
+            // 上传文件，同时计算内容摘要
+            MessageDigest digest = sha256();
             minioClient.putObject(PutObjectArgs.builder()
                     .bucket(imagesBucket)
                     .object(fileName)
-                    .stream(file.getInputStream(), file.getSize(), -1)
+                    .stream(new DigestInputStream(file.getInputStream(), digest), file.getSize(), -1)
                     .contentType(contentType)
                     .build());
 
-            return generateFileUrl(imagesBucket, fileName);
+            return new StoredObject(imagesBucket, fileName, generateFileUrl(imagesBucket, fileName),
+                    file.getSize(), contentType, HexFormat.of().formatHex(digest.digest()));
 
         } catch (Exception e) {
             throw new RuntimeException("封面图片上传失败: " + e.getMessage(), e);
         }
     }
 
+    /**
+     * 流式上传音乐文件，数据边读边分片写入存储，不经过本地落盘
+     */
+    public StoredObject streamMusicFile(InputStream in, String fileName, String contentType) {
+        if (!isAudioFile(contentType)) {
+            throw new IllegalArgumentException("不支持的音频文件格式");
+        }
+        ensureBucketExists(musicBucket);
+        MessageDigest digest = sha256();
+        long size = streamingObjectUploader.upload(musicBucket, fileName, contentType, new DigestInputStream(in, digest));
+        return new StoredObject(musicBucket, fileName, generateFileUrl(musicBucket, fileName), size, contentType,
+                HexFormat.of().formatHex(digest.digest()));
+    }
+
+    /**
+     * 流式上传封面图片
+     */
+    public StoredObject streamCoverImage(InputStream in, String fileName, String contentType) {
+        if (!isImageFile(contentType)) {
+            throw new IllegalArgumentException("不支持的图片文件格式");
+        }
+        ensureBucketExists(imagesBucket);
+        MessageDigest digest = sha256();
+        long size = streamingObjectUploader.upload(imagesBucket, fileName, contentType, new DigestInputStream(in, digest));
+        return new StoredObject(imagesBucket, fileName, generateFileUrl(imagesBucket, fileName), size, contentType,
+                HexFormat.of().formatHex(digest.digest()));
+    }
+
+    /**
+     * 读取音乐文件的指定字节区间，用于解析文件头等只需部分内容的场景
+     */
+    public byte[] readMusicRange(String objectName, long offset, long length) {
+        return readRange(musicBucket, objectName, offset, length);
+    }
+
+    /**
+     * 读取任意存储桶中对象的指定字节区间
+     */
+    public byte[] readRange(String bucket, String objectName, long offset, long length) {
+        try (InputStream in = minioClient.getObject(GetObjectArgs.builder()
+                .bucket(bucket)
+                .object(objectName)
+                .offset(offset)
+                .length(length)
+                .build())) {
+            return in.readAllBytes();
+        } catch (Exception e) {
+            throw new RuntimeException("读取文件失败: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * 打开音乐文件的完整输入流，用于顺序扫描，调用方负责关闭
+     */
+    public InputStream openMusicObject(String objectName) {
+        try {
+            return minioClient.getObject(GetObjectArgs.builder().bucket(musicBucket).object(objectName).build());
+        } catch (Exception e) {
+            throw new RuntimeException("读取音乐文件失败: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * 打开音乐文件指定字节区间的输入流，用于按Range转发播放数据，调用方负责关闭
+     */
+    public InputStream openMusicRange(String objectName, long offset, long length) {
+        try {
+            return minioClient.getObject(GetObjectArgs.builder()
+                    .bucket(musicBucket)
+                    .object(objectName)
+                    .offset(offset)
+                    .length(length)
+                    .build());
+        } catch (Exception e) {
+            throw new RuntimeException("读取音乐文件失败: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * 查询音乐文件的大小、ETag、修改时间等信息
+     */
+    public StatObjectResponse statMusicObject(String objectName) {
+        return statObject(musicBucket, objectName);
+    }
+
+    /**
+     * 查询对象的大小、ETag、类型等信息
+     */
+    public StatObjectResponse statObject(String bucket, String objectName) {
+        try {
+            return minioClient.statObject(StatObjectArgs.builder().bucket(bucket).object(objectName).build());
+        } catch (Exception e) {
+            throw new RuntimeException("查询文件失败: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * 生成预签名PUT地址，客户端可凭此地址直接把文件写入对象存储
+     *
+     * @param queryParams 额外的签名参数，分片上传时传入 uploadId 和 partNumber
+     */
+    public String presignPut(String bucket, String objectName, Duration expiry, Map<String, String> queryParams) {
+        ensureBucketExists(bucket);
+        try {
+            return minioClient.getPresignedObjectUrl(GetPresignedObjectUrlArgs.builder()
+                    .method(Method.PUT)
+                    .bucket(bucket)
+                    .object(objectName)
+                    .expiry(Math.toIntExact(expiry.toSeconds()))
+                    .extraQueryParams(queryParams)
+                    .build());
+        } catch (Exception e) {
+            throw new RuntimeException("生成上传地址失败: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * 读取音乐存储桶中的小对象（如索引文件），对象不存在时返回 null
+     */
+    public byte[] readMusicObject(String objectName) {
+        return readObject(musicBucket, objectName);
+    }
+
+    /**
+     * 判断音乐存储桶中对象是否存在
+     */
+    public boolean musicObjectExists(String objectName) {
+        return objectExists(musicBucket, objectName);
+    }
+
+    /**
+     * 向音乐存储桶写入小对象（如索引文件）
+     */
+    public void putMusicObject(String objectName, byte[] data, String contentType) {
+        putObject(musicBucket, objectName, data, contentType);
+    }
+
+    /**
+     * 读取图片存储桶中的对象，对象不存在时返回 null
+     */
+    public byte[] readImageObject(String objectName) {
+        return readObject(imagesBucket, objectName);
+    }
+
+    /**
+     * 判断图片存储桶中对象是否存在
+     */
+    public boolean imageObjectExists(String objectName) {
+        return objectExists(imagesBucket, objectName);
+    }
+
+    /**
+     * 向图片存储桶写入对象（如封面缩略图）
+     */
+    public void putImageObject(String objectName, byte[] data, String contentType) {
+        putObject(imagesBucket, objectName, data, contentType);
+    }
+
+    /**
+     * 从音乐文件访问地址中解析对象名称
+     */
+    public String musicObjectName(String fileUrl) {
+        return objectNameFromUrl(musicBucket, fileUrl);
+    }
+
+    /**
+     * 从图片访问地址中解析对象名称，不属于图片存储桶时返回 null
+     */
+    public String imageObjectName(String imageUrl) {
+        return objectNameFromUrl(imagesBucket, imageUrl);
+    }
+
+    /**
+     * 在存储桶内复制对象（服务端复制，数据不经过本服务）
+     */
+    public StoredObject copyObject(StoredObject source, String targetName) {
+        try {
+            minioClient.copyObject(CopyObjectArgs.builder()
+                    .bucket(source.bucket())
+                    .object(targetName)
+                    .source(CopySource.builder().bucket(source.bucket()).object(source.objectName()).build())
+                    .build());
+            return new StoredObject(source.bucket(), targetName, generateFileUrl(source.bucket(), targetName),
+                    source.size(), source.contentType(), source.sha256());
+        } catch (Exception e) {
+            throw new RuntimeException("复制文件失败: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * 构造已存在对象的信息
+     */
+    public StoredObject existingObject(String bucket, String objectName, long size, String contentType, String sha256) {
+        return new StoredObject(bucket, objectName, generateFileUrl(bucket, objectName), size, contentType, sha256);
+    }
+
+    /**
+     * 删除对象，用于清理上传失败后残留的文件
+     */
+    public void deleteObject(String bucket, String objectName) {
+        try {
+            minioClient.removeObject(RemoveObjectArgs.builder().bucket(bucket).object(objectName).build());
+        } catch (Exception e) {
+            throw new RuntimeException("删除文件失败: " + e.getMessage(), e);
+        }
+    }
+
+    private byte[] readObject(String bucketName, String objectName) {
+        try (InputStream in = minioClient.getObject(GetObjectArgs.builder()
+                .bucket(bucketName)
+                .object(objectName)
+                .build())) {
+            return in.readAllBytes();
+        } catch (ErrorResponseException e) {
+            if ("NoSuchKey".equals(e.errorResponse().code())) {
+                return null;
+            }
+            throw new RuntimeException("读取文件失败: " + e.getMessage(), e);
+        } catch (Exception e) {
+            throw new RuntimeException("读取文件失败: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * 对象是否存在；对象存储不可用时抛出异常，不当作不存在
+     */
+    public boolean objectExists(String bucketName, String objectName) {
+        try {
+            minioClient.statObject(StatObjectArgs.builder().bucket(bucketName).object(objectName).build());
+            return true;
+        } catch (ErrorResponseException e) {
+            if ("NoSuchKey".equals(e.errorResponse().code())) {
+                return false;
+            }
+            throw new RuntimeException("查询文件失败: " + e.getMessage(), e);
+        } catch (Exception e) {
+            throw new RuntimeException("查询文件失败: " + e.getMessage(), e);
+        }
+    }
+
+    private void putObject(String bucketName, String objectName, byte[] data, String contentType) {
+        try {
+            minioClient.putObject(PutObjectArgs.builder()
+                    .bucket(bucketName)
+                    .object(objectName)
+                    .stream(new ByteArrayInputStream(data), data.length, -1)
+                    .contentType(contentType)
+                    .build());
+        } catch (Exception e) {
+            throw new RuntimeException("写入文件失败: " + e.getMessage(), e);
+        }
+    }
+
     private void ensureBucketExists(String bucketName) {
+        // 存储桶确认存在后不再重复查询，省去每次上传的一次往返
+        if (knownBuckets.contains(bucketName)) {
+            return;
+        }
         try {
             if (!minioClient.bucketExists(BucketExistsArgs.builder().bucket(bucketName).build())) {
                 minioClient.makeBucket(MakeBucketArgs.builder().bucket(bucketName).build());
             }
+            knownBuckets.add(bucketName);
         } catch (Exception e) {
             throw new RuntimeException("创建存储桶失败: " + e.getMessage(), e);
         }
@@ -85,14 +366,31 @@ public class FileStorageService {
         return String.format("http://localhost:9000/%s/%s", bucketName, fileName);
     }
 
-    private boolean isAudioFile(String contentType) {
+    private String objectNameFromUrl(String bucketName, String url) {
+        if (url == null) {
+            return null;
+        }
+        String marker = "/" + bucketName + "/";
+        int index = url.indexOf(marker);
+        return index >= 0 ? url.substring(index + marker.length()) : null;
+    }
+
+    private MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    public boolean isAudioFile(String contentType) {
         return contentType != null && (
                 contentType.startsWith("audio/") ||
                 contentType.equals("application/ogg")
         );
     }
 
-    private boolean isImageFile(String contentType) {
+    public boolean isImageFile(String contentType) {
         return contentType != null && contentType.startsWith("image/");
     }
 }
\ No newline at end of file
@@ -0,0 +1,164 @@
+package org.zszq.service;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.LoadingCache;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.roaringbitmap.longlong.Roaring64Bitmap;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.zszq.entity.UserLike;
+import org.zszq.repository.MusicRepository;
+import org.zszq.repository.PlaylistRepository;
+import org.zszq.repository.UserLikeRepository;
+import org.zszq.util.DeltaBuffer;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.BiFunction;
+
+/**
+ * 点赞服务
+ * user_likes 表每个（用户, 对象）一行，是点赞关系的持久化来源：点赞用 INSERT ... ON CONFLICT DO NOTHING，
+ * 取消点赞用 DELETE，只有影响了一行时才计入点赞数，重复点赞、重复取消不会使计数偏离。
+ * 点赞数的增减与播放次数一样在内存中按ID累加（{@link DeltaBuffer}），按 flush-interval 合并成一条 UPDATE 写回。
+ * 每个用户点赞过的ID以压缩位图缓存，批量查询“这些ID中哪些已点赞”只做内存位运算；本节点的点赞操作直接修改缓存，
+ * 其他节点的修改在缓存过期（music.like.cache-ttl）后可见
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class LikeService {
+
+    private final UserLikeRepository userLikeRepository;
+    private final MusicRepository musicRepository;
+    private final PlaylistRepository playlistRepository;
+    private final TransactionTemplate transactionTemplate;
+
+    @Value("${music.like.cache-users:100000}")
+    private long cacheUsers;
+
+    @Value("${music.like.cache-ttl:PT10M}")
+    private Duration cacheTtl;
+
+    @Value("${music.like.max-batch-ids:200}")
+    private int maxBatchIds;
+
+    private final Map<UserLike.TargetType, LoadingCache<Long, Roaring64Bitmap>> likedCaches =
+            new EnumMap<>(UserLike.TargetType.class);
+    private final Map<UserLike.TargetType, DeltaBuffer> likeCounts = new EnumMap<>(UserLike.TargetType.class);
+
+    @PostConstruct
+    public void init() {
+        for (UserLike.TargetType type : UserLike.TargetType.values()) {
+            likedCaches.put(type, Caffeine.newBuilder()
+                    .maximumSize(cacheUsers)
+                    .expireAfterWrite(cacheTtl)
+                    .build(userId -> loadLiked(userId, type)));
+            likeCounts.put(type, new DeltaBuffer());
+        }
+    }
+
+    /**
+     * 点赞或取消点赞
+     *
+     * @return 点赞状态是否发生变化
+     */
+    public boolean setLiked(UserLike.TargetType type, Long userId, Long targetId, boolean like) {
+        if (userId == null || targetId == null) {
+            throw new RuntimeException("用户ID和对象ID不能为空");
+        }
+        if (like && !targetExists(type, targetId)) {
+            throw new RuntimeException(type == UserLike.TargetType.MUSIC ? "音乐不存在" : "播放列表不存在");
+        }
+        Integer affected = transactionTemplate.execute(status -> like
+                ? userLikeRepository.insertIfAbsent(userId, type.name(), targetId)
+                : userLikeRepository.deleteLike(userId, type, targetId));
+        if (affected == null || affected == 0) {
+            return false;
+        }
+
+        likeCounts.get(type).add(targetId, like ? 1 : -1);
+        // 与缓存加载互斥：加载中的旧数据会在加载完成后再被修正
+        likedCaches.get(type).asMap().computeIfPresent(userId, (key, liked) -> {
+            synchronized (liked) {
+                if (like) {
+                    liked.addLong(targetId);
+                } else {
+                    liked.removeLong(targetId);
+                }
+            }
+            return liked;
+        });
+        return true;
+    }
+
+    /**
+     * 在给定的ID中找出用户已点赞的部分
+     *
+     * @return 已点赞的ID，保持传入顺序
+     */
+    public List<Long> likedAmong(UserLike.TargetType type, Long userId, List<Long> ids) {
+        if (ids == null || ids.isEmpty()) {
+            return List.of();
+        }
+        if (ids.size() > maxBatchIds) {
+            throw new RuntimeException("一次最多查询" + maxBatchIds + "个ID");
+        }
+        Roaring64Bitmap liked = likedCaches.get(type).get(userId);
+        List<Long> result = new ArrayList<>();
+        synchronized (liked) {
+            for (Long id : ids) {
+                if (id != null && liked.contains(id)) {
+                    result.add(id);
+                }
+            }
+        }
+        return result;
+    }
+
+    @Scheduled(fixedDelayString = "${music.like.flush-interval:PT5S}")
+    public void flush() {
+        flush("音乐", likeCounts.get(UserLike.TargetType.MUSIC), musicRepository::addLikeCounts);
+        flush("播放列表", likeCounts.get(UserLike.TargetType.PLAYLIST), playlistRepository::addLikeCounts);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        flush();
+    }
+
+    private void flush(String name, DeltaBuffer buffer, BiFunction<Long[], Long[], Integer> writer) {
+        try {
+            int written = buffer.drainTo(writer);
+            if (written > 0) {
+                log.debug("刷新{}点赞数: {} 条增量", name, written);
+            }
+        } catch (Exception e) {
+            // 增量已放回缓冲，下一周期重试
+            log.warn("刷新{}点赞数失败，增量留待下次刷新", name, e);
+        }
+    }
+
+    private Roaring64Bitmap loadLiked(Long userId, UserLike.TargetType type) {
+        Roaring64Bitmap liked = new Roaring64Bitmap();
+        for (Long targetId : userLikeRepository.findTargetIds(userId, type)) {
+            liked.addLong(targetId);
+        }
+        liked.runOptimize();
+        return liked;
+    }
+
+    private boolean targetExists(UserLike.TargetType type, Long targetId) {
+        return type == UserLike.TargetType.MUSIC
+                ? musicRepository.existsById(targetId)
+                : playlistRepository.existsById(targetId);
+    }
+}
@@ -0,0 +1,243 @@
+package org.zszq.service;
+
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.zszq.dto.UniqueListenersDto;
+import org.zszq.entity.ListenerSketch;
+import org.zszq.event.MusicChangedEvent;
+import org.zszq.event.PlaylistChangedEvent;
+import org.zszq.repository.ListenerSketchRepository;
+import org.zszq.util.HyperLogLog;
+import org.zszq.util.PlayJournal;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 独立听众统计服务
+ * 每个音乐、播放列表每天一个 HyperLogLog 草图（几十字节到约4KB），同一用户重复播放不增加计数。
+ * 新的听众先在内存草图中累积，按 flush-interval 合并到数据库中当天的草图和累计草图，合并时锁定行，多个节点可同时写入。
+ * 音乐播放从播放日志消费，启动时重放日志保留期内的事件，草图合并幂等，重放不会重复计数，未刷新的听众也不会因进程崩溃丢失；
+ * 播放列表播放直接记录，进程崩溃最多丢失一个刷新周期内的听众。
+ * 只为存在的对象记录草图，对象删除时由业务服务在同一事务内删除它的全部草图，本节点内存中未刷新的草图随删除事件丢弃
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class ListenerStatsService {
+
+    private static final int FLUSH_CHUNK_SIZE = 100;
+    private static final Comparator<SketchKey> KEY_ORDER = Comparator.comparing(SketchKey::type)
+            .thenComparingLong(SketchKey::id)
+            .thenComparing(SketchKey::date);
+
+    private final ListenerSketchRepository listenerSketchRepository;
+    private final PlayJournalService playJournalService;
+    private final PlayCountService playCountService;
+    private final TransactionTemplate transactionTemplate;
+
+    @Value("${music.listeners.retention-days:30}")
+    private int retentionDays;
+
+    private final ZoneId zone = ZoneId.systemDefault();
+    private final ConcurrentHashMap<SketchKey, HyperLogLog> pending = new ConcurrentHashMap<>();
+
+    private record SketchKey(ListenerSketch.TargetType type, long id, LocalDate date) {
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        playJournalService.subscribe("listeners", false, this::onPlays);
+    }
+
+    private void onPlays(List<PlayJournal.Event> events) {
+        for (PlayJournal.Event event : events) {
+            record(ListenerSketch.TargetType.MUSIC, event.musicId(), event.userId(), event.timestamp());
+        }
+    }
+
+    /**
+     * 记录一次播放，未登录用户不计入独立听众
+     */
+    public void record(ListenerSketch.TargetType type, Long targetId, Long userId, long timestamp) {
+        // 日志中可能有已删除音乐的播放，重放时不能为它们重建草图
+        if (userId == null || userId <= 0 || !exists(type, targetId)) {
+            return;
+        }
+        LocalDate date = Instant.ofEpochMilli(timestamp).atZone(zone).toLocalDate();
+        pending.compute(new SketchKey(type, targetId, date), (key, sketch) -> {
+            HyperLogLog target = sketch != null ? sketch : new HyperLogLog();
+            target.add(userId);
+            return target;
+        });
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onMusicChanged(MusicChangedEvent event) {
+        if (event.type() == MusicChangedEvent.Type.DELETED) {
+            discardPending(ListenerSketch.TargetType.MUSIC, event.musicId());
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onPlaylistChanged(PlaylistChangedEvent event) {
+        if (event.type() == PlaylistChangedEvent.Type.DELETED) {
+            discardPending(ListenerSketch.TargetType.PLAYLIST, event.playlistId());
+        }
+    }
+
+    /**
+     * 今天、最近7天和全部时间的独立听众估计值，包含本节点尚未写入数据库的听众
+     */
+    public UniqueListenersDto getUniqueListeners(ListenerSketch.TargetType type, Long targetId) {
+        LocalDate today = LocalDate.now(zone);
+        List<LocalDate> dates = new ArrayList<>(8);
+        for (int i = 0; i < 7; i++) {
+            dates.add(today.minusDays(i));
+        }
+        dates.add(ListenerSketch.ALL_TIME);
+
+        HyperLogLog day = new HyperLogLog();
+        HyperLogLog week = new HyperLogLog();
+        HyperLogLog allTime = new HyperLogLog();
+        for (ListenerSketch row : listenerSketchRepository.findByTargetTypeAndTargetIdAndBucketDateIn(type, targetId, dates)) {
+            accumulate(row.getBucketDate(), HyperLogLog.fromBytes(row.getSketch()), today, day, week, allTime);
+        }
+        for (LocalDate date : dates) {
+            HyperLogLog local = new HyperLogLog();
+            pending.computeIfPresent(new SketchKey(type, targetId, date), (key, sketch) -> {
+                local.merge(sketch);
+                return sketch;
+            });
+            accumulate(date, local, today, day, week, allTime);
+        }
+
+        UniqueListenersDto dto = new UniqueListenersDto();
+        dto.setDay(day.estimate());
+        dto.setWeek(week.estimate());
+        dto.setAllTime(allTime.estimate());
+        return dto;
+    }
+
+    private static void accumulate(LocalDate date, HyperLogLog sketch, LocalDate today,
+                                   HyperLogLog day, HyperLogLog week, HyperLogLog allTime) {
+        if (ListenerSketch.ALL_TIME.equals(date)) {
+            allTime.merge(sketch);
+            return;
+        }
+        week.merge(sketch);
+        if (today.equals(date)) {
+            day.merge(sketch);
+        }
+        // 累计草图只在刷新时更新，本节点未刷新的按天草图也要计入
+        allTime.merge(sketch);
+    }
+
+    /**
+     * 把内存中的草图合并到数据库，同时更新累计草图
+     */
+    @Scheduled(fixedDelayString = "${music.listeners.flush-interval:PT1M}")
+    public synchronized void flush() {
+        Map<SketchKey, HyperLogLog> writes = new TreeMap<>(KEY_ORDER);
+        for (SketchKey key : pending.keySet()) {
+            HyperLogLog sketch = pending.remove(key);
+            if (sketch != null) {
+                writes.put(key, sketch);
+            }
+        }
+        if (writes.isEmpty()) {
+            return;
+        }
+        // 记录之后被删除的对象不再写入，否则会在删除后重新产生草图
+        writes.keySet().removeIf(key -> !exists(key.type(), key.id()));
+        for (Map.Entry<SketchKey, HyperLogLog> entry : List.copyOf(writes.entrySet())) {
+            SketchKey key = entry.getKey();
+            if (!ListenerSketch.ALL_TIME.equals(key.date())) {
+                writes.computeIfAbsent(new SketchKey(key.type(), key.id(), ListenerSketch.ALL_TIME), k -> new HyperLogLog())
+                        .merge(entry.getValue());
+            }
+        }
+
+        // 按键排序分批提交，多个节点同时刷新时加锁顺序一致，不会死锁
+        List<Map.Entry<SketchKey, HyperLogLog>> entries = new ArrayList<>(writes.entrySet());
+        int failed = 0;
+        for (int from = 0; from < entries.size(); from += FLUSH_CHUNK_SIZE) {
+            List<Map.Entry<SketchKey, HyperLogLog>> chunk = entries.subList(from, Math.min(from + FLUSH_CHUNK_SIZE, entries.size()));
+            try {
+                transactionTemplate.executeWithoutResult(status -> {
+                    for (Map.Entry<SketchKey, HyperLogLog> entry : chunk) {
+                        mergeInto(entry.getKey(), entry.getValue());
+                    }
+                });
+            } catch (Exception e) {
+                failed += chunk.size();
+                // 草图合并幂等，放回后下次刷新重试
+                for (Map.Entry<SketchKey, HyperLogLog> entry : chunk) {
+                    pending.merge(entry.getKey(), entry.getValue(), (current, sketch) -> {
+                        current.merge(sketch);
+                        return current;
+                    });
+                }
+                log.warn("写入独立听众草图失败，{} 个草图留待下次刷新", chunk.size(), e);
+            }
+        }
+        log.debug("刷新独立听众草图 {} 个，失败 {} 个", entries.size(), failed);
+    }
+
+    private boolean exists(ListenerSketch.TargetType type, Long targetId) {
+        return type == ListenerSketch.TargetType.MUSIC
+                ? playCountService.musicExists(targetId)
+                : playCountService.playlistExists(targetId);
+    }
+
+    private void discardPending(ListenerSketch.TargetType type, Long targetId) {
+        pending.keySet().removeIf(key -> key.type() == type && key.id() == targetId);
+    }
+
+    private void mergeInto(SketchKey key, HyperLogLog sketch) {
+        if (listenerSketchRepository.insertIfAbsent(key.type().name(), key.id(), key.date(), sketch.toBytes()) > 0) {
+            return;
+        }
+        ListenerSketch row = listenerSketchRepository.findForUpdate(key.type(), key.id(), key.date())
+                .orElseThrow(() -> new RuntimeException("独立听众草图不存在"));
+        HyperLogLog stored = HyperLogLog.fromBytes(row.getSketch());
+        // 没有新听众时不写回，重放日志时大部分草图都不会变化
+        if (stored.merge(sketch)) {
+            row.setSketch(stored.toBytes());
+            listenerSketchRepository.save(row);
+        }
+    }
+
+    /**
+     * 删除超过保留天数的按天草图
+     */
+    @Scheduled(fixedDelayString = "${music.listeners.cleanup-interval:PT6H}")
+    public void cleanup() {
+        LocalDate before = LocalDate.now(zone).minusDays(retentionDays);
+        Integer deleted = transactionTemplate.execute(status ->
+                listenerSketchRepository.deleteDailyBefore(ListenerSketch.ALL_TIME, before));
+        if (deleted != null && deleted > 0) {
+            log.info("删除过期独立听众草图 {} 个", deleted);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        flush();
+    }
+}
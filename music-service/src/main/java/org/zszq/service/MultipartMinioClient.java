@@ -0,0 +1,74 @@
+package org.zszq.service;
+
+import com.google.common.collect.HashMultimap;
+import com.google.common.collect.Multimap;
+import io.minio.*;
+import io.minio.messages.ListPartsResult;
+import io.minio.messages.Part;
+
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * 暴露分片上传底层接口的MinIO异步客户端
+ * SDK的 putObject 只能顺序上传分片，这里直接使用 S3 multipart 接口以便多个分片并行传输
+ */
+public class MultipartMinioClient extends MinioAsyncClient {
+
+    public MultipartMinioClient(MinioAsyncClient client) {
+        super(client);
+    }
+
+    public CompletableFuture<String> createMultipartUpload(String bucket, String objectName, String contentType) {
+        try {
+            Multimap<String, String> headers = HashMultimap.create();
+            if (contentType != null) {
+                headers.put("Content-Type", contentType);
+            }
+            return createMultipartUploadAsync(bucket, null, objectName, headers, null)
+                    .thenApply(response -> response.result().uploadId());
+        } catch (Exception e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
+    public CompletableFuture<Part> uploadPart(String bucket, String objectName, String uploadId,
+                                              int partNumber, byte[] data, int length) {
+        try {
+            return uploadPartAsync(bucket, null, objectName, data, length, uploadId, partNumber, null, null)
+                    .thenApply(response -> new Part(partNumber, response.etag()));
+        } catch (Exception e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
+    public CompletableFuture<ObjectWriteResponse> completeMultipartUpload(String bucket, String objectName,
+                                                                          String uploadId, Part[] parts) {
+        try {
+            return completeMultipartUploadAsync(bucket, null, objectName, uploadId, parts, null, null);
+        } catch (Exception e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
+    /**
+     * 列出已上传的分片，每次最多返回1000个，通过 partNumberMarker 翻页
+     */
+    public CompletableFuture<ListPartsResult> listParts(String bucket, String objectName, String uploadId,
+                                                        int partNumberMarker) {
+        try {
+            return listPartsAsync(bucket, null, objectName, 1000, partNumberMarker, uploadId, null, null)
+                    .thenApply(ListPartsResponse::result);
+        } catch (Exception e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
+    public CompletableFuture<Void> abortMultipartUpload(String bucket, String objectName, String uploadId) {
+        try {
+            return abortMultipartUploadAsync(bucket, null, objectName, uploadId, null, null)
+                    .thenApply(response -> null);
+        } catch (Exception e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+}
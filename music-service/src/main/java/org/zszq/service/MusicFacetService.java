@@ -0,0 +1,209 @@
+package org.zszq.service;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.roaringbitmap.RoaringBitmap;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.zszq.dto.FacetCountDto;
+import org.zszq.entity.Music;
+import org.zszq.event.MusicChangedEvent;
+import org.zszq.repository.MusicRepository;
+import org.zszq.util.FacetIndex;
+import org.zszq.util.TextTokenizer;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * 搜索分面统计服务
+ * 全部音乐按类型、发行年份、艺术家、审核状态建立位图索引，随上传、审核事件增量更新；
+ * 搜索结果的分面计数为结果集位图与各取值位图求交的基数，不访问数据库
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class MusicFacetService {
+
+    private static final int GENRE = 0;
+    private static final int RELEASE_YEAR = 1;
+    private static final int ARTIST = 2;
+    private static final int STATUS = 3;
+
+    private final MusicRepository musicRepository;
+    private final MusicSearchService musicSearchService;
+    private final MusicSuggestService musicSuggestService;
+    private final MusicSpellService musicSpellService;
+
+    @Value("${music.facet.limit:10}")
+    private int limit;
+
+    @Value("${music.facet.rebuild-batch-size:1000}")
+    private int rebuildBatchSize;
+
+    private volatile FacetIndex index;
+    private final AtomicBoolean rebuilding = new AtomicBoolean();
+    private final Queue<Long> changedDuringRebuild = new ConcurrentLinkedQueue<>();
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        startRebuild();
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onMusicChanged(MusicChangedEvent event) {
+        if (rebuilding.get()) {
+            changedDuringRebuild.add(event.musicId());
+        }
+        FacetIndex current = index;
+        if (current != null) {
+            refresh(current, event.musicId());
+        }
+    }
+
+    public boolean startRebuild() {
+        if (!rebuilding.compareAndSet(false, true)) {
+            return false;
+        }
+        Thread.ofVirtual().name("music-facet-rebuild").start(() -> {
+            try {
+                rebuild();
+            } catch (Exception e) {
+                log.error("重建分面索引失败", e);
+            } finally {
+                rebuilding.set(false);
+            }
+        });
+        return true;
+    }
+
+    /**
+     * 统计搜索条件匹配的全部已审核音乐在类型、发行年份、艺术家上的分布
+     * 关键词的处理与搜索一致：字面无结果时依次尝试拼音解析和拼写纠错
+     *
+     * @return 分面索引或关键词索引未就绪时返回空
+     */
+    public Optional<Map<String, List<FacetCountDto>>> facets(String keyword, String artist, String genre) {
+        FacetIndex current = index;
+        if (current == null) {
+            return Optional.empty();
+        }
+
+        RoaringBitmap matched = current.docs(STATUS, Music.MusicStatus.APPROVED.name());
+        if (keyword != null && !keyword.trim().isEmpty()) {
+            Optional<RoaringBitmap> keywordDocs = keywordDocs(keyword.trim());
+            if (keywordDocs.isEmpty()) {
+                return Optional.empty();
+            }
+            matched.and(keywordDocs.get());
+        } else {
+            // 与 searchByFilters 一致：不区分大小写的包含匹配
+            if (artist != null && !artist.isBlank()) {
+                String needle = TextTokenizer.normalize(artist.trim());
+                matched.and(current.matching(ARTIST, value -> TextTokenizer.normalize(value).contains(needle)));
+            }
+            if (genre != null && !genre.isBlank()) {
+                String needle = TextTokenizer.normalize(genre.trim());
+                matched.and(current.matching(GENRE, value -> TextTokenizer.normalize(value).contains(needle)));
+            }
+        }
+
+        Map<String, List<FacetCountDto>> facets = new LinkedHashMap<>();
+        facets.put("genre", toDto(current.count(GENRE, matched, limit)));
+        facets.put("releaseYear", toDto(current.count(RELEASE_YEAR, matched, limit)));
+        facets.put("artist", toDto(current.count(ARTIST, matched, limit)));
+        return Optional.of(facets);
+    }
+
+    private Optional<RoaringBitmap> keywordDocs(String keyword) {
+        Optional<long[]> ids = musicSearchService.matchAll(keyword);
+        if (ids.isEmpty()) {
+            return Optional.empty();
+        }
+        long[] matched = ids.get();
+        if (matched.length == 0) {
+            Optional<String> resolved = musicSuggestService.resolvePinyin(keyword)
+                    .or(() -> musicSpellService.correct(keyword));
+            if (resolved.isPresent()) {
+                matched = musicSearchService.matchAll(resolved.get()).orElse(matched);
+            }
+        }
+        RoaringBitmap bitmap = new RoaringBitmap();
+        for (long id : matched) {
+            if (id <= Integer.MAX_VALUE) {
+                bitmap.add((int) id);
+            }
+        }
+        return Optional.of(bitmap);
+    }
+
+    private List<FacetCountDto> toDto(List<FacetIndex.FacetCount> counts) {
+        List<FacetCountDto> result = new ArrayList<>(counts.size());
+        for (FacetIndex.FacetCount count : counts) {
+            FacetCountDto dto = new FacetCountDto();
+            dto.setValue(count.value());
+            dto.setCount(count.count());
+            result.add(dto);
+        }
+        return result;
+    }
+
+    private void rebuild() {
+        long start = System.currentTimeMillis();
+        changedDuringRebuild.clear();
+        FacetIndex fresh = new FacetIndex(4);
+        long afterId = 0;
+        while (true) {
+            List<Music> batch = musicRepository.findAllAfter(afterId, PageRequest.of(0, rebuildBatchSize));
+            if (batch.isEmpty()) {
+                break;
+            }
+            for (Music music : batch) {
+                put(fresh, music);
+            }
+            afterId = batch.get(batch.size() - 1).getId();
+        }
+        index = fresh;
+
+        Long musicId;
+        while ((musicId = changedDuringRebuild.poll()) != null) {
+            refresh(fresh, musicId);
+        }
+        log.info("分面索引重建完成，共 {} 首音乐，耗时 {}ms", fresh.size(), System.currentTimeMillis() - start);
+    }
+
+    private void refresh(FacetIndex target, Long musicId) {
+        if (musicId > Integer.MAX_VALUE) {
+            return;
+        }
+        Music music = musicRepository.findById(musicId).orElse(null);
+        if (music != null) {
+            put(target, music);
+        } else {
+            target.remove(musicId.intValue());
+        }
+    }
+
+    private void put(FacetIndex target, Music music) {
+        // 位图按32位整数保存ID，超出范围的记录不参与统计
+        if (music.getId() > Integer.MAX_VALUE) {
+            return;
+        }
+        target.put(music.getId().intValue(), new String[]{
+                music.getGenre() != null ? music.getGenre().trim() : null,
+                music.getReleaseYear() != null ? music.getReleaseYear().toString() : null,
+                music.getArtist() != null ? music.getArtist().trim() : null,
+                music.getStatus() != null ? music.getStatus().name() : null
+        });
+    }
+}
@@ -0,0 +1,229 @@
+package org.zszq.service;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.zszq.dto.CursorPage;
+import org.zszq.dto.MusicResponseDto;
+import org.zszq.entity.Music;
+import org.zszq.event.MusicChangedEvent;
+import org.zszq.repository.MusicRepository;
+import org.zszq.util.CursorCodec;
+import org.zszq.util.InvertedIndex;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * 音乐搜索服务
+ * 启动后从数据库加载全部已审核音乐建立内存倒排索引（标题、艺术家、专辑），之后随上传、审核事件增量更新；
+ * 索引未就绪或配置为 postgres、jpql 时返回空，由调用方回退到数据库查询
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class MusicSearchService {
+
+    private static final float[] FIELD_WEIGHTS = {3f, 2f, 1f};
+
+    private final MusicRepository musicRepository;
+
+    @Value("${music.search.engine:index}")
+    private String engine;
+
+    @Value("${music.search.rebuild-batch-size:1000}")
+    private int rebuildBatchSize;
+
+    @Value("${music.search.bm25-k1:1.2}")
+    private float k1;
+
+    @Value("${music.search.bm25-b:0.75}")
+    private float b;
+
+    private volatile InvertedIndex index;
+    private final AtomicBoolean rebuilding = new AtomicBoolean();
+    private final Queue<Long> changedDuringRebuild = new ConcurrentLinkedQueue<>();
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        if (isIndexEngine()) {
+            startRebuild();
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onMusicChanged(MusicChangedEvent event) {
+        if (!isIndexEngine()) {
+            return;
+        }
+        if (rebuilding.get()) {
+            changedDuringRebuild.add(event.musicId());
+        }
+        InvertedIndex current = index;
+        if (current != null) {
+            refresh(current, event.musicId());
+        }
+    }
+
+    /**
+     * 在后台重建索引，已有重建任务时返回 false
+     */
+    public boolean startRebuild() {
+        if (!rebuilding.compareAndSet(false, true)) {
+            return false;
+        }
+        Thread.ofVirtual().name("music-search-rebuild").start(() -> {
+            try {
+                rebuild();
+            } catch (Exception e) {
+                log.error("重建搜索索引失败", e);
+            } finally {
+                rebuilding.set(false);
+            }
+        });
+        return true;
+    }
+
+    public boolean isReady() {
+        return isIndexEngine() && index != null;
+    }
+
+    /**
+     * 关键词搜索，结果按相关度排序
+     *
+     * @return 索引不可用时返回空
+     */
+    public Optional<Page<MusicResponseDto>> search(String keyword, int page, int size) {
+        InvertedIndex current = index;
+        if (!isIndexEngine() || current == null) {
+            return Optional.empty();
+        }
+
+        PageRequest pageable = PageRequest.of(page, size);
+        InvertedIndex.SearchHits hits = current.search(keyword, (int) pageable.getOffset(), size);
+        return Optional.of(new PageImpl<>(loadInOrder(hits.ids()), pageable, hits.total()));
+    }
+
+    /**
+     * 关键词游标翻页，按 (相关度, ID) 降序定位下一页，每页大小可以随时改变
+     *
+     * @param position 上一页返回的游标，第一页为 null
+     * @return 索引不可用时返回空
+     */
+    public Optional<CursorPage<MusicResponseDto>> searchAfter(String keyword, CursorCodec.Position position, int size) {
+        InvertedIndex current = index;
+        if (!isIndexEngine() || current == null) {
+            return Optional.empty();
+        }
+
+        InvertedIndex.ScoredHits hits = current.searchAfter(keyword,
+                position != null ? (float) position.score() : Float.POSITIVE_INFINITY,
+                position != null ? position.id() : Long.MAX_VALUE,
+                size + 1);
+        boolean hasNext = hits.ids().length > size;
+        long[] ids = hasNext ? Arrays.copyOf(hits.ids(), size) : hits.ids();
+        String next = hasNext ? CursorCodec.encodeScore(hits.scores()[size - 1], ids[size - 1]) : null;
+        return Optional.of(CursorPage.of(loadInOrder(ids), next));
+    }
+
+    /**
+     * 关键词命中的全部音乐ID
+     *
+     * @return 索引不可用时返回空
+     */
+    public Optional<long[]> matchAll(String keyword) {
+        InvertedIndex current = index;
+        if (!isIndexEngine() || current == null) {
+            return Optional.empty();
+        }
+        return Optional.of(current.matchAll(keyword));
+    }
+
+    private void rebuild() {
+        long start = System.currentTimeMillis();
+        changedDuringRebuild.clear();
+        InvertedIndex fresh = new InvertedIndex(k1, b);
+        long afterId = 0;
+        while (true) {
+            List<Music> batch = musicRepository.findApprovedAfter(afterId, PageRequest.of(0, rebuildBatchSize));
+            if (batch.isEmpty()) {
+                break;
+            }
+            for (Music music : batch) {
+                put(fresh, music);
+            }
+            afterId = batch.get(batch.size() - 1).getId();
+        }
+        index = fresh;
+
+        // 重建期间发生变化的音乐可能已被扫描过，切换后重新同步一次
+        Long musicId;
+        while ((musicId = changedDuringRebuild.poll()) != null) {
+            refresh(fresh, musicId);
+        }
+        log.info("搜索索引重建完成，共 {} 首音乐，耗时 {}ms", fresh.size(), System.currentTimeMillis() - start);
+    }
+
+    private void refresh(InvertedIndex target, Long musicId) {
+        Music music = musicRepository.findById(musicId).orElse(null);
+        if (music != null && music.getStatus() == Music.MusicStatus.APPROVED) {
+            put(target, music);
+        } else {
+            target.remove(musicId);
+        }
+    }
+
+    private void put(InvertedIndex target, Music music) {
+        target.put(music.getId(), new String[]{music.getTitle(), music.getArtist(), music.getAlbum()}, FIELD_WEIGHTS);
+    }
+
+    /**
+     * 按ID批量读取音乐并保持给定的顺序，索引与数据库短暂不一致时跳过已不存在或未通过审核的记录
+     */
+    public List<MusicResponseDto> loadInOrder(long[] ids) {
+        if (ids.length == 0) {
+            return List.of();
+        }
+        List<Long> idList = new ArrayList<>(ids.length);
+        for (long id : ids) {
+            idList.add(id);
+        }
+        Map<Long, Music> byId = new HashMap<>();
+        for (Music music : musicRepository.findAllById(idList)) {
+            byId.put(music.getId(), music);
+        }
+        List<MusicResponseDto> result = new ArrayList<>(ids.length);
+        for (Long id : idList) {
+            Music music = byId.get(id);
+            if (music != null && music.getStatus() == Music.MusicStatus.APPROVED) {
+                result.add(MusicResponseDto.fromMusic(music));
+            }
+        }
+        return result;
+    }
+
+    /**
+     * 数据库查询是否使用全文检索与三元组索引，jpql 模式下使用原有的模糊查询
+     */
+    public boolean useFullText() {
+        return !"jpql".equalsIgnoreCase(engine);
+    }
+
+    private boolean isIndexEngine() {
+        return "index".equalsIgnoreCase(engine);
+    }
+}
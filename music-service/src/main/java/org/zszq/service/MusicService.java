@@ -1,20 +1,62 @@
 package org.zszq.service;
 
+import jakarta.servlet.http.HttpServletRequest;
 import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.fileupload2.core.DiskFileItem;
+import org.apache.commons.fileupload2.core.DiskFileItemFactory;
+import org.apache.commons.fileupload2.core.FileItemInput;
+import org.apache.commons.fileupload2.core.FileItemInputIterator;
+import org.apache.commons.fileupload2.jakarta.servlet6.JakartaServletFileUpload;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.util.unit.DataSize;
 import org.springframework.web.multipart.MultipartFile;
+import org.zszq.dto.AlbumUploadDto;
+import org.zszq.dto.AlbumUploadResultDto;
+import org.zszq.dto.CursorPage;
+import org.zszq.dto.InstantUploadChallengeDto;
 import org.zszq.dto.MusicResponseDto;
 import org.zszq.dto.MusicUploadDto;
+import org.zszq.entity.ListenerSketch;
 import org.zszq.entity.Music;
+import org.zszq.entity.StagedObject;
+import org.zszq.entity.UserLike;
+import org.zszq.event.MusicChangedEvent;
+import org.zszq.event.PlaySource;
+import org.zszq.repository.ListenerSketchRepository;
 import org.zszq.repository.MusicRepository;
+import org.zszq.repository.MusicRepositoryCustom;
+import org.zszq.repository.PlaylistRepository;
+import org.zszq.repository.UserLikeRepository;
+import org.zszq.util.CursorCodec;
+import org.zszq.util.LikePatterns;
 
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
 import java.util.UUID;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.function.Consumer;
 
+@Slf4j
 @Service
 @RequiredArgsConstructor
 @Transactional
@@ -22,23 +64,283 @@ public class MusicService {
 
     private final MusicRepository musicRepository;
     private final FileStorageService fileStorageService;
+    private final ObjectStagingService objectStagingService;
+    private final ContentStoreService contentStoreService;
+    private final MusicSearchService musicSearchService;
+    private final MusicSuggestService musicSuggestService;
+    private final MusicSpellService musicSpellService;
+    private final PlayCountService playCountService;
+    private final PlayJournalService playJournalService;
+    private final PlayFilterService playFilterService;
+    private final LikeService likeService;
+    private final UserLikeRepository userLikeRepository;
+    private final ListenerSketchRepository listenerSketchRepository;
+    private final PlaylistRepository playlistRepository;
+    private final ApplicationEventPublisher eventPublisher;
+    private final TransactionTemplate transactionTemplate;
 
+    @Value("${spring.servlet.multipart.max-file-size:100MB}")
+    private DataSize maxFileSize;
+
+    @Value("${spring.servlet.multipart.max-request-size:200MB}")
+    private DataSize maxRequestSize;
+
+    @Value("${music.upload.album-concurrency:4}")
+    private int albumConcurrency;
+
+    @Value("${music.upload.album-max-tracks:100}")
+    private int albumMaxTracks;
+
+    /**
+     * 上传音乐
+     * 第一阶段在无事务状态下登记并写入对象存储，第二阶段用短事务写入音乐记录，
+     * 对象存储慢时不会占用数据库连接
+     */
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
     public MusicResponseDto uploadMusic(MultipartFile musicFile, MultipartFile coverFile, MusicUploadDto uploadDto) {
+        List<StagedObject> staged = new ArrayList<>();
         try {
-            // 生成唯一文件名
+            // 生成唯一文件名并上传音乐文件
             String musicFileName = generateFileName(musicFile.getOriginalFilename());
-            String coverFileName = coverFile != null ? generateFileName(coverFile.getOriginalFilename()) : null;
+            StagedObject musicStaging = stage(staged, fileStorageService.getMusicBucket(), musicFileName);
+            StoredObject musicObject = contentStoreService.promote(
+                    fileStorageService.uploadMusicFile(musicFile, musicFileName), musicStaging, staged);
 
-            // 上传音乐文件
-            String musicUrl = fileStorageService.uploadMusicFile(musicFile, musicFileName);
-            
             // 上传封面图片（如果有）
-            String coverUrl = null;
+            StoredObject coverObject = null;
             if (coverFile != null) {
-                coverUrl = fileStorageService.uploadCoverImage(coverFile, coverFileName);
+                String coverFileName = generateFileName(coverFile.getOriginalFilename());
+                StagedObject coverStaging = stage(staged, fileStorageService.getImagesBucket(), coverFileName);
+                coverObject = contentStoreService.promote(
+                        fileStorageService.uploadCoverImage(coverFile, coverFileName), coverStaging, staged);
+            }
+
+            return saveUploadedMusic(uploadDto, musicObject, coverObject, staged);
+
+        } catch (Exception e) {
+            objectStagingService.discard(staged);
+            throw new RuntimeException("音乐上传失败: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * 流式上传音乐
+     * 增量解析multipart请求体，文件内容直接分片推送到对象存储，不经过Tomcat临时文件；
+     * 与普通上传相同分两阶段进行，上传过程不持有数据库事务
+     */
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public MusicResponseDto uploadMusicStream(HttpServletRequest request) {
+        if (!JakartaServletFileUpload.isMultipartContent(request)) {
+            throw new IllegalArgumentException("请求必须为multipart/form-data格式");
+        }
+
+        JakartaServletFileUpload<DiskFileItem, DiskFileItemFactory> upload = new JakartaServletFileUpload<>();
+        upload.setFileSizeMax(maxFileSize.toBytes());
+        upload.setSizeMax(maxRequestSize.toBytes());
+
+        MusicUploadDto uploadDto = new MusicUploadDto();
+        List<StagedObject> staged = new ArrayList<>();
+        StoredObject musicObject = null;
+        StoredObject coverObject = null;
+        try {
+            FileItemInputIterator items = upload.getItemIterator(request);
+            while (items.hasNext()) {
+                FileItemInput item = items.next();
+                if (item.isFormField()) {
+                    bindFormField(uploadDto, item.getFieldName(), readFormField(item));
+                } else if ("musicFile".equals(item.getFieldName()) && musicObject == null) {
+                    String musicFileName = generateFileName(item.getName());
+                    StagedObject musicStaging = stage(staged, fileStorageService.getMusicBucket(), musicFileName);
+                    musicObject = contentStoreService.promote(fileStorageService.streamMusicFile(
+                            item.getInputStream(), musicFileName, item.getContentType()), musicStaging, staged);
+                } else if ("coverFile".equals(item.getFieldName()) && coverObject == null
+                        && item.getName() != null && !item.getName().isEmpty()) {
+                    String coverFileName = generateFileName(item.getName());
+                    StagedObject coverStaging = stage(staged, fileStorageService.getImagesBucket(), coverFileName);
+                    coverObject = contentStoreService.promote(fileStorageService.streamCoverImage(
+                            item.getInputStream(), coverFileName, item.getContentType()), coverStaging, staged);
+                }
+            }
+
+            if (musicObject == null) {
+                throw new IllegalArgumentException("缺少音乐文件");
+            }
+            if (uploadDto.getTitle() == null || uploadDto.getTitle().isBlank()) {
+                throw new IllegalArgumentException("音乐标题不能为空");
+            }
+            if (uploadDto.getUploadUserId() == null) {
+                throw new IllegalArgumentException("上传用户ID不能为空");
+            }
+
+            return saveUploadedMusic(uploadDto, musicObject, coverObject, staged);
+
+        } catch (Exception e) {
+            objectStagingService.discard(staged);
+            throw new RuntimeException("音乐上传失败: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * 秒传第一步：文件内容已存在时签发校验凭证，客户端需计算凭证指定区间的摘要
+     *
+     * @param sha256 音乐文件内容的SHA-256摘要
+     * @return 内容不存在时返回空，客户端需完整上传
+     */
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public Optional<InstantUploadChallengeDto> createInstantChallenge(String sha256) {
+        return contentStoreService.find(fileStorageService.getMusicBucket(), sha256)
+                .map(contentStoreService::challenge);
+    }
+
+    /**
+     * 秒传：文件内容已存在且区间摘要校验通过时只写入音乐记录，不再传输文件
+     *
+     * @param sha256      音乐文件内容的SHA-256摘要
+     * @param challenge   第一步签发的校验凭证
+     * @param rangeSha256 凭证指定区间内容的SHA-256摘要
+     * @return 内容不存在时返回空，客户端需完整上传
+     */
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public Optional<MusicResponseDto> uploadMusicInstant(String sha256, String challenge, String rangeSha256,
+                                                         MusicUploadDto uploadDto) {
+        return contentStoreService.find(fileStorageService.getMusicBucket(), sha256)
+                .map(musicObject -> {
+                    contentStoreService.verifyChallenge(musicObject, challenge, rangeSha256);
+                    return saveUploadedMusic(uploadDto, musicObject, null, List.of());
+                });
+    }
+
+    /**
+     * 批量上传专辑
+     * 各曲目在虚拟线程上并发上传，并发数受 album-concurrency 限制；全部传完后用一条多行INSERT写入音乐记录。
+     * 单个文件失败不影响其他曲目，结果中逐个返回
+     */
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public AlbumUploadResultDto uploadAlbum(List<MultipartFile> musicFiles, MultipartFile coverFile,
+                                            AlbumUploadDto albumDto) {
+        if (musicFiles == null || musicFiles.isEmpty()) {
+            throw new IllegalArgumentException("缺少音乐文件");
+        }
+        if (musicFiles.size() > albumMaxTracks) {
+            throw new IllegalArgumentException("单次最多上传 " + albumMaxTracks + " 首曲目");
+        }
+        if (albumDto.getUploadUserId() == null) {
+            throw new IllegalArgumentException("上传用户ID不能为空");
+        }
+
+        // 封面整张专辑共用，只上传一次
+        List<StagedObject> coverStaged = new ArrayList<>();
+        StoredObject coverObject = null;
+        if (coverFile != null && !coverFile.isEmpty()) {
+            try {
+                String coverFileName = generateFileName(coverFile.getOriginalFilename());
+                StagedObject coverStaging = stage(coverStaged, fileStorageService.getImagesBucket(), coverFileName);
+                coverObject = contentStoreService.promote(
+                        fileStorageService.uploadCoverImage(coverFile, coverFileName), coverStaging, coverStaged);
+            } catch (Exception e) {
+                objectStagingService.discard(coverStaged);
+                throw new RuntimeException("封面上传失败: " + e.getMessage(), e);
             }
+        }
+
+        // 第一阶段：并发上传各曲目
+        List<TrackUpload> uploads = new ArrayList<>(musicFiles.size());
+        Semaphore permits = new Semaphore(albumConcurrency);
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            List<Future<TrackUpload>> futures = new ArrayList<>(musicFiles.size());
+            for (int i = 0; i < musicFiles.size(); i++) {
+                int index = i;
+                futures.add(executor.submit(() -> {
+                    permits.acquire();
+                    try {
+                        return uploadTrack(index, musicFiles.get(index));
+                    } finally {
+                        permits.release();
+                    }
+                }));
+            }
+            for (int i = 0; i < futures.size(); i++) {
+                try {
+                    uploads.add(futures.get(i).get());
+                } catch (ExecutionException e) {
+                    uploads.add(TrackUpload.failed(i, musicFiles.get(i).getOriginalFilename(), e.getCause()));
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("专辑上传被中断", e);
+        }
+
+        // 第二阶段：一个短事务写入所有成功曲目
+        List<TrackUpload> succeeded = uploads.stream().filter(upload -> upload.musicObject() != null).toList();
+        List<Long> musicIds = List.of();
+        if (succeeded.isEmpty()) {
+            objectStagingService.discard(coverStaged);
+        } else {
+            List<StagedObject> staged = new ArrayList<>(coverStaged);
+            succeeded.forEach(upload -> staged.addAll(upload.staged()));
+            try {
+                musicIds = saveAlbumTracks(albumDto, succeeded, coverObject, staged);
+            } catch (Exception e) {
+                objectStagingService.discard(staged);
+                String error = "保存音乐记录失败: " + e.getMessage();
+                uploads = uploads.stream()
+                        .map(upload -> upload.musicObject() != null
+                                ? new TrackUpload(upload.index(), upload.fileName(), null, List.of(), error)
+                                : upload)
+                        .toList();
+            }
+        }
+
+        Map<Long, Music> saved = new HashMap<>();
+        musicRepository.findAllById(musicIds).forEach(music -> saved.put(music.getId(), music));
+
+        AlbumUploadResultDto result = new AlbumUploadResultDto();
+        result.setAlbum(albumDto.getAlbum());
+        List<AlbumUploadResultDto.TrackResult> tracks = new ArrayList<>(uploads.size());
+        int savedIndex = 0;
+        for (TrackUpload upload : uploads) {
+            AlbumUploadResultDto.TrackResult track = new AlbumUploadResultDto.TrackResult();
+            track.setIndex(upload.index());
+            track.setFileName(upload.fileName());
+            if (upload.musicObject() != null) {
+                track.setSuccess(true);
+                track.setMusic(MusicResponseDto.fromMusic(saved.get(musicIds.get(savedIndex++))));
+            } else {
+                track.setError(upload.error());
+            }
+            tracks.add(track);
+        }
+        result.setTracks(tracks);
+        result.setSucceeded(savedIndex);
+        result.setFailed(tracks.size() - savedIndex);
+        return result;
+    }
 
-            // 创建音乐记录
+    /**
+     * 直传完成：对象已由客户端直接写入存储并通过校验，写入音乐记录
+     *
+     * @param afterSave 在同一事务内执行的回调，参数为新音乐ID
+     */
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public MusicResponseDto saveDirectUpload(MusicUploadDto uploadDto, StoredObject musicObject, StoredObject coverObject,
+                                             List<StagedObject> staged, Consumer<Long> afterSave) {
+        return saveUploadedMusic(uploadDto, musicObject, coverObject, staged, afterSave);
+    }
+
+    private MusicResponseDto saveUploadedMusic(MusicUploadDto uploadDto, StoredObject musicObject,
+                                               StoredObject coverObject, List<StagedObject> staged) {
+        return saveUploadedMusic(uploadDto, musicObject, coverObject, staged, musicId -> {
+        });
+    }
+
+    /**
+     * 上传第二阶段：短事务内写入音乐记录并确认暂存对象
+     */
+    private MusicResponseDto saveUploadedMusic(MusicUploadDto uploadDto, StoredObject musicObject,
+                                               StoredObject coverObject, List<StagedObject> staged,
+                                               Consumer<Long> afterSave) {
+        return transactionTemplate.execute(status -> {
             Music music = new Music();
             music.setTitle(uploadDto.getTitle());
             music.setArtist(uploadDto.getArtist());
@@ -47,19 +349,101 @@ public class MusicService {
             music.setReleaseYear(uploadDto.getReleaseYear());
             music.setLyrics(uploadDto.getLyrics());
             music.setUploadUserId(uploadDto.getUploadUserId());
-            music.setFileUrl(musicUrl);
-            music.setCoverUrl(coverUrl);
-            music.setFileSize(musicFile.getSize());
+            music.setFileUrl(musicObject.url());
+            music.setCoverUrl(coverObject != null ? coverObject.url() : null);
+            music.setFileSize(musicObject.size());
             music.setStatus(Music.MusicStatus.PENDING);
 
-            // 提取音频元数据（时长、比特率等）
-            // TODO: 实现音频元数据提取
-            
             Music savedMusic = musicRepository.save(music);
+            // 直传的对象没有经过本服务，无内容摘要，不参与去重
+            if (musicObject.sha256() != null) {
+                contentStoreService.retain(musicObject);
+            }
+            if (coverObject != null && coverObject.sha256() != null) {
+                contentStoreService.retain(coverObject);
+            }
+            objectStagingService.confirm(staged);
+            afterSave.accept(savedMusic.getId());
+
+            // 事务提交后异步提取音频元数据（时长、比特率等）
+            eventPublisher.publishEvent(new MusicChangedEvent(savedMusic.getId(), MusicChangedEvent.Type.UPLOADED));
             return MusicResponseDto.fromMusic(savedMusic);
-            
+        });
+    }
+
+    /**
+     * 上传单个曲目到对象存储，失败时清理已写入的对象并返回失败结果
+     */
+    private TrackUpload uploadTrack(int index, MultipartFile file) {
+        List<StagedObject> staged = new ArrayList<>();
+        try {
+            String musicFileName = generateFileName(file.getOriginalFilename());
+            StagedObject musicStaging = stage(staged, fileStorageService.getMusicBucket(), musicFileName);
+            StoredObject musicObject = contentStoreService.promote(
+                    fileStorageService.uploadMusicFile(file, musicFileName), musicStaging, staged);
+            return new TrackUpload(index, file.getOriginalFilename(), musicObject, staged, null);
         } catch (Exception e) {
-            throw new RuntimeException("音乐上传失败: " + e.getMessage(), e);
+            objectStagingService.discard(staged);
+            return TrackUpload.failed(index, file.getOriginalFilename(), e);
+        }
+    }
+
+    /**
+     * 专辑上传第二阶段：一条多行INSERT写入所有曲目，并在同一事务内更新引用计数、确认暂存对象
+     *
+     * @return 按曲目顺序排列的音乐ID
+     */
+    private List<Long> saveAlbumTracks(AlbumUploadDto albumDto, List<TrackUpload> tracks,
+                                       StoredObject coverObject, List<StagedObject> staged) {
+        return transactionTemplate.execute(status -> {
+            List<Music> musics = new ArrayList<>(tracks.size());
+            for (TrackUpload track : tracks) {
+                Music music = new Music();
+                music.setTitle(trackTitle(albumDto, track));
+                music.setArtist(albumDto.getArtist());
+                music.setAlbum(albumDto.getAlbum());
+                music.setGenre(albumDto.getGenre());
+                music.setReleaseYear(albumDto.getReleaseYear());
+                music.setUploadUserId(albumDto.getUploadUserId());
+                music.setFileUrl(track.musicObject().url());
+                music.setCoverUrl(coverObject != null ? coverObject.url() : null);
+                music.setFileSize(track.musicObject().size());
+                music.setStatus(Music.MusicStatus.PENDING);
+                musics.add(music);
+            }
+            List<Long> ids = musicRepository.insertAll(musics);
+
+            tracks.forEach(track -> contentStoreService.retain(track.musicObject()));
+            if (coverObject != null) {
+                contentStoreService.retain(coverObject, tracks.size());
+            }
+            objectStagingService.confirm(staged);
+
+            ids.forEach(id -> eventPublisher.publishEvent(new MusicChangedEvent(id, MusicChangedEvent.Type.UPLOADED)));
+            return ids;
+        });
+    }
+
+    private String trackTitle(AlbumUploadDto albumDto, TrackUpload track) {
+        List<String> titles = albumDto.getTitles();
+        if (titles != null && track.index() < titles.size()
+                && titles.get(track.index()) != null && !titles.get(track.index()).isBlank()) {
+            return titles.get(track.index()).trim();
+        }
+        String fileName = track.fileName() != null ? track.fileName() : "未命名曲目";
+        int index = fileName.lastIndexOf('.');
+        String title = index > 0 ? fileName.substring(0, index) : fileName;
+        return title.length() > 100 ? title.substring(0, 100) : title;
+    }
+
+    /**
+     * 专辑中单个曲目第一阶段的上传结果
+     */
+    private record TrackUpload(int index, String fileName, StoredObject musicObject,
+                               List<StagedObject> staged, String error) {
+
+        static TrackUpload failed(int index, String fileName, Throwable cause) {
+            return new TrackUpload(index, fileName, null, List.of(), cause.getMessage());
         }
     }
 
@@ -72,23 +456,154 @@ public class MusicService {
 
     @Transactional(readOnly = true)
     public Page<MusicResponseDto> searchMusic(String keyword, String artist, String genre, int page, int size) {
-        Pageable pageable = PageRequest.of(page, size, Sort.by("createdAt").descending());
-        
-        Page<Music> musicPage;
         if (keyword != null && !keyword.trim().isEmpty()) {
-            musicPage = musicRepository.searchByKeyword(keyword.trim(), pageable);
+            Page<MusicResponseDto> result = searchByKeyword(keyword.trim(), page, size);
+            if (result.getTotalElements() == 0) {
+                // 按字面没有结果时，尝试把拼音或首字母输入（zjl、zhoujielun）解析为标题、艺术家或专辑再查一次
+                Optional<String> resolved = musicSuggestService.resolvePinyin(keyword);
+                if (resolved.isPresent()) {
+                    result = searchByKeyword(resolved.get(), page, size);
+                }
+            }
+            if (result.getTotalElements() == 0) {
+                // 仍然没有结果时按拼写纠错后的关键词再查一次
+                Optional<String> corrected = musicSpellService.correct(keyword);
+                if (corrected.isPresent()) {
+                    result = searchByKeyword(corrected.get(), page, size);
+                }
+            }
+            return result;
+        }
+
+        Page<Music> musicPage;
+        if (musicSearchService.useFullText()) {
+            musicPage = musicRepository.trigramFilter(LikePatterns.contains(artist), LikePatterns.contains(genre),
+                    PageRequest.of(page, size));
         } else {
+            Pageable pageable = PageRequest.of(page, size, Sort.by("createdAt").descending());
             musicPage = musicRepository.searchByFilters(artist, genre, pageable);
         }
-        
         return musicPage.map(MusicResponseDto::fromMusic);
     }
 
-    public void incrementPlayCount(Long musicId) {
-        Music music = musicRepository.findById(musicId)
-                .orElseThrow(() -> new RuntimeException("音乐不存在"));
-        music.setPlayCount(music.getPlayCount() + 1);
-        musicRepository.save(music);
+    /**
+     * 游标分页搜索
+     * 关键词搜索按 (相关度, id) 定位下一页，按条件筛选按 (createdAt, id) 定位，都不做 OFFSET 扫描和 COUNT 查询，
+     * 翻页途中改变每页大小也不会漏掉或重复记录。关键词按字面没有任何结果时，与 searchMusic 一样依次改用拼音解析、
+     * 拼写纠错后的关键词，后续页按同样的规则选中同一个关键词
+     */
+    @Transactional(readOnly = true)
+    public CursorPage<MusicResponseDto> searchMusicByCursor(String keyword, String artist, String genre,
+                                                            String cursor, int size) {
+        if (size <= 0) {
+            throw new RuntimeException("每页大小必须大于0");
+        }
+        CursorCodec.Position position = CursorCodec.decode(cursor);
+        if (keyword != null && !keyword.trim().isEmpty()) {
+            String trimmed = keyword.trim();
+            CursorPage<MusicResponseDto> result = searchByKeywordAfter(trimmed, position, size);
+            if (hasResults(result, trimmed, position)) {
+                return result;
+            }
+            Optional<String> resolved = musicSuggestService.resolvePinyin(keyword);
+            if (resolved.isPresent()) {
+                CursorPage<MusicResponseDto> pinyin = searchByKeywordAfter(resolved.get(), position, size);
+                if (hasResults(pinyin, resolved.get(), position)) {
+                    return pinyin;
+                }
+            }
+            Optional<String> corrected = musicSpellService.correct(keyword);
+            return corrected.isPresent() ? searchByKeywordAfter(corrected.get(), position, size) : result;
+        }
+
+        LocalDateTime createdAt = position != null ? position.time() : CursorCodec.MAX_TIME;
+        long id = position != null ? position.id() : Long.MAX_VALUE;
+        List<Music> rows = musicSearchService.useFullText()
+                ? musicRepository.trigramFilterBefore(LikePatterns.contains(artist), LikePatterns.contains(genre),
+                        createdAt, id, PageRequest.of(0, size + 1))
+                : musicRepository.searchByFiltersBefore(artist, genre, createdAt, id, PageRequest.of(0, size + 1));
+        return CursorPage.of(rows, size, music -> CursorCodec.encode(music.getCreatedAt(), music.getId()))
+                .map(MusicResponseDto::fromMusic);
+    }
+
+    /**
+     * 关键词是否有结果；翻过最后一页时本页为空，需要从第一页确认关键词本身有结果，避免改用其他关键词
+     */
+    private boolean hasResults(CursorPage<MusicResponseDto> page, String keyword, CursorCodec.Position position) {
+        if (!page.getContent().isEmpty() || page.isHasNext()) {
+            return true;
+        }
+        return position != null && !searchByKeywordAfter(keyword, null, 1).getContent().isEmpty();
+    }
+
+    private CursorPage<MusicResponseDto> searchByKeywordAfter(String keyword, CursorCodec.Position position, int size) {
+        Optional<CursorPage<MusicResponseDto>> indexed = musicSearchService.searchAfter(keyword, position, size);
+        if (indexed.isPresent()) {
+            return indexed.get();
+        }
+        if (musicSearchService.useFullText()) {
+            List<MusicRepositoryCustom.ScoredId> rows = musicRepository.fullTextSearchAfter(keyword,
+                    LikePatterns.contains(keyword), position != null ? position.score() : null,
+                    position != null ? position.id() : Long.MAX_VALUE, size + 1);
+            CursorPage<MusicRepositoryCustom.ScoredId> page = CursorPage.of(rows, size,
+                    row -> CursorCodec.encodeScore(row.score(), row.id()));
+            long[] ids = page.getContent().stream().mapToLong(MusicRepositoryCustom.ScoredId::id).toArray();
+            return CursorPage.of(musicSearchService.loadInOrder(ids), page.getNextCursor());
+        }
+        List<Music> rows = musicRepository.searchByKeywordBefore(keyword,
+                position != null ? position.time() : CursorCodec.MAX_TIME,
+                position != null ? position.id() : Long.MAX_VALUE,
+                PageRequest.of(0, size + 1));
+        return CursorPage.of(rows, size, music -> CursorCodec.encode(music.getCreatedAt(), music.getId()))
+                .map(MusicResponseDto::fromMusic);
+    }
+
+    private Page<MusicResponseDto> searchByKeyword(String keyword, int page, int size) {
+        // 优先使用内存倒排索引，未就绪时回退到数据库查询
+        Optional<Page<MusicResponseDto>> indexed = musicSearchService.search(keyword, page, size);
+        if (indexed.isPresent()) {
+            return indexed.get();
+        }
+        Page<Music> musicPage;
+        if (musicSearchService.useFullText()) {
+            // 排序由SQL中的相关度决定，不附加分页排序
+            musicPage = musicRepository.fullTextSearch(keyword, LikePatterns.contains(keyword), PageRequest.of(page, size));
+        } else {
+            Pageable pageable = PageRequest.of(page, size, Sort.by("createdAt").descending());
+            musicPage = musicRepository.searchByKeyword(keyword, pageable);
+        }
+        return musicPage.map(MusicResponseDto::fromMusic);
+    }
+
+    /**
+     * 记录一次播放，计数先在内存中累加，定时批量写回；同时把播放事件追加到播放日志。
+     * 同一地址、同一用户在去重窗口内重复播放时直接丢弃；音乐不存在时抛出异常，不进入去重和日志
+     *
+     * @param userId        未登录时为 null
+     * @param clientAddress 客户端地址，与用户ID一起用于去重
+     * @return 本次播放是否计入
+     */
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public boolean incrementPlayCount(Long musicId, Long userId, PlaySource source, String clientAddress) {
+        if (!playCountService.musicExists(musicId)) {
+            throw new RuntimeException("音乐不存在");
+        }
+        if (!playFilterService.acceptMusicPlay(musicId, userId, clientAddress)) {
+            return false;
+        }
+        playCountService.recordMusicPlay(musicId);
+        playJournalService.append(musicId, userId, source);
+        return true;
+    }
+
+    /**
+     * 点赞或取消点赞，重复操作不改变点赞数；点赞数定时批量写回
+     *
+     * @return 点赞状态是否发生变化
+     */
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public boolean toggleLike(Long musicId, Long userId, boolean isLike) {
+        return likeService.setLiked(UserLike.TargetType.MUSIC, userId, musicId, isLike);
     }
 
     @Transactional(readOnly = true)
@@ -98,11 +613,26 @@ public class MusicService {
         return musicPage.map(MusicResponseDto::fromMusic);
     }
 
+    /**
+     * 游标分页获取用户上传的音乐，按上传时间倒序
+     */
+    @Transactional(readOnly = true)
+    public CursorPage<MusicResponseDto> findByUploadUser(Long userId, String cursor, int size) {
+        CursorCodec.Position position = CursorCodec.decode(cursor);
+        List<Music> rows = musicRepository.findByUploadUserIdBefore(userId,
+                position != null ? position.time() : CursorCodec.MAX_TIME,
+                position != null ? position.id() : Long.MAX_VALUE,
+                PageRequest.of(0, size + 1));
+        return CursorPage.of(rows, size, music -> CursorCodec.encode(music.getCreatedAt(), music.getId()))
+                .map(MusicResponseDto::fromMusic);
+    }
+
     public void approveMusic(Long musicId) {
         Music music = musicRepository.findById(musicId)
                 .orElseThrow(() -> new RuntimeException("音乐不存在"));
         music.setStatus(Music.MusicStatus.APPROVED);
         musicRepository.save(music);
+        eventPublisher.publishEvent(new MusicChangedEvent(musicId, MusicChangedEvent.Type.APPROVED));
     }
 
     public void rejectMusic(Long musicId) {
@@ -110,6 +640,59 @@ public class MusicService {
                 .orElseThrow(() -> new RuntimeException("音乐不存在"));
         music.setStatus(Music.MusicStatus.REJECTED);
         musicRepository.save(music);
+        eventPublisher.publishEvent(new MusicChangedEvent(musicId, MusicChangedEvent.Type.REJECTED));
+    }
+
+    /**
+     * 删除音乐，只有上传者可以删除
+     * 同时删除点赞记录、独立听众草图并修正所在播放列表的曲目数，音乐文件和封面在事务内释放引用，由清理任务删除
+     */
+    public void deleteMusic(Long musicId, Long userId) {
+        Music music = musicRepository.findById(musicId)
+                .orElseThrow(() -> new RuntimeException("音乐不存在"));
+
+        if (!music.getUploadUserId().equals(userId)) {
+            throw new RuntimeException("无权限删除此音乐");
+        }
+
+        userLikeRepository.deleteByTarget(UserLike.TargetType.MUSIC, musicId);
+        listenerSketchRepository.deleteByTarget(ListenerSketch.TargetType.MUSIC, musicId);
+        playlistRepository.removeMusicFromCounts(musicId);
+        musicRepository.delete(music);
+        contentStoreService.release(fileStorageService.getMusicBucket(),
+                fileStorageService.musicObjectName(music.getFileUrl()));
+        if (music.getCoverUrl() != null) {
+            contentStoreService.release(fileStorageService.getImagesBucket(),
+                    fileStorageService.imageObjectName(music.getCoverUrl()));
+        }
+        eventPublisher.publishEvent(new MusicChangedEvent(musicId, MusicChangedEvent.Type.DELETED));
+    }
+
+    private StagedObject stage(List<StagedObject> staged, String bucket, String objectName) {
+        StagedObject stagedObject = objectStagingService.stage(bucket, objectName);
+        staged.add(stagedObject);
+        return stagedObject;
+    }
+
+    private String readFormField(FileItemInput item) throws IOException {
+        return new String(item.getInputStream().readAllBytes(), StandardCharsets.UTF_8);
+    }
+
+    private void bindFormField(MusicUploadDto uploadDto, String name, String value) {
+        if (value == null || value.isEmpty()) {
+            return;
+        }
+        switch (name) {
+            case "title" -> uploadDto.setTitle(value);
+            case "artist" -> uploadDto.setArtist(value);
+            case "album" -> uploadDto.setAlbum(value);
+            case "genre" -> uploadDto.setGenre(value);
+            case "releaseYear" -> uploadDto.setReleaseYear(Integer.valueOf(value.trim()));
+            case "lyrics" -> uploadDto.setLyrics(value);
+            case "uploadUserId" -> uploadDto.setUploadUserId(Long.valueOf(value.trim()));
+            default -> {
+            }
+        }
     }
 
     private String generateFileName(String originalFilename) {
@@ -117,6 +700,7 @@ public class MusicService {
         if (originalFilename != null && originalFilename.lastIndexOf(".") > 0) {
             extension = originalFilename.substring(originalFilename.lastIndexOf("."));
         }
-        return UUID.randomUUID().toString() + extension;
+        // 上传先写入暂存位置，内容摘要确定后再转存到内容地址
+        return "staging/" + UUID.randomUUID() + extension;
     }
 }
\ No newline at end of file
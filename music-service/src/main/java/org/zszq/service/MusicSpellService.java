@@ -0,0 +1,170 @@
+package org.zszq.service;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.zszq.entity.Music;
+import org.zszq.event.MusicChangedEvent;
+import org.zszq.repository.MusicRepository;
+import org.zszq.util.SymSpellDictionary;
+import org.zszq.util.TextTokenizer;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * 搜索关键词拼写纠错服务
+ * 已审核音乐的标题、艺术家、专辑中的词语（英文单词、连续的中文片段）写入对称删除词典，
+ * 审核通过、驳回时增量更新；搜索无结果时把关键词中不认识的词替换为最接近的已知词语，再交给常规搜索
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class MusicSpellService {
+
+    private final MusicRepository musicRepository;
+
+    @Value("${music.spell.max-distance:2}")
+    private int maxDistance;
+
+    @Value("${music.spell.prefix-length:7}")
+    private int prefixLength;
+
+    @Value("${music.spell.rebuild-batch-size:1000}")
+    private int rebuildBatchSize;
+
+    private volatile SymSpellDictionary dictionary;
+    private final AtomicBoolean rebuilding = new AtomicBoolean();
+    private final Queue<Long> changedDuringRebuild = new ConcurrentLinkedQueue<>();
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        startRebuild();
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onMusicChanged(MusicChangedEvent event) {
+        if (rebuilding.get()) {
+            changedDuringRebuild.add(event.musicId());
+        }
+        SymSpellDictionary current = dictionary;
+        if (current != null) {
+            refresh(current, event.musicId());
+        }
+    }
+
+    public boolean startRebuild() {
+        if (!rebuilding.compareAndSet(false, true)) {
+            return false;
+        }
+        Thread.ofVirtual().name("music-spell-rebuild").start(() -> {
+            try {
+                rebuild();
+            } catch (Exception e) {
+                log.error("重建拼写纠错词典失败", e);
+            } finally {
+                rebuilding.set(false);
+            }
+        });
+        return true;
+    }
+
+    /**
+     * 纠正关键词
+     *
+     * @return 纠正后的关键词，没有可纠正的词或词典未就绪时返回空
+     */
+    public Optional<String> correct(String keyword) {
+        SymSpellDictionary current = dictionary;
+        if (current == null || keyword == null) {
+            return Optional.empty();
+        }
+        List<String> words = TextTokenizer.words(keyword);
+        List<String> corrected = new ArrayList<>(words.size());
+        boolean changed = false;
+        for (String word : words) {
+            SymSpellDictionary.Correction correction = indexable(word)
+                    ? current.lookup(word, allowedDistance(word))
+                    : null;
+            if (correction != null && correction.distance() > 0) {
+                corrected.add(correction.word());
+                changed = true;
+            } else {
+                corrected.add(word);
+            }
+        }
+        return changed ? Optional.of(String.join(" ", corrected)) : Optional.empty();
+    }
+
+    private void rebuild() {
+        long start = System.currentTimeMillis();
+        changedDuringRebuild.clear();
+        SymSpellDictionary fresh = new SymSpellDictionary(maxDistance, prefixLength);
+        long afterId = 0;
+        while (true) {
+            List<Music> batch = musicRepository.findApprovedAfter(afterId, PageRequest.of(0, rebuildBatchSize));
+            if (batch.isEmpty()) {
+                break;
+            }
+            for (Music music : batch) {
+                put(fresh, music);
+            }
+            afterId = batch.get(batch.size() - 1).getId();
+        }
+        dictionary = fresh;
+
+        Long musicId;
+        while ((musicId = changedDuringRebuild.poll()) != null) {
+            refresh(fresh, musicId);
+        }
+        log.info("拼写纠错词典重建完成，共 {} 个词语，耗时 {}ms", fresh.size(), System.currentTimeMillis() - start);
+    }
+
+    private void refresh(SymSpellDictionary target, Long musicId) {
+        Music music = musicRepository.findById(musicId).orElse(null);
+        if (music != null && music.getStatus() == Music.MusicStatus.APPROVED) {
+            put(target, music);
+        } else {
+            target.remove(musicId);
+        }
+    }
+
+    private void put(SymSpellDictionary target, Music music) {
+        List<String> words = new ArrayList<>();
+        for (String field : new String[]{music.getTitle(), music.getArtist(), music.getAlbum()}) {
+            for (String word : TextTokenizer.words(field)) {
+                if (indexable(word)) {
+                    words.add(word);
+                }
+            }
+        }
+        target.put(music.getId(), words);
+    }
+
+    /**
+     * 太短的词纠错误报太多，纯数字不纠错
+     */
+    private boolean indexable(String word) {
+        boolean latin = word.chars().allMatch(c -> c < 128);
+        if (latin) {
+            return word.length() >= 3 && !word.chars().allMatch(Character::isDigit);
+        }
+        return word.codePointCount(0, word.length()) >= 2;
+    }
+
+    /**
+     * 短词只允许一处编辑
+     */
+    private int allowedDistance(String word) {
+        return word.codePointCount(0, word.length()) <= 4 ? Math.min(1, maxDistance) : maxDistance;
+    }
+}
@@ -0,0 +1,173 @@
+package org.zszq.service;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.zszq.dto.SuggestionDto;
+import org.zszq.entity.Music;
+import org.zszq.event.MusicChangedEvent;
+import org.zszq.repository.MusicRepository;
+import org.zszq.util.PinyinConverter;
+import org.zszq.util.SuggestTrie;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * 搜索框前缀补全服务
+ * 标题、艺术家、专辑写入内存压缩字典树，权重取播放量，含汉字的词条同时可用全拼和首字母补全；审核通过、驳回时增量更新，
+ * 播放量只在定时全量重建时刷新。查询完全在内存中完成，不访问数据库
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class MusicSuggestService {
+
+    private static final String[] FIELD_TYPES = {"TITLE", "ARTIST", "ALBUM"};
+
+    private final MusicRepository musicRepository;
+
+    @Value("${music.suggest.top-k:10}")
+    private int topK;
+
+    @Value("${music.suggest.rebuild-batch-size:1000}")
+    private int rebuildBatchSize;
+
+    private volatile SuggestTrie trie;
+    private final AtomicBoolean rebuilding = new AtomicBoolean();
+    private final Queue<Long> changedDuringRebuild = new ConcurrentLinkedQueue<>();
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        startRebuild();
+    }
+
+    /**
+     * 定时全量重建以刷新播放量权重
+     */
+    @Scheduled(fixedDelayString = "${music.suggest.rebuild-interval:PT30M}",
+               initialDelayString = "${music.suggest.rebuild-interval:PT30M}")
+    public void scheduledRebuild() {
+        startRebuild();
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onMusicChanged(MusicChangedEvent event) {
+        if (rebuilding.get()) {
+            changedDuringRebuild.add(event.musicId());
+        }
+        SuggestTrie current = trie;
+        if (current != null) {
+            refresh(current, event.musicId());
+        }
+    }
+
+    /**
+     * 在后台重建字典树，已有重建任务时返回 false
+     */
+    public boolean startRebuild() {
+        if (!rebuilding.compareAndSet(false, true)) {
+            return false;
+        }
+        Thread.ofVirtual().name("music-suggest-rebuild").start(() -> {
+            try {
+                rebuild();
+            } catch (Exception e) {
+                log.error("重建补全字典树失败", e);
+            } finally {
+                rebuilding.set(false);
+            }
+        });
+        return true;
+    }
+
+    /**
+     * 前缀补全，字典树未就绪时返回空列表
+     */
+    public List<SuggestionDto> suggest(String prefix, int limit) {
+        SuggestTrie current = trie;
+        if (current == null) {
+            return List.of();
+        }
+        int max = Math.min(limit, topK);
+        List<SuggestTrie.Suggestion> suggestions = current.suggest(prefix, max);
+        if (suggestions.isEmpty() && PinyinConverter.looksLikePinyin(prefix)) {
+            // 拼音键不含空格，"zhou jie" 需要去掉空格后再查
+            suggestions = current.suggest(PinyinConverter.normalizeQuery(prefix), max);
+        }
+        List<SuggestionDto> result = new ArrayList<>(suggestions.size());
+        for (SuggestTrie.Suggestion suggestion : suggestions) {
+            SuggestionDto dto = new SuggestionDto();
+            dto.setText(suggestion.text());
+            dto.setType(FIELD_TYPES[suggestion.field()]);
+            dto.setWeight(suggestion.weight());
+            result.add(dto);
+        }
+        return result;
+    }
+
+    /**
+     * 把拼音输入解析为最热门的匹配词条（标题、艺术家或专辑）
+     *
+     * @return 输入不像拼音或没有匹配时返回空
+     */
+    public Optional<String> resolvePinyin(String keyword) {
+        SuggestTrie current = trie;
+        if (current == null || !PinyinConverter.looksLikePinyin(keyword)) {
+            return Optional.empty();
+        }
+        List<SuggestTrie.Suggestion> suggestions = current.suggest(PinyinConverter.normalizeQuery(keyword), 1);
+        return suggestions.isEmpty() ? Optional.empty() : Optional.of(suggestions.get(0).text());
+    }
+
+    private void rebuild() {
+        long start = System.currentTimeMillis();
+        changedDuringRebuild.clear();
+        SuggestTrie fresh = new SuggestTrie(topK);
+        fresh.startBulkLoad();
+        long afterId = 0;
+        while (true) {
+            List<Music> batch = musicRepository.findApprovedAfter(afterId, PageRequest.of(0, rebuildBatchSize));
+            if (batch.isEmpty()) {
+                break;
+            }
+            for (Music music : batch) {
+                put(fresh, music);
+            }
+            afterId = batch.get(batch.size() - 1).getId();
+        }
+        fresh.finishBulkLoad();
+        trie = fresh;
+
+        Long musicId;
+        while ((musicId = changedDuringRebuild.poll()) != null) {
+            refresh(fresh, musicId);
+        }
+        log.info("补全字典树重建完成，共 {} 首音乐，耗时 {}ms", fresh.size(), System.currentTimeMillis() - start);
+    }
+
+    private void refresh(SuggestTrie target, Long musicId) {
+        Music music = musicRepository.findById(musicId).orElse(null);
+        if (music != null && music.getStatus() == Music.MusicStatus.APPROVED) {
+            put(target, music);
+        } else {
+            target.remove(musicId);
+        }
+    }
+
+    private void put(SuggestTrie target, Music music) {
+        // 播放量为0的新歌也需要能被补全出来
+        long weight = (music.getPlayCount() != null ? music.getPlayCount() : 0) + 1;
+        target.put(music.getId(), new String[]{music.getTitle(), music.getArtist(), music.getAlbum()}, weight);
+    }
+}
@@ -0,0 +1,153 @@
+package org.zszq.service;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.zszq.dto.MusicResponseDto;
+import org.zszq.dto.TrendingMusicDto;
+import org.zszq.entity.Music;
+import org.zszq.repository.MusicRepository;
+import org.zszq.util.DecayedTopK;
+import org.zszq.util.PlayJournal;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * 音乐热度榜服务
+ * 从播放日志消费播放事件，按小时、天、周三个半衰期分别维护指数衰减的热度统计，老歌的历史播放量随时间衰减不会长期占据榜首。
+ * 榜单按 snapshot-interval 预先计算为不可变快照（含音乐信息），接口只截取快照，不访问数据库。
+ * 消费进度不持久化，启动时重放日志中保留的全部事件重建热度
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class MusicTrendingService {
+
+    private final MusicRepository musicRepository;
+    private final PlayJournalService playJournalService;
+
+    @Value("${music.trending.capacity:1000}")
+    private int capacity;
+
+    @Value("${music.trending.sketch-width:16384}")
+    private int sketchWidth;
+
+    @Value("${music.trending.sketch-depth:4}")
+    private int sketchDepth;
+
+    @Value("${music.trending.max-limit:100}")
+    private int maxLimit;
+
+    private volatile Map<Window, DecayedTopK> counters = Map.of();
+    private volatile Map<Window, List<TrendingMusicDto>> snapshots = Map.of();
+
+    /**
+     * 榜单时间窗口，即热度的半衰期
+     */
+    public enum Window {
+        HOURLY(Duration.ofHours(1)),
+        DAILY(Duration.ofDays(1)),
+        WEEKLY(Duration.ofDays(7));
+
+        private final Duration halfLife;
+
+        Window(Duration halfLife) {
+            this.halfLife = halfLife;
+        }
+
+        public static Window of(String name) {
+            try {
+                return valueOf(name.strip().toUpperCase(Locale.ROOT));
+            } catch (IllegalArgumentException e) {
+                throw new RuntimeException("不支持的时间窗口: " + name);
+            }
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        long now = System.currentTimeMillis();
+        Map<Window, DecayedTopK> created = new EnumMap<>(Window.class);
+        for (Window window : Window.values()) {
+            created.put(window, new DecayedTopK(window.halfLife.toMillis(), capacity, sketchWidth, sketchDepth, now));
+        }
+        counters = created;
+        playJournalService.subscribe("trending", false, this::onPlays);
+    }
+
+    private void onPlays(List<PlayJournal.Event> events) {
+        for (DecayedTopK counter : counters.values()) {
+            for (PlayJournal.Event event : events) {
+                counter.add(event.musicId(), event.timestamp());
+            }
+        }
+    }
+
+    /**
+     * 重新计算各窗口的榜单快照
+     */
+    @Scheduled(fixedDelayString = "${music.trending.snapshot-interval:PT10S}")
+    public void refreshSnapshots() {
+        Map<Window, DecayedTopK> current = counters;
+        if (current.isEmpty()) {
+            return;
+        }
+        long now = System.currentTimeMillis();
+        Map<Window, List<DecayedTopK.Entry>> tops = new EnumMap<>(Window.class);
+        List<Long> ids = new ArrayList<>();
+        for (Map.Entry<Window, DecayedTopK> entry : current.entrySet()) {
+            // 多取一些，下架或未审核的音乐过滤后仍能填满榜单
+            List<DecayedTopK.Entry> top = entry.getValue().top(maxLimit * 2, now);
+            tops.put(entry.getKey(), top);
+            for (DecayedTopK.Entry item : top) {
+                ids.add(item.key());
+            }
+        }
+
+        Map<Long, MusicResponseDto> musics = new HashMap<>();
+        for (Music music : musicRepository.findAllById(ids.stream().distinct().toList())) {
+            if (music.getStatus() == Music.MusicStatus.APPROVED) {
+                musics.put(music.getId(), MusicResponseDto.fromMusic(music));
+            }
+        }
+
+        Map<Window, List<TrendingMusicDto>> fresh = new EnumMap<>(Window.class);
+        for (Map.Entry<Window, List<DecayedTopK.Entry>> entry : tops.entrySet()) {
+            List<TrendingMusicDto> list = new ArrayList<>(maxLimit);
+            for (DecayedTopK.Entry item : entry.getValue()) {
+                MusicResponseDto music = musics.get(item.key());
+                if (music == null) {
+                    continue;
+                }
+                TrendingMusicDto dto = new TrendingMusicDto();
+                dto.setRank(list.size() + 1);
+                dto.setScore(item.score());
+                dto.setMusic(music);
+                list.add(dto);
+                if (list.size() == maxLimit) {
+                    break;
+                }
+            }
+            fresh.put(entry.getKey(), List.copyOf(list));
+        }
+        snapshots = fresh;
+    }
+
+    /**
+     * 热度榜，取自最近一次计算的快照
+     */
+    public List<TrendingMusicDto> getTrending(Window window, int limit) {
+        List<TrendingMusicDto> snapshot = snapshots.getOrDefault(window, List.of());
+        return snapshot.subList(0, Math.max(0, Math.min(limit, snapshot.size())));
+    }
+}
@@ -0,0 +1,129 @@
+package org.zszq.service;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.zszq.entity.StagedObject;
+import org.zszq.repository.StagedObjectRepository;
+import org.zszq.repository.StorageBlobRepository;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * 上传对象暂存登记（outbox）
+ * 上传分两阶段：先在无事务状态下登记并写入对象存储，再用短事务写入业务记录并确认登记。
+ * 第二阶段未能提交时，登记会一直保留，由定时任务删除对应的孤儿对象
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class ObjectStagingService {
+
+    private static final int SWEEP_BATCH_SIZE = 100;
+
+    private final StagedObjectRepository stagedObjectRepository;
+    private final StorageBlobRepository storageBlobRepository;
+    private final FileStorageService fileStorageService;
+
+    @Value("${music.upload.orphan-grace:PT1H}")
+    private Duration orphanGrace;
+
+    /**
+     * 写入对象存储前登记对象
+     */
+    public StagedObject stage(String bucket, String objectName) {
+        return save(bucket, objectName, false);
+    }
+
+    /**
+     * 登记内容寻址对象，这类对象可能被并发的相同内容上传共用，失败时不立即删除
+     */
+    public StagedObject stageShared(String bucket, String objectName) {
+        return save(bucket, objectName, true);
+    }
+
+    /**
+     * 释放单个暂存对象：删除对象并移除登记
+     */
+    public void release(StagedObject staged) {
+        fileStorageService.deleteObject(staged.getBucket(), staged.getObjectName());
+        stagedObjectRepository.deleteById(staged.getId());
+    }
+
+    /**
+     * 确认对象已被业务记录引用，需在写入业务记录的同一事务内调用
+     */
+    public void confirm(List<StagedObject> staged) {
+        if (!staged.isEmpty()) {
+            stagedObjectRepository.deleteAllInBatch(staged);
+        }
+    }
+
+    /**
+     * 上传失败时立即清理已登记的对象，清理失败的留给定时任务处理
+     */
+    public void discard(List<StagedObject> staged) {
+        for (StagedObject object : staged) {
+            if (Boolean.TRUE.equals(object.getShared())) {
+                continue;
+            }
+            try {
+                // 登记已不存在说明记录其实已提交，对象不能删除
+                if (stagedObjectRepository.existsById(object.getId())) {
+                    fileStorageService.deleteObject(object.getBucket(), object.getObjectName());
+                    stagedObjectRepository.deleteById(object.getId());
+                }
+            } catch (Exception e) {
+                log.warn("清理暂存对象失败: {}/{}", object.getBucket(), object.getObjectName(), e);
+            }
+        }
+    }
+
+    /**
+     * 定时删除超过宽限期仍未确认的孤儿对象
+     */
+    @Scheduled(fixedDelayString = "${music.upload.orphan-sweep-interval:PT10M}")
+    public void sweepOrphans() {
+        LocalDateTime before = LocalDateTime.now().minus(orphanGrace);
+        int removed = 0;
+        while (true) {
+            List<StagedObject> expired = stagedObjectRepository.findExpired(before, PageRequest.of(0, SWEEP_BATCH_SIZE));
+            int batchRemoved = 0;
+            for (StagedObject object : expired) {
+                try {
+                    // 内容寻址对象已被其他上传提交引用时只移除登记
+                    if (!Boolean.TRUE.equals(object.getShared())
+                            || !storageBlobRepository.existsByBucketAndObjectName(object.getBucket(), object.getObjectName())) {
+                        fileStorageService.deleteObject(object.getBucket(), object.getObjectName());
+                    }
+                    stagedObjectRepository.deleteById(object.getId());
+                    batchRemoved++;
+                } catch (Exception e) {
+                    log.warn("删除孤儿对象失败: {}/{}", object.getBucket(), object.getObjectName(), e);
+                }
+            }
+            removed += batchRemoved;
+            // 本批有删除失败的说明存储不可用，等下一轮再试
+            if (expired.size() < SWEEP_BATCH_SIZE || batchRemoved < expired.size()) {
+                break;
+            }
+        }
+
+        if (removed > 0) {
+            log.info("已清理 {} 个未提交的孤儿对象", removed);
+        }
+    }
+
+    private StagedObject save(String bucket, String objectName, boolean shared) {
+        StagedObject staged = new StagedObject();
+        staged.setBucket(bucket);
+        staged.setObjectName(objectName);
+        staged.setShared(shared);
+        return stagedObjectRepository.save(staged);
+    }
+}
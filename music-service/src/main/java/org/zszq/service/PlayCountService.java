@@ -0,0 +1,128 @@
+package org.zszq.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.zszq.event.MusicChangedEvent;
+import org.zszq.event.PlaylistChangedEvent;
+import org.zszq.repository.MusicRepository;
+import org.zszq.repository.PlaylistRepository;
+import org.zszq.util.DeltaBuffer;
+
+import java.time.Duration;
+import java.util.function.BiFunction;
+import java.util.function.Predicate;
+
+/**
+ * 播放次数写缓冲
+ * 每次播放只在内存中按ID累加（{@link DeltaBuffer}，多线程并发累加同一首歌不争用），定时把所有增量合并成一条
+ * UPDATE ... FROM unnest(...) 语句写回，热门歌曲每个周期只更新一次行，数据库写入量与播放量无关。
+ * 正常停机时最后刷新一次；进程崩溃最多丢失距上次成功刷新以来的计数，即一个刷新周期
+ * （music.play-count.flush-interval）内的播放，数据库不可用导致刷新失败时增量放回缓冲等待下一周期，
+ * 此期间丢失范围随之扩大到上次成功刷新以来的全部播放。播放量因此最多滞后一个刷新周期。
+ * 播放接口先用 {@link #musicExists}、{@link #playlistExists} 拒绝不存在的ID，已确认存在的ID缓存一段时间，
+ * 避免伪造的ID进入去重过滤、播放日志和听众统计
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class PlayCountService {
+
+    private final MusicRepository musicRepository;
+    private final PlaylistRepository playlistRepository;
+
+    private final DeltaBuffer musicCounts = new DeltaBuffer();
+    private final DeltaBuffer playlistCounts = new DeltaBuffer();
+
+    @Value("${music.play-count.known-ids:100000}")
+    private long knownIds;
+
+    @Value("${music.play-count.known-ids-ttl:PT10M}")
+    private Duration knownIdsTtl;
+
+    private Cache<Long, Boolean> knownMusic;
+    private Cache<Long, Boolean> knownPlaylists;
+
+    @PostConstruct
+    public void init() {
+        knownMusic = Caffeine.newBuilder().maximumSize(knownIds).expireAfterWrite(knownIdsTtl).build();
+        knownPlaylists = Caffeine.newBuilder().maximumSize(knownIds).expireAfterWrite(knownIdsTtl).build();
+    }
+
+    /**
+     * 音乐是否存在，只缓存存在的结果，不存在的ID每次都查询主键
+     */
+    public boolean musicExists(Long musicId) {
+        return exists(knownMusic, musicId, musicRepository::existsById);
+    }
+
+    public boolean playlistExists(Long playlistId) {
+        return exists(knownPlaylists, playlistId, playlistRepository::existsById);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onMusicChanged(MusicChangedEvent event) {
+        if (event.type() == MusicChangedEvent.Type.DELETED) {
+            knownMusic.invalidate(event.musicId());
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onPlaylistChanged(PlaylistChangedEvent event) {
+        if (event.type() == PlaylistChangedEvent.Type.DELETED) {
+            knownPlaylists.invalidate(event.playlistId());
+        }
+    }
+
+    public void recordMusicPlay(Long musicId) {
+        musicCounts.add(musicId, 1);
+    }
+
+    public void recordPlaylistPlay(Long playlistId) {
+        playlistCounts.add(playlistId, 1);
+    }
+
+    @Scheduled(fixedDelayString = "${music.play-count.flush-interval:PT5S}")
+    public void flush() {
+        flush("音乐", musicCounts, musicRepository::addPlayCounts);
+        flush("播放列表", playlistCounts, playlistRepository::addPlayCounts);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        flush();
+    }
+
+    private void flush(String name, DeltaBuffer buffer, BiFunction<Long[], Long[], Integer> writer) {
+        try {
+            int written = buffer.drainTo(writer);
+            if (written > 0) {
+                log.debug("刷新{}播放次数: {} 条增量", name, written);
+            }
+        } catch (Exception e) {
+            // 增量已放回缓冲，下一周期重试
+            log.warn("刷新{}播放次数失败，增量留待下次刷新", name, e);
+        }
+    }
+
+    private static boolean exists(Cache<Long, Boolean> known, Long id, Predicate<Long> query) {
+        if (id == null) {
+            return false;
+        }
+        if (known.getIfPresent(id) != null) {
+            return true;
+        }
+        if (!query.test(id)) {
+            return false;
+        }
+        known.put(id, Boolean.TRUE);
+        return true;
+    }
+}
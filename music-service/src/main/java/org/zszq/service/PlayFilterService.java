@@ -0,0 +1,133 @@
+package org.zszq.service;
+
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.zszq.dto.PlayFilterStatsDto;
+import org.zszq.util.DedupeWheel;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 播放去重过滤
+ * 同一来源在 window 内重复播放同一首歌（或同一个播放列表）只计一次。来源始终包含客户端地址：userId 是未经认证的
+ * 请求参数，只按它去重时冒用他人ID即可让对方的播放被丢弃，因此只在同一地址内再按 userId 区分。
+ * 客户端地址由 server.forward-headers-strategy 从可信代理的转发头中解析。
+ * 在播放计数、播放日志之前执行，脚本刷量不会带来额外写入。(地址, 用户, 对象) 组合为一个 long 键放入时间轮，
+ * 按键哈希分成 stripes 个分片各自加锁；每个分片容量固定，总内存约为 max-entries × 24~40 字节
+ */
+@Service
+public class PlayFilterService {
+
+    @Value("${music.play-filter.enabled:true}")
+    private boolean enabled;
+
+    @Value("${music.play-filter.window:PT30S}")
+    private Duration window;
+
+    @Value("${music.play-filter.slots:60}")
+    private int slots;
+
+    @Value("${music.play-filter.max-entries:1000000}")
+    private int maxEntries;
+
+    @Value("${music.play-filter.stripes:16}")
+    private int stripes;
+
+    private Filter musicFilter;
+    private Filter playlistFilter;
+
+    @PostConstruct
+    public void init() {
+        int stripeCount = Integer.highestOneBit(Math.max(stripes, 1));
+        int perStripe = Math.max(1, maxEntries / stripeCount);
+        musicFilter = new Filter("music", window.toMillis(), slots, perStripe, stripeCount);
+        playlistFilter = new Filter("playlist", window.toMillis(), slots, perStripe, stripeCount);
+    }
+
+    /**
+     * 音乐播放是否计入
+     *
+     * @param userId        未登录时为 null
+     * @param clientAddress 客户端地址，始终计入去重键
+     */
+    public boolean acceptMusicPlay(Long musicId, Long userId, String clientAddress) {
+        return !enabled || musicFilter.accept(key(musicId, userId, clientAddress));
+    }
+
+    /**
+     * 播放列表播放是否计入
+     */
+    public boolean acceptPlaylistPlay(Long playlistId, Long userId, String clientAddress) {
+        return !enabled || playlistFilter.accept(key(playlistId, userId, clientAddress));
+    }
+
+    public List<PlayFilterStatsDto> stats() {
+        return List.of(musicFilter.stats(), playlistFilter.stats());
+    }
+
+    /**
+     * 客户端地址哈希占高32位、用户ID（未登录为0）混入全部位，再与对象ID组合
+     */
+    private static long key(Long targetId, Long userId, String clientAddress) {
+        long address = clientAddress != null ? clientAddress.hashCode() & 0xFFFFFFFFL : 0;
+        long user = userId != null && userId > 0 ? userId : 0;
+        long subject = (address << 32) ^ (user * 0xC2B2AE3D27D4EB4FL);
+        return subject * 0x9E3779B97F4A7C15L + targetId;
+    }
+
+    private static final class Filter {
+        private final String name;
+        private final DedupeWheel[] wheels;
+        private final LongAdder accepted = new LongAdder();
+        private final LongAdder rejected = new LongAdder();
+        private final LongAdder untracked = new LongAdder();
+
+        Filter(String name, long windowMillis, int slots, int perStripe, int stripes) {
+            this.name = name;
+            this.wheels = new DedupeWheel[stripes];
+            for (int i = 0; i < stripes; i++) {
+                wheels[i] = new DedupeWheel(windowMillis, slots, perStripe);
+            }
+        }
+
+        boolean accept(long key) {
+            DedupeWheel wheel = wheels[(int) ((key ^ (key >>> 32)) & (wheels.length - 1))];
+            DedupeWheel.Result result;
+            synchronized (wheel) {
+                result = wheel.add(key, System.currentTimeMillis());
+            }
+            if (result == DedupeWheel.Result.DUPLICATE) {
+                rejected.increment();
+                return false;
+            }
+            if (result == DedupeWheel.Result.OVERFLOW) {
+                untracked.increment();
+            }
+            accepted.increment();
+            return true;
+        }
+
+        PlayFilterStatsDto stats() {
+            long acceptedCount = accepted.sum();
+            long rejectedCount = rejected.sum();
+            long tracked = 0;
+            for (DedupeWheel wheel : wheels) {
+                synchronized (wheel) {
+                    tracked += wheel.size();
+                }
+            }
+            PlayFilterStatsDto dto = new PlayFilterStatsDto();
+            dto.setName(name);
+            dto.setAccepted(acceptedCount);
+            dto.setRejected(rejectedCount);
+            dto.setUntracked(untracked.sum());
+            long total = acceptedCount + rejectedCount;
+            dto.setRejectionRate(total == 0 ? 0.0 : (double) rejectedCount / total);
+            dto.setTracked(tracked);
+            return dto;
+        }
+    }
+}
@@ -0,0 +1,189 @@
+package org.zszq.service;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.util.unit.DataSize;
+import org.zszq.event.PlaySource;
+import org.zszq.util.PlayJournal;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+
+/**
+ * 播放事件日志服务
+ * 每次播放追加一条定长记录到本地内存映射日志，写入不经过数据库；后台线程按 sync-interval 批量刷盘并按时间滚动、清理分段。
+ * 统计、排行、推荐等后台任务通过 {@link #subscribe} 按偏移量顺序消费，持久订阅的消费进度保存在日志目录下，重启后从断点继续
+ */
+@Slf4j
+@Service
+public class PlayJournalService {
+
+    private static final String OFFSETS_DIR = "consumers";
+    private static final long RETENTION_CHECK_MILLIS = 60_000;
+
+    @Value("${music.journal.dir:./data/play-journal}")
+    private String dir;
+
+    @Value("${music.journal.segment-size:64MB}")
+    private DataSize segmentSize;
+
+    @Value("${music.journal.roll-interval:PT1H}")
+    private Duration rollInterval;
+
+    @Value("${music.journal.retention:P7D}")
+    private Duration retention;
+
+    @Value("${music.journal.sync-interval:10ms}")
+    private Duration syncInterval;
+
+    @Value("${music.journal.consumer-batch-size:10000}")
+    private int consumerBatchSize;
+
+    @Value("${music.journal.consumer-idle-wait:100ms}")
+    private Duration consumerIdleWait;
+
+    private PlayJournal journal;
+    private Thread syncThread;
+    private volatile boolean running;
+    private final List<Thread> consumers = new CopyOnWriteArrayList<>();
+
+    @PostConstruct
+    public void init() throws IOException {
+        journal = new PlayJournal(Path.of(dir), segmentSize.toBytes());
+        running = true;
+        syncThread = Thread.ofPlatform().daemon().name("play-journal-sync").start(this::syncLoop);
+        log.info("播放日志已打开: {}，偏移量 {} - {}", dir, journal.firstOffset(), journal.nextOffset());
+    }
+
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        running = false;
+        for (Thread consumer : consumers) {
+            consumer.interrupt();
+        }
+        syncThread.interrupt();
+        syncThread.join(syncInterval.toMillis() + 1000);
+        journal.close();
+    }
+
+    /**
+     * 追加一条播放事件
+     *
+     * @param userId 未登录时为 null
+     * @return 事件的偏移量
+     */
+    public long append(Long musicId, Long userId, PlaySource source) {
+        return journal.append(musicId, userId != null ? userId : 0, System.currentTimeMillis(), source.code());
+    }
+
+    /**
+     * 从指定偏移量读取事件
+     */
+    public PlayJournal.Batch read(long offset, int max) {
+        return journal.read(offset, max);
+    }
+
+    /**
+     * 启动一个后台消费者，按偏移量顺序批量回调；回调抛出异常时稍后重试同一批事件
+     *
+     * @param name    消费者名称，持久订阅时用作进度文件名
+     * @param durable 是否保存消费进度；不保存时每次启动都从最早保留的事件开始重放
+     */
+    public void subscribe(String name, boolean durable, Consumer<List<PlayJournal.Event>> handler) {
+        Thread consumer = Thread.ofVirtual().name("play-journal-" + name).start(() -> consume(name, durable, handler));
+        consumers.add(consumer);
+    }
+
+    private void consume(String name, boolean durable, Consumer<List<PlayJournal.Event>> handler) {
+        long offset = durable ? loadOffset(name) : journal.firstOffset();
+        log.info("播放日志消费者 {} 从偏移量 {} 开始", name, offset);
+        while (running) {
+            try {
+                PlayJournal.Batch batch = journal.read(offset, consumerBatchSize);
+                if (batch.events().isEmpty()) {
+                    offset = batch.nextOffset();
+                    Thread.sleep(consumerIdleWait);
+                    continue;
+                }
+                handler.accept(batch.events());
+                offset = batch.nextOffset();
+                if (durable) {
+                    saveOffset(name, offset);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (Exception e) {
+                log.warn("播放日志消费者 {} 处理偏移量 {} 起的事件失败", name, offset, e);
+                try {
+                    Thread.sleep(consumerIdleWait);
+                } catch (InterruptedException interrupted) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+        }
+    }
+
+    /**
+     * 组提交：按固定间隔把这段时间内追加的全部记录一次刷盘，同时检查分段滚动与过期清理
+     */
+    private void syncLoop() {
+        long lastRetentionCheck = 0;
+        while (running) {
+            try {
+                Thread.sleep(syncInterval);
+            } catch (InterruptedException e) {
+                break;
+            }
+            try {
+                journal.sync();
+                long now = System.currentTimeMillis();
+                journal.rollIfOlderThan(now - rollInterval.toMillis());
+                if (now - lastRetentionCheck >= RETENTION_CHECK_MILLIS) {
+                    lastRetentionCheck = now;
+                    int deleted = journal.deleteOlderThan(now - retention.toMillis());
+                    if (deleted > 0) {
+                        log.info("删除过期播放日志分段 {} 个", deleted);
+                    }
+                }
+            } catch (Exception e) {
+                log.warn("播放日志刷盘失败", e);
+            }
+        }
+    }
+
+    private long loadOffset(String name) {
+        Path file = offsetFile(name);
+        try {
+            if (Files.exists(file)) {
+                return Long.parseLong(Files.readString(file, StandardCharsets.UTF_8).strip());
+            }
+        } catch (Exception e) {
+            log.warn("读取消费者 {} 的进度失败，从头开始", name, e);
+        }
+        return journal.firstOffset();
+    }
+
+    private void saveOffset(String name, long offset) throws IOException {
+        Path file = offsetFile(name);
+        Files.createDirectories(file.getParent());
+        Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+        Files.writeString(temp, Long.toString(offset), StandardCharsets.UTF_8);
+        Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private Path offsetFile(String name) {
+        return Path.of(dir, OFFSETS_DIR, name + ".offset");
+    }
+}
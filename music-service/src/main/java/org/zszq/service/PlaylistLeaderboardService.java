@@ -0,0 +1,107 @@
+package org.zszq.service;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.zszq.dto.PlaylistResponseDto;
+import org.zszq.event.PlaylistChangedEvent;
+import org.zszq.repository.PlaylistRepository;
+
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * 播放列表排行榜服务
+ * 热门（按播放量）和最新（按创建时间）公开播放列表各预先计算前 max-limit 条，保存为不可变快照，接口只截取快照，不访问数据库。
+ * 播放列表新建、修改、删除后在下一次检查（check-interval）时重新计算；没有变更时快照最多存在 max-staleness，
+ * 播放量变化导致的排名变动因此最多滞后 max-staleness。重新计算失败时继续使用旧快照
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class PlaylistLeaderboardService {
+
+    private final PlaylistRepository playlistRepository;
+
+    @Value("${music.leaderboard.max-limit:100}")
+    private int maxLimit;
+
+    @Value("${music.leaderboard.max-staleness:PT30S}")
+    private Duration maxStaleness;
+
+    private volatile Snapshot snapshot;
+    private volatile boolean dirty;
+
+    private record Snapshot(List<PlaylistResponseDto> top, List<PlaylistResponseDto> latest, long createdAt) {
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onPlaylistChanged(PlaylistChangedEvent event) {
+        dirty = true;
+    }
+
+    /**
+     * 有播放列表变更或快照超过 max-staleness 时重新计算
+     */
+    @Scheduled(fixedDelayString = "${music.leaderboard.check-interval:PT1S}")
+    public void refreshIfNeeded() {
+        Snapshot current = snapshot;
+        if (dirty || current == null
+                || System.currentTimeMillis() - current.createdAt() >= maxStaleness.toMillis()) {
+            refresh();
+        }
+    }
+
+    /**
+     * 热门播放列表，取自最近一次计算的快照，最多 max-limit 条
+     */
+    public List<PlaylistResponseDto> getTopPlaylists(int limit) {
+        return slice(current().top(), limit);
+    }
+
+    /**
+     * 最新播放列表，取自最近一次计算的快照，最多 max-limit 条
+     */
+    public List<PlaylistResponseDto> getLatestPlaylists(int limit) {
+        return slice(current().latest(), limit);
+    }
+
+    private synchronized void refresh() {
+        // 先清除标记，计算期间发生的变更会触发下一次计算
+        dirty = false;
+        try {
+            PageRequest page = PageRequest.of(0, maxLimit);
+            List<PlaylistResponseDto> top = playlistRepository.findTopPublicPlaylists(page).stream()
+                    .map(PlaylistResponseDto::fromPlaylist)
+                    .toList();
+            List<PlaylistResponseDto> latest = playlistRepository.findLatestPublicPlaylists(page).stream()
+                    .map(PlaylistResponseDto::fromPlaylist)
+                    .toList();
+            snapshot = new Snapshot(top, latest, System.currentTimeMillis());
+        } catch (Exception e) {
+            dirty = true;
+            log.warn("刷新播放列表排行榜失败，继续使用旧快照", e);
+        }
+    }
+
+    private Snapshot current() {
+        Snapshot current = snapshot;
+        if (current == null) {
+            // 首次计算完成前的请求同步计算一次
+            refresh();
+            current = snapshot;
+            if (current == null) {
+                throw new RuntimeException("排行榜暂不可用");
+            }
+        }
+        return current;
+    }
+
+    private static List<PlaylistResponseDto> slice(List<PlaylistResponseDto> list, int limit) {
+        return list.subList(0, Math.max(0, Math.min(limit, list.size())));
+    }
+}
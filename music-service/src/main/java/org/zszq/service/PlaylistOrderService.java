@@ -0,0 +1,127 @@
+package org.zszq.service;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.zszq.entity.PlaylistMusic;
+import org.zszq.repository.PlaylistMusicRepository;
+import org.zszq.repository.PlaylistRepository;
+
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 播放列表曲目排序
+ * 排序值为稀疏的 long，相邻曲目初始间隔 GAP；插入或移动只取前后两条的中点写入一行，删除直接删行，不改动其他曲目。
+ * 同一位置反复插入约 20 次后间隔耗尽，此时在当前事务内把整个播放列表按顺序重新编号；间隔小于 MIN_GAP 时
+ * 提前登记，由后台按 rebalance-interval 重新编号，正常使用中很少走到同步重排。
+ * 调用方需持有播放列表的行锁（{@code PlaylistRepository.findByIdForUpdate}），重排期间翻页的游标可能重复或跳过少量曲目
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class PlaylistOrderService {
+
+    private static final long GAP = 1L << 20;
+    private static final long MIN_GAP = 1L << 10;
+
+    private final PlaylistRepository playlistRepository;
+    private final PlaylistMusicRepository playlistMusicRepository;
+    private final TransactionTemplate transactionTemplate;
+
+    private final Set<Long> pending = ConcurrentHashMap.newKeySet();
+
+    /**
+     * 计算排到末尾的排序值
+     */
+    public long appendSortOrder(Long playlistId) {
+        long max = playlistMusicRepository.findMaxSortOrderByPlaylistId(playlistId).orElse(0L);
+        if (max > Long.MAX_VALUE - GAP) {
+            playlistMusicRepository.rebalance(playlistId, GAP);
+            max = playlistMusicRepository.findMaxSortOrderByPlaylistId(playlistId).orElse(0L);
+        }
+        return max + GAP;
+    }
+
+    /**
+     * 计算排在 previous 之后的排序值
+     *
+     * @param previous  前一条曲目，为 null 时排到最前
+     * @param excludeId 正在移动的曲目，新增时为 null
+     */
+    public long sortOrderAfter(Long playlistId, PlaylistMusic previous, Long excludeId) {
+        Long id = previous != null ? previous.getId() : null;
+        Long sortOrder = previous != null ? previous.getSortOrder() : null;
+        Long order = between(playlistId, id, sortOrder, excludeId);
+        if (order != null) {
+            return order;
+        }
+
+        // 间隔耗尽，重新编号后 previous 的排序值已变化，重新读取
+        playlistMusicRepository.rebalance(playlistId, GAP);
+        if (id != null) {
+            sortOrder = playlistMusicRepository.findById(id)
+                    .orElseThrow(() -> new RuntimeException("音乐不在播放列表中"))
+                    .getSortOrder();
+        }
+        order = between(playlistId, id, sortOrder, excludeId);
+        if (order == null) {
+            throw new RuntimeException("播放列表排序失败");
+        }
+        return order;
+    }
+
+    /**
+     * 重新编号间隔过小的播放列表
+     */
+    @Scheduled(fixedDelayString = "${music.playlist.rebalance-interval:PT1M}")
+    public void rebalancePending() {
+        for (Long playlistId : List.copyOf(pending)) {
+            pending.remove(playlistId);
+            try {
+                transactionTemplate.executeWithoutResult(status -> {
+                    if (playlistRepository.findByIdForUpdate(playlistId).isPresent()) {
+                        int updated = playlistMusicRepository.rebalance(playlistId, GAP);
+                        log.debug("播放列表 {} 重新编号 {} 条曲目", playlistId, updated);
+                    }
+                });
+            } catch (Exception e) {
+                log.warn("播放列表 {} 重新编号失败", playlistId, e);
+            }
+        }
+    }
+
+    /**
+     * 前一条 (sortOrder, id) 与下一条之间的排序值，没有空隙时返回 null
+     */
+    private Long between(Long playlistId, Long id, Long sortOrder, Long excludeId) {
+        List<Long> next = playlistMusicRepository.findSortOrdersAfter(playlistId,
+                sortOrder != null ? sortOrder : Long.MIN_VALUE,
+                id != null ? id : 0L,
+                excludeId != null ? excludeId : 0L,
+                PageRequest.of(0, 1));
+        Long nextOrder = next.isEmpty() ? null : next.get(0);
+
+        if (sortOrder == null && nextOrder == null) {
+            return GAP;
+        }
+        if (sortOrder == null) {
+            return nextOrder >= Long.MIN_VALUE + GAP ? nextOrder - GAP : null;
+        }
+        if (nextOrder == null) {
+            return sortOrder <= Long.MAX_VALUE - GAP ? sortOrder + GAP : null;
+        }
+        long gap = nextOrder - sortOrder;
+        if (gap < 2) {
+            return null;
+        }
+        if (gap < MIN_GAP) {
+            pending.add(playlistId);
+        }
+        return sortOrder + gap / 2;
+    }
+}
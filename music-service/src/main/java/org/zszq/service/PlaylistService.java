@@ -1,21 +1,32 @@
 package org.zszq.service;
 
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 import org.zszq.dto.*;
+import org.zszq.entity.ListenerSketch;
 import org.zszq.entity.Music;
 import org.zszq.entity.Playlist;
 import org.zszq.entity.PlaylistMusic;
+import org.zszq.entity.UserLike;
+import org.zszq.event.PlaylistChangedEvent;
+import org.zszq.repository.ListenerSketchRepository;
 import org.zszq.repository.MusicRepository;
 import org.zszq.repository.PlaylistMusicRepository;
 import org.zszq.repository.PlaylistRepository;
+import org.zszq.repository.UserLikeRepository;
+import org.zszq.util.CursorCodec;
+import org.zszq.util.LikePatterns;
 
 import java.util.List;
+import java.util.Optional;
 import java.util.stream.Collectors;
 
 @Service
@@ -24,8 +35,21 @@ import java.util.stream.Collectors;
 public class PlaylistService {
 
     private final PlaylistRepository playlistRepository;
+    private final ListenerSketchRepository listenerSketchRepository;
     private final PlaylistMusicRepository playlistMusicRepository;
+    private final UserLikeRepository userLikeRepository;
     private final MusicRepository musicRepository;
+    private final CoverImageService coverImageService;
+    private final PlaylistSuggestService playlistSuggestService;
+    private final PlayCountService playCountService;
+    private final ListenerStatsService listenerStatsService;
+    private final PlayFilterService playFilterService;
+    private final LikeService likeService;
+    private final PlaylistOrderService playlistOrderService;
+    private final ApplicationEventPublisher eventPublisher;
+
+    @Value("${music.search.engine:index}")
+    private String searchEngine;
 
     public PlaylistResponseDto createPlaylist(PlaylistCreateDto createDto, Long creatorId) {
         Playlist playlist = new Playlist();
@@ -37,6 +61,8 @@ public class PlaylistService {
         playlist.setType(Playlist.PlaylistType.USER_CREATED);
 
         Playlist savedPlaylist = playlistRepository.save(playlist);
+        coverImageService.submit(savedPlaylist.getCoverUrl());
+        eventPublisher.publishEvent(new PlaylistChangedEvent(savedPlaylist.getId(), PlaylistChangedEvent.Type.CREATED));
         return PlaylistResponseDto.fromPlaylist(savedPlaylist);
     }
 
@@ -70,13 +96,62 @@ public class PlaylistService {
         return playlists.map(PlaylistResponseDto::fromPlaylist);
     }
 
+    /**
+     * 游标分页获取用户的播放列表，按创建时间倒序
+     */
+    @Transactional(readOnly = true)
+    public CursorPage<PlaylistResponseDto> getUserPlaylists(Long userId, String cursor, int size) {
+        CursorCodec.Position position = CursorCodec.decode(cursor);
+        List<Playlist> rows = playlistRepository.findByCreatorIdBefore(userId,
+                position != null ? position.time() : CursorCodec.MAX_TIME,
+                position != null ? position.id() : Long.MAX_VALUE,
+                PageRequest.of(0, size + 1));
+        return CursorPage.of(rows, size, playlist -> CursorCodec.encode(playlist.getCreatedAt(), playlist.getId()))
+                .map(PlaylistResponseDto::fromPlaylist);
+    }
+
+    /**
+     * 游标分页获取播放列表中的音乐，按 (sortOrder, id) 定位下一页，大歌单翻到后面也不会变慢
+     */
+    @Transactional(readOnly = true)
+    public CursorPage<MusicResponseDto> getPlaylistMusics(Long id, String cursor, int size) {
+        if (!playlistRepository.existsById(id)) {
+            throw new RuntimeException("播放列表不存在");
+        }
+        CursorCodec.Position position = CursorCodec.decode(cursor);
+        List<PlaylistMusic> rows = playlistMusicRepository.findByPlaylistIdAfter(id,
+                position != null ? position.key() : Long.MIN_VALUE,
+                position != null ? position.id() : 0L,
+                PageRequest.of(0, size + 1));
+        return CursorPage.of(rows, size, pm -> CursorCodec.encode(pm.getSortOrder(), pm.getId()))
+                .map(pm -> MusicResponseDto.fromMusic(pm.getMusic()));
+    }
+
     @Transactional(readOnly = true)
     public Page<PlaylistResponseDto> searchPlaylists(String keyword, int page, int size) {
-        Pageable pageable = PageRequest.of(page, size, Sort.by("playCount").descending());
-        Page<Playlist> playlists = playlistRepository.searchPublicPlaylists(keyword, pageable);
+        Page<Playlist> playlists = searchPublic(keyword, page, size);
+        if (playlists.getTotalElements() == 0) {
+            // 按字面没有结果时，尝试把拼音输入解析为播放列表名称再查一次
+            Optional<String> resolved = playlistSuggestService.resolvePinyin(keyword);
+            if (resolved.isPresent()) {
+                playlists = searchPublic(resolved.get(), page, size);
+            }
+        }
         return playlists.map(PlaylistResponseDto::fromPlaylist);
     }
 
+    private Page<Playlist> searchPublic(String keyword, int page, int size) {
+        Page<Playlist> playlists;
+        if (!"jpql".equalsIgnoreCase(searchEngine) && keyword != null && !keyword.isBlank()) {
+            playlists = playlistRepository.fullTextSearchPublic(keyword.trim(), LikePatterns.contains(keyword),
+                    PageRequest.of(page, size));
+        } else {
+            Pageable pageable = PageRequest.of(page, size, Sort.by("playCount").descending());
+            playlists = playlistRepository.searchPublicPlaylists(keyword, pageable);
+        }
+        return playlists;
+    }
+
     public PlaylistResponseDto updatePlaylist(Long id, PlaylistUpdateDto updateDto, Long userId) {
         Playlist playlist = playlistRepository.findById(id)
                 .orElseThrow(() -> new RuntimeException("播放列表不存在"));
@@ -93,12 +168,14 @@ public class PlaylistService {
         }
         if (updateDto.getCoverUrl() != null) {
             playlist.setCoverUrl(updateDto.getCoverUrl());
+            coverImageService.submit(updateDto.getCoverUrl());
         }
         if (updateDto.getVisibility() != null) {
             playlist.setVisibility(Playlist.PlaylistVisibility.valueOf(updateDto.getVisibility()));
         }
 
         Playlist savedPlaylist = playlistRepository.save(playlist);
+        eventPublisher.publishEvent(new PlaylistChangedEvent(savedPlaylist.getId(), PlaylistChangedEvent.Type.UPDATED));
         return PlaylistResponseDto.fromPlaylist(savedPlaylist);
     }
 
@@ -110,16 +187,14 @@ public class PlaylistService {
             throw new RuntimeException("无权限删除此播放列表");
         }
 
+        userLikeRepository.deleteByTarget(UserLike.TargetType.PLAYLIST, id);
+        listenerSketchRepository.deleteByTarget(ListenerSketch.TargetType.PLAYLIST, id);
         playlistRepository.delete(playlist);
+        eventPublisher.publishEvent(new PlaylistChangedEvent(id, PlaylistChangedEvent.Type.DELETED));
     }
 
     public void addMusicToPlaylist(Long playlistId, AddMusicToPlaylistDto addDto, Long userId) {
-        Playlist playlist = playlistRepository.findById(playlistId)
-                .orElseThrow(() -> new RuntimeException("播放列表不存在"));
-
-        if (!playlist.getCreatorId().equals(userId)) {
-            throw new RuntimeException("无权限修改此播放列表");
-        }
+        Playlist playlist = lockOwnedPlaylist(playlistId, userId);
 
         Music music = musicRepository.findById(addDto.getMusicId())
                 .orElseThrow(() -> new RuntimeException("音乐不存在"));
@@ -129,77 +204,112 @@ public class PlaylistService {
             throw new RuntimeException("音乐已在播放列表中");
         }
 
+        // 设置排序顺序，只计算新行的排序值，不改动其他曲目
+        long sortOrder;
+        if (addDto.getAfterMusicId() != null) {
+            PlaylistMusic previous = playlistMusicRepository
+                    .findByPlaylistIdAndMusicId(playlistId, addDto.getAfterMusicId())
+                    .orElseThrow(() -> new RuntimeException("插入位置的音乐不在播放列表中"));
+            sortOrder = playlistOrderService.sortOrderAfter(playlistId, previous, null);
+        } else {
+            sortOrder = playlistOrderService.appendSortOrder(playlistId);
+        }
+
         PlaylistMusic playlistMusic = new PlaylistMusic();
         playlistMusic.setPlaylist(playlist);
         playlistMusic.setMusic(music);
         playlistMusic.setAddedById(userId);
-
-        // 设置排序顺序
-        if (addDto.getSortOrder() != null) {
-            playlistMusic.setSortOrder(addDto.getSortOrder());
-        } else {
-            Integer maxOrder = playlistMusicRepository.findMaxSortOrderByPlaylistId(playlistId).orElse(0);
-            playlistMusic.setSortOrder(maxOrder + 1);
-        }
-
+        playlistMusic.setSortOrder(sortOrder);
         playlistMusicRepository.save(playlistMusic);
 
         // 更新播放列表的音乐数量
-        int musicCount = playlistMusicRepository.countByPlaylistId(playlistId);
-        playlistRepository.updateMusicCount(playlistId, musicCount);
+        playlistRepository.addMusicCount(playlistId, 1);
     }
 
     public void removeMusicFromPlaylist(Long playlistId, Long musicId, Long userId) {
-        Playlist playlist = playlistRepository.findById(playlistId)
-                .orElseThrow(() -> new RuntimeException("播放列表不存在"));
-
-        if (!playlist.getCreatorId().equals(userId)) {
-            throw new RuntimeException("无权限修改此播放列表");
-        }
+        lockOwnedPlaylist(playlistId, userId);
 
-        PlaylistMusic playlistMusic = playlistMusicRepository
-                .findByPlaylistIdAndMusicId(playlistId, musicId)
+        playlistMusicRepository.findByPlaylistIdAndMusicId(playlistId, musicId)
                 .orElseThrow(() -> new RuntimeException("音乐不在播放列表中"));
 
-        Integer sortOrder = playlistMusic.getSortOrder();
+        // 排序值之间允许有空隙，后续音乐不需要重新编号
         playlistMusicRepository.deleteByPlaylistIdAndMusicId(playlistId, musicId);
 
-        // 更新后续音乐的排序顺序
-        playlistMusicRepository.updateSortOrderAfterRemoval(playlistId, sortOrder);
-
         // 更新播放列表的音乐数量
-        int musicCount = playlistMusicRepository.countByPlaylistId(playlistId);
-        playlistRepository.updateMusicCount(playlistId, musicCount);
+        playlistRepository.addMusicCount(playlistId, -1);
     }
 
-    public void incrementPlayCount(Long playlistId) {
-        playlistRepository.incrementPlayCount(playlistId);
+    /**
+     * 移动播放列表中的音乐，只更新被移动的一行
+     *
+     * @param afterMusicId 移动到该音乐之后，为 null 时移动到最前
+     */
+    public void moveMusicInPlaylist(Long playlistId, Long musicId, Long afterMusicId, Long userId) {
+        lockOwnedPlaylist(playlistId, userId);
+
+        if (musicId.equals(afterMusicId)) {
+            throw new RuntimeException("不能移动到自身之后");
+        }
+        PlaylistMusic playlistMusic = playlistMusicRepository
+                .findByPlaylistIdAndMusicId(playlistId, musicId)
+                .orElseThrow(() -> new RuntimeException("音乐不在播放列表中"));
+        PlaylistMusic previous = null;
+        if (afterMusicId != null) {
+            previous = playlistMusicRepository.findByPlaylistIdAndMusicId(playlistId, afterMusicId)
+                    .orElseThrow(() -> new RuntimeException("目标位置的音乐不在播放列表中"));
+        }
+
+        Long id = playlistMusic.getId();
+        long sortOrder = playlistOrderService.sortOrderAfter(playlistId, previous, id);
+        // 计算排序值时可能整体重新编号并清空了持久化上下文，重新读取后再更新
+        PlaylistMusic moved = playlistMusicRepository.findById(id)
+                .orElseThrow(() -> new RuntimeException("音乐不在播放列表中"));
+        moved.setSortOrder(sortOrder);
+        playlistMusicRepository.save(moved);
     }
 
-    public void toggleLike(Long playlistId, Long userId, boolean isLike) {
-        if (isLike) {
-            playlistRepository.incrementLikeCount(playlistId);
-        } else {
-            playlistRepository.decrementLikeCount(playlistId);
+    /**
+     * 锁定播放列表并校验修改权限
+     */
+    private Playlist lockOwnedPlaylist(Long playlistId, Long userId) {
+        Playlist playlist = playlistRepository.findByIdForUpdate(playlistId)
+                .orElseThrow(() -> new RuntimeException("播放列表不存在"));
+
+        if (!playlist.getCreatorId().equals(userId)) {
+            throw new RuntimeException("无权限修改此播放列表");
         }
+        return playlist;
     }
 
-    @Transactional(readOnly = true)
-    public List<PlaylistResponseDto> getTopPlaylists(int limit) {
-        Pageable pageable = PageRequest.of(0, limit);
-        List<Playlist> playlists = playlistRepository.findTopPublicPlaylists(pageable);
-        return playlists.stream()
-                .map(PlaylistResponseDto::fromPlaylist)
-                .collect(Collectors.toList());
+    /**
+     * 记录一次播放，计数先在内存中累加，定时批量写回；登录用户同时计入独立听众。
+     * 同一地址、同一用户在去重窗口内重复播放时直接丢弃；播放列表不存在时抛出异常，不进入去重和听众统计
+     *
+     * @param userId        未登录时为 null
+     * @param clientAddress 客户端地址，与用户ID一起用于去重
+     * @return 本次播放是否计入
+     */
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public boolean incrementPlayCount(Long playlistId, Long userId, String clientAddress) {
+        if (!playCountService.playlistExists(playlistId)) {
+            throw new RuntimeException("播放列表不存在");
+        }
+        if (!playFilterService.acceptPlaylistPlay(playlistId, userId, clientAddress)) {
+            return false;
+        }
+        playCountService.recordPlaylistPlay(playlistId);
+        listenerStatsService.record(ListenerSketch.TargetType.PLAYLIST, playlistId, userId, System.currentTimeMillis());
+        return true;
     }
 
-    @Transactional(readOnly = true)
-    public List<PlaylistResponseDto> getLatestPlaylists(int limit) {
-        Pageable pageable = PageRequest.of(0, limit);
-        List<Playlist> playlists = playlistRepository.findLatestPublicPlaylists(pageable);
-        return playlists.stream()
-                .map(PlaylistResponseDto::fromPlaylist)
-                .collect(Collectors.toList());
+    /**
+     * 点赞或取消点赞，重复操作不改变点赞数；点赞数定时批量写回
+     *
+     * @return 点赞状态是否发生变化
+     */
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public boolean toggleLike(Long playlistId, Long userId, boolean isLike) {
+        return likeService.setLiked(UserLike.TargetType.PLAYLIST, userId, playlistId, isLike);
     }
 
     /**
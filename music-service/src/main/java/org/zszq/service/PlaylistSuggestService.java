@@ -0,0 +1,136 @@
+package org.zszq.service;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.zszq.entity.Playlist;
+import org.zszq.event.PlaylistChangedEvent;
+import org.zszq.repository.PlaylistRepository;
+import org.zszq.util.PinyinConverter;
+import org.zszq.util.SuggestTrie;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * 公开播放列表名称的前缀索引
+ * 与音乐补全共用压缩字典树，名称的全拼和首字母在写入时生成，用于把拼音输入解析为播放列表名称
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class PlaylistSuggestService {
+
+    private final PlaylistRepository playlistRepository;
+
+    @Value("${music.suggest.top-k:10}")
+    private int topK;
+
+    @Value("${music.suggest.rebuild-batch-size:1000}")
+    private int rebuildBatchSize;
+
+    private volatile SuggestTrie trie;
+    private final AtomicBoolean rebuilding = new AtomicBoolean();
+    private final Queue<Long> changedDuringRebuild = new ConcurrentLinkedQueue<>();
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        startRebuild();
+    }
+
+    @Scheduled(fixedDelayString = "${music.suggest.rebuild-interval:PT30M}",
+               initialDelayString = "${music.suggest.rebuild-interval:PT30M}")
+    public void scheduledRebuild() {
+        startRebuild();
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onPlaylistChanged(PlaylistChangedEvent event) {
+        if (rebuilding.get()) {
+            changedDuringRebuild.add(event.playlistId());
+        }
+        SuggestTrie current = trie;
+        if (current != null) {
+            refresh(current, event.playlistId());
+        }
+    }
+
+    public boolean startRebuild() {
+        if (!rebuilding.compareAndSet(false, true)) {
+            return false;
+        }
+        Thread.ofVirtual().name("playlist-suggest-rebuild").start(() -> {
+            try {
+                rebuild();
+            } catch (Exception e) {
+                log.error("重建播放列表前缀索引失败", e);
+            } finally {
+                rebuilding.set(false);
+            }
+        });
+        return true;
+    }
+
+    /**
+     * 把拼音输入解析为最热门的匹配名称
+     *
+     * @return 输入不像拼音或没有匹配时返回空
+     */
+    public Optional<String> resolvePinyin(String keyword) {
+        SuggestTrie current = trie;
+        if (current == null || !PinyinConverter.looksLikePinyin(keyword)) {
+            return Optional.empty();
+        }
+        List<SuggestTrie.Suggestion> suggestions = current.suggest(PinyinConverter.normalizeQuery(keyword), 1);
+        return suggestions.isEmpty() ? Optional.empty() : Optional.of(suggestions.get(0).text());
+    }
+
+    private void rebuild() {
+        long start = System.currentTimeMillis();
+        changedDuringRebuild.clear();
+        SuggestTrie fresh = new SuggestTrie(topK);
+        fresh.startBulkLoad();
+        long afterId = 0;
+        while (true) {
+            List<Playlist> batch = playlistRepository.findPublicAfter(afterId, PageRequest.of(0, rebuildBatchSize));
+            if (batch.isEmpty()) {
+                break;
+            }
+            for (Playlist playlist : batch) {
+                put(fresh, playlist);
+            }
+            afterId = batch.get(batch.size() - 1).getId();
+        }
+        fresh.finishBulkLoad();
+        trie = fresh;
+
+        Long playlistId;
+        while ((playlistId = changedDuringRebuild.poll()) != null) {
+            refresh(fresh, playlistId);
+        }
+        log.info("播放列表前缀索引重建完成，共 {} 个播放列表，耗时 {}ms", fresh.size(), System.currentTimeMillis() - start);
+    }
+
+    private void refresh(SuggestTrie target, Long playlistId) {
+        Playlist playlist = playlistRepository.findById(playlistId).orElse(null);
+        if (playlist != null && playlist.getVisibility() == Playlist.PlaylistVisibility.PUBLIC) {
+            put(target, playlist);
+        } else {
+            target.remove(playlistId);
+        }
+    }
+
+    private void put(SuggestTrie target, Playlist playlist) {
+        long weight = (playlist.getPlayCount() != null ? playlist.getPlayCount() : 0) + 1;
+        target.put(playlist.getId(), new String[]{playlist.getName()}, weight);
+    }
+}
@@ -0,0 +1,107 @@
+package org.zszq.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Page;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.zszq.dto.CacheStatsDto;
+import org.zszq.dto.MusicResponseDto;
+import org.zszq.dto.PlaylistResponseDto;
+import org.zszq.event.MusicChangedEvent;
+import org.zszq.event.PlaylistChangedEvent;
+import org.zszq.util.TextTokenizer;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 搜索结果缓存
+ * 缓存键为归一化后的查询条件和分页参数；同一个键并发未命中时只有一个请求执行查询，其余等待其结果。
+ * 查询本身仍使用第一个请求的原始参数，归一化只用于判断两次请求是否等价，不改变下游的匹配、拼音和纠错逻辑。
+ * 容量按缓存的结果条数限制。审核通过、驳回音乐或播放列表变更时递增代数，旧代数的条目不再被命中，随容量和过期淘汰，
+ * 避免失效前开始的查询在失效后写回旧结果；播放量等排序因素的变化依赖较短的过期时间
+ */
+@Service
+@RequiredArgsConstructor
+public class SearchCacheService {
+
+    private final MusicService musicService;
+    private final PlaylistService playlistService;
+
+    @Value("${music.search.cache.max-rows:200000}")
+    private long maxRows;
+
+    @Value("${music.search.cache.ttl:PT1M}")
+    private Duration ttl;
+
+    private Cache<SearchKey, Page<MusicResponseDto>> musicCache;
+    private Cache<SearchKey, Page<PlaylistResponseDto>> playlistCache;
+    private final AtomicLong musicGeneration = new AtomicLong();
+    private final AtomicLong playlistGeneration = new AtomicLong();
+
+    private record SearchKey(long generation, String keyword, String artist, String genre, int page, int size) {
+    }
+
+    @PostConstruct
+    public void init() {
+        musicCache = Caffeine.newBuilder()
+                .maximumWeight(maxRows)
+                .weigher((SearchKey key, Page<MusicResponseDto> value) -> value.getNumberOfElements() + 1)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .build();
+        playlistCache = Caffeine.newBuilder()
+                .maximumWeight(maxRows)
+                .weigher((SearchKey key, Page<PlaylistResponseDto> value) -> value.getNumberOfElements() + 1)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .build();
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onMusicChanged(MusicChangedEvent event) {
+        // 待审核的新上传不会出现在搜索结果中
+        if (event.type() != MusicChangedEvent.Type.UPLOADED) {
+            musicGeneration.incrementAndGet();
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onPlaylistChanged(PlaylistChangedEvent event) {
+        playlistGeneration.incrementAndGet();
+    }
+
+    public Page<MusicResponseDto> searchMusic(String keyword, String artist, String genre, int page, int size) {
+        SearchKey key = new SearchKey(musicGeneration.get(), normalize(keyword), normalize(artist), normalize(genre),
+                page, size);
+        return musicCache.get(key, k -> musicService.searchMusic(keyword, artist, genre, page, size));
+    }
+
+    public Page<PlaylistResponseDto> searchPlaylists(String keyword, int page, int size) {
+        // 原接口中关键词为必填，空串表示匹配全部，这里保留空串
+        String normalized = keyword == null ? null : TextTokenizer.normalize(keyword.strip()).replaceAll("\\s+", " ");
+        SearchKey key = new SearchKey(playlistGeneration.get(), normalized, null, null, page, size);
+        return playlistCache.get(key, k -> playlistService.searchPlaylists(keyword, page, size));
+    }
+
+    public List<CacheStatsDto> stats() {
+        return List.of(
+                CacheStatsDto.of("music-search", musicCache.stats(), musicCache.estimatedSize()),
+                CacheStatsDto.of("playlist-search", playlistCache.stats(), playlistCache.estimatedSize()));
+    }
+
+    /**
+     * 查询条件归一化：全半角、大小写、多余空白不影响结果，空白条件视为未指定
+     */
+    private static String normalize(String value) {
+        if (value == null || value.isBlank()) {
+            return null;
+        }
+        return TextTokenizer.normalize(value.strip()).replaceAll("\\s+", " ");
+    }
+}
@@ -0,0 +1,111 @@
+package org.zszq.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.zszq.dto.SeekPositionDto;
+import org.zszq.entity.Music;
+import org.zszq.repository.MusicRepository;
+import org.zszq.util.AudioFrameIndexer;
+import org.zszq.util.SeekIndex;
+
+import java.io.InputStream;
+import java.util.Optional;
+
+/**
+ * 音频跳转索引服务
+ * 入库时扫描一遍音频帧，生成 时间→字节偏移 索引并保存为同名的 .seek 对象；
+ * 跳转请求从内存中的索引二分查找，客户端据此只需发起一次Range请求
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class SeekIndexService {
+
+    private static final String INDEX_SUFFIX = ".seek";
+
+    private final MusicRepository musicRepository;
+    private final FileStorageService fileStorageService;
+
+    @Value("${music.seek.interval-ms:1000}")
+    private long intervalMs;
+
+    @Value("${music.seek.cache-size:10000}")
+    private long cacheSize;
+
+    private Cache<Long, SeekIndex> indexCache;
+
+    @PostConstruct
+    public void init() {
+        indexCache = Caffeine.newBuilder().maximumSize(cacheSize).build();
+    }
+
+    /**
+     * 为音频对象生成跳转索引，相同内容的对象共用索引，已存在时跳过
+     */
+    public void buildIndex(String objectName) throws Exception {
+        String indexName = indexName(objectName);
+        if (fileStorageService.musicObjectExists(indexName)) {
+            return;
+        }
+        SeekIndex index;
+        try (InputStream in = fileStorageService.openMusicObject(objectName)) {
+            index = AudioFrameIndexer.build(in, intervalMs);
+        }
+        if (index == null) {
+            log.debug("对象 {} 没有可用的跳转信息", objectName);
+            return;
+        }
+        fileStorageService.putMusicObject(indexName, index.encode(), "application/octet-stream");
+        log.debug("已生成跳转索引 {}，共 {} 个索引点", indexName, index.size());
+    }
+
+    /**
+     * 查询指定时间点对应的字节偏移
+     *
+     * @return 音乐或索引不存在时返回空
+     */
+    public Optional<SeekPositionDto> seek(Long musicId, long timeMs) {
+        SeekIndex index = indexCache.getIfPresent(musicId);
+        if (index == null) {
+            index = loadIndex(musicId);
+            if (index == null) {
+                return Optional.empty();
+            }
+            indexCache.put(musicId, index);
+        }
+
+        int position = index.floor(Math.max(timeMs, 0));
+        if (position < 0) {
+            return Optional.empty();
+        }
+        SeekPositionDto dto = new SeekPositionDto();
+        dto.setMusicId(musicId);
+        dto.setRequestedMs(timeMs);
+        dto.setTimeMs(index.timeAt(position));
+        dto.setByteOffset(index.offsetAt(position));
+        return Optional.of(dto);
+    }
+
+    private SeekIndex loadIndex(Long musicId) {
+        Music music = musicRepository.findById(musicId)
+                .orElseThrow(() -> new RuntimeException("音乐不存在"));
+        String objectName = fileStorageService.musicObjectName(music.getFileUrl());
+        if (objectName == null) {
+            return null;
+        }
+        byte[] data = fileStorageService.readMusicObject(indexName(objectName));
+        return data != null ? SeekIndex.decode(data) : null;
+    }
+
+    /**
+     * 跳转索引对象名称，与音频对象存放在同一存储桶
+     */
+    static String indexName(String objectName) {
+        return objectName + INDEX_SUFFIX;
+    }
+}
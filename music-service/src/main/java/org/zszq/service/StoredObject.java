@@ -0,0 +1,10 @@
+package org.zszq.service;
+
+/**
+ * 已写入对象存储的文件信息
+ *
+ * @param sha256 内容的SHA-256摘要（十六进制），用于内容去重
+ */
+public record StoredObject(String bucket, String objectName, String url, long size, String contentType,
+                           String sha256) {
+}
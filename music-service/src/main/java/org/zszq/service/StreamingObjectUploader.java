@@ -0,0 +1,186 @@
+package org.zszq.service;
+
+import io.minio.MinioClient;
+import io.minio.PutObjectArgs;
+import io.minio.messages.Part;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+import org.zszq.util.BufferPool;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 流式分片上传器
+ * 边读取请求体边按固定分片大小推送到MinIO，单个上传最多同时传输 maxPartsInFlight 个分片，
+ * 所有上传共享一个有界缓冲池，内存占用不随并发上传数增长
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class StreamingObjectUploader {
+
+    private final MinioClient minioClient;
+    private final MultipartMinioClient multipartMinioClient;
+
+    @Value("${music.upload.part-size:5MB}")
+    private DataSize partSize;
+
+    @Value("${music.upload.max-parts-in-flight:4}")
+    private int maxPartsInFlight;
+
+    @Value("${music.upload.buffer-pool-size:64}")
+    private int bufferPoolSize;
+
+    @Value("${music.upload.buffer-wait-seconds:30}")
+    private long bufferWaitSeconds;
+
+    private BufferPool bufferPool;
+
+    @PostConstruct
+    public void init() {
+        // S3 要求除最后一个分片外每个分片不小于5MB
+        long size = Math.max(partSize.toBytes(), DataSize.ofMegabytes(5).toBytes());
+        bufferPool = new BufferPool(Math.toIntExact(size), bufferPoolSize);
+    }
+
+    /**
+     * 将输入流写入指定对象，流的长度无需预先知道
+     *
+     * @return 实际写入的字节数
+     */
+    public long upload(String bucket, String objectName, String contentType, InputStream in) {
+        byte[] buffer = acquireBuffer();
+        int length;
+        try {
+            length = readFully(in, buffer);
+        } catch (IOException e) {
+            bufferPool.release(buffer);
+            throw new RuntimeException("读取上传数据失败: " + e.getMessage(), e);
+        }
+
+        // 不足一个分片的小文件直接单次上传
+        if (length < buffer.length) {
+            try {
+                minioClient.putObject(PutObjectArgs.builder()
+                        .bucket(bucket)
+                        .object(objectName)
+                        .stream(new ByteArrayInputStream(buffer, 0, length), length, -1)
+                        .contentType(contentType)
+                        .build());
+                return length;
+            } catch (Exception e) {
+                throw new RuntimeException("文件上传失败: " + e.getMessage(), e);
+            } finally {
+                bufferPool.release(buffer);
+            }
+        }
+
+        return uploadMultipart(bucket, objectName, contentType, in, buffer, length);
+    }
+
+    private long uploadMultipart(String bucket, String objectName, String contentType,
+                                 InputStream in, byte[] firstBuffer, int firstLength) {
+        String uploadId;
+        try {
+            uploadId = multipartMinioClient.createMultipartUpload(bucket, objectName, contentType).join();
+        } catch (Exception e) {
+            bufferPool.release(firstBuffer);
+            throw new RuntimeException("创建分片上传失败: " + e.getMessage(), e);
+        }
+
+        Semaphore inFlight = new Semaphore(maxPartsInFlight);
+        List<CompletableFuture<Part>> parts = new ArrayList<>();
+        byte[] buffer = firstBuffer;
+        int length = firstLength;
+        long total = 0;
+        int partNumber = 1;
+        try {
+            while (true) {
+                total += length;
+                parts.add(submitPart(bucket, objectName, uploadId, partNumber++, buffer, length, inFlight));
+                buffer = null;
+                failFast(parts);
+
+                if (length < bufferPool.getBufferSize()) {
+                    break;
+                }
+                buffer = acquireBuffer();
+                length = readFully(in, buffer);
+                if (length == 0) {
+                    bufferPool.release(buffer);
+                    buffer = null;
+                    break;
+                }
+            }
+
+            Part[] completed = parts.stream().map(CompletableFuture::join).toArray(Part[]::new);
+            multipartMinioClient.completeMultipartUpload(bucket, objectName, uploadId, completed).join();
+            return total;
+        } catch (Exception e) {
+            if (buffer != null) {
+                bufferPool.release(buffer);
+            }
+            parts.forEach(part -> part.cancel(false));
+            multipartMinioClient.abortMultipartUpload(bucket, objectName, uploadId)
+                    .exceptionally(ex -> {
+                        log.warn("取消分片上传失败: {}/{} uploadId={}", bucket, objectName, uploadId, ex);
+                        return null;
+                    });
+            throw new RuntimeException("分片上传失败: " + e.getMessage(), e);
+        }
+    }
+
+    private CompletableFuture<Part> submitPart(String bucket, String objectName, String uploadId, int partNumber,
+                                               byte[] buffer, int length, Semaphore inFlight) throws InterruptedException {
+        inFlight.acquire();
+        return multipartMinioClient.uploadPart(bucket, objectName, uploadId, partNumber, buffer, length)
+                .whenComplete((part, ex) -> {
+                    bufferPool.release(buffer);
+                    inFlight.release();
+                });
+    }
+
+    private void failFast(List<CompletableFuture<Part>> parts) {
+        for (CompletableFuture<Part> part : parts) {
+            if (part.isCompletedExceptionally()) {
+                part.join();
+            }
+        }
+    }
+
+    private byte[] acquireBuffer() {
+        try {
+            byte[] buffer = bufferPool.acquire(bufferWaitSeconds, TimeUnit.SECONDS);
+            if (buffer == null) {
+                throw new IllegalStateException("上传缓冲区不足，请稍后重试");
+            }
+            return buffer;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("等待上传缓冲区被中断", e);
+        }
+    }
+
+    private int readFully(InputStream in, byte[] buffer) throws IOException {
+        int offset = 0;
+        while (offset < buffer.length) {
+            int read = in.read(buffer, offset, buffer.length - offset);
+            if (read < 0) {
+                break;
+            }
+            offset += read;
+        }
+        return offset;
+    }
+}
@@ -0,0 +1,314 @@
+package org.zszq.service;
+
+import io.minio.StatObjectResponse;
+import io.minio.messages.ListPartsResult;
+import io.minio.messages.Part;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.util.unit.DataSize;
+import org.zszq.dto.MusicResponseDto;
+import org.zszq.dto.MusicUploadDto;
+import org.zszq.dto.UploadSessionCreateDto;
+import org.zszq.dto.UploadSessionResponseDto;
+import org.zszq.entity.StagedObject;
+import org.zszq.entity.UploadSession;
+import org.zszq.repository.StagedObjectRepository;
+import org.zszq.repository.UploadSessionRepository;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * 直传上传会话服务
+ * 服务端只负责签发预签名地址和事后校验，文件数据由客户端直接写入对象存储，不经过本服务；
+ * 大文件使用S3分片上传，每个分片单独签名，客户端可并行上传
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class UploadSessionService {
+
+    private static final int CLEANUP_BATCH_SIZE = 100;
+
+    private final UploadSessionRepository uploadSessionRepository;
+    private final StagedObjectRepository stagedObjectRepository;
+    private final ObjectStagingService objectStagingService;
+    private final FileStorageService fileStorageService;
+    private final MultipartMinioClient multipartMinioClient;
+    private final MusicService musicService;
+
+    @Value("${music.upload.direct-session-ttl:PT30M}")
+    private Duration sessionTtl;
+
+    @Value("${music.upload.direct-part-size:16MB}")
+    private DataSize partSize;
+
+    @Value("${music.upload.direct-max-size:1GB}")
+    private DataSize maxSize;
+
+    @Value("${music.upload.direct-max-cover-size:10MB}")
+    private DataSize maxCoverSize;
+
+    @Value("${music.upload.orphan-grace:PT1H}")
+    private Duration orphanGrace;
+
+    @PostConstruct
+    public void init() {
+        // 会话有效期必须短于孤儿对象宽限期，否则对象可能在客户端完成上传前就被清理
+        if (sessionTtl.compareTo(orphanGrace) >= 0) {
+            throw new IllegalStateException("直传会话有效期必须小于孤儿对象宽限期");
+        }
+        if (partSize.toMegabytes() < 5) {
+            throw new IllegalStateException("直传分片大小不能小于5MB");
+        }
+    }
+
+    /**
+     * 创建上传会话并签发上传地址
+     */
+    public UploadSessionResponseDto createSession(UploadSessionCreateDto createDto) {
+        if (!fileStorageService.isAudioFile(createDto.getContentType())) {
+            throw new IllegalArgumentException("不支持的音频文件格式");
+        }
+        if (createDto.getFileSize() > maxSize.toBytes()) {
+            throw new IllegalArgumentException("音乐文件不能超过 " + maxSize.toMegabytes() + "MB");
+        }
+        boolean hasCover = createDto.getCoverFileSize() != null;
+        if (hasCover && !fileStorageService.isImageFile(createDto.getCoverContentType())) {
+            throw new IllegalArgumentException("不支持的图片文件格式");
+        }
+        if (hasCover && createDto.getCoverFileSize() > maxCoverSize.toBytes()) {
+            throw new IllegalArgumentException("封面图片不能超过 " + maxCoverSize.toMegabytes() + "MB");
+        }
+
+        String sessionId = UUID.randomUUID().toString();
+        String musicBucket = fileStorageService.getMusicBucket();
+        String imagesBucket = fileStorageService.getImagesBucket();
+
+        UploadSession session = new UploadSession();
+        session.setId(sessionId);
+        session.setUploadUserId(createDto.getUploadUserId());
+        session.setMusicObject(objectName(sessionId, createDto.getFileName()));
+        session.setMusicContentType(createDto.getContentType());
+        session.setMusicSize(createDto.getFileSize());
+        session.setExpiresAt(LocalDateTime.now().plus(sessionTtl));
+        session.setMusicStagedId(objectStagingService.stage(musicBucket, session.getMusicObject()).getId());
+        if (hasCover) {
+            session.setCoverObject(objectName(sessionId, createDto.getCoverFileName()));
+            session.setCoverContentType(createDto.getCoverContentType());
+            session.setCoverSize(createDto.getCoverFileSize());
+            session.setCoverStagedId(objectStagingService.stage(imagesBucket, session.getCoverObject()).getId());
+        }
+
+        UploadSessionResponseDto response = new UploadSessionResponseDto();
+        response.setSessionId(sessionId);
+        response.setExpiresAt(session.getExpiresAt());
+        try {
+            response.setMusic(musicTarget(session));
+            if (hasCover) {
+                UploadSessionResponseDto.UploadTarget coverTarget = new UploadSessionResponseDto.UploadTarget();
+                coverTarget.setUrl(fileStorageService.presignPut(imagesBucket, session.getCoverObject(), sessionTtl, Map.of()));
+                response.setCover(coverTarget);
+            }
+            uploadSessionRepository.save(session);
+        } catch (Exception e) {
+            abortMultipart(session);
+            throw new RuntimeException("创建上传会话失败: " + e.getMessage(), e);
+        }
+        return response;
+    }
+
+    /**
+     * 完成上传：校验对象存储中的文件后创建音乐记录，重复调用返回同一条记录
+     *
+     * @param musicEtag 客户端PUT上传后得到的ETag（可选），分片上传时忽略
+     */
+    public MusicResponseDto completeSession(String sessionId, MusicUploadDto uploadDto, String musicEtag) {
+        UploadSession session = uploadSessionRepository.findById(sessionId)
+                .orElseThrow(() -> new RuntimeException("上传会话不存在"));
+        if (uploadDto.getUploadUserId() != null && !uploadDto.getUploadUserId().equals(session.getUploadUserId())) {
+            throw new RuntimeException("无权限完成此上传会话");
+        }
+        if (session.getStatus() == UploadSession.UploadSessionStatus.COMPLETED) {
+            return musicService.findById(session.getMusicId());
+        }
+        if (session.getExpiresAt().isBefore(LocalDateTime.now())) {
+            throw new RuntimeException("上传会话已过期");
+        }
+        if (uploadDto.getTitle() == null || uploadDto.getTitle().isBlank()) {
+            throw new IllegalArgumentException("音乐标题不能为空");
+        }
+        uploadDto.setUploadUserId(session.getUploadUserId());
+
+        // 先做可重试的校验，分片合并会消耗 uploadId，放在最后
+        StoredObject coverObject = null;
+        List<Long> stagedIds = new ArrayList<>(List.of(session.getMusicStagedId()));
+        if (session.getCoverObject() != null) {
+            String imagesBucket = fileStorageService.getImagesBucket();
+            StatObjectResponse coverStat = verify(imagesBucket, session.getCoverObject(), session.getCoverSize(), null);
+            if (!fileStorageService.isImageFile(coverStat.contentType())) {
+                throw new IllegalArgumentException("上传的封面不是图片文件");
+            }
+            coverObject = fileStorageService.existingObject(imagesBucket, session.getCoverObject(),
+                    coverStat.size(), coverStat.contentType(), null);
+            stagedIds.add(session.getCoverStagedId());
+        }
+
+        String musicBucket = fileStorageService.getMusicBucket();
+        if (session.getMusicUploadId() != null) {
+            completeMultipart(session);
+            musicEtag = null;
+        }
+        StatObjectResponse musicStat = verify(musicBucket, session.getMusicObject(), session.getMusicSize(), musicEtag);
+        if (!fileStorageService.isAudioFile(musicStat.contentType())) {
+            throw new IllegalArgumentException("上传的文件不是音频文件");
+        }
+        StoredObject musicObject = fileStorageService.existingObject(musicBucket, session.getMusicObject(),
+                musicStat.size(), musicStat.contentType(), null);
+
+        List<StagedObject> staged = stagedObjectRepository.findAllById(stagedIds);
+        return musicService.saveDirectUpload(uploadDto, musicObject, coverObject, staged, musicId -> {
+            if (uploadSessionRepository.markCompleted(sessionId, musicId) == 0) {
+                throw new RuntimeException("上传会话已完成");
+            }
+        });
+    }
+
+    /**
+     * 定时清理过期会话：中止未完成的分片上传；已写入的对象由暂存登记清理任务删除
+     */
+    @Scheduled(fixedDelayString = "${music.upload.orphan-sweep-interval:PT10M}")
+    public void cleanupExpiredSessions() {
+        List<UploadSession> expired;
+        do {
+            expired = uploadSessionRepository.findExpired(LocalDateTime.now(), PageRequest.of(0, CLEANUP_BATCH_SIZE));
+            for (UploadSession session : expired) {
+                if (session.getStatus() == UploadSession.UploadSessionStatus.PENDING) {
+                    abortMultipart(session);
+                }
+            }
+            if (!expired.isEmpty()) {
+                uploadSessionRepository.deleteAllInBatch(expired);
+            }
+        } while (expired.size() == CLEANUP_BATCH_SIZE);
+    }
+
+    private UploadSessionResponseDto.UploadTarget musicTarget(UploadSession session) {
+        String bucket = fileStorageService.getMusicBucket();
+        UploadSessionResponseDto.UploadTarget target = new UploadSessionResponseDto.UploadTarget();
+        long size = session.getMusicSize();
+        if (size <= partSize.toBytes()) {
+            target.setUrl(fileStorageService.presignPut(bucket, session.getMusicObject(), sessionTtl, Map.of()));
+            return target;
+        }
+
+        String uploadId = multipartMinioClient.createMultipartUpload(bucket, session.getMusicObject(),
+                session.getMusicContentType()).join();
+        session.setMusicUploadId(uploadId);
+        int partCount = Math.toIntExact((size + partSize.toBytes() - 1) / partSize.toBytes());
+        List<String> partUrls = new ArrayList<>(partCount);
+        for (int partNumber = 1; partNumber <= partCount; partNumber++) {
+            partUrls.add(fileStorageService.presignPut(bucket, session.getMusicObject(), sessionTtl,
+                    Map.of("uploadId", uploadId, "partNumber", String.valueOf(partNumber))));
+        }
+        target.setPartSize(partSize.toBytes());
+        target.setPartUrls(partUrls);
+        return target;
+    }
+
+    /**
+     * 按服务端记录的分片列表合并对象，分片数量必须与签发时一致。
+     * 合并成功后清除会话中的 uploadId 并保存，之后的重试不再合并；合并成功但未来得及保存时，
+     * 重试发现对象已存在同样跳过合并，uploadId 只会被消耗一次
+     */
+    private void completeMultipart(UploadSession session) {
+        String bucket = fileStorageService.getMusicBucket();
+        if (!fileStorageService.objectExists(bucket, session.getMusicObject())) {
+            mergeParts(session);
+        }
+        session.setMusicUploadId(null);
+        uploadSessionRepository.save(session);
+    }
+
+    private void mergeParts(UploadSession session) {
+        String bucket = fileStorageService.getMusicBucket();
+        List<Part> parts = new ArrayList<>();
+        long uploadedSize = 0;
+        int marker = 0;
+        ListPartsResult page;
+        do {
+            page = multipartMinioClient.listParts(bucket, session.getMusicObject(), session.getMusicUploadId(), marker).join();
+            for (Part part : page.partList()) {
+                parts.add(new Part(part.partNumber(), part.etag()));
+                uploadedSize += part.partSize();
+            }
+            marker = page.nextPartNumberMarker();
+        } while (page.isTruncated());
+
+        long expectedParts = (session.getMusicSize() + partSize.toBytes() - 1) / partSize.toBytes();
+        if (parts.size() != expectedParts) {
+            throw new IllegalArgumentException("分片未全部上传: " + parts.size() + "/" + expectedParts);
+        }
+        // 合并后无法撤销，大小不一致时在合并前拒绝，客户端可重新上传分片
+        if (uploadedSize != session.getMusicSize()) {
+            throw new IllegalArgumentException("文件大小不一致: 期望 " + session.getMusicSize() + "，实际 " + uploadedSize);
+        }
+        multipartMinioClient.completeMultipartUpload(bucket, session.getMusicObject(), session.getMusicUploadId(),
+                parts.toArray(new Part[0])).join();
+    }
+
+    private StatObjectResponse verify(String bucket, String objectName, long expectedSize, String expectedEtag) {
+        StatObjectResponse stat;
+        try {
+            stat = fileStorageService.statObject(bucket, objectName);
+        } catch (Exception e) {
+            throw new IllegalArgumentException("文件尚未上传: " + objectName);
+        }
+        if (stat.size() != expectedSize) {
+            throw new IllegalArgumentException("文件大小不一致: 期望 " + expectedSize + "，实际 " + stat.size());
+        }
+        if (expectedEtag != null && !expectedEtag.isBlank()
+                && !stripQuotes(expectedEtag).equalsIgnoreCase(stripQuotes(stat.etag()))) {
+            throw new IllegalArgumentException("文件ETag不一致");
+        }
+        return stat;
+    }
+
+    private void abortMultipart(UploadSession session) {
+        if (session.getMusicUploadId() == null) {
+            return;
+        }
+        try {
+            multipartMinioClient.abortMultipartUpload(fileStorageService.getMusicBucket(), session.getMusicObject(),
+                    session.getMusicUploadId()).join();
+        } catch (Exception e) {
+            log.warn("中止分片上传失败: {}", session.getMusicObject(), e);
+        }
+    }
+
+    private String objectName(String sessionId, String fileName) {
+        String extension = "";
+        if (fileName != null) {
+            int index = fileName.lastIndexOf('.');
+            String candidate = index >= 0 ? fileName.substring(index + 1).toLowerCase(Locale.ROOT) : "";
+            if (!candidate.isEmpty() && candidate.length() <= 10 && candidate.chars().allMatch(Character::isLetterOrDigit)) {
+                extension = "." + candidate;
+            }
+        }
+        return "direct/" + sessionId + extension;
+    }
+
+    private String stripQuotes(String etag) {
+        return etag == null ? "" : etag.replace("\"", "");
+    }
+}
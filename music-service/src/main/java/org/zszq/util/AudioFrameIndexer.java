@@ -0,0 +1,287 @@
+package org.zszq.util;
+
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.PushbackInputStream;
+import java.util.Arrays;
+
+/**
+ * 音频帧扫描器，顺序读取一遍音频流生成跳转索引
+ * MP3：跳过ID3v2标签后逐帧解析帧头，按固定时间间隔记录帧起始位置；
+ * FLAC：读取元数据中的SEEKTABLE，换算为绝对字节偏移
+ */
+public final class AudioFrameIndexer {
+
+    private static final int[][] BITRATES_V1 = {
+            {0, 32, 64, 96, 128, 160, 192, 224, 256, 288, 320, 352, 384, 416, 448},  // Layer I
+            {0, 32, 48, 56, 64, 80, 96, 112, 128, 160, 192, 224, 256, 320, 384},     // Layer II
+            {0, 32, 40, 48, 56, 64, 80, 96, 112, 128, 160, 192, 224, 256, 320}       // Layer III
+    };
+    private static final int[][] BITRATES_V2 = {
+            {0, 32, 48, 56, 64, 80, 96, 112, 128, 144, 160, 176, 192, 224, 256},     // Layer I
+            {0, 8, 16, 24, 32, 40, 48, 56, 64, 80, 96, 112, 128, 144, 160},          // Layer II
+            {0, 8, 16, 24, 32, 40, 48, 56, 64, 80, 96, 112, 128, 144, 160}           // Layer III
+    };
+    private static final int[][] SAMPLE_RATES = {
+            {11025, 12000, 8000},   // MPEG 2.5
+            null,                   // 保留
+            {22050, 24000, 16000},  // MPEG 2
+            {44100, 48000, 32000}   // MPEG 1
+    };
+
+    private static final long FLAC_PLACEHOLDER_POINT = -1L;
+
+    private AudioFrameIndexer() {
+    }
+
+    /**
+     * 扫描音频流生成跳转索引
+     *
+     * @param in         音频数据流，从文件开头读取
+     * @param intervalMs MP3索引点的时间间隔
+     * @return 跳转索引，无法识别格式或没有可用的跳转信息时返回 null
+     */
+    public static SeekIndex build(InputStream in, long intervalMs) throws IOException {
+        Reader reader = new Reader(in);
+        byte[] magic = reader.peek(4);
+        if (magic.length == 4 && magic[0] == 'f' && magic[1] == 'L' && magic[2] == 'a' && magic[3] == 'C') {
+            return buildFlac(reader);
+        }
+        return buildMp3(reader, intervalMs);
+    }
+
+    private static SeekIndex buildMp3(Reader reader, long intervalMs) throws IOException {
+        skipId3v2(reader);
+
+        Points points = new Points();
+        int window = 0;
+        int filled = 0;
+        int lockedHeader = -1;
+        int sampleRate = 0;
+        long samples = 0;
+        long nextIndexTime = 0;
+
+        int b;
+        while ((b = reader.read()) >= 0) {
+            window = (window << 8) | b;
+            if (++filled < 4) {
+                continue;
+            }
+            // 同一个流中版本、层和采样率不会变化，用首帧的这些位过滤误同步
+            if (lockedHeader >= 0 && (window & 0xFFFE0C00) != lockedHeader) {
+                continue;
+            }
+            Frame frame = parseMp3Header(window);
+            if (frame == null) {
+                continue;
+            }
+            if (lockedHeader < 0) {
+                lockedHeader = window & 0xFFFE0C00;
+                sampleRate = frame.sampleRate;
+            }
+
+            long headerPosition = reader.position() - 4;
+            long timeMs = samples * 1000 / sampleRate;
+            if (timeMs >= nextIndexTime) {
+                points.add(timeMs, headerPosition);
+                nextIndexTime = (timeMs / intervalMs + 1) * intervalMs;
+            }
+            samples += frame.samples;
+
+            if (reader.skip(frame.length - 4) < frame.length - 4) {
+                break;
+            }
+            window = 0;
+            filled = 0;
+        }
+        return points.size == 0 ? null : points.toIndex();
+    }
+
+    private static void skipId3v2(Reader reader) throws IOException {
+        byte[] header = reader.peek(10);
+        if (header.length < 10 || header[0] != 'I' || header[1] != 'D' || header[2] != '3') {
+            return;
+        }
+        int size = ((header[6] & 0x7F) << 21) | ((header[7] & 0x7F) << 14)
+                | ((header[8] & 0x7F) << 7) | (header[9] & 0x7F);
+        boolean hasFooter = (header[5] & 0x10) != 0;
+        reader.skip(10L + size + (hasFooter ? 10 : 0));
+    }
+
+    private static Frame parseMp3Header(int header) {
+        if ((header & 0xFFE00000) != 0xFFE00000) {
+            return null;
+        }
+        int version = (header >>> 19) & 0x3;
+        int layerBits = (header >>> 17) & 0x3;
+        int bitrateIndex = (header >>> 12) & 0xF;
+        int sampleRateIndex = (header >>> 10) & 0x3;
+        int padding = (header >>> 9) & 0x1;
+        if (version == 1 || layerBits == 0 || bitrateIndex == 0 || bitrateIndex == 15 || sampleRateIndex == 3) {
+            return null;
+        }
+
+        // layerBits: 3=Layer I, 2=Layer II, 1=Layer III
+        int layer = 4 - layerBits;
+        int[][] table = version == 3 ? BITRATES_V1 : BITRATES_V2;
+        int bitrate = table[layer - 1][bitrateIndex] * 1000;
+        int sampleRate = SAMPLE_RATES[version][sampleRateIndex];
+
+        int samples;
+        int length;
+        if (layer == 1) {
+            samples = 384;
+            length = (12 * bitrate / sampleRate + padding) * 4;
+        } else {
+            samples = (layer == 3 && version != 3) ? 576 : 1152;
+            length = samples / 8 * bitrate / sampleRate + padding;
+        }
+        return length > 4 ? new Frame(sampleRate, samples, length) : null;
+    }
+
+    private static SeekIndex buildFlac(Reader reader) throws IOException {
+        reader.skip(4);
+        int sampleRate = 0;
+        long[][] seekPoints = null;
+        boolean last = false;
+        while (!last) {
+            byte[] blockHeader = reader.readFully(4);
+            if (blockHeader.length < 4) {
+                return null;
+            }
+            last = (blockHeader[0] & 0x80) != 0;
+            int type = blockHeader[0] & 0x7F;
+            int length = ((blockHeader[1] & 0xFF) << 16) | ((blockHeader[2] & 0xFF) << 8) | (blockHeader[3] & 0xFF);
+
+            if (type == 0) {
+                byte[] info = reader.readFully(length);
+                if (info.length < 18) {
+                    return null;
+                }
+                sampleRate = ((info[10] & 0xFF) << 12) | ((info[11] & 0xFF) << 4) | ((info[12] & 0xFF) >>> 4);
+            } else if (type == 3) {
+                byte[] table = reader.readFully(length);
+                int count = table.length / 18;
+                seekPoints = new long[count][];
+                for (int i = 0; i < count; i++) {
+                    seekPoints[i] = new long[]{readLong(table, i * 18), readLong(table, i * 18 + 8)};
+                }
+            } else {
+                reader.skip(length);
+            }
+        }
+
+        if (sampleRate == 0 || seekPoints == null) {
+            return null;
+        }
+        long audioStart = reader.position();
+        Points points = new Points();
+        points.add(0, audioStart);
+        for (long[] point : seekPoints) {
+            if (point[0] == FLAC_PLACEHOLDER_POINT || point[0] == 0) {
+                continue;
+            }
+            long timeMs = point[0] * 1000 / sampleRate;
+            long offset = audioStart + point[1];
+            if (timeMs >= points.lastTime() && offset >= points.lastOffset()) {
+                points.add(timeMs, offset);
+            }
+        }
+        return points.toIndex();
+    }
+
+    private static long readLong(byte[] data, int offset) {
+        long value = 0;
+        for (int i = 0; i < 8; i++) {
+            value = (value << 8) | (data[offset + i] & 0xFF);
+        }
+        return value;
+    }
+
+    private record Frame(int sampleRate, int samples, int length) {
+    }
+
+    /**
+     * 可增长的索引点列表
+     */
+    private static class Points {
+        private long[] times = new long[256];
+        private long[] offsets = new long[256];
+        private int size;
+
+        void add(long timeMs, long offset) {
+            if (size == times.length) {
+                times = Arrays.copyOf(times, size * 2);
+                offsets = Arrays.copyOf(offsets, size * 2);
+            }
+            times[size] = timeMs;
+            offsets[size] = offset;
+            size++;
+        }
+
+        long lastTime() {
+            return size == 0 ? 0 : times[size - 1];
+        }
+
+        long lastOffset() {
+            return size == 0 ? 0 : offsets[size - 1];
+        }
+
+        SeekIndex toIndex() {
+            return new SeekIndex(Arrays.copyOf(times, size), Arrays.copyOf(offsets, size));
+        }
+    }
+
+    /**
+     * 记录读取位置的输入流包装
+     */
+    private static class Reader {
+        private final PushbackInputStream in;
+        private long position;
+
+        Reader(InputStream in) {
+            this.in = new PushbackInputStream(new BufferedInputStream(in, 64 * 1024), 16);
+        }
+
+        long position() {
+            return position;
+        }
+
+        int read() throws IOException {
+            int b = in.read();
+            if (b >= 0) {
+                position++;
+            }
+            return b;
+        }
+
+        byte[] peek(int length) throws IOException {
+            byte[] data = in.readNBytes(length);
+            in.unread(data);
+            return data;
+        }
+
+        byte[] readFully(int length) throws IOException {
+            byte[] data = in.readNBytes(length);
+            position += data.length;
+            return data;
+        }
+
+        long skip(long length) throws IOException {
+            long skipped = 0;
+            while (skipped < length) {
+                long n = in.skip(length - skipped);
+                if (n <= 0) {
+                    if (in.read() < 0) {
+                        break;
+                    }
+                    n = 1;
+                }
+                skipped += n;
+            }
+            position += skipped;
+            return skipped;
+        }
+    }
+}
@@ -0,0 +1,63 @@
+package org.zszq.util;
+
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 定长字节缓冲池
+ * 缓冲区按需分配、用完归还复用，借出数量受上限约束，
+ * 从而把并发读写占用的总内存固定在 bufferSize * capacity 以内
+ */
+public class BufferPool {
+
+    private final int bufferSize;
+    private final int capacity;
+    private final Semaphore permits;
+    private final ConcurrentLinkedQueue<byte[]> free = new ConcurrentLinkedQueue<>();
+
+    public BufferPool(int bufferSize, int capacity) {
+        if (bufferSize <= 0 || capacity <= 0) {
+            throw new IllegalArgumentException("缓冲区大小和数量必须为正数");
+        }
+        this.bufferSize = bufferSize;
+        this.capacity = capacity;
+        this.permits = new Semaphore(capacity, true);
+    }
+
+    /**
+     * 借出一个缓冲区，池已耗尽时最多等待指定时间
+     *
+     * @return 缓冲区，超时返回 null
+     */
+    public byte[] acquire(long timeout, TimeUnit unit) throws InterruptedException {
+        if (!permits.tryAcquire(timeout, unit)) {
+            return null;
+        }
+        byte[] buffer = free.poll();
+        return buffer != null ? buffer : new byte[bufferSize];
+    }
+
+    /**
+     * 归还缓冲区
+     */
+    public void release(byte[] buffer) {
+        if (buffer == null || buffer.length != bufferSize) {
+            return;
+        }
+        free.offer(buffer);
+        permits.release();
+    }
+
+    public int getBufferSize() {
+        return bufferSize;
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+    public int getAvailable() {
+        return permits.availablePermits();
+    }
+}
@@ -0,0 +1,54 @@
+package org.zszq.util;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * 字节区间的规整
+ * 多段Range请求中重叠或首尾相接的区间合并为一段，避免同一段数据被重复读取和发送
+ */
+public final class ByteRanges {
+
+    private ByteRanges() {
+    }
+
+    /**
+     * 闭区间 [start, end]
+     */
+    public record Range(long start, long end) {
+
+        public long length() {
+            return end - start + 1;
+        }
+    }
+
+    /**
+     * 按起点排序后合并重叠或相邻的区间
+     */
+    public static List<Range> merge(List<Range> ranges) {
+        List<Range> sorted = new ArrayList<>(ranges);
+        sorted.sort(Comparator.comparingLong(Range::start));
+        List<Range> merged = new ArrayList<>(sorted.size());
+        for (Range range : sorted) {
+            Range last = merged.isEmpty() ? null : merged.get(merged.size() - 1);
+            if (last != null && range.start() <= last.end() + 1) {
+                merged.set(merged.size() - 1, new Range(last.start(), Math.max(last.end(), range.end())));
+            } else {
+                merged.add(range);
+            }
+        }
+        return merged;
+    }
+
+    /**
+     * 各区间长度之和，重叠部分重复计算
+     */
+    public static long totalLength(List<Range> ranges) {
+        long total = 0;
+        for (Range range : ranges) {
+            total += range.length();
+        }
+        return total;
+    }
+}
@@ -0,0 +1,201 @@
+package org.zszq.util;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * 按时间指数衰减的热门统计
+ * 采用前向衰减：时间为 t 的事件计入 2^((t - L) / halfLife) 的权重（L 为基准时间），所有计数以同一基准表示，
+ * 不需要随时间逐个衰减，读取时统一乘以 2^(-(now - L) / halfLife) 即得到当前分值；基准时间落后过多时整体缩放一次防止溢出。
+ * 长尾用 Count-Min Sketch（保守更新）估计分值，占用内存固定；分值最高的 capacity 个键另外放在按分值排序的最小堆中，
+ * 新键的估计分值超过堆顶时替换堆顶。读写通过读写锁隔离
+ */
+public class DecayedTopK {
+
+    /**
+     * 指数超过该值时重置基准时间
+     */
+    private static final double RESCALE_EXPONENT = 32;
+
+    private final double halfLifeMillis;
+    private final int capacity;
+    private final int depth;
+    private final int mask;
+    private final double[] counters;
+    private final int[] slots;
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private final long[] keys;
+    private final double[] scores;
+    private final Map<Long, Integer> positions;
+    private int size;
+    private long landmark;
+
+    /**
+     * @param halfLifeMillis 分值衰减一半所需的时间
+     * @param capacity       精确跟踪的热门键个数
+     * @param width          每行计数器个数，向上取整为2的幂；估计误差约为总权重的 e / width
+     * @param depth          哈希行数，误差超出上述范围的概率约为 e^-depth
+     */
+    public DecayedTopK(long halfLifeMillis, int capacity, int width, int depth, long landmark) {
+        this.halfLifeMillis = halfLifeMillis;
+        this.capacity = capacity;
+        this.depth = depth;
+        int columns = Integer.highestOneBit(Math.max(width - 1, 1)) << 1;
+        this.mask = columns - 1;
+        this.counters = new double[columns * depth];
+        this.slots = new int[depth];
+        this.keys = new long[capacity];
+        this.scores = new double[capacity];
+        this.positions = new HashMap<>(capacity * 2);
+        this.landmark = landmark;
+    }
+
+    /**
+     * 当前分值
+     */
+    public record Entry(long key, double score) {
+    }
+
+    /**
+     * 记录一次事件
+     *
+     * @param timestamp 事件时间，毫秒时间戳
+     */
+    public void add(long key, long timestamp) {
+        lock.writeLock().lock();
+        try {
+            if ((timestamp - landmark) / halfLifeMillis > RESCALE_EXPONENT) {
+                rescale(timestamp);
+            }
+            double weight = Math.pow(2, (timestamp - landmark) / halfLifeMillis);
+            double estimate = increment(key, weight);
+
+            Integer position = positions.get(key);
+            if (position != null) {
+                scores[position] = estimate;
+                siftDown(position);
+            } else if (size < capacity) {
+                keys[size] = key;
+                scores[size] = estimate;
+                positions.put(key, size);
+                siftUp(size++);
+            } else if (capacity > 0 && estimate > scores[0]) {
+                positions.remove(keys[0]);
+                keys[0] = key;
+                scores[0] = estimate;
+                positions.put(key, 0);
+                siftDown(0);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * 分值最高的键，按分值降序
+     *
+     * @param now 计算分值的时间点
+     */
+    public List<Entry> top(int limit, long now) {
+        lock.readLock().lock();
+        try {
+            double decay = Math.pow(2, -(now - landmark) / halfLifeMillis);
+            Integer[] order = new Integer[size];
+            for (int i = 0; i < size; i++) {
+                order[i] = i;
+            }
+            Arrays.sort(order, (a, c) -> Double.compare(scores[c], scores[a]));
+            int count = Math.min(limit, size);
+            List<Entry> result = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                result.add(new Entry(keys[order[i]], scores[order[i]] * decay));
+            }
+            return result;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * 保守更新：只把各行中等于最小值的计数器抬高到 最小值+权重，其余行已经不小于该值，保持不变
+     *
+     * @return 更新后的估计分值
+     */
+    private double increment(long key, double weight) {
+        int columns = mask + 1;
+        double min = Double.MAX_VALUE;
+        for (int row = 0; row < depth; row++) {
+            slots[row] = row * columns + (int) (hash(key, row) & mask);
+            min = Math.min(min, counters[slots[row]]);
+        }
+        double estimate = min + weight;
+        for (int slot : slots) {
+            if (counters[slot] < estimate) {
+                counters[slot] = estimate;
+            }
+        }
+        return estimate;
+    }
+
+    private void rescale(long newLandmark) {
+        double factor = Math.pow(2, -(newLandmark - landmark) / halfLifeMillis);
+        for (int i = 0; i < counters.length; i++) {
+            counters[i] *= factor;
+        }
+        for (int i = 0; i < size; i++) {
+            scores[i] *= factor;
+        }
+        landmark = newLandmark;
+    }
+
+    private static long hash(long key, int row) {
+        long h = key + (row + 1) * 0x9E3779B97F4A7C15L;
+        h = (h ^ (h >>> 30)) * 0xBF58476D1CE4E5B9L;
+        h = (h ^ (h >>> 27)) * 0x94D049BB133111EBL;
+        return h ^ (h >>> 31);
+    }
+
+    private void siftUp(int position) {
+        while (position > 0) {
+            int parent = (position - 1) >>> 1;
+            if (scores[parent] <= scores[position]) {
+                break;
+            }
+            swap(position, parent);
+            position = parent;
+        }
+    }
+
+    private void siftDown(int position) {
+        while (true) {
+            int left = position * 2 + 1;
+            if (left >= size) {
+                break;
+            }
+            int right = left + 1;
+            int smallest = right < size && scores[right] < scores[left] ? right : left;
+            if (scores[position] <= scores[smallest]) {
+                break;
+            }
+            swap(position, smallest);
+            position = smallest;
+        }
+    }
+
+    private void swap(int a, int c) {
+        long key = keys[a];
+        double score = scores[a];
+        keys[a] = keys[c];
+        scores[a] = scores[c];
+        keys[c] = key;
+        scores[c] = score;
+        positions.put(keys[a], a);
+        positions.put(keys[c], c);
+    }
+}
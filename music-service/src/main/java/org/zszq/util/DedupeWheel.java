@@ -0,0 +1,157 @@
+package org.zszq.util;
+
+import java.util.Arrays;
+
+/**
+ * 固定时间窗口内的去重集合，基于哈希时间轮
+ * 时间轮有 slots 个槽，每槽对应 window / slots 的时间；键写入当前槽并放进开放寻址的 long 哈希表，
+ * 时间轮转到某个槽时，该槽中的键恰好写入了一整圈之前，逐个从哈希表删除即完成过期。所有键的超时时间相同，不需要多圈计数，
+ * 写入和过期都是 O(1)，实际窗口在 window - window / slots 与 window 之间。键为 long，不装箱；
+ * 容量固定，键数达到上限时不再记录新键（按未重复处理），内存不会随流量增长。非线程安全，由调用方加锁或分片
+ */
+public class DedupeWheel {
+
+    private static final long EMPTY = 0;
+    private static final long ZERO_KEY = 0x9E3779B97F4A7C15L;
+
+    private final long tickMillis;
+    private final int slots;
+    private final int maxEntries;
+    private final long[] table;
+    private final int mask;
+    private final long[][] slotKeys;
+    private final int[] slotSizes;
+    private int size;
+    private long currentTick = Long.MIN_VALUE;
+
+    /**
+     * @param windowMillis 去重窗口
+     * @param slots        时间轮槽数，越多过期越精确
+     * @param maxEntries   最多同时记录的键数
+     */
+    public DedupeWheel(long windowMillis, int slots, int maxEntries) {
+        this.slots = slots;
+        this.tickMillis = Math.max(1, windowMillis / slots);
+        this.maxEntries = maxEntries;
+        // 装载因子不超过 0.5
+        int capacity = Integer.highestOneBit(Math.max(maxEntries * 2 - 1, 1)) << 1;
+        this.table = new long[capacity];
+        this.mask = capacity - 1;
+        this.slotKeys = new long[slots][];
+        this.slotSizes = new int[slots];
+    }
+
+    /**
+     * 写入结果
+     */
+    public enum Result {
+        ADDED,      // 窗口内首次出现
+        DUPLICATE,  // 窗口内重复
+        OVERFLOW    // 已达容量上限，未记录
+    }
+
+    public Result add(long key, long nowMillis) {
+        advance(nowMillis / tickMillis);
+        long stored = key == EMPTY ? ZERO_KEY : key;
+        int position = find(stored);
+        if (table[position] == stored) {
+            return Result.DUPLICATE;
+        }
+        if (size >= maxEntries) {
+            return Result.OVERFLOW;
+        }
+        table[position] = stored;
+        size++;
+
+        int slot = (int) Math.floorMod(currentTick, (long) slots);
+        long[] keys = slotKeys[slot];
+        if (keys == null) {
+            keys = slotKeys[slot] = new long[16];
+        } else if (slotSizes[slot] == keys.length) {
+            keys = slotKeys[slot] = Arrays.copyOf(keys, keys.length * 2);
+        }
+        keys[slotSizes[slot]++] = stored;
+        return Result.ADDED;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * 转动时间轮到指定刻度，沿途经过的槽全部过期
+     */
+    private void advance(long tick) {
+        if (currentTick == Long.MIN_VALUE) {
+            currentTick = tick;
+            return;
+        }
+        if (tick <= currentTick) {
+            return;
+        }
+        if (tick - currentTick >= slots) {
+            // 超过一整圈没有写入，全部过期
+            Arrays.fill(table, EMPTY);
+            Arrays.fill(slotSizes, 0);
+            size = 0;
+            currentTick = tick;
+            return;
+        }
+        while (currentTick < tick) {
+            currentTick++;
+            expire((int) Math.floorMod(currentTick, (long) slots));
+        }
+    }
+
+    private void expire(int slot) {
+        long[] keys = slotKeys[slot];
+        int count = slotSizes[slot];
+        for (int i = 0; i < count; i++) {
+            delete(keys[i]);
+        }
+        slotSizes[slot] = 0;
+        // 流量高峰后把过大的槽数组缩回去
+        if (keys != null && keys.length > 1024 && count < keys.length / 4) {
+            slotKeys[slot] = new long[Math.max(16, count)];
+        }
+    }
+
+    /**
+     * 线性探测：返回键所在位置，不存在时返回应插入的空位
+     */
+    private int find(long key) {
+        int position = (int) mix(key) & mask;
+        while (table[position] != EMPTY && table[position] != key) {
+            position = (position + 1) & mask;
+        }
+        return position;
+    }
+
+    /**
+     * 删除后把同一探测链上的后续键向前移动，不使用墓碑标记
+     */
+    private void delete(long key) {
+        int position = find(key);
+        if (table[position] != key) {
+            return;
+        }
+        size--;
+        int hole = position;
+        int next = (hole + 1) & mask;
+        while (table[next] != EMPTY) {
+            int home = (int) mix(table[next]) & mask;
+            // home 不在 (hole, next] 区间内时，该键可以移到空洞处
+            if (((next - home) & mask) >= ((next - hole) & mask)) {
+                table[hole] = table[next];
+                hole = next;
+            }
+            next = (next + 1) & mask;
+        }
+        table[hole] = EMPTY;
+    }
+
+    private static long mix(long key) {
+        long h = key * 0x9E3779B97F4A7C15L;
+        return h ^ (h >>> 32);
+    }
+}
@@ -0,0 +1,75 @@
+package org.zszq.util;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.BiFunction;
+
+/**
+ * 按ID累加的计数增量缓冲
+ * 增量写入 LongAdder，多线程并发累加同一个ID不争用；刷新时把条目从表中摘下再求和，之后的写入会创建新的累加器，
+ * 表中只保留最近一个周期内有变化的ID。并发的写入线程可能刚取到被摘下的累加器、尚未完成累加，
+ * 这些累加器保留到下一次刷新再求和一次，取到累加器与累加之间相隔一个完整刷新周期的情况实际不会出现。
+ * 交给 writer 的ID按升序排列，多个节点同时刷新时按相同顺序锁行，不会互相死锁
+ */
+public class DeltaBuffer {
+
+    private final ConcurrentHashMap<Long, LongAdder> pending = new ConcurrentHashMap<>();
+    private List<Map.Entry<Long, LongAdder>> retired = List.of();
+
+    public void add(Long id, long delta) {
+        pending.computeIfAbsent(id, key -> new LongAdder()).add(delta);
+    }
+
+    /**
+     * 取出全部非零增量交给 writer 一次写回；writer 抛出异常时增量放回缓冲，异常继续抛出
+     *
+     * @param writer 参数为一一对应的ID数组（升序）和增量数组
+     * @return 写回的增量条数
+     */
+    public synchronized int drainTo(BiFunction<Long[], Long[], Integer> writer) {
+        Map<Long, Long> deltas = new TreeMap<>();
+        for (Map.Entry<Long, LongAdder> entry : retired) {
+            collect(deltas, entry.getKey(), entry.getValue().sumThenReset());
+        }
+        List<Map.Entry<Long, LongAdder>> detached = new ArrayList<>(pending.size());
+        for (Long id : pending.keySet()) {
+            LongAdder adder = pending.remove(id);
+            if (adder != null) {
+                collect(deltas, id, adder.sumThenReset());
+                detached.add(Map.entry(id, adder));
+            }
+        }
+        retired = detached;
+        if (deltas.isEmpty()) {
+            return 0;
+        }
+
+        Long[] ids = new Long[deltas.size()];
+        Long[] values = new Long[deltas.size()];
+        int i = 0;
+        for (Map.Entry<Long, Long> entry : deltas.entrySet()) {
+            ids[i] = entry.getKey();
+            values[i] = entry.getValue();
+            i++;
+        }
+        try {
+            writer.apply(ids, values);
+        } catch (RuntimeException e) {
+            for (int j = 0; j < ids.length; j++) {
+                add(ids[j], values[j]);
+            }
+            throw e;
+        }
+        return ids.length;
+    }
+
+    private static void collect(Map<Long, Long> deltas, Long id, long delta) {
+        if (delta != 0) {
+            deltas.merge(id, delta, Long::sum);
+        }
+    }
+}
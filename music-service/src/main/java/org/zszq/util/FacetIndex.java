@@ -0,0 +1,185 @@
+package org.zszq.util;
+
+import org.roaringbitmap.RoaringBitmap;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Predicate;
+
+/**
+ * 分面位图索引
+ * 每个字段的每个取值对应一个压缩位图，保存取该值的文档ID；分面计数即结果集位图与各取值位图求交后的基数。
+ * 取值很多的字段（如艺术家）在结果集较小时改为遍历结果集逐个计数，避免对每个取值都做一次求交
+ */
+public class FacetIndex {
+
+    private final int fieldCount;
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private final List<Map<String, RoaringBitmap>> bitmaps;
+    private final Map<Integer, String[]> docValues = new HashMap<>();
+
+    public FacetIndex(int fieldCount) {
+        this.fieldCount = fieldCount;
+        this.bitmaps = new ArrayList<>(fieldCount);
+        for (int i = 0; i < fieldCount; i++) {
+            bitmaps.add(new HashMap<>());
+        }
+    }
+
+    /**
+     * 分面取值及计数
+     */
+    public record FacetCount(String value, int count) {
+    }
+
+    /**
+     * 写入或替换文档
+     *
+     * @param values 各字段取值，为 null 的字段不参与统计
+     */
+    public void put(int id, String[] values) {
+        lock.writeLock().lock();
+        try {
+            removeLocked(id);
+            String[] copy = new String[fieldCount];
+            for (int field = 0; field < fieldCount; field++) {
+                String value = field < values.length ? values[field] : null;
+                if (value == null || value.isBlank()) {
+                    continue;
+                }
+                copy[field] = value;
+                bitmaps.get(field).computeIfAbsent(value, key -> new RoaringBitmap()).add(id);
+            }
+            docValues.put(id, copy);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public boolean remove(int id) {
+        lock.writeLock().lock();
+        try {
+            return removeLocked(id);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return docValues.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * 字段取值满足条件的文档集合（各取值位图的并集）
+     */
+    public RoaringBitmap matching(int field, Predicate<String> predicate) {
+        lock.readLock().lock();
+        try {
+            List<RoaringBitmap> matched = new ArrayList<>();
+            for (Map.Entry<String, RoaringBitmap> entry : bitmaps.get(field).entrySet()) {
+                if (predicate.test(entry.getKey())) {
+                    matched.add(entry.getValue());
+                }
+            }
+            return RoaringBitmap.or(matched.iterator());
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * 字段取某个值的文档集合的副本
+     */
+    public RoaringBitmap docs(int field, String value) {
+        lock.readLock().lock();
+        try {
+            RoaringBitmap bitmap = bitmaps.get(field).get(value);
+            return bitmap != null ? bitmap.clone() : new RoaringBitmap();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * 统计结果集在某个字段上各取值的文档数，按计数降序取前 limit 个
+     */
+    public List<FacetCount> count(int field, RoaringBitmap within, int limit) {
+        lock.readLock().lock();
+        try {
+            Map<String, RoaringBitmap> values = bitmaps.get(field);
+            PriorityQueue<FacetCount> top = new PriorityQueue<>(limit + 1, FacetIndex::compareCount);
+            if (within.getLongCardinality() < values.size()) {
+                Map<String, int[]> counts = new HashMap<>();
+                within.forEach((int id) -> {
+                    String[] doc = docValues.get(id);
+                    if (doc != null && doc[field] != null) {
+                        counts.computeIfAbsent(doc[field], key -> new int[1])[0]++;
+                    }
+                });
+                counts.forEach((value, count) -> offer(top, new FacetCount(value, count[0]), limit));
+            } else {
+                for (Map.Entry<String, RoaringBitmap> entry : values.entrySet()) {
+                    int count = RoaringBitmap.andCardinality(entry.getValue(), within);
+                    if (count > 0) {
+                        offer(top, new FacetCount(entry.getKey(), count), limit);
+                    }
+                }
+            }
+
+            List<FacetCount> result = new ArrayList<>(top.size());
+            while (!top.isEmpty()) {
+                result.add(top.poll());
+            }
+            return result.reversed();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private static void offer(PriorityQueue<FacetCount> top, FacetCount count, int limit) {
+        top.offer(count);
+        if (top.size() > limit) {
+            top.poll();
+        }
+    }
+
+    /**
+     * 小顶堆顺序：计数小的在前，计数相同时取值大的在前，使结果按计数降序、取值升序排列
+     */
+    private static int compareCount(FacetCount a, FacetCount c) {
+        int byCount = Integer.compare(a.count(), c.count());
+        return byCount != 0 ? byCount : c.value().compareTo(a.value());
+    }
+
+    private boolean removeLocked(int id) {
+        String[] values = docValues.remove(id);
+        if (values == null) {
+            return false;
+        }
+        for (int field = 0; field < fieldCount; field++) {
+            if (values[field] == null) {
+                continue;
+            }
+            Map<String, RoaringBitmap> fieldBitmaps = bitmaps.get(field);
+            RoaringBitmap bitmap = fieldBitmaps.get(values[field]);
+            if (bitmap != null) {
+                bitmap.remove(id);
+                if (bitmap.isEmpty()) {
+                    fieldBitmaps.remove(values[field]);
+                }
+            }
+        }
+        return true;
+    }
+}
@@ -0,0 +1,204 @@
+package org.zszq.util;
+
+import java.util.Arrays;
+
+/**
+ * HyperLogLog 基数估计
+ * 精度 p=12，共 4096 个寄存器，标准误差约 1.6%；同一值重复加入不改变结果，两个草图按寄存器取最大值即可合并，
+ * 因此可以跨节点、跨时间段累加。寄存器较少时以稀疏形式（有序的 索引<<8|值 数组）保存，超过阈值后转为每寄存器一字节的稠密数组。
+ * 序列化格式：首字节为精度，第二字节为编码（0 稠密，1 稀疏），之后稠密为 4096 字节寄存器，稀疏为每项3字节（索引2字节、值1字节），
+ * 取两者中较短的一种，只有少数听众的草图只占几十字节。非线程安全
+ */
+public class HyperLogLog {
+
+    public static final int PRECISION = 12;
+
+    private static final int REGISTERS = 1 << PRECISION;
+    private static final int SPARSE_LIMIT = REGISTERS / 8;
+    private static final byte DENSE = 0;
+    private static final byte SPARSE = 1;
+    private static final double ALPHA = 0.7213 / (1 + 1.079 / REGISTERS);
+
+    private int[] sparse = new int[4];
+    private int sparseSize;
+    private byte[] dense;
+
+    /**
+     * 加入一个值
+     *
+     * @return 草图是否发生变化
+     */
+    public boolean add(long value) {
+        long hash = mix(value);
+        int index = (int) (hash >>> (64 - PRECISION));
+        // 剩余位中第一个1出现的位置，末尾补一个哨兵位保证不超过 64-p+1
+        int rank = Long.numberOfLeadingZeros((hash << PRECISION) | (1L << (PRECISION - 1))) + 1;
+        return update(index, rank);
+    }
+
+    /**
+     * 合并另一个草图，结果等价于两者所含值的并集
+     *
+     * @return 本草图是否发生变化
+     */
+    public boolean merge(HyperLogLog other) {
+        boolean changed = false;
+        if (other.dense != null) {
+            for (int index = 0; index < REGISTERS; index++) {
+                if (other.dense[index] != 0) {
+                    changed |= update(index, other.dense[index]);
+                }
+            }
+        } else {
+            for (int i = 0; i < other.sparseSize; i++) {
+                changed |= update(other.sparse[i] >>> 8, other.sparse[i] & 0xFF);
+            }
+        }
+        return changed;
+    }
+
+    public long estimate() {
+        double sum = 0;
+        int zeros = 0;
+        if (dense != null) {
+            for (byte register : dense) {
+                sum += 1.0 / (1L << register);
+                if (register == 0) {
+                    zeros++;
+                }
+            }
+        } else {
+            zeros = REGISTERS - sparseSize;
+            sum = zeros;
+            for (int i = 0; i < sparseSize; i++) {
+                sum += 1.0 / (1L << (sparse[i] & 0xFF));
+            }
+        }
+        double estimate = ALPHA * REGISTERS * REGISTERS / sum;
+        // 小基数时改用线性计数，偏差更小
+        if (estimate <= 2.5 * REGISTERS && zeros > 0) {
+            estimate = REGISTERS * Math.log((double) REGISTERS / zeros);
+        }
+        return Math.round(estimate);
+    }
+
+    public byte[] toBytes() {
+        int nonZero = dense != null ? countNonZero() : sparseSize;
+        if (nonZero * 3 < REGISTERS) {
+            byte[] bytes = new byte[2 + nonZero * 3];
+            bytes[0] = PRECISION;
+            bytes[1] = SPARSE;
+            int position = 2;
+            if (dense != null) {
+                for (int index = 0; index < REGISTERS; index++) {
+                    if (dense[index] != 0) {
+                        position = writeEntry(bytes, position, index, dense[index]);
+                    }
+                }
+            } else {
+                for (int i = 0; i < sparseSize; i++) {
+                    position = writeEntry(bytes, position, sparse[i] >>> 8, sparse[i] & 0xFF);
+                }
+            }
+            return bytes;
+        }
+        byte[] bytes = new byte[2 + REGISTERS];
+        bytes[0] = PRECISION;
+        bytes[1] = DENSE;
+        if (dense != null) {
+            System.arraycopy(dense, 0, bytes, 2, REGISTERS);
+        } else {
+            for (int i = 0; i < sparseSize; i++) {
+                bytes[2 + (sparse[i] >>> 8)] = (byte) (sparse[i] & 0xFF);
+            }
+        }
+        return bytes;
+    }
+
+    public static HyperLogLog fromBytes(byte[] bytes) {
+        if (bytes.length < 2 || bytes[0] != PRECISION) {
+            throw new IllegalArgumentException("不支持的HyperLogLog格式");
+        }
+        HyperLogLog sketch = new HyperLogLog();
+        if (bytes[1] == DENSE) {
+            if (bytes.length != 2 + REGISTERS) {
+                throw new IllegalArgumentException("HyperLogLog数据长度错误");
+            }
+            sketch.dense = Arrays.copyOfRange(bytes, 2, 2 + REGISTERS);
+        } else {
+            for (int position = 2; position + 2 < bytes.length; position += 3) {
+                int index = ((bytes[position] & 0xFF) << 8) | (bytes[position + 1] & 0xFF);
+                sketch.update(index, bytes[position + 2] & 0xFF);
+            }
+        }
+        return sketch;
+    }
+
+    private boolean update(int index, int rank) {
+        if (dense != null) {
+            if (dense[index] >= rank) {
+                return false;
+            }
+            dense[index] = (byte) rank;
+            return true;
+        }
+
+        int position = Arrays.binarySearch(sparse, 0, sparseSize, index << 8);
+        if (position < 0) {
+            position = -position - 1;
+        }
+        if (position < sparseSize && sparse[position] >>> 8 == index) {
+            if ((sparse[position] & 0xFF) >= rank) {
+                return false;
+            }
+            sparse[position] = index << 8 | rank;
+            return true;
+        }
+
+        if (sparseSize == SPARSE_LIMIT) {
+            toDense();
+            dense[index] = (byte) rank;
+            return true;
+        }
+        if (sparseSize == sparse.length) {
+            sparse = Arrays.copyOf(sparse, sparseSize * 2);
+        }
+        System.arraycopy(sparse, position, sparse, position + 1, sparseSize - position);
+        sparse[position] = index << 8 | rank;
+        sparseSize++;
+        return true;
+    }
+
+    private void toDense() {
+        dense = new byte[REGISTERS];
+        for (int i = 0; i < sparseSize; i++) {
+            dense[sparse[i] >>> 8] = (byte) (sparse[i] & 0xFF);
+        }
+        sparse = null;
+        sparseSize = 0;
+    }
+
+    private int countNonZero() {
+        int count = 0;
+        for (byte register : dense) {
+            if (register != 0) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    private static int writeEntry(byte[] bytes, int position, int index, int rank) {
+        bytes[position] = (byte) (index >>> 8);
+        bytes[position + 1] = (byte) index;
+        bytes[position + 2] = (byte) rank;
+        return position + 3;
+    }
+
+    private static long mix(long value) {
+        long h = value + 0x9E3779B97F4A7C15L;
+        h = (h ^ (h >>> 30)) * 0xBF58476D1CE4E5B9L;
+        h = (h ^ (h >>> 27)) * 0x94D049BB133111EBL;
+        return h ^ (h >>> 31);
+    }
+}
@@ -0,0 +1,421 @@
+package org.zszq.util;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * 内存倒排索引
+ * 每个词项的倒排表用两个基本类型数组保存（文档序号、加权词频），文档序号按写入顺序递增，天然有序；
+ * 查询时所有词项都必须命中（AND），从最短的倒排表开始跳跃求交，命中文档按BM25打分取前N条。
+ * 更新文档时旧序号只做删除标记，删除过多时整体压缩；读写通过读写锁隔离，写入只发生在上传审核等低频操作上
+ */
+public class InvertedIndex {
+
+    private static final int COMPACT_MIN_DELETED = 1024;
+
+    private final float k1;
+    private final float b;
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private final Map<String, Postings> postings = new HashMap<>();
+    private final Map<Long, Integer> docById = new HashMap<>();
+    private long[] docIds = new long[1024];
+    private float[] docLengths = new float[1024];
+    private BitSet deleted = new BitSet();
+    private int docCount;
+    private int liveCount;
+    private double totalLength;
+
+    public InvertedIndex(float k1, float b) {
+        this.k1 = k1;
+        this.b = b;
+    }
+
+    /**
+     * 检索结果
+     *
+     * @param total 命中总数
+     * @param ids   当前页的文档ID，按相关度降序
+     */
+    public record SearchHits(int total, long[] ids) {
+
+        public static final SearchHits EMPTY = new SearchHits(0, new long[0]);
+    }
+
+    /**
+     * 游标翻页的检索结果
+     *
+     * @param ids    文档ID，按得分降序、同分按ID降序
+     * @param scores 对应的得分，最后一条作为下一页的游标
+     */
+    public record ScoredHits(long[] ids, float[] scores) {
+
+        public static final ScoredHits EMPTY = new ScoredHits(new long[0], new float[0]);
+    }
+
+    /**
+     * 写入或替换文档
+     *
+     * @param fields  各字段文本，可为 null
+     * @param weights 各字段权重，词项在该字段每出现一次计入对应权重的词频
+     */
+    public void put(long id, String[] fields, float[] weights) {
+        Map<String, Float> termFreqs = new HashMap<>();
+        float length = 0;
+        for (int i = 0; i < fields.length; i++) {
+            for (String token : TextTokenizer.tokenize(fields[i])) {
+                termFreqs.merge(token, weights[i], Float::sum);
+                length += weights[i];
+            }
+        }
+
+        lock.writeLock().lock();
+        try {
+            removeLocked(id);
+            if (termFreqs.isEmpty()) {
+                return;
+            }
+            int doc = docCount++;
+            if (doc == docIds.length) {
+                docIds = Arrays.copyOf(docIds, doc * 2);
+                docLengths = Arrays.copyOf(docLengths, doc * 2);
+            }
+            docIds[doc] = id;
+            docLengths[doc] = length;
+            docById.put(id, doc);
+            liveCount++;
+            totalLength += length;
+            for (Map.Entry<String, Float> entry : termFreqs.entrySet()) {
+                postings.computeIfAbsent(entry.getKey(), key -> new Postings()).add(doc, entry.getValue());
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * 删除文档
+     *
+     * @return 文档是否存在
+     */
+    public boolean remove(long id) {
+        lock.writeLock().lock();
+        try {
+            return removeLocked(id);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return liveCount;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * 检索包含查询中全部词项的文档
+     */
+    public SearchHits search(String query, int offset, int limit) {
+        Set<String> terms = TextTokenizer.queryTokens(query);
+        if (terms.isEmpty() || limit <= 0) {
+            return SearchHits.EMPTY;
+        }
+
+        lock.readLock().lock();
+        try {
+            List<Postings> lists = resolve(terms);
+            if (lists == null) {
+                return SearchHits.EMPTY;
+            }
+            int[] total = new int[1];
+            long[][] hits = topHits(lists, offset + limit, (score, id) -> true, total);
+            // 名次在offset之前的丢弃
+            long[] ids = new long[Math.max(0, hits.length - offset)];
+            for (int rank = offset; rank < hits.length; rank++) {
+                ids[rank - offset] = docIds[(int) hits[rank][1]];
+            }
+            return new SearchHits(total[0], ids);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * 游标翻页：返回排在上一页最后一条 (afterScore, afterId) 之后的 limit 条，不统计总数。
+     * 得分依赖全局统计量，两次请求之间索引有更新时得分会略有变化，翻页可能重复或跳过少量文档
+     *
+     * @param afterScore 上一页最后一条的得分，第一页传 {@link Float#POSITIVE_INFINITY}
+     * @param afterId    上一页最后一条的ID，第一页传 {@link Long#MAX_VALUE}
+     */
+    public ScoredHits searchAfter(String query, float afterScore, long afterId, int limit) {
+        Set<String> terms = TextTokenizer.queryTokens(query);
+        if (terms.isEmpty() || limit <= 0) {
+            return ScoredHits.EMPTY;
+        }
+
+        lock.readLock().lock();
+        try {
+            List<Postings> lists = resolve(terms);
+            if (lists == null) {
+                return ScoredHits.EMPTY;
+            }
+            long[][] hits = topHits(lists, limit,
+                    (score, id) -> score < afterScore || (score == afterScore && id < afterId), new int[1]);
+            long[] ids = new long[hits.length];
+            float[] scores = new float[hits.length];
+            for (int rank = 0; rank < hits.length; rank++) {
+                ids[rank] = docIds[(int) hits[rank][1]];
+                scores[rank] = Float.intBitsToFloat((int) hits[rank][0]);
+            }
+            return new ScoredHits(ids, scores);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * 返回包含查询中全部词项的所有文档ID，不打分，用于在完整结果集上做统计
+     */
+    public long[] matchAll(String query) {
+        Set<String> terms = TextTokenizer.queryTokens(query);
+        if (terms.isEmpty()) {
+            return new long[0];
+        }
+
+        lock.readLock().lock();
+        try {
+            List<Postings> lists = resolve(terms);
+            if (lists == null) {
+                return new long[0];
+            }
+            long[] ids = new long[lists.get(0).size];
+            int[] count = new int[1];
+            intersect(lists, (doc, positions) -> ids[count[0]++] = docIds[doc]);
+            return Arrays.copyOf(ids, count[0]);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * 对全部命中文档打分，按名次返回得分最高的k个 {得分的位模式, 文档序号}；
+     * total 累计命中总数，filter 拒绝的文档同样计入
+     */
+    private long[][] topHits(List<Postings> lists, int k, HitFilter filter, int[] total) {
+        int n = lists.size();
+        float[] idf = new float[n];
+        for (int i = 0; i < n; i++) {
+            int df = lists.get(i).size;
+            idf[i] = (float) Math.log(1 + (liveCount - df + 0.5) / (df + 0.5));
+        }
+        float avgLength = liveCount > 0 ? (float) (totalLength / liveCount) : 1;
+
+        // 小顶堆保存当前得分最高的k个文档；同分时ID大的优先
+        PriorityQueue<long[]> top = new PriorityQueue<>(k + 1, this::compareHit);
+        intersect(lists, (doc, positions) -> {
+            float norm = k1 * (1 - b + b * docLengths[doc] / avgLength);
+            float score = 0;
+            for (int i = 0; i < n; i++) {
+                float tf = lists.get(i).freqs[positions[i]];
+                score += idf[i] * tf * (k1 + 1) / (tf + norm);
+            }
+            total[0]++;
+            if (!filter.accept(score, docIds[doc])) {
+                return;
+            }
+            top.offer(new long[]{Float.floatToIntBits(score), doc});
+            if (top.size() > k) {
+                top.poll();
+            }
+        });
+
+        // 堆顶是得分最低的，按名次从后往前出堆
+        long[][] ranked = new long[top.size()][];
+        for (int rank = ranked.length - 1; rank >= 0; rank--) {
+            ranked[rank] = top.poll();
+        }
+        return ranked;
+    }
+
+    /**
+     * 查找各词项的倒排表并按长度升序排列，任一词项不存在时返回 null
+     */
+    private List<Postings> resolve(Set<String> terms) {
+        List<Postings> lists = new ArrayList<>(terms.size());
+        for (String term : terms) {
+            Postings list = postings.get(term);
+            if (list == null) {
+                return null;
+            }
+            lists.add(list);
+        }
+        lists.sort(Comparator.comparingInt(list -> list.size));
+        return lists;
+    }
+
+    /**
+     * 从最短的倒排表开始跳跃求交，对每个未删除的公共文档回调；positions[i] 为该文档在第i个倒排表中的位置
+     */
+    private void intersect(List<Postings> lists, MatchVisitor visitor) {
+        int n = lists.size();
+        int[] cursors = new int[n];
+        Postings first = lists.get(0);
+        outer:
+        for (int p = 0; p < first.size; p++) {
+            int doc = first.docs[p];
+            cursors[0] = p;
+            for (int i = 1; i < n; i++) {
+                Postings list = lists.get(i);
+                int position = list.advance(cursors[i], doc);
+                cursors[i] = position;
+                if (position >= list.size) {
+                    break outer;
+                }
+                if (list.docs[position] != doc) {
+                    continue outer;
+                }
+            }
+            if (!deleted.get(doc)) {
+                visitor.visit(doc, cursors);
+            }
+        }
+    }
+
+    @FunctionalInterface
+    private interface MatchVisitor {
+        void visit(int doc, int[] positions);
+    }
+
+    @FunctionalInterface
+    private interface HitFilter {
+        boolean accept(float score, long id);
+    }
+
+    private int compareHit(long[] a, long[] c) {
+        int byScore = Float.compare(Float.intBitsToFloat((int) a[0]), Float.intBitsToFloat((int) c[0]));
+        return byScore != 0 ? byScore : Long.compare(docIds[(int) a[1]], docIds[(int) c[1]]);
+    }
+
+    private boolean removeLocked(long id) {
+        Integer doc = docById.remove(id);
+        if (doc == null) {
+            return false;
+        }
+        deleted.set(doc);
+        liveCount--;
+        totalLength -= docLengths[doc];
+        int deletedCount = docCount - liveCount;
+        if (deletedCount >= COMPACT_MIN_DELETED && deletedCount > liveCount / 4) {
+            compact();
+        }
+        return true;
+    }
+
+    /**
+     * 清除已删除文档：重新编号存活文档，过滤并重映射所有倒排表（映射单调，倒排表仍然有序）
+     */
+    private void compact() {
+        int[] remap = new int[docCount];
+        int next = 0;
+        for (int doc = 0; doc < docCount; doc++) {
+            remap[doc] = deleted.get(doc) ? -1 : next++;
+        }
+
+        long[] newIds = new long[Math.max(next * 2, 1024)];
+        float[] newLengths = new float[newIds.length];
+        for (int doc = 0; doc < docCount; doc++) {
+            if (remap[doc] >= 0) {
+                newIds[remap[doc]] = docIds[doc];
+                newLengths[remap[doc]] = docLengths[doc];
+                docById.put(docIds[doc], remap[doc]);
+            }
+        }
+
+        Iterator<Postings> iterator = postings.values().iterator();
+        while (iterator.hasNext()) {
+            Postings list = iterator.next();
+            list.remap(remap);
+            if (list.size == 0) {
+                iterator.remove();
+            }
+        }
+
+        docIds = newIds;
+        docLengths = newLengths;
+        docCount = next;
+        deleted = new BitSet();
+    }
+
+    /**
+     * 单个词项的倒排表
+     */
+    private static final class Postings {
+        private int[] docs = new int[4];
+        private float[] freqs = new float[4];
+        private int size;
+
+        void add(int doc, float freq) {
+            if (size == docs.length) {
+                docs = Arrays.copyOf(docs, size * 2);
+                freqs = Arrays.copyOf(freqs, size * 2);
+            }
+            docs[size] = doc;
+            freqs[size] = freq;
+            size++;
+        }
+
+        /**
+         * 从 from 开始查找第一个不小于 target 的位置：先倍增步长跳跃，再在区间内二分
+         */
+        int advance(int from, int target) {
+            if (from >= size || docs[from] >= target) {
+                return from;
+            }
+            int step = 1;
+            int low = from;
+            int high = from + step;
+            while (high < size && docs[high] < target) {
+                low = high;
+                step <<= 1;
+                high = from + step;
+            }
+            high = Math.min(high, size - 1);
+            if (docs[high] < target) {
+                return size;
+            }
+            int position = Arrays.binarySearch(docs, low + 1, high + 1, target);
+            return position >= 0 ? position : -position - 1;
+        }
+
+        void remap(int[] mapping) {
+            int kept = 0;
+            for (int i = 0; i < size; i++) {
+                int doc = mapping[docs[i]];
+                if (doc >= 0) {
+                    docs[kept] = doc;
+                    freqs[kept] = freqs[i];
+                    kept++;
+                }
+            }
+            size = kept;
+            if (kept < docs.length / 4) {
+                docs = Arrays.copyOf(docs, Math.max(kept, 4));
+                freqs = Arrays.copyOf(freqs, Math.max(kept, 4));
+            }
+        }
+    }
+}
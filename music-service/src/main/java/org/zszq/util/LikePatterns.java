@@ -0,0 +1,25 @@
+package org.zszq.util;
+
+/**
+ * SQL LIKE 模式构造
+ * 用户输入中的 %、_ 和反斜杠按字面匹配，转义字符使用PostgreSQL默认的反斜杠
+ */
+public final class LikePatterns {
+
+    private LikePatterns() {
+    }
+
+    /**
+     * 包含匹配模式，输入为空时返回 null
+     */
+    public static String contains(String text) {
+        if (text == null || text.isBlank()) {
+            return null;
+        }
+        String escaped = text.trim()
+                .replace("\\", "\\\\")
+                .replace("%", "\\%")
+                .replace("_", "\\_");
+        return "%" + escaped + "%";
+    }
+}
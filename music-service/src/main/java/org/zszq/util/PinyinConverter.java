@@ -0,0 +1,112 @@
+package org.zszq.util;
+
+import net.sourceforge.pinyin4j.PinyinHelper;
+import net.sourceforge.pinyin4j.format.HanyuPinyinCaseType;
+import net.sourceforge.pinyin4j.format.HanyuPinyinOutputFormat;
+import net.sourceforge.pinyin4j.format.HanyuPinyinToneType;
+import net.sourceforge.pinyin4j.format.HanyuPinyinVCharType;
+import net.sourceforge.pinyin4j.format.exception.BadHanyuPinyinOutputFormatCombination;
+
+/**
+ * 汉字转拼音
+ * 生成全拼（"周杰伦" → zhoujielun）和首字母（zjl）两种形式，不带声调，ü 写作 v；
+ * 多音字取第一个读音。文本中的字母数字原样保留并转小写，其余字符丢弃
+ */
+public final class PinyinConverter {
+
+    private static final HanyuPinyinOutputFormat FORMAT = new HanyuPinyinOutputFormat();
+
+    static {
+        FORMAT.setCaseType(HanyuPinyinCaseType.LOWERCASE);
+        FORMAT.setToneType(HanyuPinyinToneType.WITHOUT_TONE);
+        FORMAT.setVCharType(HanyuPinyinVCharType.WITH_V);
+    }
+
+    private PinyinConverter() {
+    }
+
+    /**
+     * 拼音形式
+     *
+     * @param full     全拼
+     * @param initials 首字母，字母数字片段取各单词的首字符
+     */
+    public record Pinyin(String full, String initials) {
+    }
+
+    public static boolean containsHan(String text) {
+        if (text == null) {
+            return false;
+        }
+        return text.codePoints().anyMatch(c -> Character.UnicodeScript.of(c) == Character.UnicodeScript.HAN);
+    }
+
+    /**
+     * 转换为拼音，不含汉字时返回 null
+     */
+    public static Pinyin convert(String text) {
+        if (!containsHan(text)) {
+            return null;
+        }
+        String normalized = TextTokenizer.normalize(text);
+        StringBuilder full = new StringBuilder(normalized.length() * 4);
+        StringBuilder initials = new StringBuilder(normalized.length());
+        boolean inWord = false;
+        for (int i = 0; i < normalized.length(); i++) {
+            char c = normalized.charAt(i);
+            String syllable = syllable(c);
+            if (syllable != null) {
+                full.append(syllable);
+                initials.append(syllable.charAt(0));
+                inWord = false;
+            } else if (c < 128 && Character.isLetterOrDigit(c)) {
+                full.append(c);
+                if (!inWord) {
+                    initials.append(c);
+                }
+                inWord = true;
+            } else {
+                inWord = false;
+            }
+        }
+        if (full.isEmpty()) {
+            return null;
+        }
+        return new Pinyin(full.toString(), initials.toString());
+    }
+
+    /**
+     * 是否可能是拼音输入：去掉空格后只包含字母
+     */
+    public static boolean looksLikePinyin(String text) {
+        if (text == null || text.isBlank()) {
+            return false;
+        }
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (c != ' ' && !(c >= 'a' && c <= 'z') && !(c >= 'A' && c <= 'Z')) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * 拼音查询的归一化形式，与索引中的键一致
+     */
+    public static String normalizeQuery(String text) {
+        return TextTokenizer.normalize(text).replace(" ", "");
+    }
+
+    private static String syllable(char c) {
+        if (Character.UnicodeScript.of(c) != Character.UnicodeScript.HAN) {
+            return null;
+        }
+        try {
+            String[] readings = PinyinHelper.toHanyuPinyinStringArray(c, FORMAT);
+            return readings != null && readings.length > 0 ? readings[0] : null;
+        } catch (BadHanyuPinyinOutputFormatCombination e) {
+            return null;
+        }
+    }
+}
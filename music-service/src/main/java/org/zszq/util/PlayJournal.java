@@ -0,0 +1,373 @@
+package org.zszq.util;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+/**
+ * 播放事件日志：只追加的内存映射分段文件
+ * 每条记录定长32字节（音乐ID、用户ID、时间戳各8字节，来源2字节，保留2字节，校验4字节），
+ * 追加时用原子计数器在当前分段中占位，再通过 VarHandle 直接写入映射内存，写入方之间没有锁；校验字段最后以 release 语义写入，
+ * 读取方看到正确的校验值即说明整条记录已写完。记录的偏移量全局连续，分段文件以起始偏移量命名，写满或超过滚动周期后切换到新分段。
+ * 写入只进入页缓存，由调用方定期调用 {@link #sync()} 批量刷盘（组提交）：进程崩溃不丢数据，操作系统崩溃最多丢失一个刷盘周期内的记录，
+ * 刷盘时已占位但尚未写完的记录会在之后的刷盘中重新刷出；重新打开时按校验值识别写了一半的记录并跳过
+ */
+public class PlayJournal implements AutoCloseable {
+
+    public static final int RECORD_SIZE = 32;
+
+    private static final String SUFFIX = ".journal";
+    private static final VarHandle LONG = MethodHandles.byteBufferViewVarHandle(long[].class, ByteOrder.LITTLE_ENDIAN);
+    private static final VarHandle INT = MethodHandles.byteBufferViewVarHandle(int[].class, ByteOrder.LITTLE_ENDIAN);
+    private static final VarHandle SHORT = MethodHandles.byteBufferViewVarHandle(short[].class, ByteOrder.LITTLE_ENDIAN);
+
+    private final Path directory;
+    private final int segmentRecords;
+    private final ConcurrentSkipListMap<Long, Segment> segments = new ConcurrentSkipListMap<>();
+    private volatile Segment active;
+
+    /**
+     * 打开日志目录，恢复已有分段并在其后新建一个分段用于写入
+     *
+     * @param segmentBytes 单个分段文件的大小
+     */
+    public PlayJournal(Path directory, long segmentBytes) throws IOException {
+        this.directory = directory;
+        this.segmentRecords = (int) Math.max(1, Math.min(segmentBytes / RECORD_SIZE, Integer.MAX_VALUE / RECORD_SIZE));
+        Files.createDirectories(directory);
+        recover();
+    }
+
+    /**
+     * 日志中的一条播放事件
+     *
+     * @param offset    全局偏移量
+     * @param timestamp 播放时间，毫秒时间戳
+     * @param source    播放来源编码
+     */
+    public record Event(long offset, long musicId, long userId, long timestamp, int source) {
+    }
+
+    /**
+     * 一次读取的结果
+     *
+     * @param nextOffset 下一次读取的起始偏移量
+     */
+    public record Batch(List<Event> events, long nextOffset) {
+    }
+
+    /**
+     * 追加一条记录
+     *
+     * @return 记录的偏移量
+     */
+    public long append(long musicId, long userId, long timestamp, int source) {
+        while (true) {
+            Segment segment = active;
+            int index = segment.reserve();
+            if (index >= 0) {
+                segment.write(index, musicId, userId, timestamp, source);
+                return segment.base + index;
+            }
+            roll(segment);
+        }
+    }
+
+    /**
+     * 从指定偏移量开始读取至多 max 条记录；偏移量早于最早保留的记录时从最早的记录开始
+     * 遇到仍在写入中的记录时停止，下一次从该位置继续
+     */
+    public Batch read(long offset, int max) {
+        List<Event> events = new ArrayList<>(Math.min(max, 1024));
+        long position = Math.max(offset, firstOffset());
+        while (events.size() < max) {
+            Map.Entry<Long, Segment> entry = segments.floorEntry(position);
+            if (entry == null) {
+                break;
+            }
+            Segment segment = entry.getValue();
+            boolean sealed = segment.isSealed();
+            int count = segment.count();
+            int index = (int) (position - segment.base);
+            boolean pending = false;
+            while (index < count && events.size() < max) {
+                Event event = segment.read(index);
+                if (event == null) {
+                    // 上次运行留下的残缺记录直接跳过；本次运行中的记录只可能是尚未写完
+                    if (!segment.recovered) {
+                        pending = true;
+                        break;
+                    }
+                } else {
+                    events.add(event);
+                }
+                index++;
+            }
+            position = segment.base + index;
+            // 已封存分段读完后，下一分段的起始偏移量正好是 position
+            if (pending || index < count || !sealed || segments.higherKey(segment.base) == null) {
+                break;
+            }
+        }
+        return new Batch(events, position);
+    }
+
+    /**
+     * 把已写入的记录刷到磁盘
+     */
+    public void sync() {
+        for (Segment segment : segments.values()) {
+            segment.force();
+        }
+    }
+
+    /**
+     * 当前分段已有记录且创建时间早于 before 时切换到新分段
+     */
+    public void rollIfOlderThan(long before) {
+        Segment segment = active;
+        if (segment.createdAt < before && segment.count() > 0) {
+            roll(segment);
+        }
+    }
+
+    /**
+     * 删除最后一条记录早于 before 的已封存分段
+     *
+     * @return 删除的分段数
+     */
+    public int deleteOlderThan(long before) throws IOException {
+        int deleted = 0;
+        for (Segment segment : segments.values()) {
+            if (segment == active || !segment.isSealed() || segment.lastWriteAt() >= before) {
+                break;
+            }
+            segments.remove(segment.base);
+            Files.deleteIfExists(segment.path);
+            deleted++;
+        }
+        return deleted;
+    }
+
+    public long firstOffset() {
+        Map.Entry<Long, Segment> first = segments.firstEntry();
+        return first != null ? first.getKey() : 0;
+    }
+
+    /**
+     * 下一条记录将获得的偏移量
+     */
+    public long nextOffset() {
+        Segment segment = active;
+        return segment.base + segment.count();
+    }
+
+    @Override
+    public void close() {
+        sync();
+    }
+
+    private synchronized void roll(Segment full) {
+        if (active != full) {
+            return;
+        }
+        int count = full.seal();
+        try {
+            Segment next = Segment.create(path(full.base + count), full.base + count, segmentRecords);
+            segments.put(next.base, next);
+            active = next;
+        } catch (IOException e) {
+            throw new RuntimeException("创建播放日志分段失败: " + e.getMessage(), e);
+        }
+        full.force();
+    }
+
+    private void recover() throws IOException {
+        List<Long> bases = new ArrayList<>();
+        try (Stream<Path> files = Files.list(directory)) {
+            files.map(file -> file.getFileName().toString())
+                    .filter(name -> name.endsWith(SUFFIX))
+                    .forEach(name -> bases.add(Long.parseLong(name.substring(0, name.length() - SUFFIX.length()))));
+        }
+        bases.sort(null);
+
+        long nextBase = 0;
+        for (int i = 0; i < bases.size(); i++) {
+            long base = bases.get(i);
+            Path file = path(base);
+            // 非最后一个分段的记录数由下一分段的起始偏移量确定，最后一个分段扫描到最后一条有效记录
+            Segment segment = i + 1 < bases.size()
+                    ? Segment.open(file, base, (int) (bases.get(i + 1) - base))
+                    : Segment.open(file, base, -1);
+            segments.put(base, segment);
+            nextBase = base + segment.count();
+        }
+
+        Segment segment = Segment.create(path(nextBase), nextBase, segmentRecords);
+        segments.put(nextBase, segment);
+        active = segment;
+    }
+
+    private Path path(long base) {
+        return directory.resolve(String.format("%020d%s", base, SUFFIX));
+    }
+
+    private static int checksum(long musicId, long userId, long timestamp, int source) {
+        long h = musicId * 0x9E3779B97F4A7C15L ^ userId * 0xC2B2AE3D27D4EB4FL ^ timestamp * 0x165667B19E3779F9L ^ source;
+        int c = (int) (h ^ (h >>> 32));
+        // 全零的空位校验值为0，有效记录的校验值不为0
+        return c == 0 ? 1 : c;
+    }
+
+    /**
+     * 一个分段文件
+     * 写入中的分段用 next 占位，封存时把 next 置为极大值，之后的占位全部失败并触发切换
+     */
+    private static final class Segment {
+        private static final long SEALED = Long.MAX_VALUE / 2;
+
+        private final Path path;
+        private final long base;
+        private final int capacity;
+        private final MappedByteBuffer buffer;
+        private final boolean recovered;
+        private final long createdAt;
+        private final AtomicLong next = new AtomicLong();
+        private volatile int sealedCount = -1;
+        private volatile long sealedAt;
+        private int forced;
+
+        private Segment(Path path, long base, int capacity, MappedByteBuffer buffer, boolean recovered, long createdAt) {
+            this.path = path;
+            this.base = base;
+            this.capacity = capacity;
+            this.buffer = buffer;
+            this.recovered = recovered;
+            this.createdAt = createdAt;
+        }
+
+        static Segment create(Path path, long base, int capacity) throws IOException {
+            try (RandomAccessFile file = new RandomAccessFile(path.toFile(), "rw");
+                 FileChannel channel = file.getChannel()) {
+                file.setLength((long) capacity * RECORD_SIZE);
+                // 映射在通道关闭后仍然有效
+                MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, (long) capacity * RECORD_SIZE);
+                return new Segment(path, base, capacity, buffer, false, System.currentTimeMillis());
+            }
+        }
+
+        /**
+         * @param count 已知的记录数，-1 表示扫描确定
+         */
+        static Segment open(Path path, long base, int count) throws IOException {
+            try (FileChannel channel = FileChannel.open(path)) {
+                int capacity = (int) (channel.size() / RECORD_SIZE);
+                MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, (long) capacity * RECORD_SIZE);
+                Segment segment = new Segment(path, base, capacity, buffer, true, Files.getLastModifiedTime(path).toMillis());
+                int sealed = count;
+                if (sealed < 0) {
+                    sealed = capacity;
+                    while (sealed > 0 && segment.read(sealed - 1) == null) {
+                        sealed--;
+                    }
+                }
+                segment.sealedCount = Math.min(sealed, capacity);
+                segment.next.set(SEALED);
+                Event last = segment.sealedCount > 0 ? segment.read(segment.sealedCount - 1) : null;
+                segment.sealedAt = last != null ? last.timestamp() : segment.createdAt;
+                return segment;
+            }
+        }
+
+        int reserve() {
+            long index = next.getAndIncrement();
+            return index < capacity ? (int) index : -1;
+        }
+
+        void write(int index, long musicId, long userId, long timestamp, int source) {
+            int position = index * RECORD_SIZE;
+            LONG.set(buffer, position, musicId);
+            LONG.set(buffer, position + 8, userId);
+            LONG.set(buffer, position + 16, timestamp);
+            SHORT.set(buffer, position + 24, (short) source);
+            INT.setRelease(buffer, position + 28, checksum(musicId, userId, timestamp, source));
+        }
+
+        /**
+         * 读取一条记录，校验不通过（尚未写完或残缺）时返回 null
+         */
+        Event read(int index) {
+            int position = index * RECORD_SIZE;
+            int check = (int) INT.getAcquire(buffer, position + 28);
+            if (check == 0) {
+                return null;
+            }
+            long musicId = (long) LONG.get(buffer, position);
+            long userId = (long) LONG.get(buffer, position + 8);
+            long timestamp = (long) LONG.get(buffer, position + 16);
+            int source = Short.toUnsignedInt((short) SHORT.get(buffer, position + 24));
+            if (check != checksum(musicId, userId, timestamp, source)) {
+                return null;
+            }
+            return new Event(base + index, musicId, userId, timestamp, source);
+        }
+
+        synchronized int seal() {
+            if (isSealed()) {
+                // 上次切换时新建分段失败，保留当时的记录数
+                return sealedCount;
+            }
+            long reserved = next.getAndSet(SEALED);
+            int count = (int) Math.min(reserved, capacity);
+            sealedAt = System.currentTimeMillis();
+            sealedCount = count;
+            return count;
+        }
+
+        boolean isSealed() {
+            return sealedCount >= 0;
+        }
+
+        int count() {
+            int sealed = sealedCount;
+            return sealed >= 0 ? sealed : (int) Math.min(next.get(), capacity);
+        }
+
+        long lastWriteAt() {
+            return isSealed() ? sealedAt : System.currentTimeMillis();
+        }
+
+        /**
+         * 刷出 forced 之后已占位的记录，forced 只推进到第一条校验字段尚未写入的记录：
+         * 占位与写入之间没有锁，刷盘时仍在写入的记录从该位置起在下一次刷盘时重新刷出
+         */
+        synchronized void force() {
+            if (recovered) {
+                return;
+            }
+            int count = count();
+            if (count <= forced) {
+                return;
+            }
+            // 先确定已写完的前缀再刷盘，保证这部分记录的内容包含在本次刷出的页中
+            int written = forced;
+            while (written < count && (int) INT.getAcquire(buffer, written * RECORD_SIZE + 28) != 0) {
+                written++;
+            }
+            buffer.force(forced * RECORD_SIZE, (count - forced) * RECORD_SIZE);
+            forced = written;
+        }
+    }
+}
@@ -0,0 +1,129 @@
+package org.zszq.util;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * 音频跳转索引：按时间升序记录 (毫秒, 文件字节偏移) 对
+ * 序列化时两列分别做差分并用变长整数编码，一首4分钟的歌通常不到1KB；
+ * 查询时对时间列二分，得到不晚于目标时间的最近帧位置
+ */
+public class SeekIndex {
+
+    private static final byte[] MAGIC = "SKIX".getBytes(StandardCharsets.US_ASCII);
+    private static final int VERSION = 1;
+
+    private final long[] timesMs;
+    private final long[] offsets;
+
+    public SeekIndex(long[] timesMs, long[] offsets) {
+        if (timesMs.length != offsets.length) {
+            throw new IllegalArgumentException("时间与偏移数量不一致");
+        }
+        this.timesMs = timesMs;
+        this.offsets = offsets;
+    }
+
+    public int size() {
+        return timesMs.length;
+    }
+
+    public long durationMs() {
+        return timesMs.length == 0 ? 0 : timesMs[timesMs.length - 1];
+    }
+
+    /**
+     * 查找不晚于指定时间的最近索引点
+     *
+     * @return 索引点下标，索引为空时返回 -1
+     */
+    public int floor(long timeMs) {
+        if (timesMs.length == 0) {
+            return -1;
+        }
+        int pos = Arrays.binarySearch(timesMs, timeMs);
+        if (pos >= 0) {
+            // 相同时间取第一个
+            while (pos > 0 && timesMs[pos - 1] == timeMs) {
+                pos--;
+            }
+            return pos;
+        }
+        int insertion = -pos - 1;
+        return Math.max(insertion - 1, 0);
+    }
+
+    public long timeAt(int index) {
+        return timesMs[index];
+    }
+
+    public long offsetAt(int index) {
+        return offsets[index];
+    }
+
+    public byte[] encode() {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(16 + timesMs.length * 4);
+        out.writeBytes(MAGIC);
+        out.write(VERSION);
+        writeVarLong(out, timesMs.length);
+        long prevTime = 0;
+        long prevOffset = 0;
+        for (int i = 0; i < timesMs.length; i++) {
+            writeVarLong(out, timesMs[i] - prevTime);
+            writeVarLong(out, offsets[i] - prevOffset);
+            prevTime = timesMs[i];
+            prevOffset = offsets[i];
+        }
+        return out.toByteArray();
+    }
+
+    public static SeekIndex decode(byte[] data) {
+        if (data.length < MAGIC.length + 1 || !Arrays.equals(data, 0, MAGIC.length, MAGIC, 0, MAGIC.length)) {
+            throw new IllegalArgumentException("无效的跳转索引数据");
+        }
+        if (data[MAGIC.length] != VERSION) {
+            throw new IllegalArgumentException("不支持的跳转索引版本: " + data[MAGIC.length]);
+        }
+        int[] pos = {MAGIC.length + 1};
+        int count = Math.toIntExact(readVarLong(data, pos));
+        long[] times = new long[count];
+        long[] offsets = new long[count];
+        long time = 0;
+        long offset = 0;
+        for (int i = 0; i < count; i++) {
+            time += readVarLong(data, pos);
+            offset += readVarLong(data, pos);
+            times[i] = time;
+            offsets[i] = offset;
+        }
+        return new SeekIndex(times, offsets);
+    }
+
+    private static void writeVarLong(ByteArrayOutputStream out, long value) {
+        if (value < 0) {
+            throw new IllegalArgumentException("索引必须单调递增");
+        }
+        while ((value & ~0x7FL) != 0) {
+            out.write((int) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        out.write((int) value);
+    }
+
+    private static long readVarLong(byte[] data, int[] pos) {
+        long value = 0;
+        int shift = 0;
+        while (true) {
+            if (pos[0] >= data.length || shift > 63) {
+                throw new IllegalArgumentException("跳转索引数据被截断");
+            }
+            byte b = data[pos[0]++];
+            value |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+            shift += 7;
+        }
+    }
+}
@@ -0,0 +1,533 @@
+package org.zszq.util;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * 前缀补全用的压缩字典树（radix trie）
+ * 只有一个子节点的链路合并为一条边；每个节点缓存子树中权重最高的前K个词条，查询时找到前缀所在节点直接返回，
+ * 耗时只与前缀长度有关。词条按（字段，归一化文本）去重，权重为所有引用它的文档权重之和，
+ * 例如同一艺术家的多首歌曲播放量累加到该艺术家上。含汉字的词条额外以全拼和首字母作为键，拼音在写入时一次性生成。
+ * 增量写入时只把权重变化的词条合并进受影响路径上各节点的前K，不再重新排序所有子节点；
+ * 全量重建时先用 {@link #startBulkLoad()} 插入全部键，再由 {@link #finishBulkLoad()} 一次自底向上计算所有节点的前K。
+ * 读写通过读写锁隔离
+ */
+public class SuggestTrie {
+
+    private static final int MAX_WORD_STARTS = 8;
+
+    private final int topK;
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private final Node root = new Node("");
+    private final Map<String, Term> terms = new HashMap<>();
+    private final Map<Long, Contribution> contributions = new HashMap<>();
+    private boolean bulkLoading;
+
+    public SuggestTrie(int topK) {
+        this.topK = topK;
+    }
+
+    /**
+     * 补全结果
+     *
+     * @param field 词条来自文档的第几个字段
+     */
+    public record Suggestion(String text, int field, long weight) {
+    }
+
+    /**
+     * 开始批量写入：之后的写入只插入键、累加权重，不维护各节点的前K缓存，
+     * 需调用 {@link #finishBulkLoad()} 后才能查询
+     */
+    public void startBulkLoad() {
+        lock.writeLock().lock();
+        try {
+            bulkLoading = true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * 结束批量写入，自底向上一次计算所有节点的前K缓存
+     */
+    public void finishBulkLoad() {
+        lock.writeLock().lock();
+        try {
+            bulkLoading = false;
+            computeSubtree(root);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * 写入或替换文档
+     *
+     * @param fields 各字段文本，可为 null
+     * @param weight 文档权重，累加到各字段对应的词条上
+     */
+    public void put(long id, String[] fields, long weight) {
+        lock.writeLock().lock();
+        try {
+            // 先汇总每个词条的权重变化，替换文档时同一词条只调整一次
+            Map<Term, Long> deltas = new LinkedHashMap<>();
+            Contribution previous = contributions.remove(id);
+            if (previous != null) {
+                for (Term term : previous.terms) {
+                    term.refs--;
+                    deltas.merge(term, -previous.weight, Long::sum);
+                }
+            }
+            List<Term> referenced = new ArrayList<>(fields.length);
+            for (int field = 0; field < fields.length; field++) {
+                String text = fields[field] == null ? "" : fields[field].strip();
+                String normalized = TextTokenizer.normalize(text);
+                if (normalized.isEmpty()) {
+                    continue;
+                }
+                Term term = terms.get(field + ":" + normalized);
+                if (term == null) {
+                    term = new Term(text, field, normalized, keys(text, normalized));
+                    terms.put(term.id(), term);
+                    for (String key : term.keys) {
+                        insertKey(key, term);
+                    }
+                }
+                term.refs++;
+                referenced.add(term);
+                deltas.merge(term, weight, Long::sum);
+            }
+            if (!referenced.isEmpty()) {
+                contributions.put(id, new Contribution(referenced, weight));
+            }
+            apply(deltas);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * 删除文档
+     *
+     * @return 文档是否存在
+     */
+    public boolean remove(long id) {
+        lock.writeLock().lock();
+        try {
+            return removeLocked(id);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return contributions.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * 按前缀查询权重最高的词条
+     */
+    public List<Suggestion> suggest(String prefix, int limit) {
+        String normalized = prefix == null ? "" : TextTokenizer.normalize(prefix.strip());
+        if (normalized.isEmpty() || limit <= 0) {
+            return List.of();
+        }
+
+        lock.readLock().lock();
+        try {
+            Node node = root;
+            int matched = 0;
+            while (matched < normalized.length()) {
+                Node child = node.children == null ? null : node.children.get(normalized.charAt(matched));
+                if (child == null) {
+                    return List.of();
+                }
+                String label = child.label;
+                int common = commonPrefix(label, normalized, matched);
+                if (matched + common == normalized.length()) {
+                    // 前缀在这条边的中间或末尾结束，该子树就是全部候选
+                    node = child;
+                    break;
+                }
+                if (common < label.length()) {
+                    return List.of();
+                }
+                matched += common;
+                node = child;
+            }
+
+            int count = Math.min(limit, node.top.length);
+            List<Suggestion> result = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                Term term = node.top[i];
+                result.add(new Suggestion(term.text, term.field, term.weight));
+            }
+            return result;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private boolean removeLocked(long id) {
+        Contribution contribution = contributions.remove(id);
+        if (contribution == null) {
+            return false;
+        }
+        Map<Term, Long> deltas = new LinkedHashMap<>();
+        for (Term term : contribution.terms) {
+            term.refs--;
+            deltas.merge(term, -contribution.weight, Long::sum);
+        }
+        apply(deltas);
+        return true;
+    }
+
+    /**
+     * 调整词条权重并维护前K缓存：不再被引用的词条删除其全部键，权重增加的合并进路径上的前K，
+     * 权重减少的只在它原本位于某节点前K时重算该节点
+     */
+    private void apply(Map<Term, Long> deltas) {
+        for (Map.Entry<Term, Long> entry : deltas.entrySet()) {
+            Term term = entry.getKey();
+            long delta = entry.getValue();
+            term.weight += delta;
+            List<List<Node>> paths = new ArrayList<>(term.keys.size());
+            if (term.refs == 0) {
+                terms.remove(term.id());
+                for (String key : term.keys) {
+                    List<Node> path = deleteKey(key, term);
+                    if (path != null) {
+                        paths.add(path);
+                    }
+                }
+            } else if (!bulkLoading) {
+                for (String key : term.keys) {
+                    List<Node> path = path(key);
+                    if (path != null) {
+                        paths.add(path);
+                    }
+                }
+            }
+            if (bulkLoading) {
+                continue;
+            }
+            if (term.refs > 0 && delta >= 0) {
+                for (List<Node> path : paths) {
+                    promote(path, term);
+                }
+            } else {
+                demote(paths, term);
+            }
+        }
+    }
+
+    /**
+     * 词条在树中的键：完整文本，文本中各单词开头处的后缀（使 "you" 也能补全出 "shape of you"），
+     * 以及含汉字时的全拼和首字母
+     */
+    private static List<String> keys(String text, String normalized) {
+        Set<String> keys = new LinkedHashSet<>();
+        keys.add(normalized);
+        for (int i = 1; i < normalized.length() && keys.size() <= MAX_WORD_STARTS; i++) {
+            if (normalized.charAt(i - 1) == ' ' && normalized.charAt(i) != ' ') {
+                keys.add(normalized.substring(i));
+            }
+        }
+        PinyinConverter.Pinyin pinyin = PinyinConverter.convert(text);
+        if (pinyin != null) {
+            keys.add(pinyin.full());
+            keys.add(pinyin.initials());
+        }
+        return List.copyOf(keys);
+    }
+
+    private void insertKey(String key, Term term) {
+        Node node = root;
+        int matched = 0;
+        while (matched < key.length()) {
+            char first = key.charAt(matched);
+            Node child = node.children == null ? null : node.children.get(first);
+            if (child == null) {
+                child = new Node(key.substring(matched));
+                node.child(first, child);
+                node = child;
+                break;
+            }
+            int common = commonPrefix(child.label, key, matched);
+            if (common < child.label.length()) {
+                // 在公共前缀处拆分边
+                Node middle = new Node(child.label.substring(0, common));
+                child.label = child.label.substring(common);
+                middle.child(child.label.charAt(0), child);
+                middle.top = child.top;
+                node.child(first, middle);
+                child = middle;
+            }
+            matched += common;
+            node = child;
+        }
+        node.addTerminal(term);
+    }
+
+    /**
+     * 删除键并清理空节点
+     *
+     * @return 删除前从根到键所在节点的路径，键不存在时返回 null
+     */
+    private List<Node> deleteKey(String key, Term term) {
+        List<Node> path = path(key);
+        if (path == null) {
+            return null;
+        }
+        Node node = path.get(path.size() - 1);
+        node.removeTerminal(term);
+        for (int i = path.size() - 1; i > 0; i--) {
+            Node current = path.get(i);
+            if (current.terminals == null && current.children == null) {
+                path.get(i - 1).removeChild(current.label.charAt(0));
+            }
+        }
+        return path;
+    }
+
+    /**
+     * 从根到键所在节点的路径，键不存在时返回 null
+     */
+    private List<Node> path(String key) {
+        List<Node> path = new ArrayList<>();
+        Node node = root;
+        path.add(node);
+        int matched = 0;
+        while (matched < key.length()) {
+            Node child = node.children == null ? null : node.children.get(key.charAt(matched));
+            if (child == null || !key.startsWith(child.label, matched)) {
+                return null;
+            }
+            matched += child.label.length();
+            node = child;
+            path.add(node);
+        }
+        return path;
+    }
+
+    /**
+     * 词条权重增加或新加入：其他词条不变，各节点的前K只可能接纳这一个词条，
+     * 已在前K中的向前移动到正确位置，否则与末位比较后替换
+     */
+    private void promote(List<Node> path, Term term) {
+        for (int i = path.size() - 1; i >= 0; i--) {
+            Node node = path.get(i);
+            Term[] top = node.top;
+            int index = indexOf(top, term);
+            if (index < 0) {
+                if (top.length == topK && compareTerm(term, top[top.length - 1]) >= 0) {
+                    // 本节点前K中的词条都在祖先的子树内，词条经这条路径同样进不了祖先的前K
+                    return;
+                }
+                top = Arrays.copyOf(top, Math.min(top.length + 1, topK));
+                index = top.length - 1;
+                top[index] = term;
+            } else {
+                top = top.clone();
+            }
+            while (index > 0 && compareTerm(top[index], top[index - 1]) < 0) {
+                Term swap = top[index - 1];
+                top[index - 1] = top[index];
+                top[index] = swap;
+                index--;
+            }
+            node.top = top;
+        }
+    }
+
+    /**
+     * 词条权重减少或被删除：原本不在某节点前K中的不会因此进入，只重算原本包含它的节点。
+     * 同一词条的多个键可能经过同一子树，所有路径上的节点按深度从深到浅统一重算，保证重算时子节点已是最新
+     */
+    private void demote(List<List<Node>> paths, Term term) {
+        int depth = 0;
+        for (List<Node> path : paths) {
+            depth = Math.max(depth, path.size());
+        }
+        Set<Node> done = Collections.newSetFromMap(new IdentityHashMap<>());
+        for (int i = depth - 1; i >= 0; i--) {
+            for (List<Node> path : paths) {
+                if (i < path.size()) {
+                    Node node = path.get(i);
+                    if (done.add(node) && indexOf(node.top, term) >= 0) {
+                        recompute(node);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * 后序遍历计算子树内所有节点的前K
+     */
+    private void computeSubtree(Node node) {
+        if (node.children != null) {
+            for (Node child : node.children.values()) {
+                computeSubtree(child);
+            }
+        }
+        recompute(node);
+    }
+
+    /**
+     * 重算单个节点的前K缓存：候选为节点自身的词条加上各子节点已有的前K，
+     * 用容量为K的堆选出，不对全部候选排序
+     */
+    private void recompute(Node node) {
+        PriorityQueue<Term> heap = new PriorityQueue<>(topK + 1, (a, c) -> compareTerm(c, a));
+        Set<Term> selected = Collections.newSetFromMap(new IdentityHashMap<>());
+        if (node.terminals != null) {
+            for (Term term : node.terminals) {
+                offer(heap, selected, term);
+            }
+        }
+        if (node.children != null) {
+            for (Node child : node.children.values()) {
+                for (Term term : child.top) {
+                    offer(heap, selected, term);
+                }
+            }
+        }
+        Term[] top = new Term[heap.size()];
+        for (int i = top.length - 1; i >= 0; i--) {
+            top[i] = heap.poll();
+        }
+        node.top = top;
+    }
+
+    private void offer(PriorityQueue<Term> heap, Set<Term> selected, Term term) {
+        // 同一词条可能以多个键出现在同一子树下
+        if (selected.contains(term)) {
+            return;
+        }
+        if (heap.size() == topK) {
+            if (compareTerm(term, heap.peek()) >= 0) {
+                return;
+            }
+            selected.remove(heap.poll());
+        }
+        heap.add(term);
+        selected.add(term);
+    }
+
+    private static int indexOf(Term[] top, Term term) {
+        for (int i = 0; i < top.length; i++) {
+            if (top[i] == term) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static int compareTerm(Term a, Term c) {
+        int byWeight = Long.compare(c.weight, a.weight);
+        if (byWeight != 0) {
+            return byWeight;
+        }
+        int byLength = Integer.compare(a.text.length(), c.text.length());
+        if (byLength != 0) {
+            return byLength;
+        }
+        // 不同字段的同名词条也要有确定的先后，增量维护和批量计算的结果才能一致
+        int byText = a.text.compareTo(c.text);
+        return byText != 0 ? byText : Integer.compare(a.field, c.field);
+    }
+
+    private static int commonPrefix(String label, String key, int offset) {
+        int max = Math.min(label.length(), key.length() - offset);
+        int i = 0;
+        while (i < max && label.charAt(i) == key.charAt(offset + i)) {
+            i++;
+        }
+        return i;
+    }
+
+    private static final class Term {
+        private final String text;
+        private final int field;
+        private final String normalized;
+        private final List<String> keys;
+        private long weight;
+        private int refs;
+
+        Term(String text, int field, String normalized, List<String> keys) {
+            this.text = text;
+            this.field = field;
+            this.normalized = normalized;
+            this.keys = keys;
+        }
+
+        String id() {
+            return field + ":" + normalized;
+        }
+    }
+
+    private record Contribution(List<Term> terms, long weight) {
+    }
+
+    private static final class Node {
+        private static final Term[] EMPTY = new Term[0];
+
+        private String label;
+        private Map<Character, Node> children;
+        private List<Term> terminals;
+        private Term[] top = EMPTY;
+
+        Node(String label) {
+            this.label = label;
+        }
+
+        void child(char first, Node child) {
+            if (children == null) {
+                children = new HashMap<>(4);
+            }
+            children.put(first, child);
+        }
+
+        void removeChild(char first) {
+            children.remove(first);
+            if (children.isEmpty()) {
+                children = null;
+            }
+        }
+
+        void addTerminal(Term term) {
+            if (terminals == null) {
+                terminals = new ArrayList<>(1);
+            }
+            terminals.add(term);
+        }
+
+        void removeTerminal(Term term) {
+            if (terminals != null) {
+                terminals.remove(term);
+                if (terminals.isEmpty()) {
+                    terminals = null;
+                }
+            }
+        }
+    }
+}
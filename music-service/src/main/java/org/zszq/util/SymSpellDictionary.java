@@ -0,0 +1,256 @@
+package org.zszq.util;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * 对称删除（SymSpell）拼写纠错词典
+ * 写入词语时预先生成其前缀在最大编辑距离内的所有删除变体，查询时只对输入做同样的删除，
+ * 在变体表中命中的词语再计算真实编辑距离，不需要枚举插入、替换，查询耗时与词典大小基本无关。
+ * 只对前 prefixLength 个字符生成变体以控制内存；词语按引用它的文档计数，文档删除时计数归零的词语从表中移除
+ */
+public class SymSpellDictionary {
+
+    private final int maxDistance;
+    private final int prefixLength;
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private final Map<String, Integer> counts = new HashMap<>();
+    private final Map<String, List<String>> deletes = new HashMap<>();
+    private final Map<Long, List<String>> contributions = new HashMap<>();
+    private int maxWordLength;
+
+    public SymSpellDictionary(int maxDistance, int prefixLength) {
+        this.maxDistance = maxDistance;
+        this.prefixLength = prefixLength;
+    }
+
+    /**
+     * 纠错候选
+     *
+     * @param distance 与输入的编辑距离
+     * @param count    引用该词语的文档数
+     */
+    public record Correction(String word, int distance, int count) {
+    }
+
+    /**
+     * 写入或替换文档中的词语
+     */
+    public void put(long id, List<String> words) {
+        lock.writeLock().lock();
+        try {
+            removeLocked(id);
+            List<String> distinct = List.copyOf(new HashSet<>(words));
+            for (String word : distinct) {
+                if (counts.merge(word, 1, Integer::sum) == 1) {
+                    addWord(word);
+                }
+            }
+            if (!distinct.isEmpty()) {
+                contributions.put(id, distinct);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public boolean remove(long id) {
+        lock.writeLock().lock();
+        try {
+            return removeLocked(id);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public boolean contains(String word) {
+        lock.readLock().lock();
+        try {
+            return counts.containsKey(word);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return counts.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * 查找编辑距离最小的词语，距离相同时取文档数多的
+     *
+     * @param distance 允许的最大编辑距离，不超过词典构建时的最大距离
+     * @return 没有候选时返回 null；输入本身在词典中时返回距离为0的结果
+     */
+    public Correction lookup(String input, int distance) {
+        int limit = Math.min(distance, maxDistance);
+        lock.readLock().lock();
+        try {
+            Integer exact = counts.get(input);
+            if (exact != null) {
+                return new Correction(input, 0, exact);
+            }
+            if (limit == 0 || input.length() - limit > maxWordLength) {
+                return null;
+            }
+
+            String inputPrefix = input.length() > prefixLength ? input.substring(0, prefixLength) : input;
+            Correction best = null;
+            Set<String> visited = new HashSet<>();
+            Set<String> checked = new HashSet<>();
+            Queue<String> candidates = new ArrayDeque<>();
+            candidates.add(inputPrefix);
+            visited.add(inputPrefix);
+
+            while (!candidates.isEmpty()) {
+                String candidate = candidates.poll();
+                int removed = inputPrefix.length() - candidate.length();
+                // 按删除字符数逐层展开，已删除的字符数超过当前最优距离时后面不可能更好
+                if (best != null && removed > best.distance()) {
+                    break;
+                }
+
+                List<String> words = deletes.get(candidate);
+                if (words != null) {
+                    for (String word : words) {
+                        if (Math.abs(word.length() - input.length()) > limit || !checked.add(word)) {
+                            continue;
+                        }
+                        int bound = best != null ? best.distance() : limit;
+                        int d = distance(input, word, bound);
+                        if (d < 0) {
+                            continue;
+                        }
+                        int count = counts.get(word);
+                        if (best == null || d < best.distance() || (d == best.distance() && count > best.count())) {
+                            best = new Correction(word, d, count);
+                        }
+                    }
+                }
+
+                if (removed < limit && candidate.length() > 1) {
+                    for (int i = 0; i < candidate.length(); i++) {
+                        String delete = candidate.substring(0, i) + candidate.substring(i + 1);
+                        if (visited.add(delete)) {
+                            candidates.add(delete);
+                        }
+                    }
+                }
+            }
+            return best;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private boolean removeLocked(long id) {
+        List<String> words = contributions.remove(id);
+        if (words == null) {
+            return false;
+        }
+        for (String word : words) {
+            if (counts.merge(word, -1, Integer::sum) == 0) {
+                counts.remove(word);
+                removeWord(word);
+            }
+        }
+        return true;
+    }
+
+    private void addWord(String word) {
+        maxWordLength = Math.max(maxWordLength, word.length());
+        for (String variant : variants(word)) {
+            deletes.computeIfAbsent(variant, key -> new ArrayList<>(1)).add(word);
+        }
+    }
+
+    private void removeWord(String word) {
+        for (String variant : variants(word)) {
+            List<String> words = deletes.get(variant);
+            if (words != null) {
+                words.remove(word);
+                if (words.isEmpty()) {
+                    deletes.remove(variant);
+                }
+            }
+        }
+    }
+
+    /**
+     * 词语前缀及其在最大编辑距离内的所有删除变体
+     */
+    private Set<String> variants(String word) {
+        String prefix = word.length() > prefixLength ? word.substring(0, prefixLength) : word;
+        Set<String> variants = new HashSet<>();
+        variants.add(prefix);
+        List<String> level = List.of(prefix);
+        for (int d = 0; d < maxDistance; d++) {
+            List<String> next = new ArrayList<>();
+            for (String current : level) {
+                if (current.length() <= 1) {
+                    continue;
+                }
+                for (int i = 0; i < current.length(); i++) {
+                    String delete = current.substring(0, i) + current.substring(i + 1);
+                    if (variants.add(delete)) {
+                        next.add(delete);
+                    }
+                }
+            }
+            level = next;
+        }
+        return variants;
+    }
+
+    /**
+     * 限定距离的编辑距离（相邻字符交换计为一次编辑），超过上限时返回 -1
+     */
+    static int distance(String a, String b, int bound) {
+        int n = a.length();
+        int m = b.length();
+        if (Math.abs(n - m) > bound) {
+            return -1;
+        }
+        int[] previous2 = new int[m + 1];
+        int[] previous = new int[m + 1];
+        int[] current = new int[m + 1];
+        for (int j = 0; j <= m; j++) {
+            previous[j] = j;
+        }
+        for (int i = 1; i <= n; i++) {
+            current[0] = i;
+            int rowMin = current[0];
+            for (int j = 1; j <= m; j++) {
+                int cost = a.charAt(i - 1) == b.charAt(j - 1) ? 0 : 1;
+                int value = Math.min(Math.min(previous[j] + 1, current[j - 1] + 1), previous[j - 1] + cost);
+                if (i > 1 && j > 1 && a.charAt(i - 1) == b.charAt(j - 2) && a.charAt(i - 2) == b.charAt(j - 1)) {
+                    value = Math.min(value, previous2[j - 2] + 1);
+                }
+                current[j] = value;
+                rowMin = Math.min(rowMin, value);
+            }
+            if (rowMin > bound) {
+                return -1;
+            }
+            int[] recycled = previous2;
+            previous2 = previous;
+            previous = current;
+            current = recycled;
+        }
+        return previous[m] <= bound ? previous[m] : -1;
+    }
+}
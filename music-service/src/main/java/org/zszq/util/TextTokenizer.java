@@ -0,0 +1,130 @@
+package org.zszq.util;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * 中英文混合分词
+ * 中日韩文字没有空格分隔，按连续片段切成单字和相邻二字组（"七里香" → 七、里、香、七里、里香）；
+ * 字母数字按单词切分；其余字符（空格、标点，以及部首、声调符号等不是字母的中日韩码点）作为分隔符。切分前统一做NFKC归一化并转小写，全角字母与半角等价
+ */
+public final class TextTokenizer {
+
+    private TextTokenizer() {
+    }
+
+    /**
+     * 索引用分词，保留重复词项以便统计词频
+     */
+    public static List<String> tokenize(String text) {
+        List<String> tokens = new ArrayList<>();
+        split(text, tokens, true);
+        return tokens;
+    }
+
+    /**
+     * 查询用分词，去重；中文片段长度大于1时只取二字组，选择性比单字高得多
+     */
+    public static Set<String> queryTokens(String text) {
+        List<String> tokens = new ArrayList<>();
+        split(text, tokens, false);
+        return new LinkedHashSet<>(tokens);
+    }
+
+    /**
+     * 按词切分：中日韩文字的连续片段整体作为一个词，字母数字按单词切分，用于拼写纠错词典
+     */
+    public static List<String> words(String text) {
+        List<String> words = new ArrayList<>();
+        if (text == null || text.isEmpty()) {
+            return words;
+        }
+        String normalized = normalize(text);
+        int length = normalized.length();
+        int i = 0;
+        while (i < length) {
+            int codePoint = normalized.codePointAt(i);
+            // 非字母数字一律作为分隔符，包括部首、声调符号等属于中日韩文字但不是字母的码点
+            if (!Character.isLetterOrDigit(codePoint)) {
+                i += Character.charCount(codePoint);
+                continue;
+            }
+            boolean cjk = isCjk(codePoint);
+            int start = i;
+            while (i < length) {
+                int c = normalized.codePointAt(i);
+                if (!Character.isLetterOrDigit(c) || isCjk(c) != cjk) {
+                    break;
+                }
+                i += Character.charCount(c);
+            }
+            if (i > start) {
+                words.add(normalized.substring(start, i));
+            }
+        }
+        return words;
+    }
+
+    public static String normalize(String text) {
+        return Normalizer.normalize(text, Normalizer.Form.NFKC).toLowerCase(Locale.ROOT);
+    }
+
+    private static void split(String text, List<String> tokens, boolean indexing) {
+        if (text == null || text.isEmpty()) {
+            return;
+        }
+        String normalized = normalize(text);
+        int length = normalized.length();
+        int i = 0;
+        while (i < length) {
+            int codePoint = normalized.codePointAt(i);
+            if (!Character.isLetterOrDigit(codePoint)) {
+                i += Character.charCount(codePoint);
+            } else if (isCjk(codePoint)) {
+                int start = i;
+                while (i < length) {
+                    int c = normalized.codePointAt(i);
+                    if (!Character.isLetterOrDigit(c) || !isCjk(c)) {
+                        break;
+                    }
+                    i += Character.charCount(c);
+                }
+                emitCjk(normalized.substring(start, i), tokens, indexing);
+            } else {
+                int start = i;
+                while (i < length) {
+                    int c = normalized.codePointAt(i);
+                    if (!Character.isLetterOrDigit(c) || isCjk(c)) {
+                        break;
+                    }
+                    i += Character.charCount(c);
+                }
+                tokens.add(normalized.substring(start, i));
+            }
+        }
+    }
+
+    private static void emitCjk(String run, List<String> tokens, boolean indexing) {
+        int[] codePoints = run.codePoints().toArray();
+        if (indexing || codePoints.length == 1) {
+            for (int codePoint : codePoints) {
+                tokens.add(new String(Character.toChars(codePoint)));
+            }
+        }
+        for (int i = 0; i + 1 < codePoints.length; i++) {
+            tokens.add(new String(codePoints, i, 2));
+        }
+    }
+
+    private static boolean isCjk(int codePoint) {
+        Character.UnicodeScript script = Character.UnicodeScript.of(codePoint);
+        return script == Character.UnicodeScript.HAN
+                || script == Character.UnicodeScript.HIRAGANA
+                || script == Character.UnicodeScript.KATAKANA
+                || script == Character.UnicodeScript.HANGUL;
+    }
+}
@@ -0,0 +1,33 @@
+package org.zszq.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class ByteRangesTest {
+
+    private static ByteRanges.Range range(long start, long end) {
+        return new ByteRanges.Range(start, end);
+    }
+
+    @Test
+    void mergesOverlappingAndAdjacentRanges() {
+        List<ByteRanges.Range> merged = ByteRanges.merge(List.of(
+                range(200, 299), range(0, 99), range(50, 149), range(150, 159), range(400, 499)));
+        assertEquals(List.of(range(0, 159), range(200, 299), range(400, 499)), merged);
+    }
+
+    @Test
+    void containedRangeDoesNotShrinkMergedRange() {
+        assertEquals(List.of(range(0, 999)), ByteRanges.merge(List.of(range(0, 999), range(10, 20))));
+    }
+
+    @Test
+    void totalLengthCountsOverlapsRepeatedly() {
+        List<ByteRanges.Range> ranges = List.of(range(0, 99), range(0, 99), range(50, 59));
+        assertEquals(210, ByteRanges.totalLength(ranges));
+        assertEquals(100, ByteRanges.totalLength(ByteRanges.merge(ranges)));
+    }
+}
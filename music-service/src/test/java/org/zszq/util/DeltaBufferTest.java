@@ -0,0 +1,57 @@
+package org.zszq.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class DeltaBufferTest {
+
+    @Test
+    void drainsMergedDeltasInAscendingIdOrder() {
+        DeltaBuffer buffer = new DeltaBuffer();
+        long[] order = {907, 3, 41, 100_000, 3, 58, 907, 2};
+        for (long id : order) {
+            buffer.add(id, 1);
+        }
+        buffer.add(58L, -1);
+
+        List<Long[]> written = new ArrayList<>();
+        int count = buffer.drainTo((ids, deltas) -> {
+            written.add(ids);
+            written.add(deltas);
+            return ids.length;
+        });
+
+        // 58 的增量合计为0，不写回
+        assertEquals(5, count);
+        assertArrayEquals(new Long[]{2L, 3L, 41L, 907L, 100_000L}, written.get(0));
+        assertArrayEquals(new Long[]{1L, 2L, 1L, 2L, 1L}, written.get(1));
+        assertEquals(0, buffer.drainTo((ids, deltas) -> ids.length));
+    }
+
+    @Test
+    void failedWriteKeepsDeltasForNextDrain() {
+        DeltaBuffer buffer = new DeltaBuffer();
+        buffer.add(5L, 2);
+        buffer.add(1L, 1);
+
+        assertThrows(IllegalStateException.class, () -> buffer.drainTo((ids, deltas) -> {
+            throw new IllegalStateException("写入失败");
+        }));
+        buffer.add(5L, 1);
+
+        List<Long[]> written = new ArrayList<>();
+        buffer.drainTo((ids, deltas) -> {
+            written.add(ids);
+            written.add(deltas);
+            return ids.length;
+        });
+        assertArrayEquals(new Long[]{1L, 5L}, written.get(0));
+        assertArrayEquals(new Long[]{1L, 3L}, written.get(1));
+    }
+}
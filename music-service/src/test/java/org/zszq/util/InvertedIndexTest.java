@@ -0,0 +1,126 @@
+package org.zszq.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class InvertedIndexTest {
+
+    private static final float[] WEIGHTS = {3f, 2f, 1f};
+
+    private static InvertedIndex index() {
+        return new InvertedIndex(1.2f, 0.75f);
+    }
+
+    private static void put(InvertedIndex index, long id, String title, String artist, String album) {
+        index.put(id, new String[]{title, artist, album}, WEIGHTS);
+    }
+
+    @Test
+    void searchRequiresAllTerms() {
+        InvertedIndex index = index();
+        put(index, 1, "Summer Rain", "Lee", null);
+        put(index, 2, "Summer Night", "Lee", null);
+        put(index, 3, "Winter Rain", "Lin", null);
+
+        InvertedIndex.SearchHits hits = index.search("summer rain", 0, 10);
+        assertEquals(1, hits.total());
+        assertArrayEquals(new long[]{1}, hits.ids());
+        assertEquals(0, index.search("summer snow", 0, 10).total());
+    }
+
+    @Test
+    void titleMatchOutranksAlbumMatch() {
+        InvertedIndex index = index();
+        put(index, 1, "其他", "某人", "七里香");
+        put(index, 2, "七里香", "某人", "其他");
+
+        assertArrayEquals(new long[]{2, 1}, index.search("七里香", 0, 10).ids());
+    }
+
+    @Test
+    void pagesAreContiguousAndDisjoint() {
+        InvertedIndex index = index();
+        for (long id = 1; id <= 25; id++) {
+            put(index, id, "love song " + id, "artist", null);
+        }
+
+        InvertedIndex.SearchHits first = index.search("love", 0, 10);
+        InvertedIndex.SearchHits second = index.search("love", 10, 10);
+        InvertedIndex.SearchHits third = index.search("love", 20, 10);
+        assertEquals(25, first.total());
+        assertEquals(10, second.ids().length);
+        assertEquals(5, third.ids().length);
+
+        long[] all = index.search("love", 0, 25).ids();
+        assertArrayEquals(Arrays.copyOfRange(all, 10, 20), second.ids());
+        assertArrayEquals(Arrays.copyOfRange(all, 20, 25), third.ids());
+    }
+
+    /**
+     * 游标翻页途中改变每页大小，结果与一次取全部相同，不重复也不遗漏
+     */
+    @Test
+    void searchAfterPagesByScoreAndIdAcrossPageSizes() {
+        InvertedIndex index = index();
+        for (long id = 1; id <= 30; id++) {
+            // 三种标题长度产生三档得分，每档内同分按ID翻页
+            put(index, id, "love" + " la".repeat((int) (id % 3)), "artist", null);
+        }
+
+        long[] all = index.search("love", 0, 30).ids();
+        List<Long> paged = new ArrayList<>();
+        float score = Float.POSITIVE_INFINITY;
+        long id = Long.MAX_VALUE;
+        int[] sizes = {4, 7, 1, 10, 20};
+        for (int i = 0; ; i++) {
+            InvertedIndex.ScoredHits hits = index.searchAfter("love", score, id, sizes[i % sizes.length]);
+            if (hits.ids().length == 0) {
+                break;
+            }
+            for (long hit : hits.ids()) {
+                paged.add(hit);
+            }
+            score = hits.scores()[hits.scores().length - 1];
+            id = hits.ids()[hits.ids().length - 1];
+        }
+        assertEquals(Arrays.stream(all).boxed().toList(), paged);
+    }
+
+    @Test
+    void putReplacesPreviousVersion() {
+        InvertedIndex index = index();
+        put(index, 1, "Old Title", "Lee", null);
+        put(index, 1, "New Title", "Lee", null);
+
+        assertEquals(0, index.search("old", 0, 10).total());
+        assertArrayEquals(new long[]{1}, index.search("new", 0, 10).ids());
+        assertEquals(1, index.size());
+    }
+
+    @Test
+    void removedDocumentsDisappearAcrossCompaction() {
+        InvertedIndex index = index();
+        for (long id = 1; id <= 5000; id++) {
+            put(index, id, "track " + (id % 2 == 0 ? "even" : "odd"), "artist", null);
+        }
+        // 删除超过四分之一，触发整体压缩
+        for (long id = 1; id <= 3000; id++) {
+            assertTrue(index.remove(id));
+        }
+        assertFalse(index.remove(1));
+
+        assertEquals(2000, index.size());
+        assertEquals(1000, index.search("even", 0, 10).total());
+        long[] all = index.matchAll("track");
+        assertEquals(2000, all.length);
+        assertTrue(Arrays.stream(all).allMatch(id -> id > 3000));
+    }
+}
@@ -0,0 +1,61 @@
+package org.zszq.util;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class PlayJournalTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void readsAcrossSegmentsAndAfterReopen() throws Exception {
+        // 每个分段4条记录，10条记录跨3个分段
+        long segmentBytes = 4L * PlayJournal.RECORD_SIZE;
+        try (PlayJournal journal = new PlayJournal(directory, segmentBytes)) {
+            for (int i = 0; i < 10; i++) {
+                assertEquals(i, journal.append(100 + i, i, 1_000 + i, i % 3));
+                if (i % 3 == 0) {
+                    journal.sync();
+                }
+            }
+            PlayJournal.Batch batch = journal.read(0, 100);
+            assertEquals(10, batch.events().size());
+            assertEquals(10, batch.nextOffset());
+        }
+
+        try (PlayJournal reopened = new PlayJournal(directory, segmentBytes)) {
+            List<PlayJournal.Event> events = reopened.read(0, 100).events();
+            assertEquals(10, events.size());
+            for (int i = 0; i < 10; i++) {
+                PlayJournal.Event event = events.get(i);
+                assertEquals(i, event.offset());
+                assertEquals(100 + i, event.musicId());
+                assertEquals(1_000 + i, event.timestamp());
+                assertEquals(i % 3, event.source());
+            }
+            // 新记录接在已有记录之后
+            assertEquals(10, reopened.append(1, 1, 1, 0));
+        }
+    }
+
+    @Test
+    void readResumesFromReturnedOffset() throws Exception {
+        try (PlayJournal journal = new PlayJournal(directory, 1024L * PlayJournal.RECORD_SIZE)) {
+            for (int i = 0; i < 5; i++) {
+                journal.append(i, 0, i, 0);
+            }
+            PlayJournal.Batch first = journal.read(0, 3);
+            assertEquals(3, first.events().size());
+            PlayJournal.Batch second = journal.read(first.nextOffset(), 3);
+            assertEquals(2, second.events().size());
+            assertEquals(3, second.events().get(0).musicId());
+            assertEquals(5, second.nextOffset());
+        }
+    }
+}
@@ -0,0 +1,176 @@
+package org.zszq.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.TreeSet;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SuggestTrieTest {
+
+    private static final int TOP_K = 3;
+
+    private static List<String> texts(List<SuggestTrie.Suggestion> suggestions) {
+        return suggestions.stream().map(SuggestTrie.Suggestion::text).toList();
+    }
+
+    @Test
+    void suggestsByPrefixWordStartAndPinyin() {
+        SuggestTrie trie = new SuggestTrie(TOP_K);
+        trie.put(1, new String[]{"Shape of You", "Ed Sheeran"}, 5);
+        trie.put(2, new String[]{"七里香", "周杰伦"}, 3);
+
+        assertEquals(List.of("Shape of You"), texts(trie.suggest("sha", 10)));
+        assertEquals(List.of("Shape of You"), texts(trie.suggest("you", 10)));
+        assertEquals(List.of("七里香"), texts(trie.suggest("qlx", 10)));
+        assertEquals(List.of("周杰伦"), texts(trie.suggest("zhoujie", 10)));
+        assertEquals(1, trie.suggest("ed", 10).get(0).field());
+        assertTrue(trie.suggest("shx", 10).isEmpty());
+    }
+
+    @Test
+    void termWeightSumsAcrossDocumentsAndFollowsUpdates() {
+        SuggestTrie trie = new SuggestTrie(TOP_K);
+        trie.put(1, new String[]{"love a"}, 5);
+        trie.put(2, new String[]{"love b"}, 3);
+        trie.put(3, new String[]{"love b"}, 3);
+        assertEquals(List.of("love b", "love a"), texts(trie.suggest("love", 10)));
+        assertEquals(6, trie.suggest("love b", 1).get(0).weight());
+
+        // 替换文档降低权重，排名随之变化
+        trie.put(2, new String[]{"love b"}, 1);
+        assertEquals(List.of("love a", "love b"), texts(trie.suggest("love", 10)));
+
+        trie.remove(1);
+        assertEquals(List.of("love b"), texts(trie.suggest("love", 10)));
+        trie.remove(2);
+        trie.remove(3);
+        assertTrue(trie.suggest("love", 10).isEmpty());
+        assertEquals(0, trie.size());
+    }
+
+    @Test
+    void demotedTermIsReplacedByNextBestBelowTopK() {
+        SuggestTrie trie = new SuggestTrie(TOP_K);
+        for (int i = 0; i < 6; i++) {
+            trie.put(i, new String[]{"star " + (char) ('a' + i)}, 10 - i);
+        }
+        assertEquals(List.of("star a", "star b", "star c"), texts(trie.suggest("star", 10)));
+
+        // 前K之外的候选没有缓存在父节点，降权后需从子节点补上
+        trie.put(0, new String[]{"star a"}, 1);
+        assertEquals(List.of("star b", "star c", "star d"), texts(trie.suggest("star", 10)));
+        trie.put(5, new String[]{"star f"}, 100);
+        assertEquals(List.of("star f", "star b", "star c"), texts(trie.suggest("s", 10)));
+    }
+
+    /**
+     * 随机增删改与逐条计算的结果一致，批量写入与增量写入的结果一致
+     */
+    @Test
+    void incrementalAndBulkLoadMatchBruteForce() {
+        Random random = new Random(11);
+        String[] words = {"love", "lone", "long", "night", "nine", "star", "stay", "sky", "so", "blue"};
+        Map<Long, String[]> documents = new HashMap<>();
+        Map<Long, Long> weights = new HashMap<>();
+        SuggestTrie incremental = new SuggestTrie(TOP_K);
+
+        for (int round = 0; round < 2000; round++) {
+            long id = random.nextInt(150);
+            if (random.nextInt(5) == 0) {
+                incremental.remove(id);
+                documents.remove(id);
+                weights.remove(id);
+                continue;
+            }
+            String[] fields = new String[2];
+            for (int field = 0; field < fields.length; field++) {
+                if (random.nextInt(6) > 0) {
+                    int length = 1 + random.nextInt(3);
+                    StringBuilder text = new StringBuilder();
+                    for (int i = 0; i < length; i++) {
+                        text.append(i > 0 ? " " : "").append(words[random.nextInt(words.length)]);
+                    }
+                    fields[field] = text.toString();
+                }
+            }
+            long weight = 1 + random.nextInt(20);
+            incremental.put(id, fields, weight);
+            documents.put(id, fields);
+            weights.put(id, weight);
+        }
+
+        SuggestTrie bulk = new SuggestTrie(TOP_K);
+        bulk.startBulkLoad();
+        documents.forEach((id, fields) -> bulk.put(id, fields, weights.get(id)));
+        bulk.finishBulkLoad();
+
+        Map<String, Long> termWeights = new HashMap<>();
+        documents.forEach((id, fields) -> {
+            for (int field = 0; field < fields.length; field++) {
+                if (fields[field] != null) {
+                    termWeights.merge(field + ":" + fields[field], weights.get(id), Long::sum);
+                }
+            }
+        });
+
+        Set<String> prefixes = new TreeSet<>();
+        for (String term : termWeights.keySet()) {
+            String text = term.substring(2);
+            for (int i = 1; i <= text.length(); i++) {
+                // 查询前缀会去掉首尾空白
+                if (text.charAt(i - 1) != ' ') {
+                    prefixes.add(text.substring(0, i));
+                }
+            }
+        }
+        prefixes.add("x");
+        for (String prefix : prefixes) {
+            List<String> expected = bruteForce(termWeights, prefix);
+            assertEquals(expected, describe(incremental.suggest(prefix, TOP_K)), "incremental: " + prefix);
+            assertEquals(expected, describe(bulk.suggest(prefix, TOP_K)), "bulk: " + prefix);
+        }
+        // 所有字段都为空的文档不计入
+        long nonEmpty = documents.values().stream()
+                .filter(fields -> fields[0] != null || fields[1] != null)
+                .count();
+        assertEquals(nonEmpty, incremental.size());
+        assertEquals(nonEmpty, bulk.size());
+    }
+
+    private static List<String> describe(List<SuggestTrie.Suggestion> suggestions) {
+        return suggestions.stream().map(s -> s.field() + ":" + s.text() + "=" + s.weight()).toList();
+    }
+
+    /**
+     * 词条的键为完整文本和各单词开头处的后缀，排序与 SuggestTrie 相同：权重降序、文本长度升序、文本升序、字段升序
+     */
+    private static List<String> bruteForce(Map<String, Long> termWeights, String prefix) {
+        List<Map.Entry<String, Long>> matched = new ArrayList<>();
+        for (Map.Entry<String, Long> entry : termWeights.entrySet()) {
+            String text = entry.getKey().substring(2);
+            boolean matches = text.startsWith(prefix);
+            for (int i = 1; i < text.length() && !matches; i++) {
+                matches = text.charAt(i - 1) == ' ' && text.startsWith(prefix, i);
+            }
+            if (matches) {
+                matched.add(entry);
+            }
+        }
+        matched.sort(Comparator.<Map.Entry<String, Long>>comparingLong(Map.Entry::getValue).reversed()
+                .thenComparingInt(entry -> entry.getKey().length())
+                .thenComparing(entry -> entry.getKey().substring(2))
+                .thenComparing(entry -> entry.getKey().charAt(0)));
+        return matched.stream().limit(TOP_K)
+                .map(entry -> entry.getKey() + "=" + entry.getValue())
+                .toList();
+    }
+}
@@ -0,0 +1,105 @@
+package org.zszq.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SymSpellDictionaryTest {
+
+    private static SymSpellDictionary dictionary() {
+        return new SymSpellDictionary(2, 7);
+    }
+
+    @Test
+    void exactWordHasDistanceZero() {
+        SymSpellDictionary dictionary = dictionary();
+        dictionary.put(1, List.of("forever"));
+
+        SymSpellDictionary.Correction correction = dictionary.lookup("forever", 2);
+        assertEquals("forever", correction.word());
+        assertEquals(0, correction.distance());
+        assertEquals(1, correction.count());
+    }
+
+    @Test
+    void correctsSubstitutionDeletionInsertionAndTransposition() {
+        SymSpellDictionary dictionary = dictionary();
+        dictionary.put(1, List.of("tonight", "memory"));
+
+        assertEquals("tonight", dictionary.lookup("tonigjt", 2).word());
+        assertEquals("tonight", dictionary.lookup("tonigt", 2).word());
+        assertEquals("tonight", dictionary.lookup("toniight", 2).word());
+        assertEquals("memory", dictionary.lookup("meomry", 2).word());
+        assertEquals(1, dictionary.lookup("meomry", 2).distance());
+    }
+
+    @Test
+    void correctsTwoEditsBeyondPrefix() {
+        SymSpellDictionary dictionary = dictionary();
+        dictionary.put(1, List.of("kachenlinwei"));
+
+        SymSpellDictionary.Correction correction = dictionary.lookup("kachnlinwie", 2);
+        assertEquals("kachenlinwei", correction.word());
+        assertEquals(2, correction.distance());
+    }
+
+    @Test
+    void respectsRequestedDistance() {
+        SymSpellDictionary dictionary = dictionary();
+        dictionary.put(1, List.of("summer"));
+
+        assertNull(dictionary.lookup("sunmre", 1));
+        assertEquals("summer", dictionary.lookup("sunmre", 2).word());
+        assertNull(dictionary.lookup("winter", 2));
+    }
+
+    @Test
+    void prefersWordReferencedByMoreDocuments() {
+        SymSpellDictionary dictionary = dictionary();
+        dictionary.put(1, List.of("light"));
+        dictionary.put(2, List.of("night"));
+        dictionary.put(3, List.of("night"));
+
+        assertEquals("night", dictionary.lookup("kight", 1).word());
+        assertEquals(2, dictionary.lookup("night", 1).count());
+    }
+
+    @Test
+    void correctsChineseCharacter() {
+        SymSpellDictionary dictionary = dictionary();
+        dictionary.put(1, List.of("七里香"));
+
+        assertEquals("七里香", dictionary.lookup("七理香", 1).word());
+    }
+
+    @Test
+    void removingLastReferenceDropsWord() {
+        SymSpellDictionary dictionary = dictionary();
+        dictionary.put(1, List.of("ocean", "river"));
+        dictionary.put(2, List.of("river"));
+
+        assertTrue(dictionary.remove(1));
+        assertFalse(dictionary.remove(1));
+        assertFalse(dictionary.contains("ocean"));
+        assertNull(dictionary.lookup("ocaen", 2));
+        assertEquals("river", dictionary.lookup("rivr", 1).word());
+
+        // 替换文档时旧词语的引用同样释放
+        dictionary.put(2, List.of("shadow"));
+        assertEquals(1, dictionary.size());
+        assertTrue(dictionary.contains("shadow"));
+    }
+
+    @Test
+    void distanceCountsTranspositionOnceAndStopsAtBound() {
+        assertEquals(1, SymSpellDictionary.distance("ab", "ba", 2));
+        assertEquals(-1, SymSpellDictionary.distance("kitten", "sitting", 2));
+        assertEquals(3, SymSpellDictionary.distance("kitten", "sitting", 3));
+        assertEquals(-1, SymSpellDictionary.distance("a", "abcd", 2));
+    }
+}
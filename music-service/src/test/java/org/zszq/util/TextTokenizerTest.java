@@ -0,0 +1,65 @@
+package org.zszq.util;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TextTokenizerTest {
+
+    @Test
+    void wordsSplitsCjkRunsAndLatinWords() {
+        assertEquals(List.of("周杰伦", "jay", "chou", "七里香"), TextTokenizer.words("周杰伦 Jay-Chou《七里香》"));
+    }
+
+    @Test
+    void wordsNormalizesFullWidthLetters() {
+        assertEquals(List.of("abc123"), TextTokenizer.words("ＡＢＣ１２３"));
+    }
+
+    /**
+     * 属于中日韩文字但不是字母的码点（部首、声调符号）曾导致死循环
+     */
+    @Test
+    @Timeout(1)
+    void wordsTreatsCjkNonLettersAsSeparators() {
+        assertEquals(List.of("abc", "def"), TextTokenizer.words("abc ⺀ def"));
+        assertEquals(List.of("abc", "def"), TextTokenizer.words("abc〮def"));
+        assertEquals(List.of("한국", "노래"), TextTokenizer.words("한국〮노래"));
+        assertEquals(List.of("七里", "香"), TextTokenizer.words("七里⺀香"));
+        assertEquals(List.of(), TextTokenizer.words("⺀⺁〮〯"));
+    }
+
+    @Test
+    @Timeout(1)
+    void wordsNeverReturnsEmptyTokens() {
+        String text = "⺀a〮　・、b⼀⿕";
+        for (String word : TextTokenizer.words(text)) {
+            assertFalse(word.isEmpty());
+        }
+    }
+
+    @Test
+    void tokenizeEmitsCjkUnigramsAndBigrams() {
+        assertEquals(List.of("七", "里", "香", "七里", "里香"), TextTokenizer.tokenize("七里香"));
+    }
+
+    @Test
+    void queryTokensUseBigramsForLongCjkRuns() {
+        assertEquals(Set.of("七里", "里香", "jay"), TextTokenizer.queryTokens("七里香 jay"));
+        assertEquals(Set.of("爱"), TextTokenizer.queryTokens("爱"));
+    }
+
+    @Test
+    @Timeout(1)
+    void tokenizeSkipsCjkNonLetters() {
+        List<String> tokens = TextTokenizer.tokenize("七里⺀香〮abc");
+        assertEquals(List.of("七", "里", "七里", "香", "abc"), tokens);
+        assertTrue(tokens.stream().noneMatch(String::isEmpty));
+    }
+}
@@ -16,6 +16,7 @@ import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.*;
+import org.zszq.dto.CursorPage;
 import org.zszq.dto.UserRegistrationDto;
 import org.zszq.dto.UserResponseDto;
 import org.zszq.dto.UserUpdateDto;
@@ -228,6 +229,45 @@ public class UserController {
         return ResponseEntity.ok(userDtos);
     }
 
+    /**
+     * 游标分页获取用户列表
+     * 仅限管理员使用，按注册时间倒序，使用上一页返回的游标翻页，不查询总数，翻到后面也不会变慢
+     * 
+     * @param cursor 上一页返回的 nextCursor，为空时从第一页开始
+     * @param size 每页大小
+     * @return 用户信息列表及下一页游标
+     */
+    @Operation(
+        summary = "游标分页获取用户",
+        description = "管理员按注册时间倒序游标分页查询用户，响应中的 nextCursor 为空表示没有更多数据",
+        security = @SecurityRequirement(name = "bearerAuth")
+    )
+    @ApiResponses(value = {
+        @ApiResponse(
+            responseCode = "200",
+            description = "查询成功",
+            content = @Content(
+                mediaType = "application/json",
+                schema = @Schema(implementation = CursorPage.class)
+            )
+        ),
+        @ApiResponse(
+            responseCode = "403",
+            description = "权限不足，仅管理员可访问",
+            content = @Content(schema = @Schema(type = "string"))
+        )
+    })
+    @GetMapping("/cursor")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<CursorPage<UserResponseDto>> getUsersByCursor(
+            @Parameter(description = "上一页返回的游标")
+            @RequestParam(required = false) String cursor,
+            @Parameter(description = "每页大小", example = "20")
+            @RequestParam(defaultValue = "20") int size) {
+        CursorPage<User> users = userService.findAllUsers(cursor, size);
+        return ResponseEntity.ok(users.map(UserResponseDto::fromUser));
+    }
+
     /**
      * 删除用户
      * 仅限管理员使用，删除指定的用户账号
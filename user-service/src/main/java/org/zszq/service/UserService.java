@@ -2,6 +2,7 @@ package org.zszq.service;
 
 import lombok.RequiredArgsConstructor;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.core.userdetails.UserDetailsService;
@@ -9,14 +10,17 @@ import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.zszq.dto.CursorPage;
 import org.zszq.dto.UserRegistrationDto;
 import org.zszq.dto.UserUpdateDto;
 import org.zszq.entity.User;
 import org.zszq.exception.ResourceNotFoundException;
 import org.zszq.exception.UserAlreadyExistsException;
 import org.zszq.repository.UserRepository;
+import org.zszq.util.CursorCodec;
 
 import java.time.LocalDateTime;
+import java.util.List;
 import java.util.Optional;
 
 @Service
@@ -71,6 +75,18 @@ public class UserService implements UserDetailsService {
         return userRepository.findAll(pageable);
     }
 
+    /**
+     * 游标分页获取用户，按注册时间倒序，不查询总数
+     */
+    public CursorPage<User> findAllUsers(String cursor, int size) {
+        CursorCodec.Position position = CursorCodec.decode(cursor);
+        List<User> rows = userRepository.findAllBefore(
+                position != null ? position.time() : CursorCodec.MAX_TIME,
+                position != null ? position.id() : Long.MAX_VALUE,
+                PageRequest.of(0, size + 1));
+        return CursorPage.of(rows, size, user -> CursorCodec.encode(user.getCreatedAt(), user.getId()));
+    }
+
     public User updateUser(Long id, UserUpdateDto updateDto) {
         User user = findById(id);
         